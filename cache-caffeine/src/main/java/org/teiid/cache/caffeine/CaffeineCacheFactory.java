@@ -26,15 +26,36 @@ import java.util.concurrent.TimeUnit;
 
 import org.checkerframework.checker.index.qual.NonNegative;
 import org.checkerframework.checker.nullness.qual.NonNull;
+import org.teiid.cache.Cachable;
 import org.teiid.cache.Cache;
 import org.teiid.cache.CacheFactory;
+import org.teiid.core.util.PropertiesUtils;
+import org.teiid.logging.LogConstants;
+import org.teiid.logging.LogManager;
 
 import com.github.benmanes.caffeine.cache.Caffeine;
 import com.github.benmanes.caffeine.cache.Expiry;
 
+/**
+ * Creates caches bounded by the estimated bytes of their entries.
+ * <br>
+ * The budget and the minimum cost for admission default to the {@link #MAX_BYTES} and {@link #MIN_COST}
+ * properties and may be set for an individual cache with the properties org.teiid.caffeine.&lt;cache name&gt;.maxBytes
+ * and org.teiid.caffeine.&lt;cache name&gt;.minCost
+ */
 @SuppressWarnings({"rawtypes", "unchecked"})
 public class CaffeineCacheFactory implements CacheFactory {
 
+    public static final String PREFIX = "org.teiid.caffeine."; //$NON-NLS-1$
+    public static final String MAX_BYTES = PREFIX + "maxBytes"; //$NON-NLS-1$
+    public static final String MIN_COST = PREFIX + "minCost"; //$NON-NLS-1$
+
+    static final long DEFAULT_MAX_BYTES = 1L << 28;
+    /**
+     * The weight of values that do not provide a size estimate
+     */
+    static final int DEFAULT_WEIGHT = 1 << 12;
+
     static class ExpiringValue<V> {
         private V value;
         private Long ttl;
@@ -57,12 +78,19 @@ public class CaffeineCacheFactory implements CacheFactory {
 
     static class CaffeineCache<K, V> implements Cache<K, V> {
         private String name;
+        private com.github.benmanes.caffeine.cache.Cache<K, ExpiringValue<V>> cache;
         private Map<K, ExpiringValue<V>> delegate;
+        private long maxBytes;
+        private long minCost;
 
-        CaffeineCache(String cacheName, int maxSize) {
+        CaffeineCache(String cacheName, long maxBytes, long minCost) {
             this.name = cacheName;
-            this.delegate = Caffeine.newBuilder()
-                    .maximumSize(maxSize)
+            this.maxBytes = maxBytes;
+            this.minCost = minCost;
+            this.cache = Caffeine.newBuilder()
+                    .maximumWeight(maxBytes)
+                    .<K, ExpiringValue<V>>weigher((key, value) -> getWeight(value.value))
+                    .recordStats()
                     .expireAfter(new Expiry<K, ExpiringValue<V>>() {
                         @Override
                         public long expireAfterCreate(@NonNull K key, @NonNull ExpiringValue<V> value, long currentTime) {
@@ -90,11 +118,42 @@ public class CaffeineCacheFactory implements CacheFactory {
                             return currentDuration;
                         }
                     })
-                    .build().asMap();
+                    .build();
+            this.delegate = this.cache.asMap();
+        }
+
+        static int getWeight(Object value) {
+            if (value instanceof Cachable) {
+                return (int)Math.min(Integer.MAX_VALUE, Math.max(1, ((Cachable)value).getSizeEstimate()));
+            }
+            return DEFAULT_WEIGHT;
+        }
+
+        /**
+         * Entries that would exceed the whole budget or that are cheaper to recompute
+         * than the minimum cost are not worth displacing other entries.
+         */
+        boolean admit(K key, V value) {
+            if (!(value instanceof Cachable)) {
+                return true;
+            }
+            Cachable c = (Cachable)value;
+            if (c.getSizeEstimate() > maxBytes) {
+                LogManager.logDetail(LogConstants.CTX_DQP, "Not adding entry", key, "to cache", name, "since its size estimate", c.getSizeEstimate(), "exceeds the cache maximum", maxBytes); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+                return false;
+            }
+            if (c.getCost() >= 0 && c.getCost() < minCost) {
+                LogManager.logDetail(LogConstants.CTX_DQP, "Not adding entry", key, "to cache", name, "since its cost", c.getCost(), "is less than the minimum", minCost); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+                return false;
+            }
+            return true;
         }
 
         @Override
         public V put(K key, V value, Long ttl) {
+            if (!admit(key, value)) {
+                return null;
+            }
             ExpiringValue<V> existing = delegate.put(key, new ExpiringValue<>(value, ttl));
             if (existing != null) {
                 return existing.value;
@@ -144,13 +203,33 @@ public class CaffeineCacheFactory implements CacheFactory {
         public Set<K> keySet() {
             return delegate.keySet();
         }
+
+        @Override
+        public long getEvictionCount() {
+            return cache.stats().evictionCount();
+        }
+
+        /**
+         * @return the current sum of the entry weights
+         */
+        long getWeightedSize() {
+            return cache.policy().eviction().get().weightedSize().getAsLong();
+        }
+
+        void cleanUp() {
+            cache.cleanUp();
+        }
     }
 
     private Map<String, Cache> map = new HashMap<>();
 
     @Override
     public <K, V> Cache<K, V> get(String name) {
-        map.put(name, new CaffeineCache<K,V>(name, 512));
+        long maxBytes = PropertiesUtils.getHierarchicalProperty(PREFIX + name + ".maxBytes", //$NON-NLS-1$
+                PropertiesUtils.getHierarchicalProperty(MAX_BYTES, DEFAULT_MAX_BYTES, Long.class), Long.class);
+        long minCost = PropertiesUtils.getHierarchicalProperty(PREFIX + name + ".minCost", //$NON-NLS-1$
+                PropertiesUtils.getHierarchicalProperty(MIN_COST, 0L, Long.class), Long.class);
+        map.put(name, new CaffeineCache<K,V>(name, maxBytes, minCost));
         return map.get(name);
     }
 
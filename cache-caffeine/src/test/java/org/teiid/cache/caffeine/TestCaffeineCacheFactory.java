@@ -21,7 +21,10 @@ package org.teiid.cache.caffeine;
 import static org.junit.Assert.*;
 
 import org.junit.Test;
+import org.teiid.cache.Cachable;
 import org.teiid.cache.Cache;
+import org.teiid.common.buffer.TupleBufferCache;
+import org.teiid.dqp.internal.process.AccessInfo;
 
 public class TestCaffeineCacheFactory {
 
@@ -38,4 +41,77 @@ public class TestCaffeineCacheFactory {
         assertNull(cache.get("key"));
     }
 
+    private static final class SizedValue implements Cachable {
+        private long size;
+        private long cost;
+
+        public SizedValue(long size, long cost) {
+            this.size = size;
+            this.cost = cost;
+        }
+
+        @Override
+        public boolean prepare(TupleBufferCache bufferManager) {
+            return true;
+        }
+
+        @Override
+        public boolean restore(TupleBufferCache bufferManager) {
+            return true;
+        }
+
+        @Override
+        public AccessInfo getAccessInfo() {
+            return null;
+        }
+
+        @Override
+        public long getSizeEstimate() {
+            return size;
+        }
+
+        @Override
+        public long getCost() {
+            return cost;
+        }
+    }
+
+    @Test public void testWeightedEviction() {
+        CaffeineCacheFactory.CaffeineCache<Integer, SizedValue> cache = new CaffeineCacheFactory.CaffeineCache<>("x", 1000, 0);
+        for (int i = 0; i < 10; i++) {
+            cache.put(i, new SizedValue(400, -1), null);
+        }
+        cache.cleanUp();
+        assertTrue(cache.size() <= 2);
+        assertTrue(cache.getWeightedSize() <= 1000);
+        assertEquals(10 - cache.size(), cache.getEvictionCount());
+    }
+
+    @Test public void testAdmission() {
+        CaffeineCacheFactory.CaffeineCache<Integer, SizedValue> cache = new CaffeineCacheFactory.CaffeineCache<>("x", 1000, 10);
+        cache.put(1, new SizedValue(2000, 100), null);
+        assertNull(cache.get(1));
+        cache.put(2, new SizedValue(100, 5), null);
+        assertNull(cache.get(2));
+        cache.put(3, new SizedValue(100, 10), null);
+        assertNotNull(cache.get(3));
+        cache.put(4, new SizedValue(100, -1), null);
+        assertNotNull(cache.get(4));
+    }
+
+    @Test public void testCacheBudgetProperty() {
+        System.setProperty(CaffeineCacheFactory.PREFIX + "small.maxBytes", "100");
+        try {
+            CaffeineCacheFactory ccf = new CaffeineCacheFactory();
+            Cache<Integer, SizedValue> cache = ccf.get("small");
+            cache.put(1, new SizedValue(200, -1), null);
+            assertNull(cache.get(1));
+            cache = ccf.get("default");
+            cache.put(1, new SizedValue(200, -1), null);
+            assertNotNull(cache.get(1));
+        } finally {
+            System.clearProperty(CaffeineCacheFactory.PREFIX + "small.maxBytes");
+        }
+    }
+
 }
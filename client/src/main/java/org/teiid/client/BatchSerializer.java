@@ -18,10 +18,13 @@
 
 package org.teiid.client;
 
+import java.io.ByteArrayInputStream;
 import java.io.Externalizable;
 import java.io.IOException;
 import java.io.ObjectInput;
+import java.io.ObjectInputStream;
 import java.io.ObjectOutput;
+import java.io.ObjectOutputStream;
 import java.io.ObjectStreamConstants;
 import java.math.BigDecimal;
 import java.math.BigInteger;
@@ -33,8 +36,11 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Calendar;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.TimeZone;
 
 import org.teiid.core.TeiidRuntimeException;
@@ -47,6 +53,8 @@ import org.teiid.core.types.GeographyType;
 import org.teiid.core.types.GeometryType;
 import org.teiid.core.types.JsonType;
 import org.teiid.core.types.XMLType;
+import org.teiid.core.util.AccessibleByteArrayOutputStream;
+import org.teiid.core.util.Lz4Codec;
 import org.teiid.jdbc.JDBCPlugin;
 
 
@@ -65,18 +73,34 @@ import org.teiid.jdbc.JDBCPlugin;
  * <li>version 3: starts with 8.6 and adds better repeated string performance
  * <li>version 4: starts with 8.10 and adds the geometry type
  * <li>version 5: starts with 11.2 and adds the geography and json types
+ * <li>version 6: starts with 17.0 and adds dictionary encoded string columns and
+ *   optional compression of the column data
  * </ul>
  */
 public class BatchSerializer {
 
     public static final byte VERSION_GEOMETRY = (byte)4;
     public static final byte VERSION_GEOGRAPHY = (byte)5;
-    static final byte CURRENT_VERSION = VERSION_GEOGRAPHY;
+    public static final byte VERSION_COLUMNAR = (byte)6;
+    static final byte CURRENT_VERSION = VERSION_COLUMNAR;
+
+    private static final byte INLINE_COLUMNS = 0;
+    private static final byte COMPRESSED_COLUMNS = 1;
 
     private BatchSerializer() {} // Uninstantiable
 
     private static ColumnSerializer defaultSerializer = new ColumnSerializer();
 
+    private static final Set<String> COMPRESSIBLE_TYPES = new HashSet<String>(Arrays.asList(
+            DataTypeManager.DefaultDataTypes.STRING, DataTypeManager.DefaultDataTypes.CHAR,
+            DataTypeManager.DefaultDataTypes.BOOLEAN, DataTypeManager.DefaultDataTypes.BYTE,
+            DataTypeManager.DefaultDataTypes.SHORT, DataTypeManager.DefaultDataTypes.INTEGER,
+            DataTypeManager.DefaultDataTypes.LONG, DataTypeManager.DefaultDataTypes.BIG_INTEGER,
+            DataTypeManager.DefaultDataTypes.FLOAT, DataTypeManager.DefaultDataTypes.DOUBLE,
+            DataTypeManager.DefaultDataTypes.BIG_DECIMAL, DataTypeManager.DefaultDataTypes.DATE,
+            DataTypeManager.DefaultDataTypes.TIME, DataTypeManager.DefaultDataTypes.TIMESTAMP,
+            DataTypeManager.DefaultDataTypes.VARBINARY, DataTypeManager.DefaultDataTypes.NULL));
+
     private static final Map<String, ColumnSerializer[]> serializers = new HashMap<String, ColumnSerializer[]>(128);
     static {
         serializers.put(DataTypeManager.DefaultDataTypes.BIG_DECIMAL,   new ColumnSerializer[] {new BigDecimalColumnSerializer()});
@@ -92,7 +116,7 @@ public class BatchSerializer {
         serializers.put(DataTypeManager.DefaultDataTypes.SHORT,         new ColumnSerializer[] {new ShortColumnSerializer()});
         serializers.put(DataTypeManager.DefaultDataTypes.TIME,          new ColumnSerializer[] {new TimeColumnSerializer(), new TimeColumnSerializer1(), new TimeColumnSerializer()});
         serializers.put(DataTypeManager.DefaultDataTypes.TIMESTAMP,     new ColumnSerializer[] {new TimestampColumnSerializer()});
-        serializers.put(DataTypeManager.DefaultDataTypes.STRING,         new ColumnSerializer[] {defaultSerializer, new StringColumnSerializer1(), new StringColumnSerializer1(), new StringColumnSerializer3()});
+        serializers.put(DataTypeManager.DefaultDataTypes.STRING,         new ColumnSerializer[] {defaultSerializer, new StringColumnSerializer1(), new StringColumnSerializer1(), new StringColumnSerializer3(), new StringColumnSerializer3(), new StringColumnSerializer3(), new StringColumnSerializer6()});
         serializers.put(DataTypeManager.DefaultDataTypes.CLOB,             new ColumnSerializer[] {defaultSerializer, new ClobColumnSerializer1()});
         serializers.put(DataTypeManager.DefaultDataTypes.JSON,          new ColumnSerializer[] {defaultSerializer, new ClobColumnSerializer1(), new ClobColumnSerializer1(), new ClobColumnSerializer1(), new ClobColumnSerializer1(), new JsonColumnSerializer()});
         serializers.put(DataTypeManager.DefaultDataTypes.BLOB,             new ColumnSerializer[] {defaultSerializer, new BlobColumnSerializer1()});
@@ -375,6 +399,93 @@ public class BatchSerializer {
         }
     }
 
+    /**
+     * Dictionary encodes low cardinality columns, otherwise
+     * falls back to the repeated string handling
+     */
+    private static class StringColumnSerializer6 extends StringColumnSerializer3 {
+        private static final int MAX_DICTIONARY_SIZE = 0xFFFE;
+
+        @Override
+        public void writeColumn(ObjectOutput out, int col,
+                List<? extends List<?>> batch, Map<Object, Integer> cache,
+                byte version) throws IOException {
+            writeIsNullData(out, col, batch);
+            Map<String, Integer> dictionary = getDictionary(col, batch);
+            out.writeBoolean(dictionary != null);
+            if (dictionary == null) {
+                for (int i = 0; i < batch.size(); i++) {
+                    Object obj = batch.get(i).get(col);
+                    if (obj != null) {
+                        writeObject(out, obj, cache, version);
+                    }
+                }
+                return;
+            }
+            out.writeChar(dictionary.size());
+            for (String value : dictionary.keySet()) {
+                out.writeUTF(value);
+            }
+            boolean wide = dictionary.size() > 0xFF;
+            for (int i = 0; i < batch.size(); i++) {
+                Object obj = batch.get(i).get(col);
+                if (obj == null) {
+                    continue;
+                }
+                if (wide) {
+                    out.writeChar(dictionary.get(obj));
+                } else {
+                    out.writeByte(dictionary.get(obj));
+                }
+            }
+        }
+
+        /**
+         * @return the distinct values mapped to their index, or null if
+         * there are too many distinct values
+         */
+        private Map<String, Integer> getDictionary(int col, List<? extends List<?>> batch) {
+            int maxSize = Math.min(MAX_DICTIONARY_SIZE, batch.size()/2);
+            Map<String, Integer> dictionary = new LinkedHashMap<String, Integer>();
+            for (int i = 0; i < batch.size(); i++) {
+                String str = (String)batch.get(i).get(col);
+                if (str == null || dictionary.containsKey(str)) {
+                    continue;
+                }
+                if (dictionary.size() == maxSize || str.length() > MAX_UTF) {
+                    return null;
+                }
+                dictionary.put(str, dictionary.size());
+            }
+            return dictionary;
+        }
+
+        @Override
+        public void readColumn(ObjectInput in, int col,
+                List<List<Object>> batch, byte[] isNull, List<Object> cache,
+                byte version) throws IOException, ClassNotFoundException {
+            readIsNullData(in, isNull);
+            if (!in.readBoolean()) {
+                for (int i = 0; i < batch.size(); i++) {
+                    if (!isNullObject(isNull, i)) {
+                        batch.get(i).set(col, DataTypeManager.getCanonicalValue(readObject(in, cache, version)));
+                    }
+                }
+                return;
+            }
+            Object[] dictionary = new Object[in.readChar()];
+            for (int i = 0; i < dictionary.length; i++) {
+                dictionary[i] = DataTypeManager.getCanonicalValue(in.readUTF());
+            }
+            boolean wide = dictionary.length > 0xFF;
+            for (int i = 0; i < batch.size(); i++) {
+                if (!isNullObject(isNull, i)) {
+                    batch.get(i).set(col, dictionary[wide ? in.readChar() : in.readUnsignedByte()]);
+                }
+            }
+        }
+    }
+
     private static class NullColumnSerializer1 extends ColumnSerializer {
         @Override
         public void writeColumn(ObjectOutput out, int col,
@@ -886,6 +997,15 @@ public class BatchSerializer {
     }
 
     public static void writeBatch(ObjectOutput out, String[] types, List<? extends List<?>> batch, byte version) throws IOException {
+        writeBatch(out, types, batch, version, false);
+    }
+
+    /**
+     * Write the batch
+     * @param compress if true and the version supports it, the column data will be
+     * compressed if all of the types are simple and the compression reduces the size
+     */
+    public static void writeBatch(ObjectOutput out, String[] types, List<? extends List<?>> batch, byte version, boolean compress) throws IOException {
         if (batch == null) {
             out.writeInt(-1);
         } else {
@@ -898,28 +1018,69 @@ public class BatchSerializer {
             if (batch.size() > 0) {
                 int columns = types.length;
                 out.writeInt(columns);
-                Map<Object, Integer> cache = null;
-                for(int i = 0; i < columns; i++) {
-                    ColumnSerializer serializer = getSerializer(types[i], version);
-
-                    if (cache == null && serializer.usesCache(version)) {
-                        cache = new HashMap<Object, Integer>();
+                if (version < VERSION_COLUMNAR) {
+                    writeColumns(out, types, batch, version);
+                } else if (!compress || !isCompressible(types)) {
+                    out.writeByte(INLINE_COLUMNS);
+                    writeColumns(out, types, batch, version);
+                } else {
+                    out.writeByte(COMPRESSED_COLUMNS);
+                    AccessibleByteArrayOutputStream baos = new AccessibleByteArrayOutputStream(1 << 13);
+                    ObjectOutputStream oos = new ObjectOutputStream(baos);
+                    writeColumns(oos, types, batch, version);
+                    oos.close();
+                    byte[] raw = baos.getBuffer();
+                    int rawLength = baos.getCount();
+                    byte[] compressed = new byte[Lz4Codec.maxCompressedLength(rawLength)];
+                    int compressedLength = Lz4Codec.compress(raw, rawLength, compressed);
+                    out.writeInt(rawLength);
+                    if (compressedLength < rawLength) {
+                        out.writeInt(compressedLength);
+                        out.write(compressed, 0, compressedLength);
+                    } else {
+                        out.writeInt(-1);
+                        out.write(raw, 0, rawLength);
                     }
-                    try {
-                        serializer.writeColumn(out, i, batch, cache, version);
-                    } catch (ClassCastException e) {
-                        Object obj = null;
-                        String objectClass = null;
-                        objectSearch: for (int row = 0; row < batch.size(); row++) {
-                            obj = batch.get(row).get(i);
-                            if (obj != null) {
-                                objectClass = obj.getClass().getName();
-                                break objectSearch;
-                            }
-                        }
-                         throw new TeiidRuntimeException(JDBCPlugin.Event.TEIID20001, e, JDBCPlugin.Util.gs(JDBCPlugin.Event.TEIID20001, new Object[] {types[i], new Integer(i), objectClass}));
+                }
+            }
+        }
+    }
+
+    /**
+     * Only types that are written without object references may be compressed,
+     * as the column data is written to a separate stream.
+     */
+    private static boolean isCompressible(String[] types) {
+        for (String type : types) {
+            if (!COMPRESSIBLE_TYPES.contains(type)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void writeColumns(ObjectOutput out, String[] types,
+            List<? extends List<?>> batch, byte version) throws IOException {
+        Map<Object, Integer> cache = null;
+        for(int i = 0; i < types.length; i++) {
+            ColumnSerializer serializer = getSerializer(types[i], version);
+
+            if (cache == null && serializer.usesCache(version)) {
+                cache = new HashMap<Object, Integer>();
+            }
+            try {
+                serializer.writeColumn(out, i, batch, cache, version);
+            } catch (ClassCastException e) {
+                Object obj = null;
+                String objectClass = null;
+                objectSearch: for (int row = 0; row < batch.size(); row++) {
+                    obj = batch.get(row).get(i);
+                    if (obj != null) {
+                        objectClass = obj.getClass().getName();
+                        break objectSearch;
                     }
                 }
+                 throw new TeiidRuntimeException(JDBCPlugin.Event.TEIID20001, e, JDBCPlugin.Util.gs(JDBCPlugin.Event.TEIID20001, new Object[] {types[i], new Integer(i), objectClass}));
             }
         }
     }
@@ -950,6 +1111,19 @@ public class BatchSerializer {
             version = in.readByte();
         }
         int columns = in.readInt();
+        if (version >= VERSION_COLUMNAR && in.readByte() == COMPRESSED_COLUMNS) {
+            int rawLength = in.readInt();
+            int compressedLength = in.readInt();
+            byte[] raw = new byte[rawLength];
+            if (compressedLength == -1) {
+                in.readFully(raw);
+            } else {
+                byte[] compressed = new byte[compressedLength];
+                in.readFully(compressed);
+                Lz4Codec.decompress(compressed, compressedLength, raw, rawLength);
+            }
+            in = new ObjectInputStream(new ByteArrayInputStream(raw));
+        }
         List<List<Object>> batch = new ResizingArrayList<List<Object>>(rows);
         int numBytes = rows/8;
         int extraRows = rows % 8;
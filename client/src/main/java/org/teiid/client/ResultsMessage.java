@@ -89,6 +89,8 @@ public class ResultsMessage implements Externalizable {
     private int updateCount = -1;
 
     private boolean delayDeserialization;
+
+    private boolean compressResults;
     byte[] resultBytes;
 
     private MultiArrayOutputStream serializationBuffer;
@@ -303,7 +305,7 @@ public class ResultsMessage implements Externalizable {
         if (delayDeserialization) {
             BatchSerializer.writeBatch(out, dataTypes, null, clientSerializationVersion);
         } else {
-            BatchSerializer.writeBatch(out, dataTypes, results, clientSerializationVersion);
+            BatchSerializer.writeBatch(out, dataTypes, results, clientSerializationVersion, compressResults);
         }
 
         // Plan descriptions
@@ -352,7 +354,7 @@ public class ResultsMessage implements Externalizable {
         if (serializationBuffer == null) {
             serializationBuffer = new MultiArrayOutputStream(1 << 13);
             CompactObjectOutputStream oos = new CompactObjectOutputStream(serializationBuffer);
-            BatchSerializer.writeBatch(oos, dataTypes, results, clientSerializationVersion);
+            BatchSerializer.writeBatch(oos, dataTypes, results, clientSerializationVersion, compressResults);
             oos.close();
         }
         int result = serializationBuffer.getCount();
@@ -429,5 +431,13 @@ public class ResultsMessage implements Externalizable {
     public void setDelayDeserialization(boolean delayDeserialization) {
         this.delayDeserialization = delayDeserialization;
     }
+
+    /**
+     * Set whether the result data should be compressed when serialized.
+     * Only effective with clients supporting {@link BatchSerializer#VERSION_COLUMNAR}
+     */
+    public void setCompressResults(boolean compressResults) {
+        this.compressResults = compressResults;
+    }
 }
 
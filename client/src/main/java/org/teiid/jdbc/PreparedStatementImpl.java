@@ -235,6 +235,19 @@ public class PreparedStatementImpl extends StatementImpl implements TeiidPrepare
         return executeSql(new String[] {this.prepareSql}, false, mode, false, options, autoGeneratedKeys);
     }
 
+    /**
+     * Submit the current batch for execution without waiting for the update counts.
+     * The batch is cleared once submitted.
+     */
+    public ResultsFuture<Boolean> submitExecuteBatch() throws SQLException {
+        try {
+            return executeSql(new String[] {this.prepareSql}, true, ResultsMode.UPDATECOUNT, false, null);
+        } finally {
+            //the submitted request may still reference the list
+            batchParameterList = null;
+        }
+    }
+
     @Override
     public boolean execute() throws SQLException {
         executeSql(new String[] {this.prepareSql}, false, ResultsMode.EITHER, true, null, autoGeneratedKeys);
@@ -50,25 +50,30 @@ import org.teiid.query.unittest.TimestampUtil;
 public class TestBatchSerializer {
 
     private static List<List<Object>> helpTestSerialization(String[] types, List<?>[] batch, byte version) throws IOException, ClassNotFoundException {
-        ByteArrayOutputStream byteStream = new ByteArrayOutputStream();
-        ObjectOutputStream out = new ObjectOutputStream(byteStream);
-        List<List<?>> batchList = Arrays.asList(batch);
-
-        BatchSerializer.writeBatch(out, types, batchList, version);
-        out.flush();
+        return helpTestSerialization(types, batch, version, false);
+    }
 
-        byte[] bytes = byteStream.toByteArray();
+    private static List<List<Object>> helpTestSerialization(String[] types, List<?>[] batch, byte version, boolean compress) throws IOException, ClassNotFoundException {
+        List<List<?>> batchList = Arrays.asList(batch);
+        byte[] bytes = serialize(types, batchList, version, compress);
 
         ByteArrayInputStream bytesIn = new ByteArrayInputStream(bytes);
         ObjectInputStream in = new ObjectInputStream(bytesIn);
         List<List<Object>> newBatch = BatchSerializer.readBatch(in, types);
-        out.close();
         in.close();
 
         assertTrue(batchList.equals(newBatch));
         return newBatch;
     }
 
+    private static byte[] serialize(String[] types, List<List<?>> batchList, byte version, boolean compress) throws IOException {
+        ByteArrayOutputStream byteStream = new ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream(byteStream);
+        BatchSerializer.writeBatch(out, types, batchList, version, compress);
+        out.close();
+        return byteStream.toByteArray();
+    }
+
     private static final String[] sampleBatchTypes = {DataTypeManager.DefaultDataTypes.BIG_DECIMAL,
                                                       DataTypeManager.DefaultDataTypes.BIG_INTEGER,
                                                       DataTypeManager.DefaultDataTypes.BOOLEAN,
@@ -204,4 +209,48 @@ public class TestBatchSerializer {
         assertTrue(val instanceof ClobType);
     }
 
+    private static List<?>[] lowCardinalityBatch(int rows, int distinct) {
+        List<?>[] batch = new List[rows];
+        for (int i = 0; i < rows; i++) {
+            batch[i] = Arrays.asList(i%7 == 0 ? null : "status " + (i%distinct), i);
+        }
+        return batch;
+    }
+
+    private static final String[] lowCardinalityTypes = {DataTypeManager.DefaultDataTypes.STRING, DataTypeManager.DefaultDataTypes.INTEGER};
+
+    @Test public void testDictionaryStrings() throws Exception {
+        helpTestSerialization(lowCardinalityTypes, lowCardinalityBatch(1, 1), BatchSerializer.CURRENT_VERSION);
+        helpTestSerialization(lowCardinalityTypes, lowCardinalityBatch(100, 3), BatchSerializer.CURRENT_VERSION);
+        helpTestSerialization(lowCardinalityTypes, lowCardinalityBatch(2000, 300), BatchSerializer.CURRENT_VERSION);
+        List<?>[] batch = lowCardinalityBatch(1000, 3);
+        int size = serialize(lowCardinalityTypes, Arrays.asList(batch), BatchSerializer.CURRENT_VERSION, false).length;
+        assertTrue(size < serialize(lowCardinalityTypes, Arrays.asList(batch), BatchSerializer.VERSION_GEOGRAPHY, false).length);
+        helpTestSerialization(lowCardinalityTypes, batch, BatchSerializer.VERSION_GEOGRAPHY);
+    }
+
+    @Test public void testCompression() throws Exception {
+        String[] types = Arrays.copyOf(sampleBatchTypes, sampleBatchTypes.length);
+        types[14] = DataTypeManager.DefaultDataTypes.TIMESTAMP;
+        helpTestSerialization(types, sampleBatchWithNulls(1), BatchSerializer.CURRENT_VERSION, true);
+        helpTestSerialization(types, sampleBatchWithNulls(833), BatchSerializer.CURRENT_VERSION, true);
+        helpTestSerialization(new String[] {DataTypeManager.DefaultDataTypes.STRING}, new List[] {Arrays.asList(sampleString(66666))}, BatchSerializer.CURRENT_VERSION, true);
+
+        List<?>[] batch = lowCardinalityBatch(1000, 3);
+        helpTestSerialization(lowCardinalityTypes, batch, BatchSerializer.CURRENT_VERSION, true);
+        int size = serialize(lowCardinalityTypes, Arrays.asList(batch), BatchSerializer.CURRENT_VERSION, true).length;
+        assertTrue(size < serialize(lowCardinalityTypes, Arrays.asList(batch), BatchSerializer.CURRENT_VERSION, false).length);
+    }
+
+    @Test public void testCompressionNotApplicable() throws Exception {
+        List<?>[] batch = sampleBatchWithNulls(120);
+        //object types are not compressed
+        assertArrayEquals(serialize(sampleBatchTypes, Arrays.asList(batch), BatchSerializer.CURRENT_VERSION, false),
+                serialize(sampleBatchTypes, Arrays.asList(batch), BatchSerializer.CURRENT_VERSION, true));
+        //nor are older versions
+        batch = lowCardinalityBatch(1000, 3);
+        assertArrayEquals(serialize(lowCardinalityTypes, Arrays.asList(batch), BatchSerializer.VERSION_GEOGRAPHY, false),
+                serialize(lowCardinalityTypes, Arrays.asList(batch), BatchSerializer.VERSION_GEOGRAPHY, true));
+    }
+
 }
@@ -0,0 +1,174 @@
+/*
+ * Copyright Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags and
+ * the COPYRIGHT.txt file distributed with this work.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.teiid.core.util;
+
+import java.io.IOException;
+
+/**
+ * A pure java compressor using the LZ4 block format.
+ * <br>
+ * Favors speed over ratio with a single probe hash table, which is well suited
+ * to the repetitive content of serialized batches.
+ */
+public final class Lz4Codec {
+
+    private static final int MIN_MATCH = 4;
+    private static final int HASH_LOG = 12;
+    private static final int MAX_OFFSET = 0xFFFF;
+    private static final int LAST_LITERALS = 5;
+    private static final int MF_LIMIT = 12;
+    private static final int RUN_MASK = 15;
+
+    private Lz4Codec() {
+
+    }
+
+    /**
+     * @return the size of the destination array needed to compress the given length
+     */
+    public static int maxCompressedLength(int length) {
+        return length + length/255 + 16;
+    }
+
+    /**
+     * Compress the source bytes
+     * @param dest must be at least {@link #maxCompressedLength(int)}
+     * @return the compressed length
+     */
+    public static int compress(byte[] src, int srcLength, byte[] dest) {
+        int[] table = new int[1 << HASH_LOG];
+        int anchor = 0;
+        int dp = 0;
+        int sp = 1;
+        int limit = srcLength - MF_LIMIT;
+        while (sp < limit) {
+            int sequence = readInt(src, sp);
+            int h = (sequence * -1640531535) >>> (32 - HASH_LOG);
+            int ref = table[h];
+            table[h] = sp;
+            if (sp - ref > MAX_OFFSET || readInt(src, ref) != sequence) {
+                sp++;
+                continue;
+            }
+            while (sp > anchor && ref > 0 && src[sp - 1] == src[ref - 1]) {
+                sp--;
+                ref--;
+            }
+            int matchLength = MIN_MATCH;
+            int maxMatch = srcLength - LAST_LITERALS - sp;
+            while (matchLength < maxMatch && src[sp + matchLength] == src[ref + matchLength]) {
+                matchLength++;
+            }
+            int literals = sp - anchor;
+            int matchRun = matchLength - MIN_MATCH;
+            dest[dp++] = (byte)((Math.min(literals, RUN_MASK) << 4) | Math.min(matchRun, RUN_MASK));
+            dp = writeLiterals(src, anchor, literals, dest, dp);
+            int offset = sp - ref;
+            dest[dp++] = (byte)offset;
+            dest[dp++] = (byte)(offset >>> 8);
+            if (matchRun >= RUN_MASK) {
+                dp = writeLength(matchRun - RUN_MASK, dest, dp);
+            }
+            sp += matchLength;
+            anchor = sp;
+        }
+        int literals = srcLength - anchor;
+        dest[dp++] = (byte)(Math.min(literals, RUN_MASK) << 4);
+        return writeLiterals(src, anchor, literals, dest, dp);
+    }
+
+    private static int writeLiterals(byte[] src, int start, int literals, byte[] dest, int dp) {
+        if (literals >= RUN_MASK) {
+            dp = writeLength(literals - RUN_MASK, dest, dp);
+        }
+        System.arraycopy(src, start, dest, dp, literals);
+        return dp + literals;
+    }
+
+    private static int writeLength(int length, byte[] dest, int dp) {
+        while (length >= 255) {
+            dest[dp++] = (byte)255;
+            length -= 255;
+        }
+        dest[dp++] = (byte)length;
+        return dp;
+    }
+
+    private static int readInt(byte[] b, int i) {
+        return (b[i] & 0xff) | ((b[i + 1] & 0xff) << 8) | ((b[i + 2] & 0xff) << 16) | (b[i + 3] << 24);
+    }
+
+    /**
+     * Decompress the source bytes
+     * @param destLength the expected decompressed length
+     * @throws IOException if the source is not valid
+     */
+    public static void decompress(byte[] src, int srcLength, byte[] dest, int destLength) throws IOException {
+        int sp = 0;
+        int dp = 0;
+        try {
+            while (true) {
+                int token = src[sp++] & 0xff;
+                int literals = token >>> 4;
+                if (literals == RUN_MASK) {
+                    int b = 0;
+                    do {
+                        b = src[sp++] & 0xff;
+                        literals += b;
+                    } while (b == 255);
+                }
+                System.arraycopy(src, sp, dest, dp, literals);
+                sp += literals;
+                dp += literals;
+                if (sp >= srcLength) {
+                    break;
+                }
+                int offset = (src[sp++] & 0xff) | ((src[sp++] & 0xff) << 8);
+                int matchLength = token & RUN_MASK;
+                if (matchLength == RUN_MASK) {
+                    int b = 0;
+                    do {
+                        b = src[sp++] & 0xff;
+                        matchLength += b;
+                    } while (b == 255);
+                }
+                matchLength += MIN_MATCH;
+                int ref = dp - offset;
+                if (offset == 0 || ref < 0) {
+                    throw new IOException("Invalid match offset " + offset); //$NON-NLS-1$
+                }
+                if (offset >= matchLength) {
+                    System.arraycopy(dest, ref, dest, dp, matchLength);
+                    dp += matchLength;
+                } else {
+                    //overlapping copy repeats the pattern
+                    for (int i = 0; i < matchLength; i++) {
+                        dest[dp++] = dest[ref++];
+                    }
+                }
+            }
+        } catch (IndexOutOfBoundsException e) {
+            throw new IOException("Invalid compressed data", e); //$NON-NLS-1$
+        }
+        if (dp != destLength) {
+            throw new IOException("Invalid compressed length " + dp + " expected " + destLength); //$NON-NLS-1$ //$NON-NLS-2$
+        }
+    }
+
+}
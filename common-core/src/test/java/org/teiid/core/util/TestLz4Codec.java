@@ -0,0 +1,53 @@
+/*
+ * Copyright Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags and
+ * the COPYRIGHT.txt file distributed with this work.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.teiid.core.util;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class TestLz4Codec {
+
+    @Test public void testRoundTrip() throws Exception {
+        Random r = new Random(1);
+        for (int length : new int[] {0, 5, 13, 100, 70000, 300000}) {
+            byte[] src = new byte[length];
+            for (int i = 0; i < length; i++) {
+                //mix of runs, repeated patterns and noise
+                src[i] = (byte)(i%1000 < 300 ? 'a' : i%1000 < 700 ? i%17 : r.nextInt());
+            }
+            byte[] compressed = new byte[Lz4Codec.maxCompressedLength(length)];
+            int compressedLength = Lz4Codec.compress(src, length, compressed);
+            byte[] result = new byte[length];
+            Lz4Codec.decompress(compressed, compressedLength, result, length);
+            assertArrayEquals(src, result);
+        }
+    }
+
+    @Test(expected=IOException.class) public void testInvalid() throws Exception {
+        byte[] src = new byte[1000];
+        byte[] compressed = new byte[Lz4Codec.maxCompressedLength(src.length)];
+        int compressedLength = Lz4Codec.compress(src, src.length, compressed);
+        Lz4Codec.decompress(compressed, compressedLength, new byte[999], 999);
+    }
+
+}
@@ -60,6 +60,15 @@ public class BaseCassandraConnection implements CassandraConnection {
         return session.executeAsync(query);
     }
 
+    @Override
+    public ResultSetFuture executeQuery(String query, int fetchSize) {
+        SimpleStatement statement = new SimpleStatement(query);
+        if (fetchSize > 0) {
+            statement.setFetchSize(fetchSize);
+        }
+        return session.executeAsync(statement);
+    }
+
     @Override
     public KeyspaceMetadata keyspaceInfo() throws TranslatorException {
         String keyspace = config.getKeyspace();
@@ -37,6 +37,13 @@ public interface CassandraConnection extends Connection {
      * */
     public ResultSetFuture executeQuery(String query);
 
+    /**
+     * Executes a CQL query retrieving results in pages of the given size.
+     * @param query
+     * @param fetchSize the page size, or 0 to use the driver default
+     * */
+    public ResultSetFuture executeQuery(String query, int fetchSize);
+
     /**
      * Returns metadata about Cassandra keyspace (column families, columns metadata etc.)
      * */
@@ -38,6 +38,7 @@ import org.teiid.translator.ProcedureExecution;
 import org.teiid.translator.ResultSetExecution;
 import org.teiid.translator.Translator;
 import org.teiid.translator.TranslatorException;
+import org.teiid.translator.TranslatorProperty;
 import org.teiid.translator.UpdateExecution;
 
 import com.datastax.driver.core.VersionNumber;
@@ -55,6 +56,8 @@ public class CassandraExecutionFactory extends ExecutionFactory<ConnectionFactor
     }
 
     private VersionNumber version;
+    private int pageSize;
+    private int prefetchPages = 1;
 
     @Override
     public void start() throws TranslatorException {
@@ -67,7 +70,9 @@ public class CassandraExecutionFactory extends ExecutionFactory<ConnectionFactor
     public ResultSetExecution createResultSetExecution(QueryExpression command,
             ExecutionContext executionContext, RuntimeMetadata metadata,
             CassandraConnection connection) throws TranslatorException {
-        return new CassandraQueryExecution(command, connection, executionContext);
+        CassandraQueryExecution execution = new CassandraQueryExecution(command, connection, executionContext);
+        configure(execution);
+        return execution;
     }
 
     @Override
@@ -83,7 +88,9 @@ public class CassandraExecutionFactory extends ExecutionFactory<ConnectionFactor
             CassandraConnection connection) throws TranslatorException {
         String nativeQuery = command.getMetadataObject().getProperty(SQLStringVisitor.TEIID_NATIVE_QUERY, false);
         if (nativeQuery != null) {
-            return new CassandraDirectQueryExecution(nativeQuery, command.getArguments(), command, connection, executionContext, false);
+            CassandraDirectQueryExecution execution = new CassandraDirectQueryExecution(nativeQuery, command.getArguments(), command, connection, executionContext, false);
+            configure(execution);
+            return execution;
         }
         throw new TranslatorException("Missing native-query extension metadata."); //$NON-NLS-1$
     }
@@ -93,7 +100,14 @@ public class CassandraExecutionFactory extends ExecutionFactory<ConnectionFactor
             Command command, ExecutionContext executionContext,
             RuntimeMetadata metadata, CassandraConnection connection)
             throws TranslatorException {
-        return new CassandraDirectQueryExecution((String) arguments.get(0).getArgumentValue().getValue(), arguments.subList(1, arguments.size()), command, connection, executionContext, true);
+        CassandraDirectQueryExecution execution = new CassandraDirectQueryExecution((String) arguments.get(0).getArgumentValue().getValue(), arguments.subList(1, arguments.size()), command, connection, executionContext, true);
+        configure(execution);
+        return execution;
+    }
+
+    private void configure(CassandraQueryExecution execution) {
+        execution.setPageSize(this.pageSize);
+        execution.setPrefetchPages(this.prefetchPages);
     }
 
     @Override
@@ -180,6 +194,24 @@ public class CassandraExecutionFactory extends ExecutionFactory<ConnectionFactor
         }
     }
 
+    @TranslatorProperty(display="Page Size", description="The number of rows fetched from Cassandra per page.  0 indicates that the driver default should be used.", advanced=true)
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    public void setPageSize(int pageSize) {
+        this.pageSize = pageSize;
+    }
+
+    @TranslatorProperty(display="Prefetch Pages", description="The number of pages to asynchronously fetch ahead of the rows being read.  0 indicates that a page will only be fetched once the previous page is exhausted.", advanced=true)
+    public int getPrefetchPages() {
+        return prefetchPages;
+    }
+
+    public void setPrefetchPages(int prefetchPages) {
+        this.prefetchPages = prefetchPages;
+    }
+
     @Override
     public boolean isSourceRequiredForCapabilities() {
         return true;
@@ -24,6 +24,7 @@ import java.sql.Timestamp;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
 
 import org.teiid.language.Command;
 import org.teiid.logging.LogConstants;
@@ -35,9 +36,11 @@ import org.teiid.translator.TranslatorException;
 
 import com.datastax.driver.core.ColumnDefinitions;
 import com.datastax.driver.core.GuavaCompatibility;
+import com.datastax.driver.core.QueryOptions;
 import com.datastax.driver.core.ResultSet;
 import com.datastax.driver.core.ResultSetFuture;
 import com.datastax.driver.core.Row;
+import com.google.common.util.concurrent.ListenableFuture;
 
 public class CassandraQueryExecution implements ResultSetExecution {
 
@@ -45,8 +48,11 @@ public class CassandraQueryExecution implements ResultSetExecution {
     private CassandraConnection connection;
     private ResultSetFuture resultSetFuture;
     private ResultSet resultSet;
+    private ListenableFuture<ResultSet> fetchFuture;
     private ExecutionContext executionContext;
     protected boolean returnsArray;
+    private int pageSize;
+    private int prefetchPages;
 
     public CassandraQueryExecution(Command query, CassandraConnection connection, ExecutionContext context){
         this.query = query;
@@ -59,6 +65,7 @@ public class CassandraQueryExecution implements ResultSetExecution {
         LogManager.logDetail(LogConstants.CTX_CONNECTOR, CassandraExecutionFactory.UTIL.getString("close_query")); //$NON-NLS-1$
         this.resultSet = null;
         this.resultSetFuture = null;
+        this.fetchFuture = null;
     }
 
     @Override
@@ -67,6 +74,9 @@ public class CassandraQueryExecution implements ResultSetExecution {
         if (resultSetFuture != null) {
             resultSetFuture.cancel(true);
         }
+        if (fetchFuture != null) {
+            fetchFuture.cancel(true);
+        }
     }
 
     @Override
@@ -80,8 +90,12 @@ public class CassandraQueryExecution implements ResultSetExecution {
     protected void execute(String cql) {
         LogManager.logDetail(LogConstants.CTX_CONNECTOR, "Source-Query:", cql); //$NON-NLS-1$
         this.executionContext.logCommand(cql);
-        resultSetFuture = connection.executeQuery(cql);
-        resultSetFuture.addListener(new Runnable() {
+        resultSetFuture = connection.executeQuery(cql, pageSize);
+        notifyWhenDone(resultSetFuture);
+    }
+
+    private void notifyWhenDone(ListenableFuture<?> future) {
+        future.addListener(new Runnable() {
 
             @Override
             public void run() {
@@ -98,10 +112,64 @@ public class CassandraQueryExecution implements ResultSetExecution {
         if (resultSet == null) {
             this.resultSet = this.resultSetFuture.getUninterruptibly();
         }
-        //TODO: use asynch for results fetching
+        if (fetchFuture != null) {
+            if (!fetchFuture.isDone()) {
+                if (resultSet.getAvailableWithoutFetching() == 0) {
+                    throw DataNotAvailableException.NO_POLLING;
+                }
+            } else {
+                checkFetch();
+            }
+        }
+        int available = resultSet.getAvailableWithoutFetching();
+        if (fetchFuture == null && !resultSet.isFullyFetched()
+                && (available == 0 || available < getEffectivePageSize() * (long)prefetchPages)) {
+            //fetch the next page asynchronously rather than blocking in one()
+            fetchFuture = resultSet.fetchMoreResults();
+            if (available == 0) {
+                if (!fetchFuture.isDone()) {
+                    notifyWhenDone(fetchFuture);
+                    throw DataNotAvailableException.NO_POLLING;
+                }
+                checkFetch();
+            } else if (!fetchFuture.isDone()) {
+                notifyWhenDone(fetchFuture);
+            }
+        }
         return getRow(resultSet.one());
     }
 
+    /**
+     * Clear the completed fetch, surfacing any failure
+     */
+    private void checkFetch() throws TranslatorException {
+        ListenableFuture<ResultSet> future = fetchFuture;
+        fetchFuture = null;
+        try {
+            future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new TranslatorException(e);
+        } catch (ExecutionException e) {
+            throw new TranslatorException(e.getCause());
+        }
+    }
+
+    private int getEffectivePageSize() {
+        if (pageSize > 0) {
+            return pageSize;
+        }
+        return QueryOptions.DEFAULT_FETCH_SIZE;
+    }
+
+    public void setPageSize(int pageSize) {
+        this.pageSize = pageSize;
+    }
+
+    public void setPrefetchPages(int prefetchPages) {
+        this.prefetchPages = prefetchPages;
+    }
+
     /**
      * Iterates through all columns in the {@code row}. For each column, returns its value as Java type
      * that matches the CQL type in switch part. Otherwise returns the value as bytes composing the value.
@@ -24,10 +24,15 @@ import java.util.List;
 
 import org.junit.Test;
 import org.mockito.Mockito;
+import org.teiid.translator.DataNotAvailableException;
+import org.teiid.translator.ExecutionContext;
 
 import com.datastax.driver.core.ColumnDefinitions;
 import com.datastax.driver.core.DataType;
+import com.datastax.driver.core.ResultSet;
+import com.datastax.driver.core.ResultSetFuture;
 import com.datastax.driver.core.Row;
+import com.google.common.util.concurrent.SettableFuture;
 
 public class TestCassandraQueryExecution {
 
@@ -43,4 +48,37 @@ public class TestCassandraQueryExecution {
         assertNull(val.get(0));
     }
 
+    @Test public void testAsynchPaging() throws Exception {
+        CassandraConnection connection = Mockito.mock(CassandraConnection.class);
+        ExecutionContext ec = Mockito.mock(ExecutionContext.class);
+        ResultSetFuture rsf = Mockito.mock(ResultSetFuture.class);
+        ResultSet rs = Mockito.mock(ResultSet.class);
+        Mockito.stub(connection.executeQuery("select a from x", 10)).toReturn(rsf);
+        Mockito.stub(rsf.isDone()).toReturn(true);
+        Mockito.stub(rsf.getUninterruptibly()).toReturn(rs);
+        SettableFuture<ResultSet> fetch = SettableFuture.create();
+        Mockito.stub(rs.fetchMoreResults()).toReturn(fetch);
+        Mockito.stub(rs.isFullyFetched()).toReturn(false);
+        Mockito.stub(rs.getAvailableWithoutFetching()).toReturn(0);
+
+        CassandraQueryExecution cqe = new CassandraQueryExecution(null, connection, ec);
+        cqe.setPageSize(10);
+        cqe.setPrefetchPages(1);
+        cqe.execute("select a from x");
+        try {
+            cqe.next();
+            fail();
+        } catch (DataNotAvailableException e) {
+            //should not block on the page fetch
+        }
+        Mockito.verify(rs, Mockito.never()).one();
+
+        fetch.set(rs);
+        Mockito.verify(ec).dataAvailable();
+        Mockito.stub(rs.isFullyFetched()).toReturn(true);
+        Mockito.stub(rs.getAvailableWithoutFetching()).toReturn(1);
+        assertNull(cqe.next());
+        Mockito.verify(rs, Mockito.times(1)).fetchMoreResults();
+    }
+
 }
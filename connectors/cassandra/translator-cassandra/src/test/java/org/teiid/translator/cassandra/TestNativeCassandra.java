@@ -63,8 +63,9 @@ public class TestNativeCassandra {
         ColumnDefinitions cd = Mockito.mock(ColumnDefinitions.class);
         Mockito.stub(row.getColumnDefinitions()).toReturn(cd);
         Mockito.stub(rs.one()).toReturn(row).toReturn(null);
+        Mockito.stub(rs.isFullyFetched()).toReturn(true);
 
-        Mockito.stub(connection.executeQuery("select 'a'")).toReturn(rsf);
+        Mockito.stub(connection.executeQuery("select 'a'", 0)).toReturn(rsf);
 
         ResultSetExecution execution = (ResultSetExecution)cef.createExecution(command, ec, rm, connection);
         execution.execute();
@@ -87,12 +88,12 @@ public class TestNativeCassandra {
         CassandraConnection connection = Mockito.mock(CassandraConnection.class);
 
         ResultSetFuture rsf = Mockito.mock(ResultSetFuture.class);
-        Mockito.stub(connection.executeQuery("delete from 'a' where 1")).toReturn(rsf);
+        Mockito.stub(connection.executeQuery("delete from 'a' where 1", 0)).toReturn(rsf);
 
         Execution execution = cef.createExecution(command, ec, rm, connection);
         execution.execute();
 
-        Mockito.verify(connection).executeQuery("delete from 'a' where 1");
+        Mockito.verify(connection).executeQuery("delete from 'a' where 1", 0);
     }
 
 }
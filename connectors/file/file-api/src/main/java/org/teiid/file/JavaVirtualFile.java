@@ -110,6 +110,13 @@ public class JavaVirtualFile implements VirtualFile {
         return new FileInputStreamFactory(f);
     }
 
+    /**
+     * @return the underlying local file
+     */
+    public File getFile() {
+        return f;
+    }
+
     @Override
     public StorageMode getStorageMode() {
         return StorageMode.PERSISTENT;
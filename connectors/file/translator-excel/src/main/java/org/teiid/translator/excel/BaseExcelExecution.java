@@ -20,6 +20,7 @@ package org.teiid.translator.excel;
 
 
 import java.io.ByteArrayInputStream;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.sql.Blob;
@@ -48,10 +49,14 @@ import org.teiid.core.types.InputStreamFactory;
 import org.teiid.core.types.SQLXMLImpl;
 import org.teiid.core.types.TransformationException;
 import org.teiid.core.types.XMLType;
+import org.teiid.core.util.ObjectConverterUtil;
 import org.teiid.core.util.TimestampWithTimezone;
+import org.teiid.file.JavaVirtualFile;
 import org.teiid.file.VirtualFile;
 import org.teiid.file.VirtualFileConnection;
 import org.teiid.language.LanguageObject;
+import org.teiid.logging.LogConstants;
+import org.teiid.logging.LogManager;
 import org.teiid.metadata.RuntimeMetadata;
 import org.teiid.translator.DataNotAvailableException;
 import org.teiid.translator.Execution;
@@ -76,6 +81,8 @@ public class BaseExcelExecution implements Execution {
     protected FormulaEvaluator evaluator;
     private DataFormatter dataFormatter;
     protected Workbook workbook;
+    private boolean streaming;
+    protected StreamingSheetReader sheetReader;
 
     public BaseExcelExecution(ExecutionContext executionContext,
             RuntimeMetadata metadata, VirtualFileConnection connection, boolean immutable) {
@@ -96,9 +103,82 @@ public class BaseExcelExecution implements Execution {
     @Override
     public void execute() throws TranslatorException {
         this.xlsFiles = VirtualFileConnection.Util.getFiles(this.visitor.getXlsPath(), this.connection, true, false);
+        if (this.streaming) {
+            for (VirtualFile xlsFile : this.xlsFiles) {
+                if (!ExcelMetadataProcessor.getFileExtension(xlsFile).equalsIgnoreCase("xlsx")) { //$NON-NLS-1$
+                    LogManager.logDetail(LogConstants.CTX_CONNECTOR, "Not streaming the Excel files for", this.visitor.getXlsPath(), "as they are not all xlsx files"); //$NON-NLS-1$ //$NON-NLS-2$
+                    this.streaming = false;
+                    break;
+                }
+            }
+        }
+        if (this.streaming) {
+            this.sheetReader = openSheetReader(xlsFiles[fileCount.getAndIncrement()]);
+            return;
+        }
         this.rowIterator = readXLSFile(xlsFiles[fileCount.getAndIncrement()]);
     }
 
+    /**
+     * Open a streaming reader over a local copy of the xlsx file.
+     * The lock, if requested, is held until the reader is closed.
+     */
+    private StreamingSheetReader openSheetReader(VirtualFile xlsFile) throws TranslatorException {
+        InputStream xlsFileStream = null;
+        File file = null;
+        boolean temp = false;
+        try {
+            xlsFileStream = xlsFile.openInputStream(!immutable);
+            if (xlsFile instanceof JavaVirtualFile) {
+                file = ((JavaVirtualFile)xlsFile).getFile();
+            } else {
+                file = File.createTempFile("teiid-excel", ".xlsx"); //$NON-NLS-1$ //$NON-NLS-2$
+                temp = true;
+                ObjectConverterUtil.write(xlsFileStream, file);
+                xlsFileStream = null;
+            }
+        } catch (IOException e) {
+            if (xlsFileStream != null) {
+                try {
+                    xlsFileStream.close();
+                } catch (IOException e1) {
+                }
+            }
+            if (temp) {
+                file.delete();
+            }
+            throw new TranslatorException(e);
+        }
+        return new StreamingSheetReader(file, temp, xlsFileStream, this.visitor);
+    }
+
+    /**
+     * Get the next row when streaming
+     */
+    public StreamingSheetReader.SheetRow nextSheetRow() throws TranslatorException {
+        while (this.sheetReader != null) {
+            StreamingSheetReader.SheetRow row = this.sheetReader.nextRow();
+            if (row != null) {
+                return row;
+            }
+            this.sheetReader.close();
+            this.sheetReader = null;
+            VirtualFile nextXlsFile = getNextXLSFile();
+            if (nextXlsFile != null) {
+                this.sheetReader = openSheetReader(nextXlsFile);
+            }
+        }
+        return null;
+    }
+
+    public boolean isStreaming() {
+        return streaming;
+    }
+
+    public void setStreaming(boolean streaming) {
+        this.streaming = streaming;
+    }
+
     private Iterator<Row> readXLSFile(VirtualFile xlsFile) throws TranslatorException {
         try (InputStream xlsFileStream = xlsFile.openInputStream(!immutable)) {
             return readXLSFile(xlsFile, xlsFileStream);
@@ -251,6 +331,44 @@ public class BaseExcelExecution implements Execution {
         }
     }
 
+    /**
+     * Convert a numeric value read by the {@link StreamingSheetReader}
+     */
+    Object convertFromExcelType(final double value, boolean date1904, int formatIndex, String formatString, final Class<?> expectedType) throws TranslatorException {
+        if (expectedType.isAssignableFrom(Double.class)) {
+            return value;
+        }
+        else if (expectedType.isAssignableFrom(Timestamp.class)) {
+            Date date = DateUtil.getJavaDate(value, date1904);
+            return new Timestamp(date.getTime());
+        }
+        else if (expectedType.isAssignableFrom(java.sql.Date.class)) {
+            Date date = DateUtil.getJavaDate(value, date1904);
+            return TimestampWithTimezone.createDate(date);
+        }
+        else if (expectedType.isAssignableFrom(java.sql.Time.class)) {
+            Date date = DateUtil.getJavaDate(value, date1904);
+            return TimestampWithTimezone.createTime(date);
+        }
+
+        if (expectedType == String.class && dataFormatter != null) {
+            return dataFormatter.formatRawCellContents(value, formatIndex, formatString, date1904);
+        }
+
+        Object val = value;
+
+        if (formatString != null && DateUtil.isADateFormat(formatIndex, formatString) && DateUtil.isValidExcelDate(value)) {
+            Date date = DateUtil.getJavaDate(value, date1904);
+            val = new java.sql.Timestamp(date.getTime());
+        }
+
+        try {
+            return DataTypeManager.transformValue(val, expectedType);
+        } catch (TransformationException e) {
+            throw new TranslatorException(e);
+        }
+    }
+
     static Object convertFromExcelType(final String value, final Class<?> expectedType) throws TranslatorException {
         if (value == null) {
             return null;
@@ -285,6 +403,10 @@ public class BaseExcelExecution implements Execution {
 
     @Override
     public void close() {
+        if (this.sheetReader != null) {
+            this.sheetReader.close();
+            this.sheetReader = null;
+        }
     }
 
     @Override
@@ -47,6 +47,13 @@ public class ExcelExecution extends BaseExcelExecution implements ResultSetExecu
 
     @Override
     public List<?> next() throws TranslatorException, DataNotAvailableException {
+        if (isStreaming()) {
+            StreamingSheetReader.SheetRow row = nextSheetRow();
+            if (row == null) {
+                return null;
+            }
+            return projectRow(row);
+        }
         Row row = nextRow();
         if (row == null) {
             return null;
@@ -96,4 +103,34 @@ public class ExcelExecution extends BaseExcelExecution implements ResultSetExecu
         return output;
     }
 
+    List<Object> projectRow(StreamingSheetReader.SheetRow row) throws TranslatorException {
+        ArrayList<Object> output = new ArrayList<Object>(this.visitor.getProjectedColumns().size());
+
+        int i = -1;
+        for (int index:this.visitor.getProjectedColumns()) {
+
+            i++;
+            // check if the row is ROW_ID
+            if (index == -1) {
+                output.add(row.rowNum+1);
+                continue;
+            }
+
+            StreamingSheetReader.SheetCell cell = row.getCell(index-1);
+            if (cell == null) {
+                output.add(null);
+                continue;
+            }
+            if (cell.value instanceof Double) {
+                output.add(convertFromExcelType(((Double)cell.value).doubleValue(), this.sheetReader.isDate1904(), cell.formatIndex, cell.formatString, this.expectedColumnTypes[i]));
+            } else if (cell.value instanceof Boolean) {
+                output.add(convertFromExcelType(((Boolean)cell.value).booleanValue(), this.expectedColumnTypes[i]));
+            } else {
+                output.add(convertFromExcelType((String)cell.value, this.expectedColumnTypes[i]));
+            }
+        }
+
+        return output;
+    }
+
 }
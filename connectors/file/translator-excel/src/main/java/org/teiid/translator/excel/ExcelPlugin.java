@@ -37,5 +37,6 @@ public class ExcelPlugin {
         TEIID23008,
         TEIID23009,
         TEIID23010,
+        TEIID23011,
     }
 }
@@ -54,6 +54,11 @@ public class ExcelQueryVisitor extends HierarchyVisitor {
 
     static interface Filter {
         public boolean allows (int row);
+
+        /**
+         * @return the last row that may be allowed
+         */
+        public int getLastRow();
     }
 
     static class InFilter implements Filter {
@@ -71,6 +76,15 @@ public class ExcelQueryVisitor extends HierarchyVisitor {
             }
             return false;
         }
+
+        @Override
+        public int getLastRow() {
+            int last = -1;
+            for (int i = 0; i < values.length; i++) {
+                last = Math.max(last, values[i]);
+            }
+            return last;
+        }
     }
 
     static class CompareFilter implements Filter {
@@ -99,6 +113,19 @@ public class ExcelQueryVisitor extends HierarchyVisitor {
             }
             return false;
         }
+
+        @Override
+        public int getLastRow() {
+            switch(op) {
+            case EQ:
+            case LE:
+                return start;
+            case LT:
+                return start - 1;
+            default:
+                return Integer.MAX_VALUE;
+            }
+        }
     }
 
     private ArrayList<ExcelQueryVisitor.Filter> filters = new ArrayList<ExcelQueryVisitor.Filter>();
@@ -273,6 +300,17 @@ public class ExcelQueryVisitor extends HierarchyVisitor {
         return true;
     }
 
+    /**
+     * @return the last 0 based row number allowed by the criteria or {@link Integer#MAX_VALUE} if there is no upper bound
+     */
+    public int getLastRowNumber() {
+        int last = Integer.MAX_VALUE;
+        for (Filter f:this.filters) {
+            last = Math.min(last, f.getLastRow());
+        }
+        return last;
+    }
+
     @Override
     public void visit(Insert obj) {
         visit(obj.getTable());
@@ -0,0 +1,370 @@
+/*
+ * Copyright Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags and
+ * the COPYRIGHT.txt file distributed with this work.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.teiid.translator.excel;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.usermodel.XSSFCellStyle;
+import org.teiid.core.types.XMLType;
+import org.teiid.translator.TranslatorException;
+import org.xml.sax.SAXException;
+
+/**
+ * Reads the rows of a single xlsx sheet with a StAX pull parser rather than
+ * building the workbook DOM.  Only the projected cells are retained and rows
+ * outside of the visitor's row criteria are skipped without reading their cells.
+ * <br>
+ * Formula cells are returned with their cached values rather than being evaluated.
+ */
+class StreamingSheetReader implements Closeable {
+
+    private static final String ROW = "row"; //$NON-NLS-1$
+    private static final String CELL = "c"; //$NON-NLS-1$
+    private static final String VALUE = "v"; //$NON-NLS-1$
+    private static final String INLINE_STRING = "is"; //$NON-NLS-1$
+    private static final String TEXT = "t"; //$NON-NLS-1$
+
+    static class SheetCell {
+        Object value;
+        int formatIndex;
+        String formatString;
+    }
+
+    static class SheetRow {
+        int rowNum;
+        SheetCell[] cells;
+
+        /**
+         * @param index the 0 based column index
+         */
+        SheetCell getCell(int index) {
+            if (index < cells.length) {
+                return cells[index];
+            }
+            return null;
+        }
+    }
+
+    private OPCPackage pkg;
+    private File file;
+    private boolean deleteOnClose;
+    private Closeable lock;
+    private InputStream sheetStream;
+    private XMLStreamReader reader;
+
+    private ReadOnlySharedStringsTable sharedStrings;
+    private StylesTable styles;
+    private boolean date1904;
+
+    private ExcelQueryVisitor visitor;
+    private boolean[] projected;
+    private int lastRowNumber;
+    private int rowNum = -1;
+    private boolean done;
+
+    /**
+     * @param file the xlsx file
+     * @param deleteOnClose true if the file is temporary
+     * @param lock a resource holding the file lock, may be null
+     */
+    StreamingSheetReader(File file, boolean deleteOnClose, Closeable lock, ExcelQueryVisitor visitor) throws TranslatorException {
+        this.file = file;
+        this.deleteOnClose = deleteOnClose;
+        this.lock = lock;
+        this.visitor = visitor;
+        this.lastRowNumber = visitor.getLastRowNumber();
+        int max = 0;
+        for (int index : visitor.getProjectedColumns()) {
+            max = Math.max(max, index);
+        }
+        this.projected = new boolean[max];
+        for (int index : visitor.getProjectedColumns()) {
+            if (index > 0) {
+                this.projected[index - 1] = true;
+            }
+        }
+        try {
+            this.pkg = OPCPackage.open(file, PackageAccess.READ);
+            XSSFReader xssfReader = new XSSFReader(this.pkg);
+            this.sharedStrings = new ReadOnlySharedStringsTable(this.pkg);
+            this.styles = xssfReader.getStylesTable();
+            this.date1904 = readDate1904(xssfReader);
+            XSSFReader.SheetIterator sheets = (XSSFReader.SheetIterator)xssfReader.getSheetsData();
+            while (sheets.hasNext()) {
+                InputStream is = sheets.next();
+                if (sheets.getSheetName().equals(visitor.getSheetName())) {
+                    this.sheetStream = is;
+                    break;
+                }
+                is.close();
+            }
+            if (this.sheetStream == null) {
+                throw new TranslatorException(ExcelPlugin.Event.TEIID23011, ExcelPlugin.Util.gs(ExcelPlugin.Event.TEIID23011, visitor.getSheetName(), file.getName()));
+            }
+            this.reader = XMLType.getXmlInputFactory().createXMLStreamReader(this.sheetStream);
+        } catch (IOException | OpenXML4JException | SAXException | XMLStreamException e) {
+            close();
+            throw new TranslatorException(e);
+        } catch (TranslatorException e) {
+            close();
+            throw e;
+        }
+    }
+
+    private static boolean readDate1904(XSSFReader xssfReader) throws IOException, OpenXML4JException, XMLStreamException {
+        try (InputStream is = xssfReader.getWorkbookData()) {
+            XMLStreamReader workbookReader = XMLType.getXmlInputFactory().createXMLStreamReader(is);
+            try {
+                while (workbookReader.hasNext()) {
+                    if (workbookReader.next() == XMLStreamConstants.START_ELEMENT) {
+                        String name = workbookReader.getLocalName();
+                        if (name.equals("workbookPr")) { //$NON-NLS-1$
+                            String value = workbookReader.getAttributeValue(null, "date1904"); //$NON-NLS-1$
+                            return "1".equals(value) || "true".equals(value); //$NON-NLS-1$ //$NON-NLS-2$
+                        }
+                        if (name.equals("sheets")) { //$NON-NLS-1$
+                            break;
+                        }
+                    }
+                }
+            } finally {
+                workbookReader.close();
+            }
+        }
+        return false;
+    }
+
+    public boolean isDate1904() {
+        return date1904;
+    }
+
+    /**
+     * @return the next non-empty row allowed by the criteria or null if there are no more rows
+     */
+    public SheetRow nextRow() throws TranslatorException {
+        if (done) {
+            return null;
+        }
+        try {
+            while (reader.hasNext()) {
+                int event = reader.next();
+                if (event != XMLStreamConstants.START_ELEMENT || !reader.getLocalName().equals(ROW)) {
+                    continue;
+                }
+                String r = reader.getAttributeValue(null, "r"); //$NON-NLS-1$
+                if (r != null) {
+                    rowNum = Integer.parseInt(r) - 1;
+                } else {
+                    rowNum++;
+                }
+                if (rowNum > lastRowNumber) {
+                    break;
+                }
+                if (rowNum < visitor.getFirstDataRowNumber() || !visitor.allows(rowNum)) {
+                    skipElement();
+                    continue;
+                }
+                SheetRow row = readRow();
+                if (row != null) {
+                    return row;
+                }
+            }
+        } catch (XMLStreamException e) {
+            throw new TranslatorException(e);
+        }
+        done = true;
+        return null;
+    }
+
+    /**
+     * Read the projected cells of the current row
+     * @return the row or null if the row has no cells
+     */
+    private SheetRow readRow() throws XMLStreamException {
+        SheetRow row = new SheetRow();
+        row.rowNum = rowNum;
+        row.cells = new SheetCell[projected.length];
+        boolean hasCells = false;
+        int column = -1;
+        while (reader.hasNext()) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.END_ELEMENT) {
+                break;
+            }
+            if (event != XMLStreamConstants.START_ELEMENT) {
+                continue;
+            }
+            if (!reader.getLocalName().equals(CELL)) {
+                skipElement();
+                continue;
+            }
+            hasCells = true;
+            String ref = reader.getAttributeValue(null, "r"); //$NON-NLS-1$
+            if (ref != null) {
+                column = new CellReference(ref).getCol();
+            } else {
+                column++;
+            }
+            if (column >= projected.length || !projected[column]) {
+                skipElement();
+                continue;
+            }
+            row.cells[column] = readCell();
+        }
+        if (!hasCells) {
+            return null;
+        }
+        return row;
+    }
+
+    private SheetCell readCell() throws XMLStreamException {
+        String type = reader.getAttributeValue(null, "t"); //$NON-NLS-1$
+        String style = reader.getAttributeValue(null, "s"); //$NON-NLS-1$
+        String value = null;
+        while (reader.hasNext()) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.END_ELEMENT) {
+                break;
+            }
+            if (event != XMLStreamConstants.START_ELEMENT) {
+                continue;
+            }
+            String name = reader.getLocalName();
+            if (name.equals(VALUE)) {
+                value = reader.getElementText();
+            } else if (name.equals(INLINE_STRING)) {
+                value = readInlineString();
+            } else {
+                skipElement();
+            }
+        }
+        if (value == null || "e".equals(type)) { //$NON-NLS-1$
+            //blank or an error
+            return null;
+        }
+        SheetCell cell = new SheetCell();
+        if (type == null || type.equals("n")) { //$NON-NLS-1$
+            cell.value = Double.valueOf(value);
+            XSSFCellStyle cellStyle = null;
+            if (styles != null && styles.getNumCellStyles() > 0) {
+                cellStyle = styles.getStyleAt(style == null ? 0 : Integer.parseInt(style));
+            }
+            if (cellStyle != null) {
+                cell.formatIndex = cellStyle.getDataFormat();
+                cell.formatString = cellStyle.getDataFormatString();
+            }
+        } else if (type.equals("s")) { //$NON-NLS-1$
+            cell.value = sharedStrings.getEntryAt(Integer.parseInt(value));
+        } else if (type.equals("b")) { //$NON-NLS-1$
+            cell.value = Boolean.valueOf(value.equals("1")); //$NON-NLS-1$
+        } else {
+            //inlineStr, str formula results, and iso dates
+            cell.value = value;
+        }
+        return cell;
+    }
+
+    /**
+     * Concatenate the text of a possibly rich inline string
+     */
+    private String readInlineString() throws XMLStreamException {
+        StringBuilder sb = new StringBuilder();
+        int depth = 1;
+        while (depth > 0 && reader.hasNext()) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                String name = reader.getLocalName();
+                if (name.equals(TEXT)) {
+                    sb.append(reader.getElementText());
+                } else if (name.equals("rPh")) { //$NON-NLS-1$
+                    //phonetic runs are not part of the value
+                    skipElement();
+                } else {
+                    depth++;
+                }
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Advance past the end of the current element
+     */
+    private void skipElement() throws XMLStreamException {
+        int depth = 1;
+        while (depth > 0 && reader.hasNext()) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        if (this.reader != null) {
+            try {
+                this.reader.close();
+            } catch (XMLStreamException e) {
+            }
+            this.reader = null;
+        }
+        if (this.sheetStream != null) {
+            try {
+                this.sheetStream.close();
+            } catch (IOException e) {
+            }
+            this.sheetStream = null;
+        }
+        if (this.pkg != null) {
+            this.pkg.revert();
+            this.pkg = null;
+        }
+        if (this.lock != null) {
+            try {
+                this.lock.close();
+            } catch (IOException e) {
+            }
+            this.lock = null;
+        }
+        if (this.deleteOnClose) {
+            this.file.delete();
+            this.deleteOnClose = false;
+        }
+    }
+
+}
@@ -48,8 +48,13 @@ public class TestExcelExecution {
     }
 
     static ArrayList helpExecute(String ddl, VirtualFileConnection connection, String query, boolean format) throws Exception {
+        return helpExecute(ddl, connection, query, format, false);
+    }
+
+    static ArrayList helpExecute(String ddl, VirtualFileConnection connection, String query, boolean format, boolean streaming) throws Exception {
         ExcelExecutionFactory translator = new ExcelExecutionFactory();
         translator.setFormatStrings(format);
+        translator.setStreaming(streaming);
         translator.start();
 
         TransformationMetadata metadata = RealMetadataFactory.fromDDL(ddl, "vdb", "excel");
@@ -337,6 +342,44 @@ public class TestExcelExecution {
         }
     }
 
+    @Test
+    public void testStreamingXLSX() throws Exception {
+        String ddl = "CREATE FOREIGN TABLE Sheet1 (\n" +
+                "	ROW_ID integer OPTIONS (SEARCHABLE 'All_Except_Like', \"teiid_excel:CELL_NUMBER\" 'ROW_ID'),\n" +
+                "	column1 string OPTIONS (SEARCHABLE 'Unsearchable', \"teiid_excel:CELL_NUMBER\" '1'),\n" +
+                "	column2 string OPTIONS (SEARCHABLE 'Unsearchable', \"teiid_excel:CELL_NUMBER\" '2'),\n" +
+                "	column3 string OPTIONS (SEARCHABLE 'Unsearchable', \"teiid_excel:CELL_NUMBER\" '3'),\n" +
+                "	CONSTRAINT PK0 PRIMARY KEY(ROW_ID)\n" +
+                ") OPTIONS (\"teiid_excel:FILE\" 'names.xlsx');";
+
+        VirtualFileConnection connection = Mockito.mock(VirtualFileConnection.class);
+        Mockito.stub(connection.getFiles("names.xlsx")).toReturn(TestExcelExecution.getFile("names.xlsx"));
+
+        ArrayList results = helpExecute(ddl, connection, "select * from Sheet1", false, true);
+        assertEquals("[[1, FirstName, LastName, Age], [2, John, Doe, null], [3, Jane, Smith, 40.0], [4, Matt, Liek, 13.0], [5, Sarah, Byne, 10.0], [6, Rocky, Dog, 3.0]]", results.toString());
+
+        results = helpExecute(ddl, connection, "select column1 from Sheet1 where ROW_ID < 4", false, true);
+        assertEquals("[[FirstName], [John], [Jane]]", results.toString());
+
+        ddl = ddl.replace("'names.xlsx'", "'names.xlsx', \"teiid_excel:FIRST_DATA_ROW_NUMBER\" '6'");
+        results = helpExecute(ddl, connection, "select * from Sheet1", false, true);
+        assertEquals("[[6, Rocky, Dog, 3.0]]", results.toString());
+    }
+
+    @Test
+    public void testStreamingTime() throws Exception {
+        VirtualFileConnection connection = Mockito.mock(VirtualFileConnection.class);
+        Mockito.stub(connection.getFiles("names.xls")).toReturn(TestExcelExecution.getFile("names.xlsx"));
+
+        String ddl = commonDDL.replace("14", "6");
+        ArrayList results = helpExecute(ddl, connection, "select \"time\" from Sheet1", false, true);
+        assertEquals("[[10:12:14]]", results.toString());
+
+        ddl = ddl.replace("\"time\" time", "\"time\" string");
+        results = helpExecute(ddl, connection, "select \"time\" from Sheet1", true, true);
+        assertEquals("[[10:12:14 AM]]", results.toString());
+    }
+
     @Test(expected=TranslatorException.class)
     public void testExecutionNoFile() throws Exception {
         VirtualFileConnection connection = Mockito.mock(VirtualFileConnection.class);
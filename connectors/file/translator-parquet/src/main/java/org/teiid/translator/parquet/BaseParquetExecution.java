@@ -25,11 +25,17 @@ import java.io.InputStream;
 import java.io.Serializable;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.hadoop.conf.Configuration;
@@ -58,6 +64,9 @@ import org.apache.parquet.filter2.predicate.Operators.UserDefined;
 import org.apache.parquet.filter2.predicate.Statistics;
 import org.apache.parquet.filter2.predicate.UserDefinedPredicate;
 import org.apache.parquet.hadoop.ParquetFileReader;
+import org.apache.parquet.hadoop.ParquetInputFormat;
+import org.apache.parquet.hadoop.metadata.BlockMetaData;
+import org.apache.parquet.hadoop.metadata.ParquetMetadata;
 import org.apache.parquet.hadoop.util.HadoopInputFile;
 import org.apache.parquet.io.ColumnIOFactory;
 import org.apache.parquet.io.MessageColumnIO;
@@ -68,6 +77,7 @@ import org.apache.parquet.schema.Type;
 import org.teiid.core.types.BinaryType;
 import org.teiid.core.types.DataTypeManager;
 import org.teiid.core.types.TransformationException;
+import org.teiid.file.JavaVirtualFile;
 import org.teiid.file.VirtualFile;
 import org.teiid.file.VirtualFileConnection;
 import org.teiid.language.AndOr;
@@ -78,6 +88,8 @@ import org.teiid.language.Condition;
 import org.teiid.language.IsNull;
 import org.teiid.language.LanguageObject;
 import org.teiid.language.Literal;
+import org.teiid.logging.LogConstants;
+import org.teiid.logging.LogManager;
 import org.teiid.metadata.RuntimeMetadata;
 import org.teiid.translator.DataNotAvailableException;
 import org.teiid.translator.Execution;
@@ -225,6 +237,7 @@ public class BaseParquetExecution implements Execution {
     protected ParquetQueryVisitor visitor = new ParquetQueryVisitor();
     private VirtualFile[] parquetFiles;
     private AtomicInteger fileCount = new AtomicInteger();
+    private ParquetFile currentFile;
     private ParquetFileReader reader;
     private MessageType filteredSchema;
     private RecordReader<Group> rowIterator;
@@ -232,8 +245,50 @@ public class BaseParquetExecution implements Execution {
     private long pageRowCount;
     protected HashMap<String, Comparable<?>> partitionedColumnsValue = new HashMap<>();
     private FilterCompat.Filter rowGroupFilter;
+    private FilterPredicate rowGroupPredicate;
     private FilterPredicate filePathFilter;
 
+    // Parallel execution state
+    private Executor executor;
+    private Runnable executorRelease;
+    private int parallelism = 1;
+    private Configuration rowGroupConfig;
+    private BlockingQueue<RowBatch> batches;
+    private AtomicInteger pendingTasks;
+    private Queue<ReadTask> readyTasks = new ArrayDeque<>();
+    private Queue<ReadTask> parkedTasks = new ArrayDeque<>();
+    private int runningTasks; //guarded by readyTasks
+    private volatile TranslatorException failure;
+    private volatile boolean closed;
+    private RowBatch currentBatch;
+    private int batchIndex;
+
+    /**
+     * A local copy of a parquet file, which is removed once all readers are done with it
+     */
+    private static class ParquetFile {
+        File file;
+        boolean temp;
+        HashMap<String, Comparable<?>> partitionValues;
+        AtomicInteger references = new AtomicInteger(1);
+
+        void release() {
+            if (references.decrementAndGet() == 0 && temp) {
+                file.delete();
+            }
+        }
+    }
+
+    /**
+     * Rows read from a single row group by a parallel reader
+     */
+    private static class RowBatch {
+        List<Group> rows;
+        HashMap<String, Comparable<?>> partitionValues;
+    }
+
+    private static final int BATCH_SIZE = 1024;
+
     public BaseParquetExecution(ExecutionContext executionContext,
                                 RuntimeMetadata metadata, VirtualFileConnection connection, boolean immutable) {
         this.executionContext = executionContext;
@@ -253,6 +308,7 @@ public class BaseParquetExecution implements Execution {
             path = getDirectoryPath(path, this.visitor.getPartitionedComparisons());
         }
         FilterPredicate predicate = getRowGroupFilter(this.visitor.getNonPartionedConditions());
+        this.rowGroupPredicate = predicate;
         if (predicate == null) {
             this.rowGroupFilter = FilterCompat.NOOP;
         } else {
@@ -260,12 +316,281 @@ public class BaseParquetExecution implements Execution {
         }
         filePathFilter = getRowGroupFilter(this.visitor.getPartitionedConditions());
         this.parquetFiles = VirtualFileConnection.Util.getFiles(path, this.connection, true, false);
+        if (this.parallelism > 1 && this.executor != null) {
+            executeParallel();
+            return;
+        }
         VirtualFile nextParquetFile = getNextParquetFile();
         if (nextParquetFile != null) {
             readParquetFile(nextParquetFile);
         }
     }
 
+    /**
+     * Read each file, and each row group of each file, with a separate task.  Rows are handed back
+     * in batches through a bounded queue so that the readers cannot get too far ahead of the engine.
+     * <br>
+     * At most parallelism tasks per execution are running at a time.  A task that cannot add a batch
+     * to the full queue is parked, rather than holding a thread, and is resumed once the engine has
+     * drained a batch.
+     */
+    private void executeParallel() throws TranslatorException {
+        this.batches = new ArrayBlockingQueue<>(this.parallelism * 2);
+        this.pendingTasks = new AtomicInteger(1);
+        //the row groups have already been pruned by the file task, so the row group readers only filter pages and records
+        this.rowGroupConfig = new Configuration();
+        this.rowGroupConfig.setBoolean(ParquetInputFormat.STATS_FILTERING_ENABLED, false);
+        this.rowGroupConfig.setBoolean(ParquetInputFormat.DICTIONARY_FILTERING_ENABLED, false);
+        if (this.rowGroupPredicate != null) {
+            ParquetInputFormat.setFilterPredicate(this.rowGroupConfig, this.rowGroupPredicate);
+        }
+        VirtualFile nextParquetFile = null;
+        while ((nextParquetFile = getNextParquetFile()) != null) {
+            addTask(new FileTask(nextParquetFile, new HashMap<>(this.partitionedColumnsValue)));
+        }
+        schedule();
+        taskComplete();
+    }
+
+    private void addTask(ReadTask task) {
+        synchronized (this.readyTasks) {
+            if (!closed) {
+                this.pendingTasks.incrementAndGet();
+                this.readyTasks.add(task);
+                return;
+            }
+        }
+        task.release();
+    }
+
+    /**
+     * Submit parked, then new, tasks while there is room in the queue and the
+     * execution is below its parallelism
+     */
+    private void schedule() {
+        synchronized (this.readyTasks) {
+            while (!closed && this.runningTasks < this.parallelism && this.batches.remainingCapacity() > 0) {
+                ReadTask task = this.parkedTasks.poll();
+                if (task == null) {
+                    task = this.readyTasks.poll();
+                    if (task == null) {
+                        return;
+                    }
+                }
+                this.runningTasks++;
+                this.executor.execute(task);
+            }
+        }
+    }
+
+    private void taskComplete() {
+        if (this.pendingTasks.decrementAndGet() == 0 || this.failure != null) {
+            this.executionContext.dataAvailable();
+        }
+    }
+
+    /**
+     * Add the batch to the queue without blocking
+     * @return false if the queue is full
+     */
+    private boolean addBatch(RowBatch batch) {
+        if (!this.batches.offer(batch)) {
+            return false;
+        }
+        this.executionContext.dataAvailable();
+        return true;
+    }
+
+    /**
+     * A unit of parallel work that may be parked and resumed
+     */
+    private abstract class ReadTask implements Runnable {
+
+        @Override
+        public void run() {
+            boolean complete = true;
+            try {
+                if (!closed) {
+                    complete = process();
+                }
+            } catch (IOException e) {
+                failure = new TranslatorException(e);
+            } catch (TranslatorException e) {
+                failure = e;
+            } catch (RuntimeException e) {
+                failure = new TranslatorException(e);
+            } finally {
+                synchronized (readyTasks) {
+                    runningTasks--;
+                    if (!complete && failure == null && !closed) {
+                        parkedTasks.add(this);
+                    } else {
+                        complete = true;
+                    }
+                }
+                if (complete) {
+                    release();
+                    taskComplete();
+                }
+                schedule();
+            }
+        }
+
+        /**
+         * @return false if the task should be parked until there is room in the queue
+         */
+        abstract boolean process() throws IOException, TranslatorException;
+
+        abstract void release();
+    }
+
+    /**
+     * Determines the row groups of a file and adds a task for each.  The footer is only read here,
+     * each task is given a footer restricted to its row group.
+     */
+    private class FileTask extends ReadTask {
+        private VirtualFile parquetFile;
+        private HashMap<String, Comparable<?>> partitionValues;
+        private ParquetFile file;
+
+        FileTask(VirtualFile parquetFile, HashMap<String, Comparable<?>> partitionValues) {
+            this.parquetFile = parquetFile;
+            this.partitionValues = partitionValues;
+        }
+
+        @Override
+        boolean process() throws IOException, TranslatorException {
+            file = getLocalFile(parquetFile);
+            file.partitionValues = partitionValues;
+            ParquetMetadata footer = null;
+            List<BlockMetaData> blocks = null;
+            try (ParquetFileReader fileReader = openReader(file)) {
+                footer = fileReader.getFooter();
+                blocks = fileReader.getRowGroups();
+            }
+            MessageType schema = getFilteredSchema(footer.getFileMetaData().getSchema(), visitor.getAllColumns());
+            for (BlockMetaData block : blocks) {
+                file.references.incrementAndGet();
+                addTask(new RowGroupTask(file, new ParquetMetadata(footer.getFileMetaData(), Collections.singletonList(block)), schema));
+            }
+            return true;
+        }
+
+        @Override
+        void release() {
+            if (file != null) {
+                file.release();
+            }
+        }
+    }
+
+    /**
+     * Reads a single row group, adding batches of rows to the queue
+     */
+    private class RowGroupTask extends ReadTask {
+        private ParquetFile file;
+        private ParquetMetadata footer;
+        private MessageType schema;
+        private ParquetFileReader fileReader;
+        private RecordReader<Group> recordReader;
+        private long remaining;
+        private RowBatch pending;
+
+        RowGroupTask(ParquetFile file, ParquetMetadata footer, MessageType schema) {
+            this.file = file;
+            this.footer = footer;
+            this.schema = schema;
+        }
+
+        @SuppressWarnings("deprecation")
+        @Override
+        boolean process() throws IOException, TranslatorException {
+            if (pending != null) {
+                if (!addBatch(pending)) {
+                    return false;
+                }
+                pending = null;
+            }
+            if (fileReader == null) {
+                //the footer only has this task's row group, so the reader cannot advance to a row group read by another task
+                fileReader = new ParquetFileReader(rowGroupConfig, new Path(file.file.toURI()), footer);
+                fileReader.setRequestedSchema(schema);
+                PageReadStore rowGroup = fileReader.readNextFilteredRowGroup();
+                if (rowGroup == null) {
+                    return true;
+                }
+                remaining = rowGroup.getRowCount();
+                recordReader = new ColumnIOFactory().getColumnIO(schema).getRecordReader(rowGroup, new GroupRecordConverter(schema), rowGroupFilter);
+            }
+            RowBatch batch = null;
+            while (remaining > 0 && !closed) {
+                remaining--;
+                Group row = recordReader.read();
+                if (row == null) {
+                    continue;
+                }
+                if (batch == null) {
+                    batch = new RowBatch();
+                    batch.rows = new ArrayList<>(BATCH_SIZE);
+                    batch.partitionValues = file.partitionValues;
+                }
+                batch.rows.add(row);
+                if (batch.rows.size() == BATCH_SIZE) {
+                    if (!addBatch(batch)) {
+                        pending = batch;
+                        return false;
+                    }
+                    batch = null;
+                }
+            }
+            if (batch != null && !closed && !addBatch(batch)) {
+                pending = batch;
+                return false;
+            }
+            return true;
+        }
+
+        @Override
+        void release() {
+            pending = null;
+            recordReader = null;
+            if (fileReader != null) {
+                try {
+                    fileReader.close();
+                } catch (IOException e) {
+                    LogManager.logDetail(LogConstants.CTX_CONNECTOR, e, "Could not close the parquet reader"); //$NON-NLS-1$
+                }
+                fileReader = null;
+            }
+            file.release();
+        }
+    }
+
+    private Group nextRowParallel() throws TranslatorException, DataNotAvailableException {
+        while (true) {
+            if (this.failure != null) {
+                throw this.failure;
+            }
+            if (this.currentBatch != null && this.batchIndex < this.currentBatch.rows.size()) {
+                this.partitionedColumnsValue = this.currentBatch.partitionValues;
+                return this.currentBatch.rows.get(this.batchIndex++);
+            }
+            //check for completion before polling so that a final batch is not missed
+            boolean done = this.pendingTasks.get() == 0;
+            this.currentBatch = this.batches.poll();
+            this.batchIndex = 0;
+            if (this.currentBatch != null) {
+                schedule();
+            }
+            if (this.currentBatch == null) {
+                if (done) {
+                    return null;
+                }
+                throw DataNotAvailableException.NO_POLLING;
+            }
+        }
+    }
+
     private String getDirectoryPath(String root, Map<String, Comparison> predicates) {
         StringBuilder path = new StringBuilder(root); // because we are only supporting the equality comparison as of now, otherwise we would return a list of paths to iterate over
         if (!root.endsWith("/")) {
@@ -430,19 +755,68 @@ public class BaseParquetExecution implements Execution {
     }
 
     private void readParquetFile(VirtualFile parquetFile) throws TranslatorException {
-        try (InputStream parquetFileStream = parquetFile.openInputStream(!immutable)) {
-            File localFile = createTempFile(parquetFileStream);
-            Path path = new Path(localFile.toURI());
-            Configuration config = new Configuration();
-            reader = ParquetFileReader.open(HadoopInputFile.fromPath(path, config), ParquetReadOptions.builder().withRecordFilter(rowGroupFilter).build());
-            MessageType schema = reader.getFooter().getFileMetaData().getSchema();
-            filteredSchema = getFilteredSchema(schema, this.visitor.getAllColumns());
+        closeReader();
+        try {
+            currentFile = getLocalFile(parquetFile);
+            reader = openReader(currentFile);
+            filteredSchema = getFilteredSchema(reader.getFooter().getFileMetaData().getSchema(), this.visitor.getAllColumns());
             columnIO = new ColumnIOFactory().getColumnIO(filteredSchema);
         } catch (IOException e) {
             throw new TranslatorException(e);
         }
     }
 
+    /**
+     * Get a local file for the hadoop reader, making a temporary copy if needed
+     */
+    private ParquetFile getLocalFile(VirtualFile parquetFile) throws TranslatorException {
+        ParquetFile result = new ParquetFile();
+        if (parquetFile instanceof JavaVirtualFile) {
+            result.file = ((JavaVirtualFile)parquetFile).getFile();
+            return result;
+        }
+        try (InputStream parquetFileStream = parquetFile.openInputStream(!immutable)) {
+            result.file = createTempFile(parquetFileStream);
+            result.temp = true;
+        } catch (IOException e) {
+            throw new TranslatorException(e);
+        }
+        return result;
+    }
+
+    /**
+     * Open a reader that prunes row groups by statistics and dictionaries, and pages by the column indexes.
+     * Only the referenced columns are requested.
+     */
+    private ParquetFileReader openReader(ParquetFile file) throws IOException {
+        Path path = new Path(file.file.toURI());
+        Configuration config = new Configuration();
+        ParquetReadOptions.Builder options = ParquetReadOptions.builder()
+                .useStatsFilter(true)
+                .useDictionaryFilter(true)
+                .useColumnIndexFilter(true)
+                .withRecordFilter(rowGroupFilter);
+        ParquetFileReader fileReader = ParquetFileReader.open(HadoopInputFile.fromPath(path, config), options.build());
+        MessageType schema = getFilteredSchema(fileReader.getFooter().getFileMetaData().getSchema(), this.visitor.getAllColumns());
+        fileReader.setRequestedSchema(schema);
+        return fileReader;
+    }
+
+    private void closeReader() {
+        if (reader != null) {
+            try {
+                reader.close();
+            } catch (IOException e) {
+                LogManager.logDetail(LogConstants.CTX_CONNECTOR, e, "Could not close the parquet reader"); //$NON-NLS-1$
+            }
+            reader = null;
+        }
+        if (currentFile != null) {
+            currentFile.release();
+            currentFile = null;
+        }
+    }
+
     private void parsePartitionedColumnsValues(VirtualFile parquetFile) throws TranslatorException {
         String path = parquetFile.getPath().substring(this.visitor.getParquetPath().length());
         String[] columns = path.split("/");
@@ -487,14 +861,18 @@ public class BaseParquetExecution implements Execution {
     }
 
     public Group nextRow() throws TranslatorException, DataNotAvailableException {
+        if (this.batches != null) {
+            return nextRowParallel();
+        }
         try {
             while (columnIO != null) {
                 if (this.rowIterator == null || pageRowCount-- <= 0) {
                     this.rowIterator = null;
-                    PageReadStore nextRowGroup = this.reader.readNextRowGroup();
+                    PageReadStore nextRowGroup = this.reader.readNextFilteredRowGroup();
                     if(nextRowGroup == null){
                         VirtualFile nextParquetFile = getNextParquetFile();
                         if (nextParquetFile == null) {
+                            closeReader();
                             columnIO = null;
                             return null; //terminal condition
                         }
@@ -537,7 +915,41 @@ public class BaseParquetExecution implements Execution {
 
     @Override
     public void close() {
+        this.closed = true;
+        if (this.batches != null) {
+            List<ReadTask> tasks = new ArrayList<>();
+            synchronized (this.readyTasks) {
+                tasks.addAll(this.parkedTasks);
+                tasks.addAll(this.readyTasks);
+                this.parkedTasks.clear();
+                this.readyTasks.clear();
+            }
+            for (ReadTask task : tasks) {
+                task.release();
+            }
+            this.batches.clear();
+        }
+        closeReader();
+        if (this.executorRelease != null) {
+            //no task can be scheduled once closed
+            this.executorRelease.run();
+            this.executorRelease = null;
+        }
+    }
+
+    /**
+     * @param release run once this execution is closed and will not submit further tasks
+     */
+    public void setExecutor(Executor executor, Runnable release) {
+        this.executor = executor;
+        this.executorRelease = release;
+    }
 
+    /**
+     * @param parallelism the number of files and row groups that may be read concurrently
+     */
+    public void setParallelism(int parallelism) {
+        this.parallelism = parallelism;
     }
 
     @Override
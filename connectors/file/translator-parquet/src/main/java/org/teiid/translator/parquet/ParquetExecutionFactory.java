@@ -18,6 +18,9 @@
 
 package org.teiid.translator.parquet;
 
+import java.util.concurrent.ExecutorService;
+
+import org.teiid.core.util.ExecutorUtils;
 import org.teiid.file.VirtualFileConnection;
 import org.teiid.language.QueryExpression;
 import org.teiid.language.Select;
@@ -29,10 +32,15 @@ import org.teiid.translator.MetadataProcessor;
 import org.teiid.translator.ResultSetExecution;
 import org.teiid.translator.Translator;
 import org.teiid.translator.TranslatorException;
+import org.teiid.translator.TranslatorProperty;
 
 @Translator(name="parquet", description="Parquet file translator")
 public class ParquetExecutionFactory extends ExecutionFactory<ConnectionFactory, VirtualFileConnection> {
 
+    private int parallelism = 1;
+    private ExecutorService executor;
+    private int executorReferences; //guarded by this
+
     public ParquetExecutionFactory() {
         setSourceRequiredForMetadata(true);
         setTransactionSupport(TransactionSupport.NONE);
@@ -42,9 +50,43 @@ public class ParquetExecutionFactory extends ExecutionFactory<ConnectionFactory,
     public ResultSetExecution createResultSetExecution(QueryExpression command, ExecutionContext executionContext, RuntimeMetadata metadata, VirtualFileConnection connection)
             throws TranslatorException {
         ParquetExecution ex = new ParquetExecution((Select)command, executionContext, metadata, connection, this.isImmutable());
+        if (parallelism > 1) {
+            ex.setParallelism(parallelism);
+            ex.setExecutor(getExecutor(), this::releaseExecutor);
+        }
         return ex;
     }
 
+    /**
+     * The pool is shared by all executions.  Each execution runs at most parallelism tasks
+     * and a task does not wait on a consumer that has stopped fetching.
+     * <br>
+     * The pool is shut down once the last execution using it is closed.
+     */
+    private synchronized ExecutorService getExecutor() {
+        if (executor == null) {
+            executor = ExecutorUtils.newFixedThreadPool(parallelism, "Parquet Reader"); //$NON-NLS-1$
+        }
+        executorReferences++;
+        return executor;
+    }
+
+    private synchronized void releaseExecutor() {
+        if (--executorReferences == 0) {
+            //running tasks of closed executions are allowed to finish
+            executor.shutdown();
+            executor = null;
+        }
+    }
+
+    @TranslatorProperty(display="Parallelism", description="The number of threads used to read parquet files and row groups concurrently.  1 reads sequentially.", advanced=true)
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    public void setParallelism(int parallelism) {
+        this.parallelism = parallelism;
+    }
 
     @Override
     public MetadataProcessor<VirtualFileConnection> getMetadataProcessor(){
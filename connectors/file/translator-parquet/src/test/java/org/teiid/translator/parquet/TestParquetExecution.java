@@ -1,12 +1,25 @@
 package org.teiid.translator.parquet;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
+import java.io.File;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.apache.parquet.example.data.Group;
+import org.apache.parquet.example.data.simple.SimpleGroupFactory;
+import org.apache.parquet.hadoop.ParquetFileReader;
+import org.apache.parquet.hadoop.ParquetWriter;
+import org.apache.parquet.hadoop.example.ExampleParquetWriter;
+import org.apache.parquet.hadoop.util.HadoopInputFile;
+import org.apache.parquet.schema.MessageType;
+import org.apache.parquet.schema.MessageTypeParser;
 import org.junit.Assert;
 import org.junit.Test;
 import org.mockito.Mockito;
@@ -18,6 +31,7 @@ import org.teiid.language.Command;
 import org.teiid.language.QueryExpression;
 import org.teiid.query.metadata.TransformationMetadata;
 import org.teiid.query.unittest.RealMetadataFactory;
+import org.teiid.translator.DataNotAvailableException;
 import org.teiid.translator.ExecutionContext;
 import org.teiid.translator.ResultSetExecution;
 
@@ -25,7 +39,12 @@ import org.teiid.translator.ResultSetExecution;
 public class TestParquetExecution {
 
     static ArrayList<?> helpExecute(String ddl, VirtualFileConnection connection, String query) throws Exception {
+        return helpExecute(ddl, connection, query, 1);
+    }
+
+    static ArrayList<?> helpExecute(String ddl, VirtualFileConnection connection, String query, int parallelism) throws Exception {
         ParquetExecutionFactory translator = new ParquetExecutionFactory();
+        translator.setParallelism(parallelism);
         translator.start();
 
         TransformationMetadata metadata = RealMetadataFactory.fromDDL(ddl, "vdb", "parquet");
@@ -40,7 +59,13 @@ public class TestParquetExecution {
 
             ArrayList<Object> results = new ArrayList<>();
             while (true) {
-                List<?> row = execution.next();
+                List<?> row = null;
+                try {
+                    row = execution.next();
+                } catch (DataNotAvailableException e) {
+                    Thread.sleep(10);
+                    continue;
+                }
                 if (row == null) {
                     break;
                 }
@@ -121,6 +146,30 @@ public class TestParquetExecution {
         Assert.assertEquals("[]",results.toString());
     }
 
+    @Test
+    public void testParquetExecutionParallel() throws Exception {
+        String ddl = "CREATE FOREIGN TABLE Table1 (\n" +
+                "   id long ,\n" +
+                "   \"month\" string ,\n" +
+                "   name string ,\n" +
+                "   \"year\" long ,\n" +
+                "   CONSTRAINT PK0 PRIMARY KEY(id)\n" +
+                ") OPTIONS (\"teiid_parquet:LOCATION\" 'dir', \"teiid_parquet:PARTITIONED_COLUMNS\" 'year,month');";
+
+        VirtualFileConnection connection = new JavaVirtualFileConnection(UnitTestUtil.getTestDataPath());
+
+        ArrayList<?> results = helpExecute(ddl, connection, "select name, \"month\" from Table1 WHERE \"year\"<2020", 4);
+        List<String> rows = new ArrayList<>();
+        for (Object row : results) {
+            rows.add(row.toString());
+        }
+        Collections.sort(rows);
+        Assert.assertEquals("[[Anne, January], [Anne, March], [Michael, January], [Michael, March]]", rows.toString());
+
+        results = helpExecute(ddl, connection, "select name from Table1 WHERE \"month\"='March' and name = 'Anne'", 4);
+        Assert.assertEquals("[[Anne]]", results.toString());
+    }
+
     @Test
     public void testParquetExecutionWithNestedPartitionFilter() throws Exception {
         String ddl = "CREATE FOREIGN TABLE Table1 (\n" +
@@ -407,4 +456,41 @@ public class TestParquetExecution {
         Assert.assertEquals("[[1, Aditya], [2, Animesh]]", results.toString());
     }
 
+    @Test
+    public void testParquetExecutionParallelRowGroups() throws Exception {
+        File dir = new File(UnitTestUtil.getTestScratchPath(), "rowgroups");
+        dir.mkdirs();
+        File f = new File(dir, "rows.parquet");
+        f.delete();
+        MessageType schema = MessageTypeParser.parseMessageType("message rows { required int64 id; required binary name (UTF8); }");
+        SimpleGroupFactory factory = new SimpleGroupFactory(schema);
+        try (ParquetWriter<Group> writer = ExampleParquetWriter.builder(new Path(f.toURI())).withType(schema)
+                .withRowGroupSize(4096).withPageSize(512).withDictionaryEncoding(false).withConf(new Configuration()).build()) {
+            for (long i = 0; i < 10000; i++) {
+                writer.write(factory.newGroup().append("id", i).append("name", "name" + i));
+            }
+        }
+        try (ParquetFileReader reader = ParquetFileReader.open(HadoopInputFile.fromPath(new Path(f.toURI()), new Configuration()))) {
+            assertTrue(reader.getRowGroups().size() > 1);
+        }
+        String ddl = "CREATE FOREIGN TABLE Table1 (\n" +
+                "   id long ,\n" +
+                "   name string ,\n" +
+                "   CONSTRAINT PK0 PRIMARY KEY(id)\n" +
+                ") OPTIONS (\"teiid_parquet:LOCATION\" 'rows.parquet');";
+
+        VirtualFileConnection connection = new JavaVirtualFileConnection(dir.getAbsolutePath());
+
+        try {
+            for (String where : Arrays.asList("", " WHERE id >= 2500", " WHERE id = 0 or id = 9999")) {
+                List<?> expected = helpExecute(ddl, connection, "select id from Table1" + where);
+                List<?> results = helpExecute(ddl, connection, "select id from Table1" + where, 4);
+                assertEquals(expected.size(), results.size());
+                assertEquals(new HashSet<Object>(expected), new HashSet<Object>(results));
+            }
+        } finally {
+            f.delete();
+        }
+    }
+
 }
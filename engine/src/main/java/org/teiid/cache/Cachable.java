@@ -27,4 +27,14 @@ public interface Cachable {
     boolean restore(TupleBufferCache bufferManager);
 
     AccessInfo getAccessInfo();
+
+    /**
+     * @return an estimate of the bytes held by this entry
+     */
+    long getSizeEstimate();
+
+    /**
+     * @return the time in milliseconds needed to compute this entry, or -1 if not known
+     */
+    long getCost();
 }
@@ -85,4 +85,12 @@ public interface Cache<K, V>  {
      */
     boolean isTransactional();
 
+    /**
+     * The number of entries removed to keep the cache within its size constraints
+     * @return the count, or -1 if not tracked
+     */
+    default long getEvictionCount() {
+        return -1;
+    }
+
 }
@@ -0,0 +1,358 @@
+/*
+ * Copyright Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags and
+ * the COPYRIGHT.txt file distributed with this work.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.teiid.common.buffer;
+
+import java.lang.reflect.Array;
+import java.util.AbstractList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.RandomAccess;
+
+import org.teiid.core.types.DataTypeManager;
+
+/**
+ * An immutable column oriented batch of tuples.
+ * <br>
+ * Integral, floating point, boolean and character columns are held in primitive
+ * arrays with a null bitmap, all other columns are held as an object array.
+ * <br>
+ * The batch also acts as a row oriented list of tuples so that it may be used anywhere
+ * a batch is expected.  Values are boxed on access from the row view, so consumers
+ * that understand the columnar form should use the column accessors instead.
+ * A SelectNode with vectorized predicates evaluates, selects and projects the column
+ * arrays directly, so its output remains columnar.
+ */
+public class ColumnarBatch extends AbstractList<List<?>> implements RandomAccess {
+
+    private final class Row extends AbstractList<Object> implements RandomAccess {
+        private final int row;
+
+        private Row(int row) {
+            this.row = row;
+        }
+
+        @Override
+        public Object get(int index) {
+            return getValue(row, index);
+        }
+
+        @Override
+        public int size() {
+            return columns.length;
+        }
+    }
+
+    private final Class<?>[] types;
+    private final Object[] columns;
+    private final BitSet[] nulls;
+    private final int rowCount;
+
+    /**
+     * Create a columnar copy of the given row oriented tuples
+     * @param types the column types
+     * @param tuples
+     */
+    public ColumnarBatch(Class<?>[] types, List<? extends List<?>> tuples) {
+        this.types = types;
+        this.rowCount = tuples.size();
+        this.columns = new Object[types.length];
+        this.nulls = new BitSet[types.length];
+        for (int col = 0; col < types.length; col++) {
+            Class<?> type = types[col];
+            if (!isPrimitive(type)) {
+                Object[] values = new Object[rowCount];
+                for (int row = 0; row < rowCount; row++) {
+                    values[row] = tuples.get(row).get(col);
+                }
+                columns[col] = values;
+                continue;
+            }
+            BitSet nullBits = new BitSet();
+            Object column = null;
+            if (type == DataTypeManager.DefaultDataClasses.INTEGER) {
+                int[] values = new int[rowCount];
+                for (int row = 0; row < rowCount; row++) {
+                    Object value = tuples.get(row).get(col);
+                    if (value == null) {
+                        nullBits.set(row);
+                    } else {
+                        values[row] = (Integer)value;
+                    }
+                }
+                column = values;
+            } else if (type == DataTypeManager.DefaultDataClasses.LONG) {
+                long[] values = new long[rowCount];
+                for (int row = 0; row < rowCount; row++) {
+                    Object value = tuples.get(row).get(col);
+                    if (value == null) {
+                        nullBits.set(row);
+                    } else {
+                        values[row] = (Long)value;
+                    }
+                }
+                column = values;
+            } else if (type == DataTypeManager.DefaultDataClasses.DOUBLE) {
+                double[] values = new double[rowCount];
+                for (int row = 0; row < rowCount; row++) {
+                    Object value = tuples.get(row).get(col);
+                    if (value == null) {
+                        nullBits.set(row);
+                    } else {
+                        values[row] = (Double)value;
+                    }
+                }
+                column = values;
+            } else if (type == DataTypeManager.DefaultDataClasses.FLOAT) {
+                float[] values = new float[rowCount];
+                for (int row = 0; row < rowCount; row++) {
+                    Object value = tuples.get(row).get(col);
+                    if (value == null) {
+                        nullBits.set(row);
+                    } else {
+                        values[row] = (Float)value;
+                    }
+                }
+                column = values;
+            } else if (type == DataTypeManager.DefaultDataClasses.SHORT) {
+                short[] values = new short[rowCount];
+                for (int row = 0; row < rowCount; row++) {
+                    Object value = tuples.get(row).get(col);
+                    if (value == null) {
+                        nullBits.set(row);
+                    } else {
+                        values[row] = (Short)value;
+                    }
+                }
+                column = values;
+            } else if (type == DataTypeManager.DefaultDataClasses.BYTE) {
+                byte[] values = new byte[rowCount];
+                for (int row = 0; row < rowCount; row++) {
+                    Object value = tuples.get(row).get(col);
+                    if (value == null) {
+                        nullBits.set(row);
+                    } else {
+                        values[row] = (Byte)value;
+                    }
+                }
+                column = values;
+            } else if (type == DataTypeManager.DefaultDataClasses.CHAR) {
+                char[] values = new char[rowCount];
+                for (int row = 0; row < rowCount; row++) {
+                    Object value = tuples.get(row).get(col);
+                    if (value == null) {
+                        nullBits.set(row);
+                    } else {
+                        values[row] = (Character)value;
+                    }
+                }
+                column = values;
+            } else {
+                boolean[] values = new boolean[rowCount];
+                for (int row = 0; row < rowCount; row++) {
+                    Object value = tuples.get(row).get(col);
+                    if (value == null) {
+                        nullBits.set(row);
+                    } else {
+                        values[row] = (Boolean)value;
+                    }
+                }
+                column = values;
+            }
+            columns[col] = column;
+            nulls[col] = nullBits;
+        }
+    }
+
+    private ColumnarBatch(Class<?>[] types, Object[] columns, BitSet[] nulls, int rowCount) {
+        this.types = types;
+        this.columns = columns;
+        this.nulls = nulls;
+        this.rowCount = rowCount;
+    }
+
+    /**
+     * Create a batch of the selected rows and columns.  The runs of selected rows
+     * are copied from the column arrays so that the values are not boxed.
+     * @param selection indexed by row, true if the row should be retained
+     * @param projection the indexes of the columns to retain
+     */
+    public ColumnarBatch select(boolean[] selection, int[] projection) {
+        int count = 0;
+        for (int row = 0; row < rowCount; row++) {
+            if (selection[row]) {
+                count++;
+            }
+        }
+        Class<?>[] selectedTypes = new Class<?>[projection.length];
+        Object[] selectedColumns = new Object[projection.length];
+        BitSet[] selectedNulls = new BitSet[projection.length];
+        for (int i = 0; i < projection.length; i++) {
+            int col = projection[i];
+            selectedTypes[i] = types[col];
+            Object column = columns[col];
+            BitSet nullBits = nulls[col];
+            Object values = Array.newInstance(column.getClass().getComponentType(), count);
+            BitSet selectedNullBits = nullBits == null ? null : new BitSet();
+            int pos = 0;
+            int row = 0;
+            while (row < rowCount) {
+                if (!selection[row]) {
+                    row++;
+                    continue;
+                }
+                int start = row;
+                while (row < rowCount && selection[row]) {
+                    row++;
+                }
+                System.arraycopy(column, start, values, pos, row - start);
+                if (nullBits != null) {
+                    for (int j = nullBits.nextSetBit(start); j >= 0 && j < row; j = nullBits.nextSetBit(j + 1)) {
+                        selectedNullBits.set(pos + j - start);
+                    }
+                }
+                pos += row - start;
+            }
+            selectedColumns[i] = values;
+            selectedNulls[i] = selectedNullBits;
+        }
+        return new ColumnarBatch(selectedTypes, selectedColumns, selectedNulls, count);
+    }
+
+    /**
+     * @return true if the type is held in a primitive array
+     */
+    public static boolean isPrimitive(Class<?> type) {
+        return type == DataTypeManager.DefaultDataClasses.INTEGER
+                || type == DataTypeManager.DefaultDataClasses.LONG
+                || type == DataTypeManager.DefaultDataClasses.DOUBLE
+                || type == DataTypeManager.DefaultDataClasses.FLOAT
+                || type == DataTypeManager.DefaultDataClasses.SHORT
+                || type == DataTypeManager.DefaultDataClasses.BYTE
+                || type == DataTypeManager.DefaultDataClasses.CHAR
+                || type == DataTypeManager.DefaultDataClasses.BOOLEAN;
+    }
+
+    /**
+     * @return true if any of the types would be held in a primitive array
+     */
+    public static boolean hasPrimitiveColumns(Class<?>[] types) {
+        for (Class<?> type : types) {
+            if (isPrimitive(type)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public List<?> get(int index) {
+        if (index < 0 || index >= rowCount) {
+            throw new IndexOutOfBoundsException(String.valueOf(index));
+        }
+        return new Row(index);
+    }
+
+    @Override
+    public int size() {
+        return rowCount;
+    }
+
+    public int getColumnCount() {
+        return columns.length;
+    }
+
+    public Class<?> getType(int col) {
+        return types[col];
+    }
+
+    /**
+     * Get the backing array for the column.  It will be a primitive array
+     * if the column type {@link #isPrimitive(Class)}, otherwise an Object[].
+     * The array must not be modified.
+     */
+    public Object getColumn(int col) {
+        return columns[col];
+    }
+
+    /**
+     * Get the null bitmap for a primitive column.
+     * @return the null bitmap or null if the column is held as an Object[]
+     */
+    public BitSet getNulls(int col) {
+        return nulls[col];
+    }
+
+    public boolean isNull(int row, int col) {
+        BitSet nullBits = nulls[col];
+        if (nullBits == null) {
+            return ((Object[])columns[col])[row] == null;
+        }
+        return nullBits.get(row);
+    }
+
+    public int getInt(int row, int col) {
+        return ((int[])columns[col])[row];
+    }
+
+    public long getLong(int row, int col) {
+        return ((long[])columns[col])[row];
+    }
+
+    public double getDouble(int row, int col) {
+        return ((double[])columns[col])[row];
+    }
+
+    /**
+     * Get the value as an object, which will box primitive values
+     */
+    public Object getValue(int row, int col) {
+        Object column = columns[col];
+        BitSet nullBits = nulls[col];
+        if (nullBits == null) {
+            return ((Object[])column)[row];
+        }
+        if (nullBits.get(row)) {
+            return null;
+        }
+        Class<?> type = types[col];
+        if (type == DataTypeManager.DefaultDataClasses.INTEGER) {
+            return ((int[])column)[row];
+        }
+        if (type == DataTypeManager.DefaultDataClasses.LONG) {
+            return ((long[])column)[row];
+        }
+        if (type == DataTypeManager.DefaultDataClasses.DOUBLE) {
+            return ((double[])column)[row];
+        }
+        if (type == DataTypeManager.DefaultDataClasses.FLOAT) {
+            return ((float[])column)[row];
+        }
+        if (type == DataTypeManager.DefaultDataClasses.SHORT) {
+            return ((short[])column)[row];
+        }
+        if (type == DataTypeManager.DefaultDataClasses.BYTE) {
+            return ((byte[])column)[row];
+        }
+        if (type == DataTypeManager.DefaultDataClasses.CHAR) {
+            return ((char[])column)[row];
+        }
+        return ((boolean[])column)[row];
+    }
+
+}
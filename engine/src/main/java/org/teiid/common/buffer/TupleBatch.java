@@ -71,6 +71,17 @@ public class TupleBatch {
         this.tuples = new ArrayList<List<?>>(listOfTupleLists);
     }
 
+    /**
+     * Constructor
+     * @param beginRow indicates the row of the tuple source which is the
+     * first row contained in this batch
+     * @param batch the immutable columnar tuples, which are not copied
+     */
+    public TupleBatch(long beginRow, ColumnarBatch batch) {
+        this.rowOffset = beginRow;
+        this.tuples = batch;
+    }
+
     /**
      * Return the number of the first row of the tuple source that is
      * contained in this batch (one-based).
@@ -114,6 +125,17 @@ public class TupleBatch {
         return tuples;
     }
 
+    /**
+     * Get the columnar form of the tuples if available.
+     * @return the {@link ColumnarBatch} or null if the tuples are row oriented
+     */
+    public ColumnarBatch getColumnarBatch() {
+        if (tuples instanceof ColumnarBatch) {
+            return (ColumnarBatch)tuples;
+        }
+        return null;
+    }
+
     /**
      * Get all tuples
      * @return All tuples
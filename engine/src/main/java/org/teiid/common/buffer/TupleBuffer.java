@@ -129,6 +129,7 @@ public class TupleBuffer {
 
     private LobManager lobManager;
     private String uuid;
+    private Class<?>[] columnarTypes;
 
     public TupleBuffer(BatchManager manager, String id, List<? extends Expression> schema, LobManager lobManager, int batchSize) {
         this.manager = manager;
@@ -144,6 +145,28 @@ public class TupleBuffer {
         }
     }
 
+    /**
+     * Store saved batches in a {@link ColumnarBatch} if the schema has primitive
+     * columns and there is no lob tracking.
+     */
+    public void setColumnar(boolean columnar) {
+        this.columnarTypes = null;
+        if (!columnar || this.lobManager != null) {
+            return;
+        }
+        Class<?>[] types = new Class<?>[schema.size()];
+        for (int i = 0; i < types.length; i++) {
+            types[i] = schema.get(i).getType();
+        }
+        if (ColumnarBatch.hasPrimitiveColumns(types)) {
+            this.columnarTypes = types;
+        }
+    }
+
+    public boolean isColumnar() {
+        return columnarTypes != null;
+    }
+
     public void removeLobTracking() {
         if (this.lobManager != null) {
             this.lobManager.remove();
@@ -243,7 +266,11 @@ public class TupleBuffer {
         if (batchBuffer == null || batchBuffer.isEmpty() || (!force && batchBuffer.size() < Math.max(1, batchSize / 32))) {
             return;
         }
-        Long mbatch = manager.createManagedBatch(batchBuffer, null, false);
+        List<? extends List<?>> toSave = batchBuffer;
+        if (columnarTypes != null) {
+            toSave = new ColumnarBatch(columnarTypes, batchBuffer);
+        }
+        Long mbatch = manager.createManagedBatch(toSave, null, false);
         this.batches.put(rowCount - batchBuffer.size() + 1, mbatch);
         batchBuffer = null;
     }
@@ -283,7 +310,11 @@ public class TupleBuffer {
             Assertion.isNotNull(entry);
             Long batch = entry.getValue();
             List<List<?>> rows = manager.getBatch(batch, !forwardOnly);
-            result = new TupleBatch(entry.getKey(), rows);
+            if (rows instanceof ColumnarBatch) {
+                result = new TupleBatch(entry.getKey(), (ColumnarBatch)rows);
+            } else {
+                result = new TupleBatch(entry.getKey(), rows);
+            }
             if (isFinal && result.getEndRow() == rowCount) {
                 result.setTerminationFlag(true);
             }
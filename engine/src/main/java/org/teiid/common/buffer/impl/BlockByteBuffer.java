@@ -18,7 +18,13 @@
 
 package org.teiid.common.buffer.impl;
 
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
 import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel.MapMode;
+
+import org.teiid.core.TeiidRuntimeException;
 
 /**
  * Provides buffer slices or blocks off of a central
@@ -34,11 +40,15 @@ public class BlockByteBuffer {
             this.size = size;
         }
 
-        public ByteBuffer duplicate(boolean direct) {
+        public ByteBuffer duplicate(boolean direct, File mappedDirectory) {
             if (buffer == null) {
                 synchronized (this) {
                     if (buffer == null) {
-                        this.buffer = allocate(size, direct);
+                        if (mappedDirectory != null) {
+                            this.buffer = allocateMapped(size, mappedDirectory);
+                        } else {
+                            this.buffer = allocate(size, direct);
+                        }
                     }
                 }
             }
@@ -53,6 +63,7 @@ public class BlockByteBuffer {
         int blockSize;
         int blockCount;
         boolean direct;
+        File mappedDirectory;
         ByteBufferHolder[] origBuffers;
     }
 
@@ -68,7 +79,21 @@ public class BlockByteBuffer {
      * @param direct
      */
     public BlockByteBuffer(int segmentAddressBits, int blockCount, int blockAddressBits, boolean direct) {
+        this(segmentAddressBits, blockCount, blockAddressBits, direct, null);
+    }
+
+    /**
+     * Creates a new {@link BlockByteBuffer} as above, but if the mappedDirectory is not null then each
+     * segment will be a memory mapped region of a file in that directory rather than an allocated buffer.
+     * @param segmentAddressBits
+     * @param blockCount
+     * @param blockAddressBits
+     * @param direct
+     * @param mappedDirectory
+     */
+    public BlockByteBuffer(int segmentAddressBits, int blockCount, int blockAddressBits, boolean direct, File mappedDirectory) {
         this.data = new BlockByteBufferData();
+        this.data.mappedDirectory = mappedDirectory;
         this.data.segmentAddressBits = segmentAddressBits;
         this.data.blockAddressBits = blockAddressBits;
         this.data.blockSize = 1 << blockAddressBits;
@@ -107,6 +132,26 @@ public class BlockByteBuffer {
         return ByteBuffer.allocate(size);
     }
 
+    /**
+     * Map a new temporary file of the given size.  The file is removed as soon as it's mapped
+     * where the platform allows, so that the space is reclaimed when the mapping is released.
+     */
+    public static ByteBuffer allocateMapped(int size, File directory) {
+        try {
+            File f = File.createTempFile("teiid-buffer", ".seg", directory); //$NON-NLS-1$ //$NON-NLS-2$
+            try (RandomAccessFile raf = new RandomAccessFile(f, "rw")) { //$NON-NLS-1$
+                raf.setLength(size);
+                return raf.getChannel().map(MapMode.READ_WRITE, 0, size);
+            } finally {
+                if (!f.delete()) {
+                    f.deleteOnExit();
+                }
+            }
+        } catch (IOException e) {
+            throw new TeiidRuntimeException(e);
+        }
+    }
+
     public BlockByteBuffer duplicate() {
         BlockByteBuffer dup = new BlockByteBuffer();
         dup.data = data;
@@ -128,7 +173,7 @@ public class BlockByteBuffer {
         int segment = block>>(data.segmentAddressBits-data.blockAddressBits);
         ByteBuffer bb = buffers[segment];
         if (bb == null) {
-            bb = buffers[segment] = data.origBuffers[segment].duplicate(data.direct);
+            bb = buffers[segment] = data.origBuffers[segment].duplicate(data.direct, data.mappedDirectory);
         } else {
             bb.rewind();
         }
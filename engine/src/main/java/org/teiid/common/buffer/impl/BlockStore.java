@@ -74,7 +74,7 @@ class BlockStore {
             FileStore fs = stores[segment];
             long blockOffset = (block%blocksInUse.getBitsPerSegment())*blockSize;
             //TODO: there is still an extra buffer being created here, we could FileChannels to do better
-            byte[] b = new byte[BufferFrontedFileStoreCache.BLOCK_SIZE];
+            byte[] b = new byte[BufferFrontedFileStoreCache.DEFAULT_BLOCK_SIZE];
             int read = 0;
             long newLength = blockOffset+blockSize;
             if (fs.getLength() < newLength) {
@@ -18,6 +18,7 @@
 
 package org.teiid.common.buffer.impl;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.ObjectInput;
@@ -69,11 +70,16 @@ import org.teiid.query.QueryPlugin;
  * memory (typically off-heap) buffer so that they can be put into their appropriately
  * sized storage bucket.
  *
- * The memory uses a 31bit address space on top of 2^13 byte blocks.
+ * The memory uses a 31bit address space on top of 2^13 byte blocks by default.
+ * The block size may be set from 4KB to 1MB, larger blocks reduce the bookkeeping
+ * overhead of multi-gigabyte buffers at the cost of more internal fragmentation.
  *
- * Therefore there is 2^31*2^13 = 2^44 or 16 terabytes max of addressable space.
+ * Therefore with the default there is 2^31*2^13 = 2^44 or 16 terabytes max of addressable space.
  * This is well beyond any current needs.
  *
+ * The memory buffer may be held on heap, in direct buffers, or in memory mapped
+ * temporary files so that very large buffers do not contribute to heap pressure.
+ *
  * The 64 byte inode format is:
  * 14 32 bit direct block pointers
  * 1  32 bit block indirect pointer
@@ -117,17 +123,14 @@ public class BufferFrontedFileStoreCache implements Cache<PhysicalInfo> {
     static final int EMPTY_ADDRESS = -1;
     static final int FREED = -2;
 
-    //TODO allow the block size to be configurable. 8k is a reasonable default up to a gig, but we could be more efficient with larger blocks from there.
+    //8k is a reasonable default up to a gig, but we can be more efficient with larger blocks from there.
     //the rationale for a smaller block size is to reduce internal fragmentation, which is critical when maintaining a relatively small buffer < 256MB
-    static final int LOG_BLOCK_SIZE = 13;
-
-    public static final long MAX_ADDRESSABLE_MEMORY = 1L<<(ADDRESS_BITS+LOG_BLOCK_SIZE);
+    static final int DEFAULT_LOG_BLOCK_SIZE = 13;
+    static final int MIN_LOG_BLOCK_SIZE = 12;
+    static final int MAX_LOG_BLOCK_SIZE = 20;
 
-    static final int BLOCK_SIZE = 1 << LOG_BLOCK_SIZE;
-    static final int BLOCK_MASK = BLOCK_SIZE - 1;
-    static final int ADDRESSES_PER_BLOCK = BLOCK_SIZE/BYTES_PER_BLOCK_ADDRESS;
-    static final int MAX_INDIRECT = DIRECT_POINTERS + ADDRESSES_PER_BLOCK;
-    static final int MAX_DOUBLE_INDIRECT = MAX_INDIRECT + ADDRESSES_PER_BLOCK * ADDRESSES_PER_BLOCK;
+    public static final int DEFAULT_BLOCK_SIZE = 1 << DEFAULT_LOG_BLOCK_SIZE;
+    public static final long MAX_ADDRESSABLE_MEMORY = 1L<<(ADDRESS_BITS+MAX_LOG_BLOCK_SIZE);
 
     private enum Mode {
         GET,
@@ -163,27 +166,27 @@ public class BufferFrontedFileStoreCache implements Cache<PhysicalInfo> {
         }
 
         private int getOrUpdateDataBlockIndex(int index, int value, Mode mode) {
-            if (index >= MAX_DOUBLE_INDIRECT) {
+            if (index >= maxDoubleIndirect) {
                  throw new TeiidRuntimeException(QueryPlugin.Event.TEIID30045, QueryPlugin.Util.gs(QueryPlugin.Event.TEIID30045));
             }
             int dataBlock = 0;
             int position = 0;
             ByteBuffer info = getInodeBlock();
-            if (index >= MAX_INDIRECT) {
+            if (index >= maxIndirect) {
                 position = BYTES_PER_BLOCK_ADDRESS*(DIRECT_POINTERS+1);
-                ByteBuffer next = updateIndirectBlockInfo(info, index, position, MAX_INDIRECT, value, mode);
+                ByteBuffer next = updateIndirectBlockInfo(info, index, position, maxIndirect, value, mode);
                 if (next != null) {
                     info = next;
                     //should have traversed to the secondary
-                    int indirectAddressBlock = (index - MAX_INDIRECT) / ADDRESSES_PER_BLOCK;
+                    int indirectAddressBlock = (index - maxIndirect) / addressesPerBlock;
                     position = info.position() + indirectAddressBlock * BYTES_PER_BLOCK_ADDRESS;
                     if (mode == Mode.ALLOCATE && position + BYTES_PER_BLOCK_ADDRESS < info.limit()) {
                         info.putInt(position + BYTES_PER_BLOCK_ADDRESS, EMPTY_ADDRESS);
                     }
-                    next = updateIndirectBlockInfo(info, index, position, MAX_INDIRECT + indirectAddressBlock * ADDRESSES_PER_BLOCK,  value, mode);
+                    next = updateIndirectBlockInfo(info, index, position, maxIndirect + indirectAddressBlock * addressesPerBlock,  value, mode);
                     if (next != null) {
                         info = next;
-                        position = info.position() + ((index - MAX_INDIRECT)%ADDRESSES_PER_BLOCK) * BYTES_PER_BLOCK_ADDRESS;
+                        position = info.position() + ((index - maxIndirect)%addressesPerBlock) * BYTES_PER_BLOCK_ADDRESS;
                     }
                 }
             } else if (index >= DIRECT_POINTERS) {
@@ -315,14 +318,14 @@ public class BufferFrontedFileStoreCache implements Cache<PhysicalInfo> {
                 return acquire?dataBlockToAcquire:FREED;
             }
             bb = blockByteBufferCopy.getByteBuffer(doublyIndirectIndexBlock).slice();
-            freeBlock(0, bb, ADDRESSES_PER_BLOCK, false);
+            freeBlock(0, bb, addressesPerBlock, false);
             freeDataBlock(doublyIndirectIndexBlock);
             return acquire?dataBlockToAcquire:FREED;
         }
 
         private boolean freeIndirectBlock(int indirectIndexBlock) {
             ByteBuffer bb = blockByteBufferCopy.getByteBuffer(indirectIndexBlock);
-            boolean freedAll = freeBlock(bb.position(), bb, ADDRESSES_PER_BLOCK, true);
+            boolean freedAll = freeBlock(bb.position(), bb, addressesPerBlock, true);
             freeDataBlock(indirectIndexBlock);
             return freedAll;
         }
@@ -354,6 +357,14 @@ public class BufferFrontedFileStoreCache implements Cache<PhysicalInfo> {
     private int maxStorageObjectSize = DEFAULT_MAX_OBJECT_SIZE;
     private long memoryBufferSpace = 1 << 26; //64MB
     private boolean direct;
+    private File memoryMappedDirectory;
+
+    private int logBlockSize = DEFAULT_LOG_BLOCK_SIZE;
+    private int blockSize;
+    private int blockMask;
+    private int addressesPerBlock;
+    private int maxIndirect;
+    private int maxDoubleIndirect;
 
     private int maxMemoryBlocks;
     private AtomicLong readAttempts = new AtomicLong();
@@ -551,6 +562,7 @@ public class BufferFrontedFileStoreCache implements Cache<PhysicalInfo> {
 
     private AtomicLong storageWrites = new AtomicLong();
     private AtomicLong storageReads = new AtomicLong();
+    private AtomicLong memoryBufferReads = new AtomicLong();
 
     private long minDefrag = DEFAULT_MIN_DEFRAG;
     private BufferManagerImpl bufferManager;
@@ -558,22 +570,29 @@ public class BufferFrontedFileStoreCache implements Cache<PhysicalInfo> {
     @Override
     public void initialize() throws TeiidComponentException {
         storageManager.initialize();
-        memoryBufferSpace = Math.max(memoryBufferSpace, maxStorageObjectSize);
-        blocks = (int) Math.min(Integer.MAX_VALUE, (memoryBufferSpace>>LOG_BLOCK_SIZE)*ADDRESSES_PER_BLOCK/(ADDRESSES_PER_BLOCK+1));
+        blockSize = 1 << logBlockSize;
+        blockMask = blockSize - 1;
+        addressesPerBlock = blockSize/BYTES_PER_BLOCK_ADDRESS;
+        maxIndirect = DIRECT_POINTERS + addressesPerBlock;
+        maxDoubleIndirect = (int)Math.min(Integer.MAX_VALUE, maxIndirect + (long)addressesPerBlock * addressesPerBlock);
+        memoryBufferSpace = Math.min(Math.max(memoryBufferSpace, maxStorageObjectSize), 1L<<(ADDRESS_BITS+logBlockSize));
+        blocks = (int) Math.min(Integer.MAX_VALUE, (memoryBufferSpace>>logBlockSize)*addressesPerBlock/(addressesPerBlock+1));
         LogManager.logDetail(LogConstants.CTX_BUFFER_MGR, blocks, "max blocks"); //$NON-NLS-1$
         inodesInuse = new ConcurrentBitSet(blocks+1, BufferManagerImpl.CONCURRENCY_LEVEL);
         blocksInuse = new ConcurrentBitSet(blocks, BufferManagerImpl.CONCURRENCY_LEVEL);
         int allocationBits = 30;
-        if (!direct) {
+        if (!direct && memoryMappedDirectory == null) {
             //allocate in approximately 1/4 increments between 1 GB and 32 MB
             allocationBits = Math.min(30, Math.max(25, 63 - 2 - Long.numberOfLeadingZeros(memoryBufferSpace)));
         }
-        this.blockByteBuffer = new BlockByteBuffer(allocationBits, blocks, LOG_BLOCK_SIZE, direct);
+        allocationBits = Math.max(allocationBits, logBlockSize);
+        this.blockByteBuffer = new BlockByteBuffer(allocationBits, blocks, logBlockSize, direct, memoryMappedDirectory);
         //ensure that we'll run out of blocks first
-        this.inodeByteBuffer = new BlockByteBuffer(allocationBits, blocks+1, LOG_INODE_SIZE, direct);
+        //inodes are always held in memory as they are frequently accessed
+        this.inodeByteBuffer = new BlockByteBuffer(allocationBits, blocks+1, LOG_INODE_SIZE, direct || memoryMappedDirectory != null);
         memoryWritePermits = new Semaphore(blocks);
-        maxMemoryBlocks = Math.min(MAX_DOUBLE_INDIRECT, blocks);
-        maxMemoryBlocks = Math.min(maxMemoryBlocks, (maxStorageObjectSize>>LOG_BLOCK_SIZE) + ((maxStorageObjectSize&BufferFrontedFileStoreCache.BLOCK_MASK)>0?1:0));
+        maxMemoryBlocks = Math.min(maxDoubleIndirect, blocks);
+        maxMemoryBlocks = Math.min(maxMemoryBlocks, (maxStorageObjectSize>>logBlockSize) + ((maxStorageObjectSize&blockMask)>0?1:0));
         //try to maintain enough freespace so that writers don't block in cleaning
         cleaningThreshold = Math.min(maxMemoryBlocks<<4, blocks>>1);
         criticalCleaningThreshold = Math.min(maxMemoryBlocks<<2, blocks>>2);
@@ -581,12 +600,12 @@ public class BufferFrontedFileStoreCache implements Cache<PhysicalInfo> {
         if (maxMemoryBlocks > DIRECT_POINTERS) {
             maxMemoryBlocks--;
         }
-        if (maxMemoryBlocks > MAX_INDIRECT) {
-            int indirect = maxMemoryBlocks-MAX_INDIRECT;
-            maxMemoryBlocks -= (indirect/ADDRESSES_PER_BLOCK + (indirect%ADDRESSES_PER_BLOCK>0?1:0) + 1);
+        if (maxMemoryBlocks > maxIndirect) {
+            int indirect = maxMemoryBlocks-maxIndirect;
+            maxMemoryBlocks -= (indirect/addressesPerBlock + (indirect%addressesPerBlock>0?1:0) + 1);
         }
         List<BlockStore> stores = new ArrayList<BlockStore>();
-        long size = BLOCK_SIZE;
+        long size = blockSize;
         int files = 32; //this allows us to have 64 terabytes of smaller block sizes
         do {
             stores.add(new BlockStore(this.storageManager, (int)size, 30, files));
@@ -676,7 +695,7 @@ public class BufferFrontedFileStoreCache implements Cache<PhysicalInfo> {
                             throw new AssertionError("The object already has an inode failing this add attempt"); //$NON-NLS-1$
                         }
                         //set the size first, since it may raise an exceptional condition
-                        info.setSize(bos.getBytesWritten());
+                        info.setSize(bos.getBytesWritten(), logBlockSize);
                         info.inode = blockManager.getInode();
                         memoryBufferEntries.add(info);
                     }
@@ -796,6 +815,7 @@ public class BufferFrontedFileStoreCache implements Cache<PhysicalInfo> {
                 if (info.inode != EMPTY_ADDRESS) {
                     info.pinned = true;
                     memoryBufferEntries.touch(info);
+                    memoryBufferReads.incrementAndGet();
                     if (LogManager.isMessageToBeRecorded(LogConstants.CTX_BUFFER_MGR, MessageLevel.DETAIL)) {
                         LogManager.logDetail(LogConstants.CTX_BUFFER_MGR, "Getting object at inode", info.inode, serializer.getId(), oid); //$NON-NLS-1$
                     }
@@ -812,7 +832,7 @@ public class BufferFrontedFileStoreCache implements Cache<PhysicalInfo> {
                     int segment = info.block/blockStore.blocksInUse.getBitsPerSegment();
                     FileStore fs = blockStore.stores[segment];
                     long blockOffset = (info.block%blockStore.blocksInUse.getBitsPerSegment())*blockStore.blockSize;
-                    eis = fs.createInputStream(blockOffset, info.memoryBlockCount<<LOG_BLOCK_SIZE);
+                    eis = fs.createInputStream(blockOffset, info.memoryBlockCount<<logBlockSize);
                     lock = blockStore.locks[segment].writeLock();
                     memoryBlocks = info.memoryBlockCount;
                 } else {
@@ -864,12 +884,10 @@ public class BufferFrontedFileStoreCache implements Cache<PhysicalInfo> {
             fileLock.lock();
             locked = true;
             ExtensibleBufferedOutputStream os = new BlockOutputStream(manager, -1);
-            //TODO: there is still an extra buffer being created here, we could FileChannels to do better
+            //the buffer may be a direct view of the storage, such as with the MemoryMappedStorageManager
             ByteBuffer bb = null;
             while ((bb = is.getBuffer()) != null) {
-                byte[] array = bb.array();
-                os.write(array, bb.position() + bb.arrayOffset(), bb.remaining());
-                bb.position(bb.position()+bb.remaining());
+                os.write(bb);
             }
             fileLock.unlock();
             os.close();
@@ -923,6 +941,35 @@ public class BufferFrontedFileStoreCache implements Cache<PhysicalInfo> {
         this.direct = direct;
     }
 
+    /**
+     * Hold the memory buffer in memory mapped temporary files in the given directory
+     * rather than in allocated buffers.  This takes precedence over direct allocation.
+     * @param memoryMappedDirectory or null to allocate buffers
+     */
+    public void setMemoryMappedDirectory(File memoryMappedDirectory) {
+        this.memoryMappedDirectory = memoryMappedDirectory;
+    }
+
+    public File getMemoryMappedDirectory() {
+        return memoryMappedDirectory;
+    }
+
+    /**
+     * Set the size of the memory buffer blocks.  Must be a power of 2 between 4KB and 1MB.
+     * @param blockSize
+     */
+    public void setBlockSize(int blockSize) {
+        int log = 31 - Integer.numberOfLeadingZeros(blockSize);
+        if (blockSize != 1 << log || log < MIN_LOG_BLOCK_SIZE || log > MAX_LOG_BLOCK_SIZE) {
+            throw new TeiidRuntimeException("block size must be a power of 2 between 4KB and 1MB " + blockSize); //$NON-NLS-1$
+        }
+        this.logBlockSize = log;
+    }
+
+    public int getBlockSize() {
+        return 1 << logBlockSize;
+    }
+
     @Override
     public boolean addToCacheGroup(Long gid, Long oid) {
         Map<Long, PhysicalInfo> map = physicalMapping.get(gid);
@@ -1258,6 +1305,13 @@ public class BufferFrontedFileStoreCache implements Cache<PhysicalInfo> {
         return storageWrites.get();
     }
 
+    /**
+     * @return the number of reads satisfied by the memory buffer
+     */
+    public long getMemoryBufferReads() {
+        return memoryBufferReads.get();
+    }
+
     public long getMemoryBufferSpace() {
         return memoryBufferSpace;
     }
@@ -1271,7 +1325,7 @@ public class BufferFrontedFileStoreCache implements Cache<PhysicalInfo> {
     }
 
     public long getMemoryInUseBytes() {
-        return this.blocksInuse.getBitsSet() * BLOCK_SIZE + this.inodesInuse.getBitsSet() * (1 << LOG_INODE_SIZE);
+        return ((long)this.blocksInuse.getBitsSet() << logBlockSize) + ((long)this.inodesInuse.getBitsSet() << LOG_INODE_SIZE);
     }
 
     public void setBufferManager(BufferManagerImpl bufferManager) {
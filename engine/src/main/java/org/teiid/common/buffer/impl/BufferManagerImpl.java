@@ -344,7 +344,12 @@ public class BufferManagerImpl implements BufferManager, ReplicatedObject<String
         @Override
         public List<? extends List<?>> deserialize(ObjectInput ois)
                 throws IOException, ClassNotFoundException {
-            List<? extends List<?>> batch = BatchSerializer.readBatch(ois, types);
+            List<? extends List<?>> batch = null;
+            if (ois.readBoolean()) {
+                batch = CompressedBatchSerializer.readBatch(ois, types);
+            } else {
+                batch = BatchSerializer.readBatch(ois, types);
+            }
             if (lobManager != null) {
                 for (int i = batch.size() - 1; i >= 0; i--) {
                     try {
@@ -366,7 +371,13 @@ public class BufferManagerImpl implements BufferManager, ReplicatedObject<String
             }
             try {
                 //it's expected that the containing structure has updated the lob manager
-                BatchSerializer.writeBatch(oos, types, obj);
+                boolean compress = compressSpilledBatches;
+                oos.writeBoolean(compress);
+                if (compress) {
+                    CompressedBatchSerializer.writeBatch(oos, types, obj);
+                } else {
+                    BatchSerializer.writeBatch(oos, types, obj);
+                }
             } catch (RuntimeException e) {
                 if (ExceptionUtil.getExceptionOfType(e, ClassCastException.class) != null) {
                     throw e;
@@ -506,6 +517,7 @@ public class BufferManagerImpl implements BufferManager, ReplicatedObject<String
     private int maxActivePlans = DQPConfiguration.DEFAULT_MAX_ACTIVE_PLANS; //used as a hint to set the reserveBatchKB
     private boolean useWeakReferences = true;
     private boolean inlineLobs = true;
+    private boolean compressSpilledBatches;
     private int targetBytesPerRow = TARGET_BYTES_PER_ROW;
     private int maxSoftReferences;
     private int nominalProcessingMemoryMax = maxProcessingBytes;
@@ -611,6 +623,41 @@ public class BufferManagerImpl implements BufferManager, ReplicatedObject<String
         return readAttempts.get();
     }
 
+    /**
+     * @return the fraction of batch reads that were satisfied from the heap
+     */
+    public double getHeapHitRatio() {
+        return getHitRatio(readAttempts.get() - readCount.get());
+    }
+
+    /**
+     * @return the fraction of batch reads that were satisfied from the fixed memory buffer
+     */
+    public double getMemoryBufferHitRatio() {
+        if (!(cache instanceof BufferFrontedFileStoreCache)) {
+            return 0;
+        }
+        return getHitRatio(((BufferFrontedFileStoreCache)cache).getMemoryBufferReads());
+    }
+
+    /**
+     * @return the fraction of batch reads that had to be read from storage
+     */
+    public double getStorageHitRatio() {
+        if (!(cache instanceof BufferFrontedFileStoreCache)) {
+            return getHitRatio(readCount.get());
+        }
+        return getHitRatio(((BufferFrontedFileStoreCache)cache).getStorageReads());
+    }
+
+    private double getHitRatio(long hits) {
+        long attempts = readAttempts.get();
+        if (attempts == 0) {
+            return 0;
+        }
+        return hits/(double)attempts;
+    }
+
     @Override
     public int getMaxProcessingSize() {
         return maxProcessingBytes;
@@ -655,6 +702,7 @@ public class BufferManagerImpl implements BufferManager, ReplicatedObject<String
             LogManager.logDetail(LogConstants.CTX_BUFFER_MGR, "Creating TupleBuffer:", newID, elements, Arrays.toString(types), "batch size", tupleBuffer.getBatchSize(), "of type", tupleSourceType); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
         }
         tupleBuffer.setInlineLobs(inlineLobs);
+        tupleBuffer.setColumnar(getOptions().isColumnarBatches());
         return tupleBuffer;
     }
 
@@ -1442,6 +1490,18 @@ public class BufferManagerImpl implements BufferManager, ReplicatedObject<String
         this.inlineLobs = inlineLobs;
     }
 
+    /**
+     * Encode and compress batches when they are serialized to the cache.
+     * Trades cpu for less storage io with repetitive data.
+     */
+    public void setCompressSpilledBatches(boolean compressSpilledBatches) {
+        this.compressSpilledBatches = compressSpilledBatches;
+    }
+
+    public boolean isCompressSpilledBatches() {
+        return compressSpilledBatches;
+    }
+
     public int getMaxReserveKB() {
         return (int)(maxReserveBytes>>10);
     }
@@ -0,0 +1,318 @@
+/*
+ * Copyright Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags and
+ * the COPYRIGHT.txt file distributed with this work.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.teiid.common.buffer.impl;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutput;
+import java.io.ObjectOutputStream;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.teiid.client.BatchSerializer;
+import org.teiid.client.ResizingArrayList;
+import org.teiid.core.types.DataTypeManager;
+import org.teiid.core.util.AccessibleByteArrayOutputStream;
+import org.teiid.core.util.Lz4Codec;
+
+/**
+ * Serializes batches for spilling with column specific encodings and {@link Lz4Codec} compression.
+ * <br>
+ * Low cardinality string columns are dictionary encoded and non-decreasing integer or long
+ * columns without nulls are delta encoded.  All other columns are written with the
+ * {@link BatchSerializer}.  The encoded bytes are then compressed, or written as is if compression
+ * does not reduce the size.
+ */
+final class CompressedBatchSerializer {
+
+    static final byte PLAIN = 0;
+    static final byte DICTIONARY = 1;
+    static final byte DELTA = 2;
+
+    private static final int MAX_DICTIONARY_SIZE = 0xFFFE;
+    private static final int MAX_UTF = 0xFFFF/3;
+
+    private CompressedBatchSerializer() {
+
+    }
+
+    static void writeBatch(ObjectOutput out, String[] types, List<? extends List<?>> batch) throws IOException {
+        AccessibleByteArrayOutputStream baos = new AccessibleByteArrayOutputStream(1 << 13);
+        ObjectOutputStream oos = new ObjectOutputStream(baos);
+        encode(oos, types, batch);
+        oos.close();
+        byte[] raw = baos.getBuffer();
+        int rawLength = baos.getCount();
+        byte[] compressed = new byte[Lz4Codec.maxCompressedLength(rawLength)];
+        int compressedLength = Lz4Codec.compress(raw, rawLength, compressed);
+        out.writeInt(rawLength);
+        if (compressedLength < rawLength) {
+            out.writeInt(compressedLength);
+            out.write(compressed, 0, compressedLength);
+        } else {
+            out.writeInt(-1);
+            out.write(raw, 0, rawLength);
+        }
+    }
+
+    static List<List<Object>> readBatch(ObjectInput in, String[] types) throws IOException, ClassNotFoundException {
+        int rawLength = in.readInt();
+        int compressedLength = in.readInt();
+        byte[] raw = new byte[rawLength];
+        if (compressedLength == -1) {
+            in.readFully(raw);
+        } else {
+            byte[] compressed = new byte[compressedLength];
+            in.readFully(compressed);
+            Lz4Codec.decompress(compressed, compressedLength, raw, rawLength);
+        }
+        return decode(new ObjectInputStream(new ByteArrayInputStream(raw)), types);
+    }
+
+    static void encode(ObjectOutput out, String[] types, final List<? extends List<?>> batch) throws IOException {
+        final int rows = batch.size();
+        out.writeInt(rows);
+        if (rows == 0) {
+            return;
+        }
+        byte[] encodings = new byte[types.length];
+        Object[] dictionaries = new Object[types.length];
+        int plainCount = 0;
+        for (int col = 0; col < types.length; col++) {
+            if (DataTypeManager.DefaultDataTypes.STRING.equals(types[col])) {
+                dictionaries[col] = getDictionary(batch, col);
+                if (dictionaries[col] != null) {
+                    encodings[col] = DICTIONARY;
+                    continue;
+                }
+            } else if ((DataTypeManager.DefaultDataTypes.LONG.equals(types[col])
+                    || DataTypeManager.DefaultDataTypes.INTEGER.equals(types[col])) && isNonDecreasing(batch, col)) {
+                encodings[col] = DELTA;
+                continue;
+            }
+            plainCount++;
+        }
+        out.write(encodings);
+        final int[] plainColumns = new int[plainCount];
+        String[] plainTypes = new String[plainCount];
+        plainCount = 0;
+        for (int col = 0; col < types.length; col++) {
+            switch (encodings[col]) {
+            case DICTIONARY:
+                @SuppressWarnings("unchecked")
+                Map<String, Integer> dictionary = (Map<String, Integer>)dictionaries[col];
+                writeDictionary(out, batch, col, dictionary);
+                break;
+            case DELTA:
+                writeDelta(out, batch, col);
+                break;
+            default:
+                plainTypes[plainCount] = types[col];
+                plainColumns[plainCount++] = col;
+            }
+        }
+        if (plainCount > 0) {
+            BatchSerializer.writeBatch(out, plainTypes, new AbstractList<List<?>>() {
+                @Override
+                public List<?> get(final int row) {
+                    final List<?> tuple = batch.get(row);
+                    return new AbstractList<Object>() {
+                        @Override
+                        public Object get(int index) {
+                            return tuple.get(plainColumns[index]);
+                        }
+
+                        @Override
+                        public int size() {
+                            return plainColumns.length;
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return rows;
+                }
+            });
+        }
+    }
+
+    static List<List<Object>> decode(ObjectInput in, String[] types) throws IOException, ClassNotFoundException {
+        int rows = in.readInt();
+        if (rows == 0) {
+            return new ResizingArrayList<List<Object>>(0);
+        }
+        byte[] encodings = new byte[types.length];
+        in.readFully(encodings);
+        Object[][] columns = new Object[types.length][];
+        int plainCount = 0;
+        for (int col = 0; col < types.length; col++) {
+            switch (encodings[col]) {
+            case DICTIONARY:
+                columns[col] = readDictionary(in, rows);
+                break;
+            case DELTA:
+                columns[col] = readDelta(in, rows, DataTypeManager.DefaultDataTypes.INTEGER.equals(types[col]));
+                break;
+            default:
+                plainCount++;
+            }
+        }
+        List<List<Object>> plain = null;
+        if (plainCount > 0) {
+            String[] plainTypes = new String[plainCount];
+            plainCount = 0;
+            for (int col = 0; col < types.length; col++) {
+                if (encodings[col] == PLAIN) {
+                    plainTypes[plainCount++] = types[col];
+                }
+            }
+            plain = BatchSerializer.readBatch(in, plainTypes);
+        }
+        List<List<Object>> batch = new ResizingArrayList<List<Object>>(rows);
+        for (int row = 0; row < rows; row++) {
+            Object[] tuple = new Object[types.length];
+            int plainIndex = 0;
+            for (int col = 0; col < types.length; col++) {
+                if (encodings[col] == PLAIN) {
+                    tuple[col] = plain.get(row).get(plainIndex++);
+                } else {
+                    tuple[col] = columns[col][row];
+                }
+            }
+            batch.add(Arrays.asList(tuple));
+        }
+        return batch;
+    }
+
+    /**
+     * @return the dictionary of distinct values to 1 based indexes, or null if
+     * the column does not have a low enough cardinality
+     */
+    private static Map<String, Integer> getDictionary(List<? extends List<?>> batch, int col) {
+        int maxSize = Math.min(MAX_DICTIONARY_SIZE, batch.size()/2);
+        Map<String, Integer> dictionary = new LinkedHashMap<String, Integer>();
+        for (int row = 0; row < batch.size(); row++) {
+            String value = (String)batch.get(row).get(col);
+            if (value == null || dictionary.containsKey(value)) {
+                continue;
+            }
+            if (dictionary.size() == maxSize || value.length() > MAX_UTF) {
+                return null;
+            }
+            dictionary.put(value, dictionary.size() + 1);
+        }
+        return dictionary;
+    }
+
+    private static void writeDictionary(ObjectOutput out, List<? extends List<?>> batch, int col,
+            Map<String, Integer> dictionary) throws IOException {
+        out.writeInt(dictionary.size());
+        for (String value : dictionary.keySet()) {
+            out.writeUTF(value);
+        }
+        boolean wide = dictionary.size() > 0xFF;
+        for (int row = 0; row < batch.size(); row++) {
+            Object value = batch.get(row).get(col);
+            int index = value == null ? 0 : dictionary.get(value);
+            if (wide) {
+                out.writeChar(index);
+            } else {
+                out.writeByte(index);
+            }
+        }
+    }
+
+    private static Object[] readDictionary(ObjectInput in, int rows) throws IOException {
+        int size = in.readInt();
+        Object[] dictionary = new Object[size + 1];
+        for (int i = 1; i <= size; i++) {
+            dictionary[i] = DataTypeManager.getCanonicalValue(in.readUTF());
+        }
+        boolean wide = size > 0xFF;
+        Object[] values = new Object[rows];
+        for (int row = 0; row < rows; row++) {
+            values[row] = dictionary[wide ? in.readChar() : in.readUnsignedByte()];
+        }
+        return values;
+    }
+
+    private static boolean isNonDecreasing(List<? extends List<?>> batch, int col) {
+        if (batch.size() < 2) {
+            return false;
+        }
+        long previous = Long.MIN_VALUE;
+        for (int row = 0; row < batch.size(); row++) {
+            Number value = (Number)batch.get(row).get(col);
+            if (value == null || value.longValue() < previous) {
+                return false;
+            }
+            previous = value.longValue();
+        }
+        return true;
+    }
+
+    /**
+     * Write the first value followed by the differences as unsigned variable length longs
+     */
+    private static void writeDelta(ObjectOutput out, List<? extends List<?>> batch, int col) throws IOException {
+        long previous = ((Number)batch.get(0).get(col)).longValue();
+        out.writeLong(previous);
+        for (int row = 1; row < batch.size(); row++) {
+            long value = ((Number)batch.get(row).get(col)).longValue();
+            long delta = value - previous;
+            while ((delta & ~0x7FL) != 0) {
+                out.writeByte((int)(delta & 0x7F) | 0x80);
+                delta >>>= 7;
+            }
+            out.writeByte((int)delta);
+            previous = value;
+        }
+    }
+
+    private static Object[] readDelta(ObjectInput in, int rows, boolean integer) throws IOException {
+        Object[] values = new Object[rows];
+        long value = in.readLong();
+        for (int row = 0; row < rows; row++) {
+            if (row > 0) {
+                long delta = 0;
+                int shift = 0;
+                int b = 0;
+                do {
+                    b = in.readUnsignedByte();
+                    delta |= (long)(b & 0x7F) << shift;
+                    shift += 7;
+                } while ((b & 0x80) != 0);
+                value += delta;
+            }
+            if (integer) {
+                values[row] = DataTypeManager.getCanonicalValue(Integer.valueOf((int)value));
+            } else {
+                values[row] = DataTypeManager.getCanonicalValue(Long.valueOf(value));
+            }
+        }
+        return values;
+    }
+
+}
@@ -65,6 +65,20 @@ public abstract class ExtensibleBufferedOutputStream extends OutputStream {
         }
     }
 
+    /**
+     * Write the remaining bytes of the buffer, advancing its position
+     */
+    public void write(ByteBuffer bb) throws IOException {
+        while (bb.hasRemaining()) {
+            ensureBuffer();
+            int toCopy = Math.min(buf.remaining(), bb.remaining());
+            ByteBuffer src = bb.duplicate();
+            src.limit(src.position() + toCopy);
+            buf.put(src);
+            bb.position(bb.position() + toCopy);
+        }
+    }
+
     public void flush() throws IOException {
         if (buf != null) {
             int bytes = buf.position() - startPosition;
@@ -56,7 +56,7 @@ public class FileStorageManager implements StorageManager {
 
     private AtomicInteger outOfDiskCount = new AtomicInteger();
 
-    private class FileInfo {
+    class FileInfo {
         private File file;
         private RandomAccessFile fileData;       // may be null if not open
 
@@ -99,7 +99,7 @@ public class FileStorageManager implements StorageManager {
 
     public class DiskStore extends FileStore {
         private String name;
-        private FileInfo fileInfo;
+        FileInfo fileInfo;
 
         public DiskStore(String name) {
             this.name = name;
@@ -128,11 +128,8 @@ public class FileStorageManager implements StorageManager {
                     fileInfo.close();
                 }
             }
-            if (fileInfo == null) {
-                fileInfo = new FileInfo(createFile(name));
-            }
+            RandomAccessFile fileAccess = open();
             try {
-                RandomAccessFile fileAccess = fileInfo.open();
                 long newLength = fileOffset + length;
                 setLength(fileAccess, newLength, false);
                 fileAccess.seek(fileOffset);
@@ -143,7 +140,17 @@ public class FileStorageManager implements StorageManager {
             return length;
         }
 
-        private void setLength(RandomAccessFile fileAccess, long newLength, boolean truncate)
+        /**
+         * Open the file, creating it if needed.  Must be followed by a close of the {@link #fileInfo}
+         */
+        RandomAccessFile open() throws IOException {
+            if (fileInfo == null) {
+                fileInfo = new FileInfo(createFile(name));
+            }
+            return fileInfo.open();
+        }
+
+        void setLength(RandomAccessFile fileAccess, long newLength, boolean truncate)
                 throws IOException {
             long currentLength = fileAccess.length();
             long bytesUsed = newLength - currentLength;
@@ -187,11 +194,9 @@ public class FileStorageManager implements StorageManager {
 
         @Override
         public synchronized void setLength(long length) throws IOException {
-            if (fileInfo == null) {
-                fileInfo = new FileInfo(createFile(name));
-            }
+            RandomAccessFile fileAccess = open();
             try {
-                setLength(fileInfo.open(), length, true);
+                setLength(fileAccess, length, true);
             } finally {
                 fileInfo.close();
             }
@@ -0,0 +1,337 @@
+/*
+ * Copyright Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags and
+ * the COPYRIGHT.txt file distributed with this work.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.teiid.common.buffer.impl;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel.MapMode;
+import java.util.Arrays;
+
+import org.teiid.common.buffer.ExtensibleBufferedInputStream;
+import org.teiid.common.buffer.FileStore;
+import org.teiid.logging.LogConstants;
+import org.teiid.logging.LogManager;
+import org.teiid.logging.MessageLevel;
+
+/**
+ * A {@link FileStorageManager} that reads through memory mapped regions
+ * of the storage files rather than through the file channel.
+ * <br>
+ * Input streams return views of the mapped regions directly, so reads avoid both the system
+ * call and the copy through an intermediate array.
+ * <br>
+ * Writes still go through the file channel, so that exhausting the disk is reported as an
+ * {@link IOException} rather than as a fault when a mapped page is first touched.  Only
+ * whole regions that are already backed by the file are mapped, each exactly once, and the partial
+ * region at the end of the file is read through the channel.
+ * <br>
+ * Regions are reference counted by the store and by the streams holding views of them, and are unmapped
+ * with the last release.  Truncation of a region that is still held by a stream is deferred until it is
+ * released, so that a view can never reference unmapped memory or memory past the end of the file.
+ */
+public class MemoryMappedStorageManager extends FileStorageManager {
+
+    static final int REGION_BITS = 26; //64MB
+    static final int REGION_SIZE = 1 << REGION_BITS;
+
+    private static final int READ_SIZE = 1 << 16;
+
+    private static Object unsafe;
+    private static Method invokeCleaner;
+
+    static {
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe"); //$NON-NLS-1$
+            invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class); //$NON-NLS-1$
+            Field field = unsafeClass.getDeclaredField("theUnsafe"); //$NON-NLS-1$
+            field.setAccessible(true);
+            unsafe = field.get(null);
+        } catch (Exception e) {
+            //prior to java 9 the cleaner is obtained from the buffer
+            invokeCleaner = null;
+        }
+    }
+
+    private static final class Region {
+        final MappedByteBuffer buffer;
+        int references = 1; //the store reference, guarded by the store
+
+        Region(MappedByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+    }
+
+    public class MappedDiskStore extends DiskStore {
+
+        private Region[] regions = new Region[0];
+        //the length requested by a truncation that is deferred by held regions, or -1
+        private long length = -1;
+
+        public MappedDiskStore(String name) {
+            super(name);
+        }
+
+        @Override
+        public synchronized long getLength() {
+            if (length >= 0) {
+                return length;
+            }
+            return super.getLength();
+        }
+
+        @Override
+        protected synchronized int readWrite(long fileOffset, byte[] b, int offSet,
+                int length, boolean write) throws IOException {
+            if (write) {
+                int result = super.readWrite(fileOffset, b, offSet, length, true);
+                if (this.length >= 0) {
+                    this.length = Math.max(this.length, fileOffset + length);
+                    if (this.length >= super.getLength()) {
+                        this.length = -1;
+                    }
+                }
+                return result;
+            }
+            if (fileInfo == null) {
+                return -1;
+            }
+            long fileLength = getLength();
+            if (fileOffset >= fileLength) {
+                return -1;
+            }
+            length = (int)Math.min(length, fileLength - fileOffset);
+            int index = (int)(fileOffset >> REGION_BITS);
+            Region region = getRegion(index);
+            if (region == null) {
+                return super.readWrite(fileOffset, b, offSet, length, false);
+            }
+            int position = (int)(fileOffset & (REGION_SIZE - 1));
+            length = Math.min(length, REGION_SIZE - position);
+            ByteBuffer buffer = region.buffer.duplicate();
+            buffer.position(position);
+            buffer.get(b, offSet, length);
+            return length;
+        }
+
+        /**
+         * Get the region, mapping it if it is entirely backed by the file
+         * @return the region or null if the file does not yet extend through the region
+         */
+        private Region getRegion(int index) throws IOException {
+            if (index < regions.length && regions[index] != null) {
+                return regions[index];
+            }
+            long start = (long)index << REGION_BITS;
+            if (super.getLength() < start + REGION_SIZE) {
+                return null;
+            }
+            if (index >= regions.length) {
+                regions = Arrays.copyOf(regions, index + 1);
+            }
+            RandomAccessFile fileAccess = open();
+            try {
+                regions[index] = new Region(fileAccess.getChannel().map(MapMode.READ_ONLY, start, REGION_SIZE));
+            } finally {
+                fileInfo.close();
+            }
+            return regions[index];
+        }
+
+        /**
+         * Get a view of the file contents starting at the offset,
+         * which will not extend past the end of the region.
+         * @param stream the stream to hold the region that the view references
+         * @param length the max length or -1 for the rest of the region
+         * @return the view or null if the offset is at the end of the file
+         */
+        synchronized ByteBuffer getView(MappedInputStream stream, long offset, long length) throws IOException {
+            if (fileInfo == null) {
+                return null;
+            }
+            long end = getLength();
+            if (offset >= end) {
+                return null;
+            }
+            if (length != -1) {
+                end = Math.min(end, offset + length);
+            }
+            int index = (int)(offset >> REGION_BITS);
+            end = Math.min(end, ((long)index + 1) << REGION_BITS);
+            Region region = getRegion(index);
+            if (region == null) {
+                byte[] b = new byte[(int)Math.min(end - offset, READ_SIZE)];
+                int read = readWrite(offset, b, 0, b.length, false);
+                if (read <= 0) {
+                    return null;
+                }
+                return ByteBuffer.wrap(b, 0, read);
+            }
+            region.references++;
+            stream.region = region;
+            ByteBuffer view = region.buffer.duplicate();
+            int position = (int)(offset & (REGION_SIZE - 1));
+            view.limit(position + (int)(end - offset));
+            view.position(position);
+            return view.slice();
+        }
+
+        @Override
+        public ExtensibleBufferedInputStream createInputStream(final long start,
+                final long length) {
+            return new MappedInputStream(this, start, length);
+        }
+
+        @Override
+        public synchronized void setLength(long length) throws IOException {
+            //unmap before truncating, access to a mapping past the end of the file is an error
+            long truncateTo = length;
+            for (int i = 0; i < regions.length; i++) {
+                Region region = regions[i];
+                if (region == null) {
+                    continue;
+                }
+                long end = ((long)i + 1) << REGION_BITS;
+                if (end <= length) {
+                    continue;
+                }
+                if (region.references > 1) {
+                    //still held by a stream
+                    truncateTo = Math.max(truncateTo, end);
+                } else {
+                    regions[i] = null;
+                    release(region);
+                }
+            }
+            super.setLength(truncateTo);
+            this.length = length < truncateTo ? length : -1;
+        }
+
+        @Override
+        public synchronized void removeDirect() {
+            //the file is unlinked rather than truncated, so held regions remain valid until released
+            for (int i = 0; i < regions.length; i++) {
+                Region region = regions[i];
+                if (region != null) {
+                    regions[i] = null;
+                    release(region);
+                }
+            }
+            this.length = -1;
+            super.removeDirect();
+        }
+
+        synchronized void release(Region region) {
+            if (--region.references > 0) {
+                return;
+            }
+            unmap(region.buffer);
+        }
+
+        /**
+         * Release a region held by a stream, completing any truncation it deferred
+         */
+        synchronized void releaseView(Region region) throws IOException {
+            release(region);
+            if (this.length >= 0 && region.references == 1) {
+                setLength(this.length);
+            }
+        }
+
+    }
+
+    /**
+     * An input stream over views of the store that holds the region of the current view
+     */
+    static class MappedInputStream extends ExtensibleBufferedInputStream {
+        private MappedDiskStore store;
+        private long offset;
+        private long streamLength;
+        Region region;
+
+        MappedInputStream(MappedDiskStore store, long start, long length) {
+            this.store = store;
+            this.offset = start;
+            this.streamLength = length;
+        }
+
+        @Override
+        protected ByteBuffer nextBuffer() throws IOException {
+            releaseRegion();
+            if (this.streamLength == 0) {
+                return null;
+            }
+            ByteBuffer view = store.getView(this, offset, streamLength);
+            if (view == null) {
+                return null;
+            }
+            this.offset += view.remaining();
+            if (this.streamLength != -1) {
+                this.streamLength -= view.remaining();
+            }
+            return view;
+        }
+
+        private void releaseRegion() throws IOException {
+            if (this.region != null) {
+                Region r = this.region;
+                this.region = null;
+                store.releaseView(r);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            releaseRegion();
+        }
+    }
+
+    @Override
+    public FileStore createFileStore(String name) {
+        return new MappedDiskStore(name);
+    }
+
+    /**
+     * Eagerly unmap the buffer rather than waiting for garbage collection.
+     * The buffer must not be used afterwards.
+     */
+    static void unmap(MappedByteBuffer buffer) {
+        try {
+            if (invokeCleaner != null) {
+                invokeCleaner.invoke(unsafe, buffer);
+                return;
+            }
+            Method cleanerMethod = buffer.getClass().getMethod("cleaner"); //$NON-NLS-1$
+            cleanerMethod.setAccessible(true);
+            Object cleaner = cleanerMethod.invoke(buffer);
+            if (cleaner != null) {
+                cleaner.getClass().getMethod("clean").invoke(cleaner); //$NON-NLS-1$
+            }
+        } catch (Exception e) {
+            //leave it for gc
+            if (LogManager.isMessageToBeRecorded(LogConstants.CTX_BUFFER_MGR, MessageLevel.DETAIL)) {
+                LogManager.logDetail(LogConstants.CTX_BUFFER_MGR, e, "Could not unmap buffer"); //$NON-NLS-1$
+            }
+        }
+    }
+
+}
@@ -55,7 +55,11 @@ final class PhysicalInfo extends BaseCacheEntry {
     }
 
     void setSize(int size) throws Exception {
-        int newMemoryBlockCount = (size>>BufferFrontedFileStoreCache.LOG_BLOCK_SIZE) + ((size&BufferFrontedFileStoreCache.BLOCK_MASK)>0?1:0);
+        setSize(size, BufferFrontedFileStoreCache.DEFAULT_LOG_BLOCK_SIZE);
+    }
+
+    void setSize(int size, int logBlockSize) throws Exception {
+        int newMemoryBlockCount = (size>>logBlockSize) + ((size&((1<<logBlockSize)-1))>0?1:0);
         if (this.memoryBlockCount != 0) {
             if (newMemoryBlockCount != memoryBlockCount) {
                 throw sizeChanged;
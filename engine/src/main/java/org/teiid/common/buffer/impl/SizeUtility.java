@@ -34,6 +34,7 @@ import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
 
+import org.teiid.common.buffer.ColumnarBatch;
 import org.teiid.core.types.ArrayImpl;
 import org.teiid.core.types.BaseLob;
 import org.teiid.core.types.BinaryType;
@@ -118,6 +119,9 @@ public final class SizeUtility {
     }
 
     public long getBatchSize(boolean accountForValueCache, List<? extends List<?>> data) {
+        if (data instanceof ColumnarBatch) {
+            return getColumnarBatchSize(accountForValueCache, (ColumnarBatch)data);
+        }
         int colLength = types.length;
         int rowLength = data.size();
 
@@ -142,6 +146,51 @@ public final class SizeUtility {
         return size;
     }
 
+    private long getColumnarBatchSize(boolean accountForValueCache, ColumnarBatch data) {
+        int colLength = types.length;
+        int rowLength = data.size();
+
+        // batch overhead and the column array
+        long size = 32 + alignMemory(colLength * REFERENCE_SIZE);
+        for (int col = 0; col < colLength; col++) {
+            Class<?> type = types[col];
+            if (ColumnarBatch.isPrimitive(type)) {
+                // primitive array and null bitmap
+                size += 16 + alignMemory(rowLength * (long)getPrimitiveSize(type));
+                size += 40 + alignMemory((rowLength >> 3) + 1);
+                continue;
+            }
+            size += 16 + alignMemory(rowLength * (long)REFERENCE_SIZE);
+            if (isVariableSize(type)) {
+                int rowsSampled = 0;
+                int estimatedSize = 0;
+                for (int row = 0; row < rowLength; row=(row*2)+1) {
+                    rowsSampled++;
+                    estimatedSize += getSize(data.getValue(row, col), accountForValueCache);
+                }
+                if (rowsSampled > 0) {
+                    size += estimatedSize/(float)rowsSampled * rowLength;
+                }
+            } else {
+                size += getSize(accountForValueCache, type) * (long)rowLength;
+            }
+        }
+        return size;
+    }
+
+    private static int getPrimitiveSize(Class<?> type) {
+        if (type == DataTypeManager.DefaultDataClasses.LONG || type == DataTypeManager.DefaultDataClasses.DOUBLE) {
+            return 8;
+        }
+        if (type == DataTypeManager.DefaultDataClasses.INTEGER || type == DataTypeManager.DefaultDataClasses.FLOAT) {
+            return 4;
+        }
+        if (type == DataTypeManager.DefaultDataClasses.SHORT || type == DataTypeManager.DefaultDataClasses.CHAR) {
+            return 2;
+        }
+        return 1;
+    }
+
     public static boolean isVariableSize(Class<?> type) {
         return VARIABLE_SIZE_TYPES.contains(type) || type.isArray();
     }
@@ -19,9 +19,11 @@
 package org.teiid.common.buffer.impl;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.List;
 
+import org.teiid.common.buffer.ExtensibleBufferedInputStream;
 import org.teiid.common.buffer.FileStore;
 import org.teiid.common.buffer.StorageManager;
 import org.teiid.core.TeiidComponentException;
@@ -135,6 +137,71 @@ public class SplittableStorageManager implements StorageManager {
             len = length;
         }
 
+        /**
+         * Return the buffers from the underlying stores, so that any
+         * direct view they provide is not copied.
+         */
+        @Override
+        public ExtensibleBufferedInputStream createInputStream(final long start,
+                final long length) {
+            return new ExtensibleBufferedInputStream() {
+                private long offset = start;
+                private long streamLength = length;
+                private ExtensibleBufferedInputStream current;
+                private long currentStart;
+
+                @Override
+                protected ByteBuffer nextBuffer() throws IOException {
+                    while (true) {
+                        if (current == null) {
+                            if (streamLength == 0) {
+                                return null;
+                            }
+                            FileStore store = null;
+                            synchronized (SplittableFileStore.this) {
+                                if (offset >= len) {
+                                    return null;
+                                }
+                                store = storageFiles.get((int)(offset/maxFileSize));
+                            }
+                            long fileBegin = offset%maxFileSize;
+                            long fileLength = maxFileSize - fileBegin;
+                            if (streamLength != -1) {
+                                fileLength = Math.min(fileLength, streamLength);
+                            }
+                            current = store.createInputStream(fileBegin, fileLength);
+                            currentStart = offset;
+                        }
+                        ByteBuffer bb = current.getBuffer();
+                        if (bb != null) {
+                            offset += bb.remaining();
+                            if (streamLength != -1) {
+                                streamLength -= bb.remaining();
+                            }
+                            return bb;
+                        }
+                        current.close();
+                        current = null;
+                        if (currentStart == offset) {
+                            return null; //the store is shorter than expected
+                        }
+                    }
+                }
+
+                /**
+                 * Release the underlying stream, which may hold a view of its store
+                 */
+                @Override
+                public void close() throws IOException {
+                    if (current != null) {
+                        ExtensibleBufferedInputStream is = current;
+                        current = null;
+                        is.close();
+                    }
+                }
+            };
+        }
+
         public synchronized void removeDirect() {
             for (int i = storageFiles.size() - 1; i >= 0; i--) {
                 this.storageFiles.remove(i).remove();
@@ -25,8 +25,10 @@ import org.teiid.api.exception.query.QueryResolverException;
 import org.teiid.cache.Cachable;
 import org.teiid.common.buffer.TupleBuffer;
 import org.teiid.common.buffer.TupleBufferCache;
+import org.teiid.common.buffer.impl.SizeUtility;
 import org.teiid.core.TeiidComponentException;
 import org.teiid.core.TeiidException;
+import org.teiid.core.types.DataTypeManager;
 import org.teiid.core.util.Assertion;
 import org.teiid.logging.LogConstants;
 import org.teiid.logging.LogManager;
@@ -37,6 +39,7 @@ import org.teiid.query.parser.QueryParser;
 import org.teiid.query.processor.ProcessorPlan;
 import org.teiid.query.resolver.QueryResolver;
 import org.teiid.query.sql.lang.Command;
+import org.teiid.query.sql.symbol.Expression;
 
 
 public class CachedResults implements Serializable, Cachable {
@@ -48,6 +51,8 @@ public class CachedResults implements Serializable, Cachable {
     private String uuid;
     private boolean hasLobs;
     private int rowLimit;
+    private long sizeEstimate;
+    private long cost = -1;
 
     private AccessInfo accessInfo = new AccessInfo();
 
@@ -63,11 +68,27 @@ public class CachedResults implements Serializable, Cachable {
         this.results = results;
         this.uuid = results.getId();
         this.hasLobs = results.isLobs();
+        this.sizeEstimate = getSizeEstimate(results);
         if (plan != null) {
             this.accessInfo.populate(plan.getContext(), true);
+            if (plan.getContext() != null) {
+                this.cost = System.currentTimeMillis() - plan.getContext().getCommandStartTime();
+            }
         }
     }
 
+    static long getSizeEstimate(TupleBuffer results) {
+        long rowSize = results.getRowSizeEstimate();
+        if (rowSize == 0) {
+            //nothing has been sampled, use the nominal type sizes
+            boolean isValueCacheEnabled = DataTypeManager.isValueCacheEnabled();
+            for (Expression ex : results.getSchema()) {
+                rowSize += SizeUtility.getSize(isValueCacheEnabled, ex.getType()) + SizeUtility.REFERENCE_SIZE;
+            }
+        }
+        return results.getRowCount() * rowSize;
+    }
+
     public void setCommand(Command command) {
         this.command = command;
     }
@@ -121,4 +142,18 @@ public class CachedResults implements Serializable, Cachable {
         this.rowLimit = rowLimit;
     }
 
+    @Override
+    public long getSizeEstimate() {
+        return sizeEstimate;
+    }
+
+    @Override
+    public long getCost() {
+        return cost;
+    }
+
+    public void setCost(long cost) {
+        this.cost = cost;
+    }
+
 }
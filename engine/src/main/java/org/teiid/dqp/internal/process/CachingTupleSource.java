@@ -48,6 +48,7 @@ final class CachingTupleSource extends
     private final Collection<GroupSymbol> accessedGroups;
     final DataTierTupleSource dtts;
     final RequestWorkItem item;
+    private final long start = System.currentTimeMillis();
 
     CachingTupleSource(DataTierManagerImpl dataTierManagerImpl, TupleBuffer tb, DataTierTupleSource ts, CacheID cid,
             RegisterRequestParameter parameterObject, CacheDirective cd,
@@ -79,6 +80,7 @@ final class CachingTupleSource extends
                 }
                 CachedResults cr = new CachedResults();
                 cr.setResults(tb, null);
+                cr.setCost(System.currentTimeMillis() - start);
                 if (!Boolean.FALSE.equals(cd.getUpdatable())) {
                     if (accessedGroups != null) {
                         for (GroupSymbol gs : accessedGroups) {
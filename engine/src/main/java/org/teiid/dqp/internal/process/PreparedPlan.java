@@ -32,12 +32,18 @@ import org.teiid.query.util.CommandContext;
 
 
 public class PreparedPlan implements Cachable {
+    /**
+     * Plans are not sized precisely, this is a nominal estimate of the plan, command, and analysis objects
+     */
+    static final long SIZE_ESTIMATE = 1 << 14;
+
     private ProcessorPlan plan;
     private Command command;
     private List<Reference> refs;
     private AnalysisRecord analysisRecord;
 
     private AccessInfo accessInfo = new AccessInfo();
+    private long cost = -1;
 
     /**
      * Return the ProcessorPlan.
@@ -119,6 +125,23 @@ public class PreparedPlan implements Cachable {
         return true; //no remotable actions
     }
 
+    @Override
+    public long getSizeEstimate() {
+        return SIZE_ESTIMATE;
+    }
+
+    @Override
+    public long getCost() {
+        return cost;
+    }
+
+    /**
+     * Set the planning time in milliseconds
+     */
+    public void setCost(long cost) {
+        this.cost = cost;
+    }
+
     public boolean validate() {
         return this.accessInfo.validate(false, 0);
     }
@@ -116,7 +116,9 @@ public class PreparedStatementRequest extends Request {
             //if prepared plan does not exist, create one
             prepPlan = new PreparedPlan();
             LogManager.logTrace(LogConstants.CTX_DQP, new Object[] { "Query does not exist in cache: ", sqlQuery}); //$NON-NLS-1$
+            long start = System.currentTimeMillis();
             super.generatePlan(true);
+            prepPlan.setCost(System.currentTimeMillis() - start);
             prepPlan.setCommand(this.userCommand);
 
             //there's no need to cache the plan if it's explain or a stored procedure, since we already do that in the optimizer
@@ -86,6 +86,7 @@ public class QueryProcessorFactoryImpl implements QueryProcessor.ProcessorFactor
         }
         PreparedPlan pp = commandContext.getPlan(query);
         if (pp == null) {
+            long start = System.currentTimeMillis();
             ParseInfo parseInfo = new ParseInfo();
             Command newCommand = QueryParser.getQueryParser().parseCommand(query, parseInfo);
             QueryResolver.resolveCommand(newCommand, metadata);
@@ -99,6 +100,7 @@ public class QueryProcessorFactoryImpl implements QueryProcessor.ProcessorFactor
             ProcessorPlan plan = QueryOptimizer.optimizePlan(newCommand, metadata, idGenerator, finder, record, commandContext);
             pp = new PreparedPlan();
             pp.setPlan(plan, commandContext);
+            pp.setCost(System.currentTimeMillis() - start);
             pp.setReferences(references);
             pp.setAnalysisRecord(record);
             pp.setCommand(newCommand);
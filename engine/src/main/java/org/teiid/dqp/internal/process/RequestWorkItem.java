@@ -1117,6 +1117,7 @@ public class RequestWorkItem extends AbstractWorkItem implements PrioritizedRunn
 
         result.setClientSerializationVersion(clientSerializationVersion);
         result.setDelayDeserialization(this.requestMsg.isDelaySerialization() && this.originalCommand.returnsResultSet());
+        result.setCompressResults(this.options.isCompressResults());
         return result;
     }
 
@@ -148,6 +148,23 @@ public class SessionAwareCache<T> {
         return cachePuts.get();
     }
 
+    /**
+     * @return the number of entries evicted by the underlying caches, or -1 if not tracked
+     */
+    public long getEvictionCount() {
+        long count = this.localCache.getEvictionCount();
+        if (this.localCache != this.distributedCache) {
+            long distributedCount = this.distributedCache.getEvictionCount();
+            if (count < 0) {
+                return distributedCount;
+            }
+            if (distributedCount > 0) {
+                count += distributedCount;
+            }
+        }
+        return count;
+    }
+
     public int getTotalCacheEntries() {
         if (this.localCache == this.distributedCache) {
             return this.localCache.size();
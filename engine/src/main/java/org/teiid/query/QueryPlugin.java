@@ -668,6 +668,15 @@ public class QueryPlugin { // extends Plugin {
         TEIID31302,
         TEIID31303,
         TEIID31304,
-        TEIID31305
+        TEIID31305,
+        TEIID31306,
+        TEIID31307,
+        TEIID31308,
+        TEIID31309,
+        TEIID31310,
+        TEIID31311,
+        TEIID31312,
+        TEIID31313,
+        TEIID31314
     }
 }
@@ -0,0 +1,298 @@
+/*
+ * Copyright Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags and
+ * the COPYRIGHT.txt file distributed with this work.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.teiid.query.eval;
+
+import java.util.List;
+import java.util.Map;
+
+import org.teiid.api.exception.query.ExpressionEvaluationException;
+import org.teiid.common.buffer.BlockedException;
+import org.teiid.core.TeiidComponentException;
+import org.teiid.metadata.FunctionMethod.PushDown;
+import org.teiid.query.QueryPlugin;
+import org.teiid.query.function.FunctionDescriptor;
+import org.teiid.query.function.FunctionLibrary;
+import org.teiid.query.sql.lang.CompareCriteria;
+import org.teiid.query.sql.lang.CompoundCriteria;
+import org.teiid.query.sql.lang.Criteria;
+import org.teiid.query.sql.lang.IsNullCriteria;
+import org.teiid.query.sql.lang.NotCriteria;
+import org.teiid.query.sql.symbol.Constant;
+import org.teiid.query.sql.symbol.DerivedExpression;
+import org.teiid.query.sql.symbol.Expression;
+import org.teiid.query.sql.symbol.ExpressionSymbol;
+import org.teiid.query.sql.symbol.Function;
+import org.teiid.query.sql.symbol.SearchedCaseExpression;
+
+/**
+ * Compiles criteria and expressions into a tree of specialized evaluation steps so
+ * that the per row work does not need to walk and type check the language objects.
+ * <br>
+ * Element lookups, constants, scalar functions, comparisons, is null, not, and/or
+ * and searched case are compiled.  Any other construct is delegated to the
+ * {@link Evaluator}, so the semantics are the same as interpreted evaluation.
+ */
+public class ExpressionCompiler {
+
+    public interface CompiledExpression {
+        Object evaluate(List<?> tuple) throws ExpressionEvaluationException, BlockedException, TeiidComponentException;
+    }
+
+    public interface CompiledCriteria {
+        Boolean evaluateTVL(List<?> tuple) throws ExpressionEvaluationException, BlockedException, TeiidComponentException;
+    }
+
+    private Map<? extends Expression, Integer> elements;
+    private Evaluator evaluator;
+
+    /**
+     * @param elements the element lookup map, which should be the same one used by the evaluator
+     * @param evaluator used for anything that is not compiled
+     */
+    public ExpressionCompiler(Map<? extends Expression, Integer> elements, Evaluator evaluator) {
+        this.elements = elements;
+        this.evaluator = evaluator;
+    }
+
+    /**
+     * Compile the criteria
+     * @return the compiled form, which is equivalent to {@link Evaluator#evaluateTVL(Criteria, List)}
+     */
+    public CompiledCriteria compile(final Criteria criteria) {
+        CompiledCriteria result = compileCriteria(criteria);
+        if (result != null) {
+            return result;
+        }
+        return tuple -> evaluator.evaluateTVL(criteria, tuple);
+    }
+
+    /**
+     * Compile the expression
+     * @return the compiled form, which is equivalent to {@link Evaluator#evaluate(Expression, List)}
+     */
+    public CompiledExpression compile(final Expression expression) {
+        final CompiledExpression result = compileExpression(expression);
+        if (result == null) {
+            return tuple -> evaluator.evaluate(expression, tuple);
+        }
+        return tuple -> {
+            try {
+                return result.evaluate(tuple);
+            } catch (ExpressionEvaluationException e) {
+                throw new ExpressionEvaluationException(QueryPlugin.Event.TEIID30328, e, QueryPlugin.Util.gs(QueryPlugin.Event.TEIID30328, new Object[] {expression, e.getMessage()}));
+            }
+        };
+    }
+
+    private CompiledCriteria compileCriteria(final Criteria criteria) {
+        if (criteria instanceof CompoundCriteria) {
+            CompoundCriteria cc = (CompoundCriteria)criteria;
+            final CompiledCriteria[] subCrits = new CompiledCriteria[cc.getCriteria().size()];
+            for (int i = 0; i < subCrits.length; i++) {
+                subCrits[i] = compile(cc.getCriteria().get(i));
+            }
+            if (cc.getOperator() == CompoundCriteria.AND) {
+                return tuple -> {
+                    Boolean result = Boolean.TRUE;
+                    for (CompiledCriteria subCrit : subCrits) {
+                        Boolean value = subCrit.evaluateTVL(tuple);
+                        if (value == null) {
+                            result = null;
+                        } else if (!value) {
+                            return Boolean.FALSE;
+                        }
+                    }
+                    return result;
+                };
+            }
+            return tuple -> {
+                Boolean result = Boolean.FALSE;
+                for (CompiledCriteria subCrit : subCrits) {
+                    Boolean value = subCrit.evaluateTVL(tuple);
+                    if (value == null) {
+                        result = null;
+                    } else if (value) {
+                        return Boolean.TRUE;
+                    }
+                }
+                return result;
+            };
+        }
+        if (criteria instanceof NotCriteria) {
+            final CompiledCriteria subCrit = compile(((NotCriteria)criteria).getCriteria());
+            return tuple -> {
+                Boolean result = subCrit.evaluateTVL(tuple);
+                if (result == null) {
+                    return null;
+                }
+                return !result;
+            };
+        }
+        if (criteria instanceof CompareCriteria) {
+            return compileCompare((CompareCriteria)criteria);
+        }
+        if (criteria instanceof IsNullCriteria) {
+            final IsNullCriteria inc = (IsNullCriteria)criteria;
+            final CompiledExpression expr = compile(inc.getExpression());
+            final boolean negated = inc.isNegated();
+            return tuple -> {
+                Object value = null;
+                try {
+                    value = expr.evaluate(tuple);
+                } catch (ExpressionEvaluationException e) {
+                    throw new ExpressionEvaluationException(QueryPlugin.Event.TEIID30323, e, QueryPlugin.Util.gs(QueryPlugin.Event.TEIID30323, inc));
+                }
+                return value == null ^ negated;
+            };
+        }
+        return null;
+    }
+
+    private CompiledCriteria compileCompare(final CompareCriteria criteria) {
+        final CompiledExpression left = compile(criteria.getLeftExpression());
+        final int operator = criteria.getOperator();
+        Expression rightExpression = criteria.getRightExpression();
+        if (rightExpression instanceof Constant && !((Constant)rightExpression).isMultiValued()) {
+            final Object rightValue = ((Constant)rightExpression).getValue();
+            return tuple -> {
+                Object leftValue = evaluateSide(left, tuple, "left", criteria); //$NON-NLS-1$
+                if (leftValue == null || rightValue == null) {
+                    return null;
+                }
+                return Evaluator.compare(operator, leftValue, rightValue);
+            };
+        }
+        final CompiledExpression right = compile(rightExpression);
+        return tuple -> {
+            Object leftValue = evaluateSide(left, tuple, "left", criteria); //$NON-NLS-1$
+            if (leftValue == null) {
+                return null;
+            }
+            Object rightValue = evaluateSide(right, tuple, "right", criteria); //$NON-NLS-1$
+            if (rightValue == null) {
+                return null;
+            }
+            return Evaluator.compare(operator, leftValue, rightValue);
+        };
+    }
+
+    private static Object evaluateSide(CompiledExpression expr, List<?> tuple, String side, CompareCriteria criteria)
+            throws ExpressionEvaluationException, BlockedException, TeiidComponentException {
+        try {
+            return expr.evaluate(tuple);
+        } catch (ExpressionEvaluationException e) {
+            throw new ExpressionEvaluationException(QueryPlugin.Event.TEIID30312, e, QueryPlugin.Util.gs(QueryPlugin.Event.TEIID30312, side, criteria));
+        }
+    }
+
+    /**
+     * Compile the expression without the top level exception handling
+     * @return the compiled form or null if the expression should be interpreted
+     */
+    private CompiledExpression compileExpression(final Expression expression) {
+        if (expression instanceof DerivedExpression) {
+            if (elements != null) {
+                Integer index = elements.get(expression);
+                if (index != null) {
+                    final int i = index;
+                    return tuple -> tuple.get(i);
+                }
+            }
+            if (expression instanceof ExpressionSymbol) {
+                return compileInternal(((ExpressionSymbol)expression).getExpression());
+            }
+            return null;
+        }
+        if (expression instanceof Constant) {
+            Constant c = (Constant)expression;
+            if (c.isMultiValued()) {
+                return null;
+            }
+            final Object value = c.getValue();
+            return tuple -> value;
+        }
+        if (expression instanceof Function) {
+            return compileFunction((Function)expression);
+        }
+        if (expression instanceof SearchedCaseExpression) {
+            SearchedCaseExpression sce = (SearchedCaseExpression)expression;
+            final CompiledCriteria[] whens = new CompiledCriteria[sce.getWhenCount()];
+            final CompiledExpression[] thens = new CompiledExpression[sce.getWhenCount()];
+            for (int i = 0; i < whens.length; i++) {
+                whens[i] = compile(sce.getWhenCriteria(i));
+                thens[i] = compileInternal(sce.getThenExpression(i));
+            }
+            final CompiledExpression elseExpr = sce.getElseExpression() != null ? compileInternal(sce.getElseExpression()) : null;
+            return tuple -> {
+                for (int i = 0; i < whens.length; i++) {
+                    if (Boolean.TRUE.equals(whens[i].evaluateTVL(tuple))) {
+                        return thens[i].evaluate(tuple);
+                    }
+                }
+                if (elseExpr != null) {
+                    return elseExpr.evaluate(tuple);
+                }
+                return null;
+            };
+        }
+        return null;
+    }
+
+    /**
+     * Compile a nested expression, falling back to the interpreter without additional exception handling
+     */
+    private CompiledExpression compileInternal(final Expression expression) {
+        CompiledExpression result = compileExpression(expression);
+        if (result != null) {
+            return result;
+        }
+        return tuple -> evaluator.internalEvaluate(expression, tuple);
+    }
+
+    private CompiledExpression compileFunction(final Function function) {
+        final FunctionDescriptor fd = function.getFunctionDescriptor();
+        if (fd == null || fd.getPushdown() == PushDown.MUST_PUSHDOWN || fd.getProcedure() != null
+                || function.getName().equalsIgnoreCase(FunctionLibrary.LOOKUP)) {
+            return null;
+        }
+        Expression[] args = function.getArgs();
+        final CompiledExpression[] compiledArgs = new CompiledExpression[args.length];
+        for (int i = 0; i < args.length; i++) {
+            compiledArgs[i] = compileInternal(args[i]);
+        }
+        final int start = fd.requiresContext()?1:0;
+        final boolean varArgArrayParam = function.isCalledWithVarArgArrayParam();
+        return tuple -> {
+            Object[] values = new Object[compiledArgs.length + start];
+            if (start == 1) {
+                values[0] = evaluator.context;
+            }
+            for (int i = 0; i < compiledArgs.length; i++) {
+                Object value = compiledArgs[i].evaluate(tuple);
+                if (value instanceof Constant) {
+                    //leaked a multivalued constant
+                    throw new AssertionError("Multi-valued constant not allowed to be directly evaluated"); //$NON-NLS-1$
+                }
+                values[i + start] = value;
+            }
+            return fd.invokeFunction(values, evaluator.context, null, varArgArrayParam);
+        };
+    }
+
+}
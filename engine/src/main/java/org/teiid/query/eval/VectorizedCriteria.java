@@ -0,0 +1,375 @@
+/*
+ * Copyright Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags and
+ * the COPYRIGHT.txt file distributed with this work.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.teiid.query.eval;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import org.teiid.common.buffer.ColumnarBatch;
+import org.teiid.common.buffer.TupleBatch;
+import org.teiid.core.types.DataTypeManager;
+import org.teiid.query.sql.lang.CompareCriteria;
+import org.teiid.query.sql.lang.CompoundCriteria;
+import org.teiid.query.sql.lang.Criteria;
+import org.teiid.query.sql.lang.IsNullCriteria;
+import org.teiid.query.sql.lang.SetCriteria;
+import org.teiid.query.sql.symbol.Constant;
+import org.teiid.query.sql.symbol.ElementSymbol;
+import org.teiid.query.sql.symbol.Expression;
+
+/**
+ * Evaluates simple criteria a batch at a time to produce a selection vector.
+ * <br>
+ * Supported are comparisons and all constant in predicates of an element against constants,
+ * is null of an element, and any and/or combination of those.  Between is handled as the
+ * rewriter replaces it with a conjunction of comparisons.  Since only rows that are true
+ * are selected, and/or can be applied directly to the selections of the children
+ * without tracking unknown.
+ * <br>
+ * When the batch has a columnar form, integer, long and double columns are evaluated
+ * with loops over the primitive arrays.
+ */
+public abstract class VectorizedCriteria {
+
+    /**
+     * Create the vectorized form of the criteria
+     * @param elements the element lookup map
+     * @return the vectorized criteria or null if the criteria is not supported
+     */
+    public static VectorizedCriteria create(Criteria criteria, Map<? extends Expression, Integer> elements) {
+        if (criteria instanceof CompoundCriteria) {
+            CompoundCriteria cc = (CompoundCriteria)criteria;
+            List<VectorizedCriteria> children = new ArrayList<VectorizedCriteria>(cc.getCriteria().size());
+            for (Criteria crit : cc.getCriteria()) {
+                VectorizedCriteria child = create(crit, elements);
+                if (child == null) {
+                    return null;
+                }
+                children.add(child);
+            }
+            return new Compound(children.toArray(new VectorizedCriteria[children.size()]), cc.getOperator() == CompoundCriteria.AND);
+        }
+        if (criteria instanceof CompareCriteria) {
+            CompareCriteria cc = (CompareCriteria)criteria;
+            int operator = cc.getOperator();
+            Expression left = cc.getLeftExpression();
+            Expression right = cc.getRightExpression();
+            if (left instanceof Constant) {
+                Expression temp = left;
+                left = right;
+                right = temp;
+                operator = cc.getReverseOperator();
+            }
+            Integer index = getIndex(left, elements);
+            if (index == null || !(right instanceof Constant) || ((Constant)right).isMultiValued()) {
+                return null;
+            }
+            return new Compare(index, operator, ((Constant)right).getValue());
+        }
+        if (criteria instanceof SetCriteria) {
+            SetCriteria sc = (SetCriteria)criteria;
+            Integer index = getIndex(sc.getExpression(), elements);
+            if (index == null || !sc.isAllConstants()) {
+                return null;
+            }
+            return new In(index, sc.getExpression().getType(), sc.getValues(), sc.isNegated());
+        }
+        if (criteria instanceof IsNullCriteria) {
+            IsNullCriteria inc = (IsNullCriteria)criteria;
+            Integer index = getIndex(inc.getExpression(), elements);
+            if (index == null) {
+                return null;
+            }
+            return new IsNull(index, inc.isNegated());
+        }
+        return null;
+    }
+
+    private static Integer getIndex(Expression expr, Map<? extends Expression, Integer> elements) {
+        if (!(expr instanceof ElementSymbol) || elements == null) {
+            return null;
+        }
+        return elements.get(expr);
+    }
+
+    /**
+     * Evaluate the criteria against the batch.
+     * @return the selection vector indexed by the offset of the row in the batch,
+     * which is true only for the rows where the criteria is true
+     */
+    public boolean[] evaluate(TupleBatch batch) {
+        boolean[] result = new boolean[batch.getRowCount()];
+        evaluate(batch.getTuples(), batch.getColumnarBatch(), result);
+        return result;
+    }
+
+    /**
+     * Set the selection for each row
+     * @param columnar the columnar form of the tuples or null if not available
+     */
+    protected abstract void evaluate(List<List<?>> tuples, ColumnarBatch columnar, boolean[] result);
+
+    static boolean isColumn(ColumnarBatch columnar, int index, Class<?> type) {
+        return columnar != null && columnar.getType(index) == type;
+    }
+
+    /**
+     * Clear the selection for the null values of a primitive column
+     */
+    static void clearNulls(ColumnarBatch columnar, int index, boolean[] result) {
+        BitSet nulls = columnar.getNulls(index);
+        for (int i = nulls.nextSetBit(0); i >= 0; i = nulls.nextSetBit(i + 1)) {
+            result[i] = false;
+        }
+    }
+
+    static final class Compound extends VectorizedCriteria {
+        private VectorizedCriteria[] children;
+        private boolean and;
+
+        Compound(VectorizedCriteria[] children, boolean and) {
+            this.children = children;
+            this.and = and;
+        }
+
+        @Override
+        protected void evaluate(List<List<?>> tuples, ColumnarBatch columnar,
+                boolean[] result) {
+            children[0].evaluate(tuples, columnar, result);
+            boolean[] childResult = new boolean[result.length];
+            for (int i = 1; i < children.length; i++) {
+                children[i].evaluate(tuples, columnar, childResult);
+                if (and) {
+                    for (int j = 0; j < result.length; j++) {
+                        result[j] &= childResult[j];
+                    }
+                } else {
+                    for (int j = 0; j < result.length; j++) {
+                        result[j] |= childResult[j];
+                    }
+                }
+            }
+        }
+    }
+
+    static final class Compare extends VectorizedCriteria {
+        private int index;
+        private int operator;
+        private Object value;
+
+        Compare(int index, int operator, Object value) {
+            this.index = index;
+            this.operator = operator;
+            this.value = value;
+        }
+
+        @Override
+        protected void evaluate(List<List<?>> tuples, ColumnarBatch columnar,
+                boolean[] result) {
+            if (value == null) {
+                Arrays.fill(result, false);
+                return;
+            }
+            //reduce to eq, lt, le and negate for the others
+            int op = operator;
+            boolean negate = false;
+            switch (op) {
+            case CompareCriteria.NE:
+                op = CompareCriteria.EQ;
+                negate = true;
+                break;
+            case CompareCriteria.GT:
+                op = CompareCriteria.LE;
+                negate = true;
+                break;
+            case CompareCriteria.GE:
+                op = CompareCriteria.LT;
+                negate = true;
+                break;
+            }
+            if (value instanceof Integer && isColumn(columnar, index, DataTypeManager.DefaultDataClasses.INTEGER)) {
+                compare((int[])columnar.getColumn(index), (Integer)value, op, result);
+            } else if (value instanceof Long && isColumn(columnar, index, DataTypeManager.DefaultDataClasses.LONG)) {
+                compare((long[])columnar.getColumn(index), (Long)value, op, result);
+            } else if (value instanceof Double && isColumn(columnar, index, DataTypeManager.DefaultDataClasses.DOUBLE)) {
+                compare((double[])columnar.getColumn(index), (Double)value, op, result);
+            } else {
+                for (int i = 0; i < result.length; i++) {
+                    Object v = tuples.get(i).get(index);
+                    result[i] = v != null && Boolean.TRUE.equals(Evaluator.compare(operator, v, value));
+                }
+                return;
+            }
+            if (negate) {
+                for (int i = 0; i < result.length; i++) {
+                    result[i] = !result[i];
+                }
+            }
+            clearNulls(columnar, index, result);
+        }
+
+        private static void compare(int[] values, int value, int op, boolean[] result) {
+            switch (op) {
+            case CompareCriteria.EQ:
+                for (int i = 0; i < result.length; i++) {
+                    result[i] = values[i] == value;
+                }
+                break;
+            case CompareCriteria.LT:
+                for (int i = 0; i < result.length; i++) {
+                    result[i] = values[i] < value;
+                }
+                break;
+            default:
+                for (int i = 0; i < result.length; i++) {
+                    result[i] = values[i] <= value;
+                }
+            }
+        }
+
+        private static void compare(long[] values, long value, int op, boolean[] result) {
+            switch (op) {
+            case CompareCriteria.EQ:
+                for (int i = 0; i < result.length; i++) {
+                    result[i] = values[i] == value;
+                }
+                break;
+            case CompareCriteria.LT:
+                for (int i = 0; i < result.length; i++) {
+                    result[i] = values[i] < value;
+                }
+                break;
+            default:
+                for (int i = 0; i < result.length; i++) {
+                    result[i] = values[i] <= value;
+                }
+            }
+        }
+
+        /**
+         * Uses Double.compare to match the comparator semantics for NaN and -0.0
+         */
+        private static void compare(double[] values, double value, int op, boolean[] result) {
+            switch (op) {
+            case CompareCriteria.EQ:
+                for (int i = 0; i < result.length; i++) {
+                    result[i] = Double.compare(values[i], value) == 0;
+                }
+                break;
+            case CompareCriteria.LT:
+                for (int i = 0; i < result.length; i++) {
+                    result[i] = Double.compare(values[i], value) < 0;
+                }
+                break;
+            default:
+                for (int i = 0; i < result.length; i++) {
+                    result[i] = Double.compare(values[i], value) <= 0;
+                }
+            }
+        }
+    }
+
+    static final class In extends VectorizedCriteria {
+        private int index;
+        private Class<?> type;
+        private Collection<?> values;
+        private boolean negated;
+        private boolean hasNull;
+        private int[] intValues;
+
+        In(int index, Class<?> type, Collection<?> values, boolean negated) {
+            this.index = index;
+            this.type = type;
+            this.values = values;
+            this.negated = negated;
+            this.hasNull = values.contains(Constant.NULL_CONSTANT);
+            if (type == DataTypeManager.DefaultDataClasses.INTEGER && !hasNull) {
+                int[] ints = new int[values.size()];
+                int i = 0;
+                for (Object o : values) {
+                    Object value = ((Constant)o).getValue();
+                    if (!(value instanceof Integer)) {
+                        return;
+                    }
+                    ints[i++] = (Integer)value;
+                }
+                Arrays.sort(ints);
+                this.intValues = ints;
+            }
+        }
+
+        @Override
+        protected void evaluate(List<List<?>> tuples, ColumnarBatch columnar,
+                boolean[] result) {
+            if (values.isEmpty()) {
+                //even null is not in the empty set
+                Arrays.fill(result, negated);
+                return;
+            }
+            if (negated && hasNull) {
+                //not in with a null is never true
+                Arrays.fill(result, false);
+                return;
+            }
+            if (intValues != null && isColumn(columnar, index, DataTypeManager.DefaultDataClasses.INTEGER)) {
+                int[] column = (int[])columnar.getColumn(index);
+                for (int i = 0; i < result.length; i++) {
+                    result[i] = (Arrays.binarySearch(intValues, column[i]) >= 0) ^ negated;
+                }
+                clearNulls(columnar, index, result);
+                return;
+            }
+            for (int i = 0; i < result.length; i++) {
+                Object v = tuples.get(i).get(index);
+                result[i] = v != null && (values.contains(new Constant(v, type)) ^ negated);
+            }
+        }
+    }
+
+    static final class IsNull extends VectorizedCriteria {
+        private int index;
+        private boolean negated;
+
+        IsNull(int index, boolean negated) {
+            this.index = index;
+            this.negated = negated;
+        }
+
+        @Override
+        protected void evaluate(List<List<?>> tuples, ColumnarBatch columnar,
+                boolean[] result) {
+            if (columnar != null && columnar.getNulls(index) != null) {
+                Arrays.fill(result, negated);
+                BitSet nulls = columnar.getNulls(index);
+                for (int i = nulls.nextSetBit(0); i >= 0; i = nulls.nextSetBit(i + 1)) {
+                    result[i] = !negated;
+                }
+                return;
+            }
+            for (int i = 0; i < result.length; i++) {
+                result[i] = (tuples.get(i).get(index) == null) ^ negated;
+            }
+        }
+    }
+
+}
@@ -19,9 +19,13 @@
 package org.teiid.query.function;
 
 import java.io.Serializable;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Array;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
 import java.util.Arrays;
 
 import org.teiid.api.exception.query.FunctionExecutionException;
@@ -54,6 +58,16 @@ public class FunctionDescriptor implements Serializable, Cloneable {
 
     private static final boolean ALLOW_NAN_INFINITY = PropertiesUtils.getHierarchicalProperty("org.teiid.allowNanInfinity", false, Boolean.class); //$NON-NLS-1$
 
+    private static final MethodHandle THROW_TARGET_EXCEPTION;
+    static {
+        try {
+            THROW_TARGET_EXCEPTION = MethodHandles.lookup().findStatic(FunctionDescriptor.class,
+                    "throwTargetException", MethodType.methodType(Object.class, Throwable.class)); //$NON-NLS-1$
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            throw new TeiidRuntimeException(e);
+        }
+    }
+
     private Class<?>[] types;
     private Class<?> returnType;
     private boolean requiresContext;
@@ -66,6 +80,10 @@ public class FunctionDescriptor implements Serializable, Cloneable {
     // the real VM descriptor for execution.
     private transient Method invocationMethod;
 
+    // A handle of the form (Object target, Object[] args)Object to avoid reflective invocation
+    private transient MethodHandle invocationHandle;
+    private transient boolean handleResolved;
+
     private ClassLoader classLoader;
 
     private Procedure procedure;
@@ -276,7 +294,7 @@ public class FunctionDescriptor implements Serializable, Cloneable {
                 if (this.classLoader != null) {
                     Thread.currentThread().setContextClassLoader(this.classLoader);
                 }
-                result = invocationMethod.invoke(functionTarget, values);
+                result = invoke(functionTarget, values);
             } finally {
                 Thread.currentThread().setContextClassLoader(originalCL);
             }
@@ -298,6 +316,57 @@ public class FunctionDescriptor implements Serializable, Cloneable {
         }
     }
 
+    private Object invoke(Object functionTarget, Object[] values) throws IllegalAccessException, InvocationTargetException {
+        MethodHandle handle = getInvocationHandle();
+        if (handle == null) {
+            return invocationMethod.invoke(functionTarget, values);
+        }
+        try {
+            return (Object)handle.invokeExact(functionTarget, values);
+        } catch (InvocationTargetException | Error e) {
+            throw e;
+        } catch (RuntimeException e) {
+            //the arguments could not be adapted, which happens before the target is called,
+            //so use reflection to report the failure as it normally would be
+            return invocationMethod.invoke(functionTarget, values);
+        } catch (Throwable e) {
+            throw new InvocationTargetException(e);
+        }
+    }
+
+    /**
+     * Used as the exception handler around the target method so that only exceptions
+     * thrown by the target are reported as an {@link InvocationTargetException}
+     */
+    private static Object throwTargetException(Throwable t) throws InvocationTargetException {
+        throw new InvocationTargetException(t);
+    }
+
+    /**
+     * Get a {@link MethodHandle} for the invocation method, or null if one cannot be created.
+     */
+    private MethodHandle getInvocationHandle() {
+        if (!handleResolved) {
+            MethodHandle handle = null;
+            try {
+                handle = MethodHandles.lookup().unreflect(invocationMethod).asFixedArity();
+                handle = MethodHandles.catchException(handle, Throwable.class,
+                        THROW_TARGET_EXCEPTION.asType(MethodType.methodType(handle.type().returnType(), Throwable.class)));
+                if (Modifier.isStatic(invocationMethod.getModifiers())) {
+                    handle = MethodHandles.dropArguments(handle, 0, Object.class);
+                }
+                handle = handle.asSpreader(Object[].class, invocationMethod.getParameterTypes().length)
+                        .asType(MethodType.methodType(Object.class, Object.class, Object[].class));
+            } catch (IllegalAccessException e) {
+                //use reflection instead
+                handle = null;
+            }
+            this.invocationHandle = handle;
+            this.handleResolved = true;
+        }
+        return this.invocationHandle;
+    }
+
     private void checkMethod() throws FunctionExecutionException {
         // If descriptor is missing invokable method, find this VM's descriptor
         // give name and types from fd
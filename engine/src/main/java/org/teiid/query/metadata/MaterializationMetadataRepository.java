@@ -60,6 +60,13 @@ public class MaterializationMetadataRepository implements MetadataRepository {
 
     public static final String MATVIEW_POLLING_QUERY = "teiid_rel:MATVIEW_POLLING_QUERY"; //$NON-NLS-1$
 
+    public static final String MATVIEW_INCREMENTAL_COLUMN = "teiid_rel:MATVIEW_INCREMENTAL_COLUMN"; //$NON-NLS-1$
+
+    public static final String MATVIEW_LOAD_PARTITION_COLUMN = "teiid_rel:MATVIEW_LOAD_PARTITION_COLUMN"; //$NON-NLS-1$
+    public static final String MATVIEW_LOAD_PARTITIONS = "teiid_rel:MATVIEW_LOAD_PARTITIONS"; //$NON-NLS-1$
+
+    public static final String MATVIEW_HASH_INDEX = "teiid_rel:MATVIEW_HASH_INDEX"; //$NON-NLS-1$
+
     public enum LoadStates {NEEDS_LOADING, LOADING, LOADED, FAILED_LOAD};
     public enum Scope {IMPORTED, FULL};
     public enum ErrorAction {THROW_EXCEPTION, IGNORE, WAIT}
@@ -144,6 +144,7 @@ public class QueryOptimizer {
                 if (pp == null) {
                     Determinism determinismLevel = context.resetDeterminismLevel();
                     try {
+                        long start = System.currentTimeMillis();
                         CommandContext clone = context.clone();
                         ProcessorPlan plan = planProcedure(command, metadata, idGenerator, capFinder, analysisRecord, clone);
                         //note that this is not a full prepared plan.  It is not usable by user queries.
@@ -152,6 +153,7 @@ public class QueryOptimizer {
                         }
                         pp = new PreparedPlan();
                         pp.setPlan(plan, clone);
+                        pp.setCost(System.currentTimeMillis() - start);
                         context.putPlan(fullName, pp, context.getDeterminismLevel());
                     } finally {
                         context.setDeterminismLevel(determinismLevel);
@@ -30,6 +30,7 @@ import java.util.Set;
 import org.teiid.api.exception.query.QueryMetadataException;
 import org.teiid.api.exception.query.QueryPlannerException;
 import org.teiid.core.TeiidComponentException;
+import org.teiid.core.types.DataTypeManager;
 import org.teiid.query.analysis.AnalysisRecord;
 import org.teiid.query.metadata.QueryMetadataInterface;
 import org.teiid.query.metadata.TempMetadataAdapter;
@@ -210,6 +211,10 @@ public class RuleImplementJoinStrategy implements OptimizerRule {
             }
 
             boolean pushedRight = insertSort(joinNode.getLastChild(), rightExpressions, joinNode, metadata, capabilitiesFinder, pushRight, context);
+            if (!pushedLeft && !pushedRight && useHashJoin(joinNode, joinType, leftExpressions, context)) {
+                joinNode.setProperty(NodeConstants.Info.JOIN_STRATEGY, JoinStrategyType.HASH);
+                continue;
+            }
             if ((!pushedRight || !pushedLeft) && (joinType == JoinType.JOIN_INNER || (joinType == JoinType.JOIN_LEFT_OUTER && !pushedLeft))) {
                 joinNode.setProperty(NodeConstants.Info.JOIN_STRATEGY, JoinStrategyType.ENHANCED_SORT);
             }
@@ -218,6 +223,37 @@ public class RuleImplementJoinStrategy implements OptimizerRule {
         return plan;
     }
 
+    /**
+     * Determine if a hash join should be used instead of a sort based join.  This is only
+     * the case when neither side is already ordered and both would require a full sort.
+     */
+    static boolean useHashJoin(PlanNode joinNode, JoinType joinType, List<Expression> expressions, CommandContext context) {
+        if (context == null || !context.getOptions().isHashJoin()) {
+            return false;
+        }
+        if (joinType != JoinType.JOIN_INNER && joinType != JoinType.JOIN_LEFT_OUTER) {
+            return false;
+        }
+        if (joinNode.getProperty(NodeConstants.Info.DEPENDENT_VALUE_SOURCE) != null
+                || joinNode.hasBooleanProperty(Info.IS_SEMI_DEP)
+                || joinNode.hasBooleanProperty(Info.SINGLE_MATCH)) {
+            return false;
+        }
+        if (joinNode.getProperty(NodeConstants.Info.SORT_LEFT) != SortOption.SORT
+                || joinNode.getProperty(NodeConstants.Info.SORT_RIGHT) != SortOption.SORT) {
+            return false;
+        }
+        if (DataTypeManager.COLLATION_LOCALE != null) {
+            return false; //hashing is not consistent with a non-default collation
+        }
+        for (Expression ex : expressions) {
+            if (DataTypeManager.isNonComparable(DataTypeManager.getDataTypeName(ex.getType()))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     /**
      * Insert a sort node under the merge join node.  If necessary, also insert a project
      * node to handle function evaluation.
@@ -0,0 +1,95 @@
+/*
+ * Copyright Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags and
+ * the COPYRIGHT.txt file distributed with this work.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.teiid.query.processor.relational;
+
+/**
+ * A simple Bloom filter over the hash codes of values.  Values
+ * must have a consistent equals/hashCode, see {@link org.teiid.core.types.DataTypeManager#isHashable(Class)}
+ * <br>
+ * There are no false negatives, but {@link #mightContain(Object)} may
+ * return true for values that were not added.
+ */
+public class BloomFilter {
+
+    private static final double LN2 = Math.log(2);
+
+    private long[] bits;
+    private long numBits;
+    private int numHashes;
+
+    /**
+     * @param expectedValues the expected number of distinct values
+     * @param falsePositiveRate the desired false positive rate, between 0 and 1 exclusive
+     */
+    public BloomFilter(long expectedValues, double falsePositiveRate) {
+        expectedValues = Math.max(1, expectedValues);
+        long m = (long)Math.ceil(-expectedValues * Math.log(falsePositiveRate) / (LN2 * LN2));
+        m = Math.max(64, Math.min(m, (long)Integer.MAX_VALUE * 64));
+        this.bits = new long[(int)((m + 63) >>> 6)];
+        this.numBits = bits.length * 64l;
+        this.numHashes = Math.max(1, (int)Math.round((double)numBits / expectedValues * LN2));
+    }
+
+    public void add(Object value) {
+        long hash = hash(value);
+        int h1 = (int)hash;
+        int h2 = (int)(hash >>> 32);
+        for (int i = 1; i <= numHashes; i++) {
+            long index = (h1 + i * h2) & Long.MAX_VALUE;
+            index %= numBits;
+            bits[(int)(index >>> 6)] |= 1l << index;
+        }
+    }
+
+    public boolean mightContain(Object value) {
+        long hash = hash(value);
+        int h1 = (int)hash;
+        int h2 = (int)(hash >>> 32);
+        for (int i = 1; i <= numHashes; i++) {
+            long index = (h1 + i * h2) & Long.MAX_VALUE;
+            index %= numBits;
+            if ((bits[(int)(index >>> 6)] & (1l << index)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Spread the hash code over 64 bits with the murmur3 finalizer
+     */
+    private static long hash(Object value) {
+        long h = value.hashCode();
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdl;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53l;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    public long getNumBits() {
+        return numBits;
+    }
+
+    public int getNumHashes() {
+        return numHashes;
+    }
+
+}
@@ -19,6 +19,7 @@
 package org.teiid.query.processor.relational;
 
 import java.util.Collections;
+import java.util.List;
 
 import org.teiid.common.buffer.BlockedException;
 import org.teiid.core.TeiidComponentException;
@@ -178,6 +179,14 @@ public class DependentAccessNode extends AccessNode {
         return result;
     }
 
+    @Override
+    protected void addBatchRow(List<?> row) {
+        if (criteriaProcessor != null && !criteriaProcessor.mightMatch(row)) {
+            return;
+        }
+        super.addBatchRow(row);
+    }
+
     private void declineSort() {
         RelationalNode parent = this.getParent();
         RelationalNode child = this;
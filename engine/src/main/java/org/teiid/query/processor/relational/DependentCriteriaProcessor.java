@@ -71,6 +71,10 @@ public class DependentCriteriaProcessor {
 
         SetCriteria existingSet;
 
+        BloomFilter bloomFilter;
+
+        int bloomFilterIndex = -1;
+
     }
 
     class TupleState {
@@ -158,6 +162,8 @@ public class DependentCriteriaProcessor {
     private static final int SORT = 2;
     private static final int SET_PROCESSING = 3;
 
+    private static final double BLOOM_FILTER_FALSE_POSITIVE_RATE = .01;
+
     //constructor state
     private int maxSetSize;
     private int maxPredicates;
@@ -181,6 +187,7 @@ public class DependentCriteriaProcessor {
 
     private int totalPredicates;
     private long maxSize;
+    private List<SetState> bloomFilters;
 
     public DependentCriteriaProcessor(int maxSetSize, int maxPredicates, RelationalNode dependentNode, Criteria dependentCriteria) throws ExpressionEvaluationException, TeiidComponentException {
         this.maxSetSize = maxSetSize;
@@ -334,6 +341,15 @@ public class DependentCriteriaProcessor {
                 }
             }
 
+            //rather than issuing a large number of source queries, filter the results
+            int bloomFilterThreshold = -1;
+            if (dependentNode.getContext() != null) {
+                bloomFilterThreshold = dependentNode.getContext().getOptions().getDependentJoinBloomFilterThreshold();
+            }
+            if (bloomFilterThreshold >= 0 && estimateQueries() > bloomFilterThreshold) {
+                createBloomFilters();
+            }
+
             //proceed with set based processing
             phase = SET_PROCESSING;
         }
@@ -366,6 +382,84 @@ public class DependentCriteriaProcessor {
         return new CompoundCriteria(CompoundCriteria.AND, crits);
     }
 
+    /**
+     * Estimate the number of source queries that set processing will require
+     */
+    private long estimateQueries() {
+        if (this.maxSetSize <= 0) {
+            return 1;
+        }
+        long sets = 0;
+        for (TupleState state : dependentState.values()) {
+            long rowCount = state.dvs.getTupleBuffer().getRowCount();
+            for (SetState setState : state.getDepedentSetStates()) {
+                if (!setState.overMax) {
+                    sets += (rowCount * setState.valueCount + maxSize - 1) / maxSize;
+                }
+            }
+        }
+        int predicates = Math.max(1, totalPredicates);
+        return (sets + predicates - 1) / predicates;
+    }
+
+    /**
+     * Create bloom filters for the dependent sets that can be checked against the
+     * returned tuples.  The corresponding criteria will not be sent to the source.
+     */
+    private void createBloomFilters() throws TeiidComponentException {
+        List<? extends Expression> elements = dependentNode.getElements();
+        for (int i = 0; i < queryCriteria.size(); i++) {
+            Criteria criteria = queryCriteria.get(i);
+            if (!(criteria instanceof DependentSetCriteria)) {
+                continue;
+            }
+            DependentSetCriteria dsc = (DependentSetCriteria)criteria;
+            SetState state = setStates.get(i);
+            if (state.overMax || state.existingSet != null || dsc.hasMultipleAttributes()) {
+                continue;
+            }
+            Expression ex = dsc.getExpression();
+            int index = elements.indexOf(ex);
+            if (index == -1 || ex.getType() != state.valueExpression.getType() || !DataTypeManager.isHashable(ex.getType())) {
+                continue;
+            }
+            TupleState ts = dependentState.get(dsc.getContextSymbol());
+            BloomFilter filter = new BloomFilter(ts.dvs.getTupleBuffer().getRowCount(), BLOOM_FILTER_FALSE_POSITIVE_RATE);
+            while (state.valueIterator.hasNext()) {
+                Object value = state.valueIterator.next();
+                if (value != null) {
+                    filter.add(value);
+                }
+            }
+            state.valueIterator.reset();
+            state.bloomFilter = filter;
+            state.bloomFilterIndex = index;
+            //the results will not be an exact match
+            ts.originalVs.setUnused(true);
+            if (bloomFilters == null) {
+                bloomFilters = new ArrayList<SetState>(2);
+            }
+            bloomFilters.add(state);
+            LogManager.logDetail(LogConstants.CTX_DQP, "Using a bloom filter of", filter.getNumBits(), "bits rather than the dependent criteria", dsc); //$NON-NLS-1$ //$NON-NLS-2$
+        }
+    }
+
+    /**
+     * @return false if the tuple cannot match the dependent criteria filtered by bloom filters
+     */
+    public boolean mightMatch(List<?> tuple) {
+        if (bloomFilters == null) {
+            return true;
+        }
+        for (SetState state : bloomFilters) {
+            Object value = tuple.get(state.bloomFilterIndex);
+            if (value == null || !state.bloomFilter.mightContain(value)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     public void consumedCriteria() {
         // flush only the value iterators starting at the restart index
         // it is only safe to do this after the super call to prepare command
@@ -415,7 +509,7 @@ public class DependentCriteriaProcessor {
                         boolean lessThanMax = true;
 
                         for (SetState state : source) {
-                            if (state.overMax) {
+                            if (state.overMax || state.bloomFilter != null) {
                                 doneCount++;
                                 continue;
                             }
@@ -492,6 +586,9 @@ public class DependentCriteriaProcessor {
             originalVs.setUnused(true);
             return QueryRewriter.TRUE_CRITERIA;
         }
+        if (state.bloomFilter != null) {
+            return QueryRewriter.TRUE_CRITERIA;
+        }
         if (state.replacement.isEmpty()) {
             // No values - return criteria that is always false
             return QueryRewriter.FALSE_CRITERIA;
@@ -20,10 +20,12 @@ package org.teiid.query.processor.relational;
 
 import static org.teiid.query.analysis.AnalysisRecord.*;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.ListIterator;
@@ -34,6 +36,8 @@ import org.teiid.api.exception.query.FunctionExecutionException;
 import org.teiid.client.plan.PlanNode;
 import org.teiid.common.buffer.BlockedException;
 import org.teiid.common.buffer.BufferManager;
+import org.teiid.common.buffer.BufferManager.BufferReserveMode;
+import org.teiid.common.buffer.BufferManager.TupleSourceType;
 import org.teiid.common.buffer.STree;
 import org.teiid.common.buffer.STree.InsertMode;
 import org.teiid.common.buffer.TupleBatch;
@@ -134,11 +138,28 @@ public class GroupingNode extends SubqueryAwareRelationalNode {
     private TupleSource groupSortTupleSource;
     private int[] projection;
 
+    // Group hash
+    private boolean hashAggregation;
+    private List<Expression> groupSortSchema;
+    private Map<List<Object>, List<Object>> groups;
+    private int maxGroups;
+    private int reserved;
+    private TupleBuffer[] hashPartitions;
+    private TupleBuffer overflow;
+    private TupleBuffer currentPartition;
+    private ArrayDeque<TupleBuffer> pendingPartitions;
+
     private static final int COLLECTION = 1;
     private static final int SORT = 2;
     private static final int GROUP = 3;
     private static final int GROUP_SORT = 4;
     private static final int GROUP_SORT_OUTPUT = 5;
+    private static final int GROUP_HASH = 6;
+
+    /**
+     * The number of partitions used when the groups no longer fit in memory
+     */
+    static final int HASH_PARTITIONS = 16;
     private int[] indexes;
     private boolean rollup;
     private HashMap<Integer, Integer> indexMap;
@@ -159,6 +180,11 @@ public class GroupingNode extends SubqueryAwareRelationalNode {
         currentGroupTuple = null;
         doneReading = false;
 
+        groups = null;
+        hashPartitions = null;
+        overflow = null;
+        pendingPartitions = null;
+
         if (this.functions != null) {
             for (AggregateFunction[] functions : this.functions) {
                 for (AggregateFunction function : functions) {
@@ -180,6 +206,14 @@ public class GroupingNode extends SubqueryAwareRelationalNode {
         this.outputMapping = outputMapping;
     }
 
+    /**
+     * Allow the groups to be accumulated in a hash table rather than in sorted order.
+     * Should only be set if the output ordering is not required.
+     */
+    public void setHashAggregation(boolean hashAggregation) {
+        this.hashAggregation = hashAggregation;
+    }
+
     @Override
     public void initialize(CommandContext context, BufferManager bufferManager,
             ProcessorDataManager dataMgr) {
@@ -404,6 +438,10 @@ public class GroupingNode extends SubqueryAwareRelationalNode {
             groupSortPhase();
         }
 
+        if (this.phase == GROUP_HASH) {
+            groupHashPhase();
+        }
+
         if (this.phase == GROUP_SORT_OUTPUT) {
             return groupSortOutputPhase();
         }
@@ -501,6 +539,14 @@ public class GroupingNode extends SubqueryAwareRelationalNode {
                         schema.add(es);
                     }
 
+                    if (this.hashAggregation) {
+                        this.groupSortSchema = schema;
+                        this.groups = new HashMap<List<Object>, List<Object>>();
+                        this.groupSortTupleSource = this.getGroupSortTupleSource();
+                        this.phase = GROUP_HASH;
+                        return;
+                    }
+
                     tree = this.getBufferManager().createSTree(schema, this.getConnectionID(), orderBy.size());
                     //non-default order needs to update the comparator
                     tree.getComparator().setNullOrdering(nullOrdering);
@@ -557,34 +603,194 @@ public class GroupingNode extends SubqueryAwareRelationalNode {
     }
 
     /**
-     * Walk the tree to produce the results
-     * @return
-     * @throws FunctionExecutionException
-     * @throws ExpressionEvaluationException
+     * Process the input and store the partial accumulator values in a hash table
+     * keyed by the grouping values.  Once the table reaches the memory that can be
+     * reserved, input for new groups is partitioned to {@link TupleBuffer}s to be
+     * processed after the current groups are output.
      * @throws TeiidComponentException
      * @throws TeiidProcessingException
      */
-    private TupleBatch groupSortOutputPhase() throws FunctionExecutionException, ExpressionEvaluationException, TeiidComponentException, TeiidProcessingException {
-        List<?> tuple = null;
+    private void groupHashPhase() throws TeiidComponentException, TeiidProcessingException {
         int size = orderBy.size();
-        List<Object> vals = Arrays.asList(new Object[size + groupSortfunctions.length]);
+        List<?> tuple = null;
         while ((tuple = groupSortTupleSource.nextTuple()) != null) {
+            Object[] keyValues = new Object[size];
             for (int i = 0; i < size; i++) {
-                vals.set(i, tuple.get(i));
+                keyValues[i] = HashJoinStrategy.normalize(tuple.get(i));
+            }
+            List<Object> key = Arrays.asList(keyValues);
+            List<Object> current = this.groups.get(key);
+            if (current == null) {
+                //once spilling has started new groups must continue to be spilled
+                if (this.hashPartitions != null || this.overflow != null
+                        || (this.groups.size() >= this.maxGroups && !reserveGroups())) {
+                    spill(key, tuple);
+                    continue;
+                }
+                current = new ArrayList<Object>();
+                for (int i = 0; i < size; i++) {
+                    current.add(tuple.get(i));
+                }
+                for (AggregateFunction aggregateFunction : this.groupSortfunctions) {
+                    aggregateFunction.reset();
+                    aggregateFunction.addInput(tuple, getContext());
+                    aggregateFunction.getState(current);
+                }
+                this.groups.put(key, current);
+                continue;
             }
             int index = size;
             for (int i = 0; i < this.groupSortfunctions.length; i++) {
                 AggregateFunction aggregateFunction = this.groupSortfunctions[i];
-                aggregateFunction.setState(tuple, index);
+                aggregateFunction.setState(current, index);
                 index+=this.accumulatorStateCount[i];
-                vals.set(size + i, aggregateFunction.getResult(getContext()));
+                aggregateFunction.addInput(tuple, getContext());
             }
-            List<?> result = RelationalNode.projectTuple(projection, vals);
-            addBatchRow(result);
-            if (isBatchFull()) {
-                return pullBatch();
+            current.subList(size, current.size()).clear();
+            for (AggregateFunction aggregateFunction : this.groupSortfunctions) {
+                aggregateFunction.getState(current);
             }
         }
+        this.groupSortTupleSource.closeSource();
+        if (this.hashPartitions != null) {
+            for (TupleBuffer tb : this.hashPartitions) {
+                tb.close();
+                this.pendingPartitions.add(tb);
+            }
+            this.hashPartitions = null;
+        }
+        if (this.overflow != null) {
+            this.overflow.close();
+            this.pendingPartitions.add(this.overflow);
+            this.overflow = null;
+        }
+        final Iterator<List<Object>> iter = this.groups.values().iterator();
+        this.groupSortTupleSource = new TupleSource() {
+
+            @Override
+            public List<?> nextTuple() {
+                if (iter.hasNext()) {
+                    return iter.next();
+                }
+                return null;
+            }
+
+            @Override
+            public void closeSource() {
+
+            }
+        };
+        this.phase = GROUP_SORT_OUTPUT;
+    }
+
+    /**
+     * Attempt to reserve space for an additional batch of groups
+     * @return true if the space was reserved
+     */
+    private boolean reserveGroups() {
+        BufferManager bm = getBufferManager();
+        int batchSize = bm.getProcessorBatchSize(this.groupSortSchema);
+        if (this.maxGroups == 0) {
+            //always allow a batch worth of groups
+            this.maxGroups = batchSize;
+            return true;
+        }
+        int schemaSize = bm.getSchemaSize(this.groupSortSchema);
+        int result = bm.reserveBuffers(schemaSize, BufferReserveMode.NO_WAIT);
+        if (result < schemaSize) {
+            bm.releaseBuffers(result);
+            return false;
+        }
+        this.reserved += result;
+        this.maxGroups += batchSize;
+        return true;
+    }
+
+    private void spill(List<Object> key, List<?> tuple) throws TeiidComponentException {
+        if (this.pendingPartitions == null) {
+            this.pendingPartitions = new ArrayDeque<TupleBuffer>();
+        }
+        if (this.overflow == null && this.hashPartitions == null) {
+            if (this.currentPartition == null) {
+                //initial input, so partition by hash
+                this.hashPartitions = new TupleBuffer[HASH_PARTITIONS];
+                for (int i = 0; i < this.hashPartitions.length; i++) {
+                    this.hashPartitions[i] = createPartition();
+                }
+            } else {
+                //the input is already a partition
+                this.overflow = createPartition();
+            }
+        }
+        if (this.hashPartitions != null) {
+            this.hashPartitions[HashJoinStrategy.getPartition(key, this.hashPartitions.length)].addTuple(tuple);
+        } else {
+            this.overflow.addTuple(tuple);
+        }
+    }
+
+    private TupleBuffer createPartition() throws TeiidComponentException {
+        TupleBuffer tb = getBufferManager().createTupleBuffer(new ArrayList<Expression>(collectedExpressions.keySet()), getConnectionID(), TupleSourceType.PROCESSOR);
+        tb.setForwardOnly(true);
+        return tb;
+    }
+
+    /**
+     * Move to the next spilled partition if one exists
+     */
+    private boolean nextHashPartition() {
+        if (this.groups == null) {
+            return false;
+        }
+        this.groups.clear();
+        if (this.currentPartition != null) {
+            this.currentPartition.remove();
+            this.currentPartition = null;
+        }
+        if (this.pendingPartitions == null || this.pendingPartitions.isEmpty()) {
+            return false;
+        }
+        this.currentPartition = this.pendingPartitions.poll();
+        this.groupSortTupleSource = this.currentPartition.createIndexedTupleSource(true);
+        this.phase = GROUP_HASH;
+        return true;
+    }
+
+    /**
+     * Walk the tree to produce the results
+     * @return
+     * @throws FunctionExecutionException
+     * @throws ExpressionEvaluationException
+     * @throws TeiidComponentException
+     * @throws TeiidProcessingException
+     */
+    private TupleBatch groupSortOutputPhase() throws FunctionExecutionException, ExpressionEvaluationException, TeiidComponentException, TeiidProcessingException {
+        List<?> tuple = null;
+        int size = orderBy.size();
+        List<Object> vals = Arrays.asList(new Object[size + groupSortfunctions.length]);
+        do {
+            while ((tuple = groupSortTupleSource.nextTuple()) != null) {
+                for (int i = 0; i < size; i++) {
+                    vals.set(i, tuple.get(i));
+                }
+                int index = size;
+                for (int i = 0; i < this.groupSortfunctions.length; i++) {
+                    AggregateFunction aggregateFunction = this.groupSortfunctions[i];
+                    aggregateFunction.setState(tuple, index);
+                    index+=this.accumulatorStateCount[i];
+                    vals.set(size + i, aggregateFunction.getResult(getContext()));
+                }
+                List<?> result = RelationalNode.projectTuple(projection, vals);
+                addBatchRow(result);
+                if (isBatchFull()) {
+                    return pullBatch();
+                }
+            }
+            if (!nextHashPartition()) {
+                break;
+            }
+            groupHashPhase();
+        } while (true);
         terminateBatches();
         return pullBatch();
     }
@@ -713,6 +919,32 @@ public class GroupingNode extends SubqueryAwareRelationalNode {
             this.tree.remove();
             this.tree = null;
         }
+        if (this.hashPartitions != null) {
+            for (TupleBuffer tb : this.hashPartitions) {
+                tb.remove();
+            }
+            this.hashPartitions = null;
+        }
+        if (this.overflow != null) {
+            this.overflow.remove();
+            this.overflow = null;
+        }
+        if (this.currentPartition != null) {
+            this.currentPartition.remove();
+            this.currentPartition = null;
+        }
+        if (this.pendingPartitions != null) {
+            for (TupleBuffer tb : this.pendingPartitions) {
+                tb.remove();
+            }
+            this.pendingPartitions = null;
+        }
+        this.groups = null;
+        this.maxGroups = 0;
+        if (this.reserved > 0) {
+            getBufferManager().releaseBuffers(this.reserved);
+            this.reserved = 0;
+        }
     }
 
     protected void getNodeString(StringBuffer str) {
@@ -730,6 +962,7 @@ public class GroupingNode extends SubqueryAwareRelationalNode {
         clonedNode.outputMapping = outputMapping;
         clonedNode.orderBy = orderBy;
         clonedNode.rollup = rollup;
+        clonedNode.hashAggregation = hashAggregation;
         return clonedNode;
     }
 
@@ -756,6 +989,9 @@ public class GroupingNode extends SubqueryAwareRelationalNode {
         if (rollup) {
             props.addProperty(PROP_ROLLUP, Boolean.TRUE.toString());
         }
+        if (hashAggregation) {
+            props.addProperty(PROP_HASH_AGGREGATION, Boolean.TRUE.toString());
+        }
         return props;
     }
 
@@ -0,0 +1,356 @@
+/*
+ * Copyright Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags and
+ * the COPYRIGHT.txt file distributed with this work.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.teiid.query.processor.relational;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.teiid.common.buffer.BufferManager;
+import org.teiid.common.buffer.BufferManager.BufferReserveMode;
+import org.teiid.common.buffer.TupleBuffer;
+import org.teiid.common.buffer.TupleSource;
+import org.teiid.core.TeiidComponentException;
+import org.teiid.core.TeiidProcessingException;
+import org.teiid.core.types.DataTypeManager;
+import org.teiid.logging.LogConstants;
+import org.teiid.logging.LogManager;
+import org.teiid.logging.MessageLevel;
+import org.teiid.query.processor.relational.SourceState.ImplicitBuffer;
+import org.teiid.query.sql.lang.JoinType;
+import org.teiid.query.sql.symbol.Expression;
+
+
+/**
+ * A hybrid hash join.
+ *
+ * The smaller side (or the right side of a left outer join) is built into an in-memory
+ * hash table keyed by the join expressions and the other side is streamed against it.
+ * If the build side will not fit into the buffer space that can be reserved, both sides
+ * are partitioned by the hash of the join key into {@link TupleBuffer}s and each pair of
+ * partitions is then joined in turn.
+ *
+ * Only for use with Inner and Left Outer joins.  The output is not ordered.
+ */
+public class HashJoinStrategy extends JoinStrategy {
+
+    private enum State { BUILD, PARTITION, PROBE }
+
+    /**
+     * Upper bound on the number of partitions created when the build side does not fit in memory
+     */
+    static final int MAX_PARTITIONS = 256;
+
+    private State state = State.BUILD;
+
+    private SourceState buildSource;
+    private SourceState probeSource;
+    private boolean buildLeft;
+
+    private Map<List<Object>, List<List<?>>> table;
+
+    private TupleBuffer[] buildPartitions;
+    private TupleBuffer[] probePartitions;
+    private int partition = -1;
+
+    private TupleSource probeTuples;
+    private List<?> currentTuple;
+    private List<List<?>> matches;
+    private int matchIndex;
+    private boolean matched;
+
+    @Override
+    public void close() {
+        if (joinNode == null) {
+            return;
+        }
+        try {
+            super.close();
+        } finally {
+            removePartitions(this.buildPartitions);
+            removePartitions(this.probePartitions);
+            this.buildPartitions = null;
+            this.probePartitions = null;
+            this.table = null;
+            this.matches = null;
+            this.currentTuple = null;
+        }
+    }
+
+    private static void removePartitions(TupleBuffer[] partitions) {
+        if (partitions == null) {
+            return;
+        }
+        for (TupleBuffer tb : partitions) {
+            if (tb != null) {
+                tb.remove();
+            }
+        }
+    }
+
+    @Override
+    protected void loadRight() throws TeiidComponentException,
+            TeiidProcessingException {
+        if (this.buildSource != null) {
+            return;
+        }
+        if (this.joinNode.getJoinType() == JoinType.JOIN_LEFT_OUTER) {
+            setBuildSide(false);
+            return;
+        }
+        //determine the smaller side in an incremental fashion to avoid fully buffering both
+        long size = this.joinNode.getBatchSize();
+        while (true) {
+            if (this.leftSource.rowCountLE(size)) {
+                setBuildSide(true);
+                return;
+            }
+            if (this.rightSource.rowCountLE(size) || size > Integer.MAX_VALUE) {
+                setBuildSide(false);
+                return;
+            }
+            size *= 2;
+        }
+    }
+
+    private void setBuildSide(boolean left) {
+        this.buildLeft = left;
+        if (left) {
+            this.buildSource = this.leftSource;
+            this.probeSource = this.rightSource;
+        } else {
+            this.buildSource = this.rightSource;
+            this.probeSource = this.leftSource;
+        }
+    }
+
+    @Override
+    protected void process() throws TeiidComponentException,
+            TeiidProcessingException {
+        if (this.state == State.BUILD) {
+            TupleBuffer buffer = this.buildSource.getTupleBuffer();
+            if (buffer.getRowCount() == 0 && this.joinNode.getJoinType() != JoinType.JOIN_LEFT_OUTER) {
+                return;
+            }
+            BufferManager bm = this.joinNode.getBufferManager();
+            List<? extends Expression> schema = this.buildSource.getSource().getElements();
+            long estimate = Math.max(1, buffer.getRowCount() / Math.max(1, bm.getProcessorBatchSize(schema))) * bm.getSchemaSize(schema);
+            int toReserve = (int)Math.min(Integer.MAX_VALUE, estimate);
+            int available = bm.reserveBuffers(toReserve, BufferReserveMode.NO_WAIT);
+            this.reserved += available;
+            this.probeSource.setImplicitBuffer(ImplicitBuffer.NONE);
+            if (available >= toReserve || buffer.getRowCount() <= this.joinNode.getBatchSize()) {
+                this.table = buildTable(buffer.createIndexedTupleSource(), buffer.getRowCount());
+                this.probeTuples = this.probeSource.getIterator();
+                this.state = State.PROBE;
+            } else {
+                if (available < bm.getMaxProcessingSize()) {
+                    int additional = bm.getMaxProcessingSize() - available;
+                    this.reserved += bm.reserveBuffers(additional, BufferReserveMode.FORCE);
+                    available += additional;
+                }
+                int partitionCount = (int)Math.min(MAX_PARTITIONS, estimate / Math.max(1, available) + 1);
+                if (LogManager.isMessageToBeRecorded(LogConstants.CTX_DQP, MessageLevel.DETAIL)) {
+                    LogManager.logDetail(LogConstants.CTX_DQP, "partitioning hash join", this.joinNode.getID(), "into", partitionCount, "partitions"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+                }
+                this.buildPartitions = createPartitions(this.buildSource, partitionCount);
+                this.probePartitions = createPartitions(this.probeSource, partitionCount);
+                TupleSource ts = buffer.createIndexedTupleSource();
+                int[] indexes = this.buildSource.getExpressionIndexes();
+                List<?> tuple = null;
+                while ((tuple = ts.nextTuple()) != null) {
+                    List<Object> key = getKey(tuple, indexes);
+                    if (key == null) {
+                        continue; //can never match
+                    }
+                    this.buildPartitions[getPartition(key, partitionCount)].addTuple(tuple);
+                }
+                ts.closeSource();
+                for (TupleBuffer tb : this.buildPartitions) {
+                    tb.close();
+                }
+                this.probeTuples = this.probeSource.getIterator();
+                this.state = State.PARTITION;
+            }
+        }
+        if (this.state == State.PARTITION) {
+            int[] indexes = this.probeSource.getExpressionIndexes();
+            List<?> tuple = null;
+            while ((tuple = this.probeTuples.nextTuple()) != null) {
+                List<Object> key = getKey(tuple, indexes);
+                //null keys are placed in the first partition so that outer results are still produced
+                this.probePartitions[key == null?0:getPartition(key, this.probePartitions.length)].addTuple(tuple);
+            }
+            for (TupleBuffer tb : this.probePartitions) {
+                tb.close();
+            }
+            this.state = State.PROBE;
+            if (!nextPartition()) {
+                return;
+            }
+        }
+        int[] indexes = this.probeSource.getExpressionIndexes();
+        while (true) {
+            if (this.currentTuple == null) {
+                this.currentTuple = this.probeTuples.nextTuple();
+                if (this.currentTuple == null) {
+                    if (!nextPartition()) {
+                        return;
+                    }
+                    continue;
+                }
+                this.matched = false;
+                this.matchIndex = 0;
+                List<Object> key = getKey(this.currentTuple, indexes);
+                this.matches = key == null?null:this.table.get(key);
+            }
+            if (this.matches == null || this.matchIndex >= this.matches.size()) {
+                List<?> tuple = this.currentTuple;
+                this.currentTuple = null;
+                if (!this.matched && this.joinNode.getJoinType() == JoinType.JOIN_LEFT_OUTER) {
+                    this.joinNode.addBatchRow(outputTuple(tuple, this.rightSource.getOuterVals()));
+                }
+                continue;
+            }
+            List<?> buildTuple = this.matches.get(this.matchIndex);
+            List outputTuple = this.buildLeft?outputTuple(buildTuple, this.currentTuple):outputTuple(this.currentTuple, buildTuple);
+            boolean matches = this.joinNode.matchesCriteria(outputTuple);
+            this.matchIndex++;
+            if (matches) {
+                this.matched = true;
+                this.joinNode.addBatchRow(outputTuple);
+            }
+        }
+    }
+
+    /**
+     * Move to the next pair of partitions, removing the current pair.
+     * @return false if there are no more partitions to process
+     */
+    private boolean nextPartition() throws TeiidComponentException, TeiidProcessingException {
+        if (this.probePartitions == null) {
+            return false;
+        }
+        if (this.partition >= 0) {
+            this.buildPartitions[this.partition].remove();
+            this.probePartitions[this.partition].remove();
+        }
+        this.partition++;
+        if (this.partition >= this.probePartitions.length) {
+            this.table = null;
+            return false;
+        }
+        TupleBuffer build = this.buildPartitions[this.partition];
+        this.table = buildTable(build.createIndexedTupleSource(true), build.getRowCount());
+        this.probeTuples = this.probePartitions[this.partition].createIndexedTupleSource(true);
+        return true;
+    }
+
+    private TupleBuffer[] createPartitions(SourceState state, int partitionCount) throws TeiidComponentException {
+        TupleBuffer[] result = new TupleBuffer[partitionCount];
+        for (int i = 0; i < partitionCount; i++) {
+            result[i] = state.createSourceTupleBuffer();
+            result[i].setForwardOnly(true);
+        }
+        return result;
+    }
+
+    private Map<List<Object>, List<List<?>>> buildTable(TupleSource ts, long rowCount) throws TeiidComponentException, TeiidProcessingException {
+        Map<List<Object>, List<List<?>>> result = new HashMap<List<Object>, List<List<?>>>((int)Math.min(1 << 20, rowCount * 4 / 3 + 1));
+        int[] indexes = this.buildSource.getExpressionIndexes();
+        List<?> tuple = null;
+        while ((tuple = ts.nextTuple()) != null) {
+            List<Object> key = getKey(tuple, indexes);
+            if (key == null) {
+                continue;
+            }
+            List<List<?>> values = result.get(key);
+            if (values == null) {
+                values = new ArrayList<List<?>>(1);
+                result.put(key, values);
+            }
+            values.add(tuple);
+        }
+        ts.closeSource();
+        return result;
+    }
+
+    static int getPartition(List<Object> key, int partitionCount) {
+        //scale the mixed hash by the partition count so that the high bits select the partition,
+        //which keeps the partitioning independent of the hash table buckets that use the low bits
+        int hash = key.hashCode() * 0x9E3779B9;
+        return (int)(((hash & 0xffffffffL) * partitionCount) >>> 32);
+    }
+
+    /**
+     * Get the normalized join key for the given tuple
+     * @return the key or null if any of the key values are null
+     */
+    static List<Object> getKey(List<?> tuple, int[] indexes) {
+        Object[] key = new Object[indexes.length];
+        for (int i = 0; i < indexes.length; i++) {
+            Object value = tuple.get(indexes[i]);
+            if (value == null) {
+                return null;
+            }
+            key[i] = normalize(value);
+        }
+        return Arrays.asList(key);
+    }
+
+    /**
+     * Ensure that values that compare as equal will have the same hash
+     */
+    static Object normalize(Object value) {
+        if (value instanceof BigDecimal) {
+            BigDecimal bd = (BigDecimal)value;
+            if (bd.signum() == 0) {
+                return BigDecimal.ZERO;
+            }
+            return bd.stripTrailingZeros();
+        }
+        if (DataTypeManager.PAD_SPACE && value instanceof String) {
+            String s = (String)value;
+            int length = s.length();
+            while (length > 0 && s.charAt(length - 1) == ' ') {
+                length--;
+            }
+            return s.substring(0, length);
+        }
+        return value;
+    }
+
+    @Override
+    public HashJoinStrategy clone() {
+        return new HashJoinStrategy();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder result = new StringBuilder("HASH JOIN"); //$NON-NLS-1$
+        if (this.probePartitions != null) {
+            result.append(" RAN AS PARTITIONED"); //$NON-NLS-1$
+        }
+        return result.toString();
+    }
+
+}
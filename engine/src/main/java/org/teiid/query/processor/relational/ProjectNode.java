@@ -35,6 +35,9 @@ import org.teiid.common.buffer.TupleBuffer;
 import org.teiid.core.TeiidComponentException;
 import org.teiid.core.TeiidProcessingException;
 import org.teiid.query.analysis.AnalysisRecord;
+import org.teiid.query.eval.Evaluator;
+import org.teiid.query.eval.ExpressionCompiler;
+import org.teiid.query.eval.ExpressionCompiler.CompiledExpression;
 import org.teiid.query.sql.LanguageObject;
 import org.teiid.query.sql.symbol.AliasSymbol;
 import org.teiid.query.sql.symbol.Expression;
@@ -52,6 +55,7 @@ public class ProjectNode extends SubqueryAwareRelationalNode {
     private boolean needsProject = true;
     private List<Expression> expressions;
     private int[] projectionIndexes;
+    private CompiledExpression[] compiledExpressions;
 
     // Saved state when blocked on evaluating a row - must be reset
     private TupleBatch currentBatch;
@@ -70,6 +74,7 @@ public class ProjectNode extends SubqueryAwareRelationalNode {
 
         currentBatch = null;
         currentRow = 1;
+        compiledExpressions = null;
     }
 
     /**
@@ -132,6 +137,21 @@ public class ProjectNode extends SubqueryAwareRelationalNode {
         }
     }
 
+    @Override
+    public void open() throws TeiidComponentException,
+            TeiidProcessingException {
+        super.open();
+        if (needsProject && getContext() != null && getContext().getOptions().isCompileExpressions()) {
+            ExpressionCompiler compiler = new ExpressionCompiler(elementMap, getEvaluator(elementMap));
+            compiledExpressions = new CompiledExpression[expressions.size()];
+            for (int i = 0; i < compiledExpressions.length; i++) {
+                if (projectionIndexes[i] == -1) {
+                    compiledExpressions[i] = compiler.compile(expressions.get(i));
+                }
+            }
+        }
+    }
+
     public TupleBatch nextBatchDirect()
         throws BlockedException, TeiidComponentException, TeiidProcessingException {
 
@@ -154,6 +174,7 @@ public class ProjectNode extends SubqueryAwareRelationalNode {
             }
         }
 
+        Evaluator eval = getEvaluator(this.elementMap);
         while (currentRow <= currentBatch.getEndRow() && !isBatchFull()) {
             List<?> tuple = currentBatch.getTuple(currentRow);
 
@@ -162,7 +183,7 @@ public class ProjectNode extends SubqueryAwareRelationalNode {
             // Walk through symbols
             for(int i=0; i<expressions.size(); i++) {
                 Expression symbol = expressions.get(i);
-                updateTuple(symbol, i, tuple, projectedTuple);
+                updateTuple(eval, symbol, i, tuple, projectedTuple);
             }
 
             // Add to batch
@@ -180,14 +201,16 @@ public class ProjectNode extends SubqueryAwareRelationalNode {
         return pullBatch();
     }
 
-    private void updateTuple(Expression symbol, int projectionIndex, List<?> values, List<Object> tuple)
+    private void updateTuple(Evaluator eval, Expression symbol, int projectionIndex, List<?> values, List<Object> tuple)
         throws BlockedException, TeiidComponentException, ExpressionEvaluationException {
 
         int index = this.projectionIndexes[projectionIndex];
         if(index != -1) {
             tuple.add(values.get(index));
+        } else if (compiledExpressions != null) {
+            tuple.add(compiledExpressions[projectionIndex].evaluate(values));
         } else {
-            tuple.add(getEvaluator(this.elementMap).evaluate(symbol, values));
+            tuple.add(eval.evaluate(symbol, values));
         }
     }
 
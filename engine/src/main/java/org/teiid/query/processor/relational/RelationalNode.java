@@ -29,6 +29,7 @@ import java.util.Map;
 import org.teiid.client.plan.PlanNode;
 import org.teiid.common.buffer.BlockedException;
 import org.teiid.common.buffer.BufferManager;
+import org.teiid.common.buffer.ColumnarBatch;
 import org.teiid.common.buffer.TupleBatch;
 import org.teiid.common.buffer.TupleBuffer;
 import org.teiid.core.TeiidComponentException;
@@ -242,6 +243,18 @@ public abstract class RelationalNode implements Cloneable, BatchProducer {
         return batch;
     }
 
+    /**
+     * Return the columnar tuples as the next batch.  Must only be used when
+     * there are no pending rows.
+     */
+    protected TupleBatch pullBatch(ColumnarBatch tuples) {
+        TupleBatch batch = new TupleBatch(this.getProcessingState().beginBatch, tuples);
+        getProcessingState().beginBatch += tuples.size();
+        batch.setTerminationFlag(this.getProcessingState().lastBatch);
+        this.getProcessingState().lastBatch = false;
+        return batch;
+    }
+
     public void open()
         throws TeiidComponentException, TeiidProcessingException {
 
@@ -28,10 +28,15 @@ import java.util.Map;
 import org.teiid.client.plan.PlanNode;
 import org.teiid.common.buffer.BlockedException;
 import org.teiid.common.buffer.BufferManager;
+import org.teiid.common.buffer.ColumnarBatch;
 import org.teiid.common.buffer.TupleBatch;
 import org.teiid.core.TeiidComponentException;
 import org.teiid.core.TeiidProcessingException;
 import org.teiid.query.analysis.AnalysisRecord;
+import org.teiid.query.eval.Evaluator;
+import org.teiid.query.eval.ExpressionCompiler;
+import org.teiid.query.eval.ExpressionCompiler.CompiledCriteria;
+import org.teiid.query.eval.VectorizedCriteria;
 import org.teiid.query.processor.ProcessorDataManager;
 import org.teiid.query.rewriter.QueryRewriter;
 import org.teiid.query.sql.LanguageObject;
@@ -44,6 +49,8 @@ public class SelectNode extends SubqueryAwareRelationalNode {
 
     private Criteria criteria;
     private Criteria preEvalCriteria;
+    private CompiledCriteria compiledCriteria;
+    private VectorizedCriteria vectorizedCriteria;
     private List<Expression> projectedExpressions;
     private boolean shouldEvaluate = false;
 
@@ -56,6 +63,7 @@ public class SelectNode extends SubqueryAwareRelationalNode {
     // State if blocked on evaluating a criteria
     private TupleBatch currentBatch;
     private int currentRow = 1;
+    private boolean[] currentSelection;
 
     protected SelectNode() {
         super();
@@ -72,6 +80,9 @@ public class SelectNode extends SubqueryAwareRelationalNode {
         currentRow = 1;
         noRows = false;
         preEvalCriteria = null;
+        compiledCriteria = null;
+        vectorizedCriteria = null;
+        currentSelection = null;
     }
 
     public void setCriteria(Criteria criteria) {
@@ -110,15 +121,41 @@ public class SelectNode extends SubqueryAwareRelationalNode {
 
         if(currentBatch == null) {
             currentBatch = this.getChildren()[0].nextBatch();
+            if (vectorizedCriteria != null) {
+                currentSelection = vectorizedCriteria.evaluate(currentBatch);
+                ColumnarBatch columnar = currentBatch.getColumnarBatch();
+                if (columnar != null && !hasPendingRows()) {
+                    //select and project the column arrays, rather than the boxed row views
+                    if (currentBatch.getTerminationFlag()) {
+                        terminateBatches();
+                    }
+                    currentRow = (int)currentBatch.getEndRow() + 1;
+                    currentBatch = null;
+                    boolean[] selection = currentSelection;
+                    currentSelection = null;
+                    return pullBatch(columnar.select(selection, this.projectionIndexes));
+                }
+            }
         }
 
-        while (currentRow <= currentBatch.getEndRow() && !isBatchFull()) {
-            List<?> tuple = currentBatch.getTuple(currentRow);
-
-            if(getEvaluator(this.elementMap).evaluate(this.preEvalCriteria!=null?preEvalCriteria:criteria, tuple)) {
-                addBatchRow(projectTuple(this.projectionIndexes, tuple));
+        if (currentSelection != null) {
+            long offset = currentBatch.getBeginRow();
+            while (currentRow <= currentBatch.getEndRow() && !isBatchFull()) {
+                if (currentSelection[(int)(currentRow - offset)]) {
+                    addBatchRow(projectTuple(this.projectionIndexes, currentBatch.getTuple(currentRow)));
+                }
+                currentRow++;
+            }
+        } else {
+            Evaluator eval = getEvaluator(this.elementMap);
+            while (currentRow <= currentBatch.getEndRow() && !isBatchFull()) {
+                List<?> tuple = currentBatch.getTuple(currentRow);
+
+                if(compiledCriteria != null ? Boolean.TRUE.equals(compiledCriteria.evaluateTVL(tuple)) : eval.evaluate(this.preEvalCriteria!=null?preEvalCriteria:criteria, tuple)) {
+                    addBatchRow(projectTuple(this.projectionIndexes, tuple));
+                }
+                currentRow++;
             }
-            currentRow++;
         }
 
         if (currentRow > currentBatch.getEndRow()) {
@@ -126,6 +163,7 @@ public class SelectNode extends SubqueryAwareRelationalNode {
                 terminateBatches();
             }
             currentBatch = null;
+            currentSelection = null;
         }
 
         return pullBatch();
@@ -176,6 +214,12 @@ public class SelectNode extends SubqueryAwareRelationalNode {
                 return;
             }
         }
+        if (getContext() != null && getContext().getOptions().isVectorizedPredicates()) {
+            vectorizedCriteria = VectorizedCriteria.create(preEvalCriteria!=null?preEvalCriteria:criteria, elementMap);
+        }
+        if (vectorizedCriteria == null && getContext() != null && getContext().getOptions().isCompileExpressions()) {
+            compiledCriteria = new ExpressionCompiler(elementMap, getEvaluator(elementMap)).compile(preEvalCriteria!=null?preEvalCriteria:criteria);
+        }
         super.open();
     }
 
@@ -23,12 +23,18 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
 import java.util.List;
 import java.util.ListIterator;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
 import java.util.TreeSet;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
 
 import org.teiid.common.buffer.BlockedException;
 import org.teiid.common.buffer.BufferManager;
@@ -128,6 +134,26 @@ public class SortUtility {
         }
     }
 
+    /**
+     * A sorted range of the working tuples used by the parallel run generation
+     */
+    private class SortedSegment implements Comparable<SortedSegment> {
+        Object[] tuples;
+        int index;
+        int end;
+        int segment;
+
+        @Override
+        public int compareTo(SortedSegment o) {
+            int result = comparator.compare((List<?>)this.tuples[this.index], (List<?>)o.tuples[o.index]);
+            if (result == 0) {
+                //keep the merge stable
+                return this.segment - o.segment;
+            }
+            return result;
+        }
+    }
+
     //constructor state
     private TupleSource source;
     private Mode mode;
@@ -155,6 +181,15 @@ public class SortUtility {
     private boolean stableSort = STABLE_SORT;
     private Future<Void> future;
 
+    /**
+     * The minimum number of rows for each concurrently sorted segment
+     */
+    static final int MIN_PARALLEL_SEGMENT_ROWS = 1<<14;
+
+    private int minParallelSegmentRows = MIN_PARALLEL_SEGMENT_ROWS;
+    private int parallelism = Runtime.getRuntime().availableProcessors();
+    private CommandContext context;
+
     public SortUtility(TupleSource sourceID, List<OrderByItem> items, Mode mode, BufferManager bufferMgr,
                         String groupName, List<? extends Expression> schema) {
         List<Expression> sortElements = null;
@@ -222,6 +257,7 @@ public class SortUtility {
         int distinctIndex = cols.length - 1;
         this.comparator.setDistinctIndex(distinctIndex);
         this.comparator.setNullOrdering(nullOrderings);
+        this.context = CommandContext.getThreadLocalContext();
     }
 
     public SortUtility(TupleSource ts, List<? extends Expression> expressions, List<Boolean> types,
@@ -473,15 +509,19 @@ public class SortUtility {
 
                 TupleBuffer sublist = createTupleBuffer();
                 activeTupleBuffers.add(sublist);
+                Iterable<List<?>> sorted = workingTuples;
                 if (this.mode == Mode.SORT) {
+                    int segments = getParallelSegments(workingTuples.size());
                     //perform a stable sort
-                    if (workingTuples.size() > (1<<18)) {
+                    if (segments > 1) {
+                        sorted = parallelSort((AccessibleArrayList)workingTuples, segments);
+                    } else if (workingTuples.size() > (1<<18)) {
                         Arrays.parallelSort(((AccessibleArrayList)workingTuples).elementData,0, workingTuples.size(), comparator);
                     } else {
                         Collections.sort((List<List<?>>) workingTuples, comparator);
                     }
                 }
-                for (List<?> list : workingTuples) {
+                for (List<?> list : sorted) {
                     sublist.addTuple(list);
 
                     if (checkLimit && sublist.getRowCount() == rowLimit) {
@@ -510,6 +550,105 @@ public class SortUtility {
         this.phase = MERGE;
     }
 
+    /**
+     * Determine the number of segments of the working tuples that should be sorted concurrently.
+     * The working tuples are already bounded by the reserved memory, so no additional
+     * reservation is needed.
+     */
+    private int getParallelSegments(int rowCount) {
+        if (!bufferManager.getOptions().isParallelSort()) {
+            return 1;
+        }
+        return Math.min(parallelism, rowCount / Math.max(1, minParallelSegmentRows));
+    }
+
+    /**
+     * Sort the segments of the working tuples concurrently on the engine executor then
+     * return an iterator that performs a k-way merge of the segments.
+     */
+    private Iterable<List<?>> parallelSort(AccessibleArrayList<List<?>> workingTuples, int segments) throws TeiidComponentException {
+        final Object[] tuples = workingTuples.elementData;
+        int size = workingTuples.size();
+        int segmentSize = size / segments;
+        List<FutureTask<Void>> tasks = new ArrayList<FutureTask<Void>>(segments);
+        List<SortedSegment> sortedSegments = new ArrayList<SortedSegment>(segments);
+        //initialize the comparator state prior to concurrent use
+        comparator.compare((List)tuples[0], (List)tuples[1]);
+        for (int i = 0; i < segments; i++) {
+            final SortedSegment segment = new SortedSegment();
+            segment.tuples = tuples;
+            segment.segment = i;
+            segment.index = i * segmentSize;
+            segment.end = i == segments - 1 ? size : segment.index + segmentSize;
+            sortedSegments.add(segment);
+            final FutureTask<Void> task = new FutureTask<Void>(new Callable<Void>() {
+                @Override
+                public Void call() {
+                    Arrays.sort(tuples, segment.index, segment.end, (Comparator)comparator);
+                    return null;
+                }
+            });
+            tasks.add(task);
+            if (i > 0) {
+                Callable<Void> callable = new Callable<Void>() {
+                    @Override
+                    public Void call() {
+                        task.run();
+                        return null;
+                    }
+                };
+                if (context != null) {
+                    context.submit(callable);
+                } else {
+                    ForkJoinPool.commonPool().submit(callable);
+                }
+            }
+        }
+        //run any tasks that have not yet been picked up by the executor so that we do not
+        //wait on threads that are busy with other work
+        for (FutureTask<Void> task : tasks) {
+            task.run();
+        }
+        try {
+            for (FutureTask<Void> task : tasks) {
+                task.get();
+            }
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException)e.getCause();
+            }
+            throw new TeiidComponentException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new TeiidRuntimeException(e);
+        }
+        final PriorityQueue<SortedSegment> merge = new PriorityQueue<SortedSegment>(sortedSegments);
+        return new Iterable<List<?>>() {
+            @Override
+            public Iterator<List<?>> iterator() {
+                return new Iterator<List<?>>() {
+                    @Override
+                    public boolean hasNext() {
+                        return !merge.isEmpty();
+                    }
+
+                    @Override
+                    public List<?> next() {
+                        SortedSegment segment = merge.poll();
+                        if (segment == null) {
+                            throw new NoSuchElementException();
+                        }
+                        List<?> result = (List<?>)segment.tuples[segment.index++];
+                        if (segment.index < segment.end) {
+                            merge.add(segment);
+                        }
+                        return result;
+                    }
+                };
+            }
+        };
+    }
+
     public void setWorkingBuffer(TupleBuffer workingBuffer) {
         this.workingBuffer = workingBuffer;
     }
@@ -675,6 +814,14 @@ public class SortUtility {
         this.batchSize = batchSize;
     }
 
+    void setMinParallelSegmentRows(int minParallelSegmentRows) {
+        this.minParallelSegmentRows = minParallelSegmentRows;
+    }
+
+    void setParallelism(int parallelism) {
+        this.parallelism = parallelism;
+    }
+
     public boolean isDoneReading() {
         return doneReading;
     }
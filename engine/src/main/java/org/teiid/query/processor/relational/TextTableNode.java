@@ -19,8 +19,15 @@
 package org.teiid.query.processor.relational;
 
 import java.io.BufferedReader;
+import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.StandardOpenOption;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -34,13 +41,17 @@ import org.teiid.api.exception.query.ExpressionEvaluationException;
 import org.teiid.client.plan.PlanNode;
 import org.teiid.common.buffer.BlockedException;
 import org.teiid.common.buffer.BufferManager;
+import org.teiid.common.buffer.BufferManager.TupleSourceType;
 import org.teiid.common.buffer.TupleBatch;
+import org.teiid.common.buffer.TupleBuffer;
 import org.teiid.core.TeiidComponentException;
 import org.teiid.core.TeiidProcessingException;
 import org.teiid.core.TeiidRuntimeException;
 import org.teiid.core.types.ClobImpl;
 import org.teiid.core.types.ClobType;
 import org.teiid.core.types.DataTypeManager;
+import org.teiid.core.types.InputStreamFactory;
+import org.teiid.core.types.Streamable;
 import org.teiid.core.types.TransformationException;
 import org.teiid.dqp.internal.process.RequestWorkItem;
 import org.teiid.query.QueryPlugin;
@@ -50,21 +61,554 @@ import org.teiid.query.sql.LanguageObject;
 import org.teiid.query.sql.lang.TextTable;
 import org.teiid.query.sql.lang.TextTable.TextColumn;
 import org.teiid.query.sql.symbol.Expression;
+import org.teiid.query.sql.symbol.TextLine;
 import org.teiid.query.util.CommandContext;
 
 /**
  * Handles text file processing.
+ * <br>
+ * When the text table parallelism option is greater than 1 a local file with a row delimiter
+ * is split into byte ranges at line boundaries, which are parsed concurrently into their own
+ * buffers and returned in file order.  That mode assumes that no value spans lines.
+ * Only the ranges within the parallelism of the range being returned are parsed, so that
+ * the amount buffered ahead of the consumer is bounded.
  *
  * TODO: allow for a configurable line terminator
  */
 public class TextTableNode extends SubqueryAwareRelationalNode {
 
+    /**
+     * The smallest byte range that will be parsed by a separate task
+     */
+    static final int MIN_PARTITION_SIZE = 1 << 16;
+
+    /**
+     * The largest byte range that will be parsed by a separate task
+     */
+    static final int MAX_PARTITION_SIZE = 1 << 23;
+
+    //field start markers for values not held by the line buffer
+    private static final int NULL_VALUE = -1;
+    private static final int MATERIALIZED = -2;
+
+    /**
+     * Reads lines from a single character stream
+     */
+    private class TextReader {
+        private BufferedReader reader;
+        private String systemId;
+        private int textLine = 0;
+        private boolean cr;
+        private boolean eof;
+        //reused for each line/value
+        private StringBuilder line = new StringBuilder();
+        private StringBuilder value = new StringBuilder();
+
+        //the fields of the current line as offsets into the line buffer or materialized values
+        private int fieldCount;
+        private int[] fieldStart = new int[table.getColumns().size() + 1];
+        private int[] fieldEnd = new int[fieldStart.length];
+        private String[] fieldValue = new String[fieldStart.length];
+        //the field indexes that will be read, or null for all
+        private boolean[] needed;
+
+        TextReader(BufferedReader reader, String systemId) {
+            this.reader = reader;
+            this.systemId = systemId;
+        }
+
+        /**
+         * Read the next line into the reusable line buffer.
+         * The result is only valid until the next call.
+         */
+        private StringBuilder readLine(int maxLength, boolean exact, boolean invalue) throws TeiidProcessingException {
+            if (eof) {
+                return null;
+            }
+            StringBuilder sb = line;
+            sb.setLength(0);
+            if (invalue) {
+                //we must include the newline in the quoted value
+                sb.append(newLine);
+            }
+            while (true) {
+                char c = readChar();
+                if (c == newLine) {
+                    if (sb.length() == 0) {
+                        if (eof) {
+                            return null;
+                        }
+                        if (table.isUsingRowDelimiter()) {
+                            continue; //skip empty lines
+                        }
+                    }
+                    if (table.isUsingRowDelimiter()) {
+                        return sb;
+                    }
+                }
+                sb.append(c);
+                if (exact && sb.length() == maxLength && !table.isUsingRowDelimiter()) {
+                    return sb;
+                }
+                if (sb.length() > maxLength) {
+                    if (exact) {
+                        sb.deleteCharAt(sb.length() - 1);
+                        //we're not forcing them to fully specify the line, so just drop the rest
+                        //TODO: there should be a max read length
+                        while (readChar() != newLine) {
+
+                        }
+                        return sb;
+                    }
+                    //protects non-fixed width processing from run-away values
+                    //TODO it is possible that string values could be desired that are longer than the max and/or returned as clobs
+                     throw new TeiidProcessingException(QueryPlugin.Event.TEIID30178, QueryPlugin.Util.gs(QueryPlugin.Event.TEIID30178, textLine+1, systemId, maxLength));
+                }
+            }
+        }
+
+        private char readChar() throws TeiidProcessingException {
+            try {
+                int c = reader.read();
+                if (cr) {
+                    if (c == newLine) {
+                        c = reader.read();
+                    }
+                    cr = false;
+                }
+                switch (c) {
+                case '\r':
+                    if (crNewLine) {
+                        cr = true;
+                        textLine++;
+                        return newLine;
+                    }
+                    break;
+                case -1:
+                    eof = true;
+                    textLine++;
+                    return newLine;
+                }
+                if (c == newLine) {
+                    textLine++;
+                    return newLine;
+                }
+                return (char)c;
+            } catch (IOException e) {
+                throw new TeiidProcessingException(QueryPlugin.Event.TEIID30179, e, QueryPlugin.Util.gs(QueryPlugin.Event.TEIID30179, systemId));
+            }
+        }
+
+        /**
+         * Parse the line into the field offsets.  Only values that require unescaping or
+         * that span lines are copied out of the line buffer.
+         */
+        private void parseLine(StringBuilder line) throws TeiidProcessingException {
+            fieldCount = 0;
+            if (table.isFixedWidth()) {
+                parseFixedWidth(line);
+            } else {
+                parseDelimitedLine(line);
+            }
+        }
+
+        private void parseDelimitedLine(StringBuilder line) throws TeiidProcessingException {
+            StringBuilder builder = value;
+            builder.setLength(0);
+            //true if the current value is held by the builder rather than a range of the line
+            boolean buffered = false;
+            int begin = 0;
+            boolean escaped = false;
+            boolean wasQualified = false;
+            boolean qualified = false;
+            while (true) {
+                if (line == null) {
+                    if (escaped) {
+                        //allow for escaped new lines
+                        if (cr) {
+                            builder.append('\r');
+                        }
+                        builder.append(newLine);
+                        escaped = false;
+                        materializeFields();
+                        line = readLine(lineWidth, false, false);
+                        continue;
+                    }
+                    if (!qualified) {
+                        //close the last entry
+                        if (buffered) {
+                            addValue(builder, wasQualified || noTrim);
+                        } else {
+                            addRange(begin, this.line.length(), noTrim);
+                        }
+                        return;
+                    }
+                    materializeFields();
+                    line = readLine(lineWidth, false, true);
+                    if (line == null) {
+                         throw new TeiidProcessingException(QueryPlugin.Event.TEIID30182, QueryPlugin.Util.gs(QueryPlugin.Event.TEIID30182, systemId));
+                    }
+                }
+                for (int i = 0; i < line.length(); i++) {
+                    char chr = line.charAt(i);
+                    if (chr == delimiter) {
+                        if (escaped || qualified) {
+                            builder.append(chr);
+                            escaped = false;
+                        } else {
+                            if (buffered) {
+                                addValue(builder, wasQualified || noTrim);
+                            } else {
+                                addRange(begin, i, noTrim);
+                            }
+                            wasQualified = false;
+                            buffered = false;
+                            builder.setLength(0);  //next entry
+                            begin = i + 1;
+                        }
+                    } else if (chr == quote && !unquoted) {
+                        if (noQuote) {     //it's the escape char
+                            if (!buffered) {
+                                builder.append(line, begin, i);
+                                buffered = true;
+                            }
+                            if (escaped) {
+                                builder.append(quote);
+                            }
+                            escaped = !escaped;
+                        } else {
+                            if (qualified) {
+                                qualified = false;
+                            } else {
+                                if (wasQualified) {
+                                    qualified = true;
+                                    builder.append(chr);
+                                } else {
+                                    if (buffered ? builder.toString().trim().length() != 0 : !isBlank(begin, i)) {
+                                         throw new TeiidProcessingException(QueryPlugin.Event.TEIID30183, QueryPlugin.Util.gs(QueryPlugin.Event.TEIID30183, textLine, systemId));
+                                    }
+                                    qualified = true;
+                                    builder.setLength(0); //start the entry over
+                                    buffered = true;
+                                    wasQualified = true;
+                                }
+                            }
+                        }
+                    } else {
+                        if (escaped) {
+                            //don't understand other escape sequences yet
+                             throw new TeiidProcessingException(QueryPlugin.Event.TEIID30184, QueryPlugin.Util.gs(QueryPlugin.Event.TEIID30184, chr, textLine, systemId));
+                        }
+                        if (wasQualified && !qualified) {
+                            if (!Character.isWhitespace(chr)) {
+                                 throw new TeiidProcessingException(QueryPlugin.Event.TEIID30183, QueryPlugin.Util.gs(QueryPlugin.Event.TEIID30183, textLine, systemId));
+                            }
+                            //else just ignore
+                        } else if (buffered) {
+                            builder.append(chr);
+                        }
+                    }
+                }
+                line = null;
+            }
+        }
+
+        private void parseFixedWidth(StringBuilder line) {
+            int beginIndex = 0;
+            for (TextColumn col : table.getColumns()) {
+                if (beginIndex >= line.length()) {
+                    addField(NULL_VALUE, 0, null);
+                } else {
+                    addRange(beginIndex, Math.min(line.length(), beginIndex + col.getWidth()), col.isNoTrim());
+                    beginIndex += col.getWidth();
+                }
+            }
+        }
+
+        private boolean isBlank(int start, int end) {
+            for (int i = start; i < end; i++) {
+                if (line.charAt(i) > ' ') {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Add a value held by the line buffer, trimming in the same way as {@link String#trim()}
+         */
+        private void addRange(int start, int end, boolean noTrim) {
+            if (!noTrim) {
+                while (start < end && line.charAt(start) <= ' ') {
+                    start++;
+                }
+                while (end > start && line.charAt(end - 1) <= ' ') {
+                    end--;
+                }
+                if (start == end) {
+                    addField(NULL_VALUE, 0, null);
+                    return;
+                }
+            }
+            addField(start, end, null);
+        }
+
+        private void addValue(StringBuilder sb, boolean wasQualified) {
+            if (!isNeeded(fieldCount)) {
+                addField(NULL_VALUE, 0, null);
+                return;
+            }
+            String val = sb.toString();
+            if (!wasQualified) {
+                val = val.trim();
+                if (val.length() == 0) {
+                    addField(NULL_VALUE, 0, null);
+                    return;
+                }
+            }
+            addField(MATERIALIZED, 0, val);
+        }
+
+        private void addField(int start, int end, String val) {
+            if (fieldCount == fieldStart.length) {
+                int size = fieldCount << 1;
+                fieldStart = Arrays.copyOf(fieldStart, size);
+                fieldEnd = Arrays.copyOf(fieldEnd, size);
+                fieldValue = Arrays.copyOf(fieldValue, size);
+            }
+            fieldStart[fieldCount] = start;
+            fieldEnd[fieldCount] = end;
+            fieldValue[fieldCount++] = val;
+        }
+
+        private boolean isNeeded(int index) {
+            return needed == null || (index < needed.length && needed[index]);
+        }
+
+        /**
+         * Copy the needed values out of the line buffer prior to reading the next line
+         */
+        private void materializeFields() {
+            for (int i = 0; i < fieldCount; i++) {
+                if (fieldStart[i] < 0) {
+                    continue;
+                }
+                if (isNeeded(i)) {
+                    fieldValue[i] = line.substring(fieldStart[i], fieldEnd[i]);
+                    fieldStart[i] = MATERIALIZED;
+                } else {
+                    fieldStart[i] = NULL_VALUE;
+                }
+            }
+        }
+
+        private String getString(int index) {
+            int start = fieldStart[index];
+            if (start == NULL_VALUE) {
+                return null;
+            }
+            if (start == MATERIALIZED) {
+                return fieldValue[index];
+            }
+            return line.substring(start, fieldEnd[index]);
+        }
+
+        /**
+         * Get the typed value of the field, parsing simple integral values directly from the line buffer
+         */
+        private Object getValue(int index, Class<?> type) throws TransformationException {
+            int start = fieldStart[index];
+            if (start >= 0) {
+                int end = fieldEnd[index];
+                if (type == DataTypeManager.DefaultDataClasses.INTEGER && end - start < 10) {
+                    long result = parseIntegral(start, end);
+                    if (result != Long.MIN_VALUE) {
+                        return DataTypeManager.getCanonicalValue(Integer.valueOf((int)result));
+                    }
+                } else if (type == DataTypeManager.DefaultDataClasses.LONG && end - start < 19) {
+                    long result = parseIntegral(start, end);
+                    if (result != Long.MIN_VALUE) {
+                        return DataTypeManager.getCanonicalValue(Long.valueOf(result));
+                    }
+                }
+            }
+            return DataTypeManager.transformValue(getString(index), type);
+        }
+
+        /**
+         * @return the value of an optionally signed run of fewer than 19 digits, or Long.MIN_VALUE if
+         * the range is not of that form
+         */
+        private long parseIntegral(int start, int end) {
+            boolean negative = false;
+            char c = line.charAt(start);
+            if (c == '-' || c == '+') {
+                negative = c == '-';
+                start++;
+            }
+            if (start == end) {
+                return Long.MIN_VALUE;
+            }
+            long result = 0;
+            for (int i = start; i < end; i++) {
+                c = line.charAt(i);
+                if (c < '0' || c > '9') {
+                    return Long.MIN_VALUE;
+                }
+                result = result * 10 + (c - '0');
+            }
+            return negative ? -result : result;
+        }
+
+        private List<String> toList() {
+            List<String> result = new ArrayList<String>(fieldCount);
+            for (int i = 0; i < fieldCount; i++) {
+                result.add(getString(i));
+            }
+            return result;
+        }
+
+        private void close() {
+            try {
+                reader.close();
+            } catch (IOException e) {
+            }
+        }
+    }
+
+    /**
+     * A byte range of the file that is parsed by a separate task into its own buffer.
+     * The task is scheduled once the range is within the parallelism of the range
+     * being consumed.
+     */
+    private class Partition implements Runnable {
+        private long start;
+        private long end;
+        private boolean[] needed;
+        private TupleBuffer buffer;
+
+        //guarded by this
+        private boolean closed;
+        private boolean done;
+        private boolean scheduled;
+
+        //consumer state
+        private TupleBatch batch;
+        private long nextRow = 1;
+
+        @Override
+        public void run() {
+            try {
+                TextReader textReader = new TextReader(new BufferedReader(new InputStreamReader(
+                        new RangeInputStream(channel, start, end), charset.newDecoder()), 1 << 16), systemId + "@" + start); //$NON-NLS-1$
+                textReader.needed = needed;
+                while (true) {
+                    StringBuilder line = textReader.readLine(lineWidth, table.isFixedWidth(), false);
+                    if (line == null) {
+                        synchronized (this) {
+                            if (!closed) {
+                                buffer.close();
+                                done = true;
+                            }
+                        }
+                        return;
+                    }
+                    textReader.parseLine(line);
+                    List<Object> tuple = createTuple(textReader, -1);
+                    boolean notify = false;
+                    synchronized (this) {
+                        if (closed) {
+                            return;
+                        }
+                        buffer.addTuple(tuple);
+                        notify = buffer.getRowCount() % getBatchSize() == 0;
+                    }
+                    if (notify) {
+                        notifyConsumer();
+                    }
+                }
+            } catch (Throwable e) {
+                synchronized (this) {
+                    if (closed) {
+                        return; //the failure is due to the reset/close
+                    }
+                }
+                if (e instanceof TeiidRuntimeException) {
+                    asynchException = (TeiidRuntimeException)e;
+                } else {
+                    asynchException = new TeiidRuntimeException(e);
+                }
+            } finally {
+                notifyConsumer();
+            }
+        }
+
+        /**
+         * Schedule the task if it has not already been scheduled
+         */
+        private synchronized void schedule() {
+            if (scheduled || closed) {
+                return;
+            }
+            scheduled = true;
+            getContext().getExecutor().execute(this);
+        }
+
+        private synchronized void close() {
+            this.closed = true;
+            this.batch = null;
+            if (!this.buffer.isRemoved()) {
+                this.buffer.remove();
+            }
+        }
+    }
+
+    /**
+     * Reads a range of a {@link FileChannel} with positional reads so that
+     * the channel may be shared between tasks
+     */
+    private static class RangeInputStream extends InputStream {
+        private FileChannel channel;
+        private long position;
+        private long end;
+
+        RangeInputStream(FileChannel channel, long start, long end) {
+            this.channel = channel;
+            this.position = start;
+            this.end = end;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] b = new byte[1];
+            if (read(b, 0, 1) < 1) {
+                return -1;
+            }
+            return b[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (position >= end) {
+                return -1;
+            }
+            len = (int)Math.min(len, end - position);
+            int read = channel.read(ByteBuffer.wrap(b, off, len), position);
+            if (read > 0) {
+                position += read;
+            }
+            return read;
+        }
+
+    }
+
     private TextTable table;
 
     //initialized state
     private int skip = 0;
     private int header = -1;
     private boolean noQuote;
+    private boolean unquoted;
     private char quote;
     private char delimiter;
     private int lineWidth;
@@ -72,14 +616,16 @@ public class TextTableNode extends SubqueryAwareRelationalNode {
     private Map<String, List<String>> parentLines;
 
     //per file state
-    private BufferedReader reader;
-    private int textLine = 0;
+    private TextReader textReader;
     private Map<String, Integer> nameIndexes;
     private String systemId;
     private long rowNumber;
 
-    private boolean cr;
-    private boolean eof;
+    //parallel state
+    private FileChannel channel;
+    private Charset charset;
+    private Partition[] partitions;
+    private int currentPartition;
 
     private volatile boolean running;
     private volatile TeiidRuntimeException asynchException;
@@ -124,6 +670,7 @@ public class TextTableNode extends SubqueryAwareRelationalNode {
             } else {
                 noQuote = table.isEscape();
                 quote = table.getQuote();
+                unquoted = !noQuote && quote == TextLine.NO_QUOTE_CHAR;
             }
             for (TextColumn column : table.getColumns()) {
                 if (column.getSelector() != null) {
@@ -155,18 +702,16 @@ public class TextTableNode extends SubqueryAwareRelationalNode {
     @Override
     public synchronized void reset() {
         super.reset();
-        if (this.reader != null) {
-            try {
-                this.reader.close();
-            } catch (IOException e) {
-            }
-            this.reader = null;
+        if (this.textReader != null) {
+            this.textReader.close();
+            this.textReader = null;
         }
+        closePartitions();
+        this.partitions = null;
+        this.currentPartition = 0;
+        this.charset = null;
         this.nameIndexes = null;
-        this.textLine = 0;
         this.rowNumber = 0;
-        this.cr = false;
-        this.eof = false;
         if (this.parentLines != null) {
             for (Map.Entry<String, List<String>> entry : this.parentLines.entrySet()) {
                 entry.setValue(null);
@@ -177,6 +722,21 @@ public class TextTableNode extends SubqueryAwareRelationalNode {
         this.limit = -1;
     }
 
+    private void closePartitions() {
+        if (this.partitions != null) {
+            for (Partition partition : this.partitions) {
+                partition.close();
+            }
+        }
+        if (this.channel != null) {
+            try {
+                this.channel.close();
+            } catch (IOException e) {
+            }
+            this.channel = null;
+        }
+    }
+
     public void setTable(TextTable table) {
         this.table = table;
         this.noTrim = table.isNoTrim();
@@ -205,11 +765,15 @@ public class TextTableNode extends SubqueryAwareRelationalNode {
     protected synchronized TupleBatch nextBatchDirect() throws BlockedException,
             TeiidComponentException, TeiidProcessingException {
 
-        if (reader == null) {
+        if (textReader == null && partitions == null) {
             initReader();
         }
 
-        if (reader == null) {
+        if (partitions != null) {
+            return nextParallelBatch();
+        }
+
+        if (textReader == null) {
             terminateBatches();
             return pullBatch();
         }
@@ -247,7 +811,7 @@ public class TextTableNode extends SubqueryAwareRelationalNode {
     private void processAsynch() {
         if (!running) {
             running = true;
-            final Reader r = this.reader;
+            final TextReader r = this.textReader;
             getContext().getExecutor().execute(new Runnable() {
                 @Override
                 public void run() {
@@ -259,27 +823,31 @@ public class TextTableNode extends SubqueryAwareRelationalNode {
                         asynchException = new TeiidRuntimeException(e);
                     } finally {
                         running = false;
-                        RequestWorkItem workItem = TextTableNode.this.getContext().getWorkItem();
-                        if (workItem != null) {
-                            workItem.moreWork();
-                        } else {
-                            synchronized (TextTableNode.this) {
-                                TextTableNode.this.notifyAll();
-                            }
-                        }
+                        notifyConsumer();
                     }
                 }
             });
         }
     }
 
-    private void process(Reader r) throws TeiidProcessingException {
+    private void notifyConsumer() {
+        RequestWorkItem workItem = TextTableNode.this.getContext().getWorkItem();
+        if (workItem != null) {
+            workItem.moreWork();
+        } else {
+            synchronized (TextTableNode.this) {
+                TextTableNode.this.notifyAll();
+            }
+        }
+    }
+
+    private void process(TextReader r) throws TeiidProcessingException {
         while (true) {
             synchronized (this) {
-                if (isBatchFull() || r != this.reader) {
+                if (isBatchFull() || r != this.textReader) {
                     return;
                 }
-                StringBuilder line = readLine(lineWidth, table.isFixedWidth(), false);
+                StringBuilder line = r.readLine(lineWidth, table.isFixedWidth(), false);
 
                 if (line == null) {
                     terminateBatches();
@@ -303,56 +871,18 @@ public class TextTableNode extends SubqueryAwareRelationalNode {
                     }
                 }
 
-                List<String> vals = parseLine(line);
+                r.parseLine(line);
 
                 if (parentSelector != null) {
-                    this.parentLines.put(parentSelector, vals);
+                    this.parentLines.put(parentSelector, r.toList());
                     continue;
-                } else if (table.getSelector() != null && !table.getSelector().equals(vals.get(0))) {
+                } else if (table.getSelector() != null && !table.getSelector().equals(r.getString(0))) {
                     continue;
                 }
 
                 rowNumber++;
 
-                List<Object> tuple = new ArrayList<Object>(projectionIndexes.length);
-                for (int output : projectionIndexes) {
-                    TextColumn col = table.getColumns().get(output);
-                    String val = null;
-                    int index = output;
-                    boolean missing = false;
-
-                    if (col.isOrdinal()) {
-                        if (rowNumber > Integer.MAX_VALUE) {
-                            throw new TeiidRuntimeException(new TeiidProcessingException(QueryPlugin.Event.TEIID31174, QueryPlugin.Util.gs(QueryPlugin.Event.TEIID31174)));
-                        }
-                        tuple.add((int)rowNumber);
-                        continue;
-                    }
-
-                    if (col.getSelector() != null) {
-                        vals = this.parentLines.get(col.getSelector());
-                        index = col.getPosition() - 1;
-                    } else if (nameIndexes != null) {
-                        Integer headerIndex = nameIndexes.get(col.getName());
-                        if (headerIndex != null) {
-                            index = headerIndex;
-                        } else {
-                            missing = true;
-                        }
-                    }
-                    if (vals == null || index >= vals.size() || missing) {
-                        //throw new TeiidProcessingException(QueryPlugin.Util.getString("TextTableNode.no_value", col.getName(), textLine, systemId)); //$NON-NLS-1$
-                        tuple.add(null);
-                        continue;
-                    }
-                    val = vals.get(index);
-                    try {
-                        tuple.add(DataTypeManager.transformValue(val, table.getColumns().get(output).getSymbol().getType()));
-                    } catch (TransformationException e) {
-                         throw new TeiidProcessingException(QueryPlugin.Event.TEIID30176, e, QueryPlugin.Util.gs(QueryPlugin.Event.TEIID30176, col.getName(), textLine, systemId));
-                    }
-                }
-                addBatchRow(tuple);
+                addBatchRow(createTuple(r, rowNumber));
 
                 if (rowNumber == limit) {
                     terminateBatches();
@@ -362,83 +892,141 @@ public class TextTableNode extends SubqueryAwareRelationalNode {
         }
     }
 
-    private StringBuilder readLine(int maxLength, boolean exact, boolean invalue) throws TeiidProcessingException {
-        if (eof) {
-            return null;
-        }
-        StringBuilder sb = new StringBuilder(exact ? maxLength : (maxLength >> 4));
-        if (invalue) {
-            //we must include the newline in the quoted value
-            sb.insert(0, newLine);
-        }
-        while (true) {
-            char c = readChar();
-            if (c == newLine) {
-                if (sb.length() == 0) {
-                    if (eof) {
-                        return null;
-                    }
-                    if (table.isUsingRowDelimiter()) {
-                        continue; //skip empty lines
-                    }
+    /**
+     * Create the output tuple from the parsed fields of the reader.
+     * @param row the ordinal value or -1 if the ordinal will be set later
+     */
+    private List<Object> createTuple(TextReader r, long row) throws TeiidProcessingException {
+        List<Object> tuple = new ArrayList<Object>(projectionIndexes.length);
+        //once a selector column is seen the values are taken from the parent line
+        boolean fromParent = false;
+        List<String> vals = null;
+        for (int output : projectionIndexes) {
+            TextColumn col = table.getColumns().get(output);
+            int index = output;
+            boolean missing = false;
+
+            if (col.isOrdinal()) {
+                if (row < 0) {
+                    tuple.add(null);
+                    continue;
                 }
-                if (table.isUsingRowDelimiter()) {
-                    return sb;
+                if (row > Integer.MAX_VALUE) {
+                    throw new TeiidRuntimeException(new TeiidProcessingException(QueryPlugin.Event.TEIID31174, QueryPlugin.Util.gs(QueryPlugin.Event.TEIID31174)));
                 }
+                tuple.add((int)row);
+                continue;
             }
-            sb.append(c);
-            if (exact && sb.length() == maxLength && !table.isUsingRowDelimiter()) {
-                return sb;
-            }
-            if (sb.length() > maxLength) {
-                if (exact) {
-                    sb.deleteCharAt(sb.length() - 1);
-                    //we're not forcing them to fully specify the line, so just drop the rest
-                    //TODO: there should be a max read length
-                    while (readChar() != newLine) {
 
-                    }
-                    return sb;
+            if (col.getSelector() != null) {
+                fromParent = true;
+                vals = this.parentLines.get(col.getSelector());
+                index = col.getPosition() - 1;
+            } else if (nameIndexes != null) {
+                Integer headerIndex = nameIndexes.get(col.getName());
+                if (headerIndex != null) {
+                    index = headerIndex;
+                } else {
+                    missing = true;
+                }
+            }
+            if (missing || (fromParent ? (vals == null || index >= vals.size()) : index >= r.fieldCount)) {
+                //throw new TeiidProcessingException(QueryPlugin.Util.getString("TextTableNode.no_value", col.getName(), textLine, systemId)); //$NON-NLS-1$
+                tuple.add(null);
+                continue;
+            }
+            try {
+                Class<?> type = table.getColumns().get(output).getSymbol().getType();
+                if (fromParent) {
+                    tuple.add(DataTypeManager.transformValue(vals.get(index), type));
+                } else {
+                    tuple.add(r.getValue(index, type));
                 }
-                //protects non-fixed width processing from run-away values
-                //TODO it is possible that string values could be desired that are longer than the max and/or returned as clobs
-                 throw new TeiidProcessingException(QueryPlugin.Event.TEIID30178, QueryPlugin.Util.gs(QueryPlugin.Event.TEIID30178, textLine+1, systemId, maxLength));
+            } catch (TransformationException e) {
+                 throw new TeiidProcessingException(QueryPlugin.Event.TEIID30176, e, QueryPlugin.Util.gs(QueryPlugin.Event.TEIID30176, col.getName(), r.textLine, r.systemId));
             }
         }
+        return tuple;
     }
 
-    private char readChar() throws TeiidProcessingException {
-        try {
-            int c = reader.read();
-            if (cr) {
-                if (c == newLine) {
-                    c = reader.read();
+    /**
+     * Return the rows of the partitions in file order, assigning the ordinal values.
+     */
+    private TupleBatch nextParallelBatch() throws TeiidComponentException, TeiidProcessingException {
+        while (true) {
+            if (isLastBatch()) {
+                return pullBatch();
+            }
+            unwrapException(asynchException);
+            Partition partition = null;
+            while (!isBatchFull() && currentPartition < partitions.length) {
+                partition = partitions[currentPartition];
+                List<?> tuple = null;
+                synchronized (partition) {
+                    if (partition.batch == null || partition.nextRow > partition.batch.getEndRow()) {
+                        if (partition.nextRow > partition.buffer.getRowCount()) {
+                            if (!partition.done) {
+                                break;
+                            }
+                            partition.close();
+                            currentPartition++;
+                            continue;
+                        }
+                        partition.batch = partition.buffer.getBatch(partition.nextRow);
+                    }
+                    tuple = partition.batch.getTuple(partition.nextRow++);
                 }
-                cr = false;
+                rowNumber++;
+                addBatchRow(setOrdinal(tuple));
             }
-            switch (c) {
-            case '\r':
-                if (crNewLine) {
-                    cr = true;
-                    textLine++;
-                    return newLine;
+            if (currentPartition == partitions.length) {
+                terminateBatches();
+                closePartitions();
+            } else {
+                schedulePartitions();
+            }
+            if (isBatchFull() || isLastBatch()) {
+                return pullBatch();
+            }
+            if (this.getContext().getWorkItem() != null) {
+                throw BlockedException.block("Blocking on results from file processing."); //$NON-NLS-1$
+            }
+            //this is for compatibility with engine tests that are below the level of using the work item
+            synchronized (partition) {
+                if (partition.nextRow <= partition.buffer.getRowCount() || partition.done) {
+                    continue;
                 }
-                break;
-            case -1:
-                eof = true;
-                textLine++;
-                return newLine;
             }
-            if (c == newLine) {
-                textLine++;
-                return newLine;
+            if (asynchException == null) {
+                try {
+                    this.wait();
+                } catch (InterruptedException e) {
+                    throw new TeiidRuntimeException(e);
+                }
             }
-            return (char)c;
-        } catch (IOException e) {
-            throw new TeiidProcessingException(QueryPlugin.Event.TEIID30179, e, QueryPlugin.Util.gs(QueryPlugin.Event.TEIID30179, systemId));
         }
     }
 
+    private List<?> setOrdinal(List<?> tuple) {
+        List<Object> result = null;
+        for (int i = 0; i < projectionIndexes.length; i++) {
+            if (!table.getColumns().get(projectionIndexes[i]).isOrdinal()) {
+                continue;
+            }
+            if (rowNumber > Integer.MAX_VALUE) {
+                throw new TeiidRuntimeException(new TeiidProcessingException(QueryPlugin.Event.TEIID31174, QueryPlugin.Util.gs(QueryPlugin.Event.TEIID31174)));
+            }
+            if (result == null) {
+                result = new ArrayList<Object>(tuple);
+            }
+            result.set(i, (int)rowNumber);
+        }
+        if (result == null) {
+            return tuple;
+        }
+        return result;
+    }
+
     private void initReader() throws ExpressionEvaluationException,
             BlockedException, TeiidComponentException, TeiidProcessingException {
 
@@ -448,6 +1036,7 @@ public class TextTableNode extends SubqueryAwareRelationalNode {
             return;
         }
 
+        File localFile = null;
         //get the reader
         try {
             this.systemId = "Unknown"; //$NON-NLS-1$
@@ -456,174 +1045,240 @@ public class TextTableNode extends SubqueryAwareRelationalNode {
                 if (this.systemId == null) {
                     this.systemId = "Unknown"; //$NON-NLS-1$
                 }
+                localFile = getPartitionableFile((ClobImpl)file.getReference());
             }
             Reader r = file.getCharacterStream();
+            BufferedReader reader = null;
             if (!(r instanceof BufferedReader)) {
                 reader = new BufferedReader(r);
             } else {
                 reader = (BufferedReader)r;
             }
+            textReader = new TextReader(reader, systemId);
         } catch (SQLException e) {
              throw new TeiidProcessingException(QueryPlugin.Event.TEIID30180, e);
         }
 
         //process the skip field
-        if (skip <= 0) {
-            return;
-        }
-        while (textLine < skip) {
-            boolean isHeader = textLine == header;
+        while (textReader.textLine < skip) {
+            boolean isHeader = textReader.textLine == header;
             if (isHeader) {
-                StringBuilder line = readLine(DataTypeManager.MAX_STRING_LENGTH * 16, false, false);
+                StringBuilder line = textReader.readLine(DataTypeManager.MAX_STRING_LENGTH * 16, false, false);
                 if (line == null) { //just return an empty batch
                     reset();
                     return;
                 }
-                processHeader(parseLine(line));
+                textReader.parseLine(line);
+                processHeader(textReader.toList());
             } else {
-                while (readChar() != newLine) {
+                while (textReader.readChar() != newLine) {
 
                 }
             }
         }
+
+        textReader.needed = getNeededFields();
+
+        if (localFile != null && !textReader.eof) {
+            initPartitions(localFile);
+        }
     }
 
-    private void processHeader(List<String> line) {
-        nameIndexes = new HashMap<String, Integer>();
-        this.lineWidth = DataTypeManager.MAX_STRING_LENGTH * line.size();
-        for (String string : line) {
-            if (string == null) {
-                continue;
-            }
-            nameIndexes.put(string.toUpperCase(), nameIndexes.size());
+    /**
+     * @return the field indexes read by the projected columns or null if all fields should be retained
+     */
+    private boolean[] getNeededFields() {
+        if (table.getSelector() != null || parentLines != null) {
+            return null;
         }
-        for (TextColumn col : table.getColumns()) {
+        boolean[] result = new boolean[table.getColumns().size()];
+        for (int output : projectionIndexes) {
+            TextColumn col = table.getColumns().get(output);
             if (col.isOrdinal()) {
                 continue;
             }
-            String name = col.getName().toUpperCase();
-            if (col.getHeader() != null) {
-                name = col.getHeader().toUpperCase();
+            int index = output;
+            if (nameIndexes != null) {
+                Integer headerIndex = nameIndexes.get(col.getName());
+                if (headerIndex == null) {
+                    continue;
+                }
+                index = headerIndex;
             }
-            Integer index = nameIndexes.get(name);
-            if (index == null) {
-                getContext().addWarning(new TeiidProcessingException(QueryPlugin.Event.TEIID30181, QueryPlugin.Util.gs(QueryPlugin.Event.TEIID30181, col.getName(), systemId)));
+            if (index >= result.length) {
+                result = Arrays.copyOf(result, index + 1);
             }
-            nameIndexes.put(col.getName(), index);
+            result[index] = true;
         }
+        return result;
     }
 
-    private List<String> parseLine(StringBuilder line) throws TeiidProcessingException {
-        if (table.isFixedWidth()) {
-            return parseFixedWidth(line);
+    /**
+     * @return the file if the clob may be split into byte ranges at line terminators
+     */
+    private File getPartitionableFile(ClobImpl clob) throws SQLException {
+        //quoted or escaped values may span lines, so only unquoted data can be split
+        if (getContext().getOptions().getTextTableParallelism() <= 1
+                || !(table.isFixedWidth() || unquoted)
+                || limit >= 0
+                || !table.isUsingRowDelimiter()
+                || table.getSelector() != null
+                || parentLines != null
+                || newLine >= 0x80
+                || !(clob.getStreamFactory() instanceof InputStreamFactory.FileInputStreamFactory)) {
+            return null;
+        }
+        File f = ((InputStreamFactory.FileInputStreamFactory)clob.getStreamFactory()).getFile();
+        if (f.length() < 2 * MIN_PARTITION_SIZE) {
+            return null;
+        }
+        Charset cs = clob.getCharset();
+        if (cs == null) {
+            cs = Streamable.CHARSET;
+        }
+        //the terminators must be single bytes that cannot appear in other characters
+        if (!cs.canEncode() || !Arrays.equals(String.valueOf(newLine).getBytes(cs), new byte[] {(byte)newLine})
+                || !Arrays.equals("\r".getBytes(cs), new byte[] {'\r'}) //$NON-NLS-1$
+                || !Arrays.equals("a".getBytes(cs), new byte[] {'a'})) { //$NON-NLS-1$
+            return null;
         }
-        return parseDelimitedLine(line);
+        this.charset = cs;
+        return f;
     }
 
-    private List<String> parseDelimitedLine(StringBuilder line) throws TeiidProcessingException {
-        ArrayList<String> result = new ArrayList<String>();
-        StringBuilder builder = new StringBuilder();
-        boolean escaped = false;
-        boolean wasQualified = false;
-        boolean qualified = false;
-        while (true) {
-            if (line == null) {
-                if (escaped) {
-                    //allow for escaped new lines
-                    if (cr) {
-                        builder.append('\r');
-                    }
-                    builder.append(newLine);
-                    escaped = false;
-                    line = readLine(lineWidth, false, false);
-                    continue;
-                }
-                if (!qualified) {
-                    //close the last entry
-                    addValue(result, wasQualified || noTrim, builder.toString());
-                    return result;
-                }
-                line = readLine(lineWidth, false, true);
-                if (line == null) {
-                     throw new TeiidProcessingException(QueryPlugin.Event.TEIID30182, QueryPlugin.Util.gs(QueryPlugin.Event.TEIID30182, systemId));
+    /**
+     * Split the data after the skipped lines into ranges that start on a line and
+     * schedule them.
+     */
+    private void initPartitions(File f) throws TeiidComponentException, TeiidProcessingException {
+        int lines = textReader.textLine;
+        try {
+            this.channel = FileChannel.open(f.toPath(), StandardOpenOption.READ);
+            long length = this.channel.size();
+            long start = skipLines(0, length, lines);
+            //use at least parallelism ranges, but bound the range size so that the consumer is not too far behind
+            long size = Math.max(MIN_PARTITION_SIZE, Math.min(MAX_PARTITION_SIZE, (length - start) / getContext().getOptions().getTextTableParallelism()));
+            int count = (int)Math.min(Integer.MAX_VALUE, (length - start) / size);
+            if (count <= 1) {
+                closePartitions();
+                return;
+            }
+            List<Partition> result = new ArrayList<Partition>(count);
+            while (start < length) {
+                Partition partition = new Partition();
+                partition.start = start;
+                if (result.size() == count - 1) {
+                    start = length;
+                } else {
+                    start = skipLines(start + size - 1, length, 1);
                 }
+                partition.end = start;
+                partition.needed = textReader.needed;
+                partition.buffer = getBufferManager().createTupleBuffer(getOutputElements(), getConnectionID(), TupleSourceType.PROCESSOR);
+                partition.buffer.setForwardOnly(true);
+                result.add(partition);
             }
-            for (int i = 0; i < line.length(); i++) {
-                char chr = line.charAt(i);
-                if (chr == delimiter) {
-                    if (escaped || qualified) {
-                        builder.append(chr);
-                        escaped = false;
-                    } else {
-                        addValue(result, wasQualified || noTrim, builder.toString());
-                        wasQualified = false;
-                        builder = new StringBuilder();  //next entry
-                    }
-                } else if (chr == quote) {
-                    if (noQuote) {     //it's the escape char
-                        if (escaped) {
-                            builder.append(quote);
-                        }
-                        escaped = !escaped;
-                    } else {
-                        if (qualified) {
-                            qualified = false;
-                        } else {
-                            if (wasQualified) {
-                                qualified = true;
-                                builder.append(chr);
-                            } else {
-                                if (builder.toString().trim().length() != 0) {
-                                     throw new TeiidProcessingException(QueryPlugin.Event.TEIID30183, QueryPlugin.Util.gs(QueryPlugin.Event.TEIID30183, textLine, systemId));
-                                }
-                                qualified = true;
-                                builder = new StringBuilder(); //start the entry over
-                                wasQualified = true;
-                            }
+            this.partitions = result.toArray(new Partition[result.size()]);
+        } catch (IOException e) {
+            closePartitions();
+            throw new TeiidProcessingException(QueryPlugin.Event.TEIID30179, e, QueryPlugin.Util.gs(QueryPlugin.Event.TEIID30179, systemId));
+        }
+        this.textReader.close();
+        this.textReader = null;
+        schedulePartitions();
+    }
+
+    /**
+     * @return the number of rows parsed by each partition or null if the file was not split
+     */
+    synchronized long[] getPartitionRowCounts() {
+        if (partitions == null) {
+            return null;
+        }
+        long[] result = new long[partitions.length];
+        for (int i = 0; i < partitions.length; i++) {
+            synchronized (partitions[i]) {
+                result[i] = partitions[i].buffer.getRowCount();
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Schedule the partitions within the parallelism of the partition being consumed
+     */
+    private void schedulePartitions() {
+        int last = (int)Math.min(partitions.length, (long)currentPartition + getContext().getOptions().getTextTableParallelism());
+        for (int i = currentPartition; i < last; i++) {
+            partitions[i].schedule();
+        }
+    }
+
+    /**
+     * Scan the bytes for line terminators using the same rules as {@link TextReader#readChar()}
+     * @return the position just after the given number of terminators, or the length
+     */
+    private long skipLines(long position, long length, int lines) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(1 << 13);
+        int remaining = lines;
+        boolean afterCr = false;
+        while (position < length) {
+            buffer.clear();
+            int read = channel.read(buffer, position);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++, position++) {
+                byte b = buffer.get(i);
+                if (afterCr) {
+                    afterCr = false;
+                    if (b == newLine) {
+                        if (remaining == 0) {
+                            return position + 1;
                         }
+                        continue;
                     }
-                } else {
-                    if (escaped) {
-                        //don't understand other escape sequences yet
-                         throw new TeiidProcessingException(QueryPlugin.Event.TEIID30184, QueryPlugin.Util.gs(QueryPlugin.Event.TEIID30184, chr, textLine, systemId));
-                    }
-                    if (wasQualified && !qualified) {
-                        if (!Character.isWhitespace(chr)) {
-                             throw new TeiidProcessingException(QueryPlugin.Event.TEIID30183, QueryPlugin.Util.gs(QueryPlugin.Event.TEIID30183, textLine, systemId));
-                        }
-                        //else just ignore
-                    } else {
-                        builder.append(chr);
+                }
+                if (remaining == 0) {
+                    return position;
+                }
+                if (b == '\r' && crNewLine) {
+                    remaining--;
+                    afterCr = true;
+                } else if (b == newLine) {
+                    remaining--;
+                    if (remaining == 0) {
+                        return position + 1;
                     }
                 }
             }
-            line = null;
         }
+        return length;
     }
 
-    private void addValue(ArrayList<String> result, boolean wasQualified, String val) {
-        if (!wasQualified) {
-            val = val.trim();
-            if (val.length() == 0) {
-                val = null;
+    private void processHeader(List<String> line) {
+        nameIndexes = new HashMap<String, Integer>();
+        this.lineWidth = DataTypeManager.MAX_STRING_LENGTH * line.size();
+        for (String string : line) {
+            if (string == null) {
+                continue;
             }
+            nameIndexes.put(string.toUpperCase(), nameIndexes.size());
         }
-        result.add(val);
-    }
-
-    private List<String> parseFixedWidth(StringBuilder line) {
-        ArrayList<String> result = new ArrayList<String>();
-        int beginIndex = 0;
         for (TextColumn col : table.getColumns()) {
-            if (beginIndex >= line.length()) {
-                result.add(null);
-            } else {
-                String val = new String(line.substring(beginIndex, Math.min(line.length(), beginIndex + col.getWidth())));
-                addValue(result, col.isNoTrim(), val);
-                beginIndex += col.getWidth();
+            if (col.isOrdinal()) {
+                continue;
+            }
+            String name = col.getName().toUpperCase();
+            if (col.getHeader() != null) {
+                name = col.getHeader().toUpperCase();
             }
+            Integer index = nameIndexes.get(name);
+            if (index == null) {
+                getContext().addWarning(new TeiidProcessingException(QueryPlugin.Event.TEIID30181, QueryPlugin.Util.gs(QueryPlugin.Event.TEIID30181, col.getName(), systemId)));
+            }
+            nameIndexes.put(col.getName(), index);
         }
-        return result;
     }
 
     @Override
@@ -2274,11 +2274,17 @@ public class SQLStringVisitor extends LanguageVisitor {
             append(SPACE);
             if (obj.isEscape()) {
                 append(ESCAPE);
+                append(SPACE);
+                visitNode(new Constant(obj.getQuote()));
+            } else if (obj.getQuote().charValue() == TextLine.NO_QUOTE_CHAR) {
+                append(NO);
+                append(SPACE);
+                append(NonReserved.QUOTE);
             } else {
                 append(NonReserved.QUOTE);
+                append(SPACE);
+                visitNode(new Constant(obj.getQuote()));
             }
-            append(SPACE);
-            visitNode(new Constant(obj.getQuote()));
         }
         if (obj.getHeader() != null) {
             append(SPACE);
@@ -49,6 +49,8 @@ public interface GlobalTableStore {
 
     List<?> updateMatViewRow(String matTableName, List<?> tuple, boolean delete) throws TeiidComponentException;
 
+    long updateMatViewRows(String matTableName, List<? extends List<?>> tuples) throws TeiidComponentException;
+
     TempTable createMatTable(String tableName, GroupSymbol group)
     throws TeiidComponentException, QueryMetadataException, TeiidProcessingException;
 
@@ -62,4 +64,7 @@ public interface GlobalTableStore {
     @Replicated(replicateState=ReplicationMode.PUSH)
     void loaded(String matTableName, TempTable table);
 
+    @Replicated
+    void deltaLoaded(String matTableName);
+
 }
@@ -18,6 +18,11 @@
 
 package org.teiid.query.tempdata;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.ObjectInputStream;
@@ -25,25 +30,44 @@ import java.io.ObjectOutputStream;
 import java.io.OutputStream;
 import java.io.Serializable;
 import java.lang.ref.WeakReference;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 
+import org.teiid.adminapi.impl.ModelMetaData;
+import org.teiid.adminapi.impl.SourceMappingMetadata;
 import org.teiid.adminapi.impl.VDBMetaData;
 import org.teiid.api.exception.query.QueryMetadataException;
 import org.teiid.api.exception.query.QueryResolverException;
 import org.teiid.api.exception.query.QueryValidatorException;
 import org.teiid.common.buffer.BufferManager;
+import org.teiid.common.buffer.Cache;
+import org.teiid.common.buffer.impl.BufferFrontedFileStoreCache;
+import org.teiid.common.buffer.impl.BufferManagerImpl;
+import org.teiid.common.buffer.impl.EncryptedStorageManager;
 import org.teiid.core.TeiidComponentException;
 import org.teiid.core.TeiidProcessingException;
 import org.teiid.core.TeiidRuntimeException;
 import org.teiid.core.types.DataTypeManager;
+import org.teiid.core.util.ExecutorUtils;
+import org.teiid.core.util.PropertiesUtils;
 import org.teiid.dqp.internal.process.RequestWorkItem;
 import org.teiid.dqp.message.RequestID;
 import org.teiid.language.SQLConstants;
@@ -82,6 +106,10 @@ import org.teiid.query.tempdata.TempTableStore.TransactionMode;
 public class GlobalTableStoreImpl implements GlobalTableStore, ReplicatedObject<String> {
 
     private static final String TEIID_FBI = "teiid:fbi"; //$NON-NLS-1$
+    private static final int SNAPSHOT_VERSION = 2;
+    private static final String SNAPSHOT_SUFFIX = ".snapshot"; //$NON-NLS-1$
+    private static final String SNAPSHOT_DIRECTORY = PropertiesUtils.getHierarchicalProperty("org.teiid.matViewSnapshotDirectory", null, String.class); //$NON-NLS-1$
+    private static final Executor SNAPSHOT_WRITER = ExecutorUtils.newFixedThreadPool(1, "MatViewSnapshotWriter"); //$NON-NLS-1$
 
     public enum MatState {
         NEEDS_LOADING,
@@ -207,19 +235,91 @@ public class GlobalTableStoreImpl implements GlobalTableStore, ReplicatedObject<
     private QueryMetadataInterface metadata;
     private volatile Serializable localAddress;
     private VDBMetaData vdbMetaData;
+    private File snapshotDirectory;
+    private Executor snapshotExecutor = SNAPSHOT_WRITER;
+    private Set<String> pendingSnapshots = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
 
     public GlobalTableStoreImpl(BufferManager bufferManager, VDBMetaData vdbMetaData, QueryMetadataInterface metadata) {
         this.bufferManager = bufferManager;
         this.vdbMetaData = vdbMetaData;
         this.metadata = new TempMetadataAdapter(metadata, new TempMetadataStore());
+        this.tableStore.setSnapshotReads(true);
+        if (SNAPSHOT_DIRECTORY != null) {
+            setSnapshotDirectory(new File(SNAPSHOT_DIRECTORY));
+        }
     }
 
-    public synchronized MatTableInfo getMatTableInfo(final String tableName) {
-        MatTableInfo info = matTables.get(tableName);
-        if (info == null) {
+    /**
+     * Set the directory to hold the internal materialized view snapshots.  A snapshot is written
+     * after each full or incremental load and is used on the first access to the table if it is for
+     * the same vdb, matches the fingerprint of the view definition, and is not past its ttl.
+     * <br>
+     * Row updates made after the last load, such as with refreshMatViewRow(s), are not written
+     * to the snapshot and will be lost on restart until the next load.
+     * <br>
+     * Snapshots are not used if the buffer files are encrypted, since the snapshots would be
+     * written in plaintext and the encryption key does not outlive the process.
+     * @param directory may be null to disable snapshots
+     */
+    public void setSnapshotDirectory(File directory) {
+        if (directory == null || vdbMetaData == null) {
+            this.snapshotDirectory = null;
+            return;
+        }
+        if (isEncrypted(this.bufferManager)) {
+            LogManager.logWarning(LogConstants.CTX_MATVIEWS, QueryPlugin.Util.gs(QueryPlugin.Event.TEIID31314, directory));
+            this.snapshotDirectory = null;
+            return;
+        }
+        this.snapshotDirectory = new File(directory, encodeFileName(vdbMetaData.getName() + '_' + vdbMetaData.getVersion()));
+    }
+
+    private static boolean isEncrypted(BufferManager bufferManager) {
+        if (!(bufferManager instanceof BufferManagerImpl)) {
+            return false;
+        }
+        Cache cache = ((BufferManagerImpl)bufferManager).getCache();
+        return cache instanceof BufferFrontedFileStoreCache
+                && ((BufferFrontedFileStoreCache)cache).getStorageManager() instanceof EncryptedStorageManager;
+    }
+
+    /**
+     * Set the executor used to write the snapshots.  Defaults to a shared single thread.
+     */
+    public void setSnapshotExecutor(Executor snapshotExecutor) {
+        this.snapshotExecutor = snapshotExecutor;
+    }
+
+    public MatTableInfo getMatTableInfo(final String tableName) {
+        MatTableInfo info = null;
+        boolean restore = false;
+        synchronized (this) {
+            info = matTables.get(tableName);
+            if (info != null) {
+                return info;
+            }
             info = new MatTableInfo();
+            restore = snapshotDirectory != null && tableName.startsWith(RelationalPlanner.MAT_PREFIX) && getSnapshotFile(tableName).exists();
+            if (restore) {
+                //other callers will wait for the restore rather than starting a load
+                info.state = MatState.LOADING;
+            }
             matTables.put(tableName, info);
         }
+        if (restore) {
+            boolean restored = false;
+            try {
+                restored = restoreSnapshot(tableName);
+            } finally {
+                if (!restored) {
+                    synchronized (info) {
+                        if (info.state == MatState.LOADING && info.loadingAddress == null) {
+                            info.setState(MatState.NEEDS_LOADING, null);
+                        }
+                    }
+                }
+            }
+        }
         return info;
     }
 
@@ -425,10 +525,174 @@ public class GlobalTableStoreImpl implements GlobalTableStore, ReplicatedObject<
     public void loaded(String matTableName, TempTable table) {
         swapTempTable(matTableName, table);
         this.getMatTableInfo(matTableName).setState(MatState.LOADED, true);
+        scheduleSnapshot(matTableName);
+    }
+
+    @Override
+    public void deltaLoaded(String matTableName) {
+        MatTableInfo info = getMatTableInfo(matTableName);
+        synchronized (info) {
+            if (info.state == MatState.LOADING) {
+                info.setState(MatState.LOADED, null);
+            }
+        }
+        scheduleSnapshot(matTableName);
+    }
+
+    private File getSnapshotFile(String matTableName) {
+        return new File(snapshotDirectory, encodeFileName(matTableName) + SNAPSHOT_SUFFIX);
+    }
+
+    private static String encodeFileName(String name) {
+        try {
+            return URLEncoder.encode(name, "UTF-8"); //$NON-NLS-1$
+        } catch (IOException e) {
+            throw new TeiidRuntimeException(e);
+        }
+    }
+
+    /**
+     * A fingerprint of the view definition, so that a snapshot for a different
+     * definition is not used.  It covers the columns, primary key, load query, view options
+     * and the vdb source mappings - but not the source data.
+     */
+    private String getSnapshotFingerprint(String matTableName) throws TeiidComponentException, TeiidProcessingException {
+        String viewName = matTableName.substring(RelationalPlanner.MAT_PREFIX.length());
+        Object viewId = this.metadata.getGroupID(viewName);
+        TempMetadataID id = getGlobalTempTableMetadataId(viewId);
+        StringBuilder sb = new StringBuilder();
+        for (TempMetadataID element : id.getElements()) {
+            sb.append(element.getName()).append(' ').append(DataTypeManager.getDataTypeName(element.getType())).append(',');
+        }
+        sb.append('\n');
+        if (id.getPrimaryKey() != null) {
+            for (TempMetadataID element : id.getPrimaryKey()) {
+                sb.append(element.getName()).append(',');
+            }
+        }
+        sb.append('\n').append(id.getQueryNode().getQuery());
+        if (viewId instanceof Table) {
+            sb.append('\n').append(new TreeMap<String, String>(((Table)viewId).getProperties()));
+        }
+        for (ModelMetaData model : vdbMetaData.getModelMetaDatas().values()) {
+            sb.append('\n').append(model.getName());
+            for (SourceMappingMetadata source : model.getSourceMappings()) {
+                sb.append(' ').append(source.getName()).append(' ').append(source.getTranslatorName())
+                    .append(' ').append(source.getConnectionJndiName());
+            }
+        }
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256"); //$NON-NLS-1$
+            return PropertiesUtils.toHex(digest.digest(sb.toString().getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new TeiidComponentException(e);
+        }
+    }
+
+    /**
+     * Write the snapshot asynchronously.  Loads that complete while a write is pending
+     * are covered by that write.
+     */
+    private void scheduleSnapshot(final String matTableName) {
+        if (snapshotDirectory == null || !matTableName.startsWith(RelationalPlanner.MAT_PREFIX)) {
+            return;
+        }
+        if (!pendingSnapshots.add(matTableName)) {
+            return;
+        }
+        try {
+            snapshotExecutor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    pendingSnapshots.remove(matTableName);
+                    writeSnapshot(matTableName);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            pendingSnapshots.remove(matTableName);
+            LogManager.logWarning(LogConstants.CTX_MATVIEWS, e, QueryPlugin.Util.gs(QueryPlugin.Event.TEIID31309, matTableName, getSnapshotFile(matTableName)));
+        }
+    }
+
+    /**
+     * Write the loaded table to a temporary file, which then replaces any existing snapshot
+     */
+    private void writeSnapshot(String matTableName) {
+        if (snapshotDirectory == null || !matTableName.startsWith(RelationalPlanner.MAT_PREFIX)) {
+            return;
+        }
+        MatTableInfo info = getMatTableInfo(matTableName);
+        if (!info.isValid() || this.tableStore.getTempTable(matTableName) == null) {
+            return;
+        }
+        File file = getSnapshotFile(matTableName);
+        File temp = new File(file.getPath() + ".tmp"); //$NON-NLS-1$
+        try {
+            snapshotDirectory.mkdirs();
+            ObjectOutputStream oos = new ObjectOutputStream(new BufferedOutputStream(new FileOutputStream(temp)));
+            try {
+                oos.writeInt(SNAPSHOT_VERSION);
+                oos.writeUTF(getSnapshotFingerprint(matTableName));
+                oos.writeLong(info.updateTime);
+                sendTable(matTableName, oos, false);
+            } finally {
+                oos.close();
+            }
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            LogManager.logDetail(LogConstants.CTX_MATVIEWS, "wrote snapshot", file, "for", matTableName); //$NON-NLS-1$ //$NON-NLS-2$
+        } catch (Exception e) {
+            temp.delete();
+            LogManager.logWarning(LogConstants.CTX_MATVIEWS, e, QueryPlugin.Util.gs(QueryPlugin.Event.TEIID31309, matTableName, file));
+        }
+    }
+
+    /**
+     * Restore the table from its snapshot if it matches the current definition and is not past the ttl.
+     * Should be called while the {@link MatTableInfo} is in the LOADING state.
+     * @return true if the table was restored
+     */
+    private boolean restoreSnapshot(String matTableName) {
+        File file = getSnapshotFile(matTableName);
+        if (!file.exists()) {
+            return false;
+        }
+        try {
+            ObjectInputStream ois = new ObjectInputStream(new BufferedInputStream(new FileInputStream(file)));
+            try {
+                if (ois.readInt() != SNAPSHOT_VERSION || !getSnapshotFingerprint(matTableName).equals(ois.readUTF())) {
+                    LogManager.logDetail(LogConstants.CTX_MATVIEWS, "ignoring snapshot", file, "with a different definition for", matTableName); //$NON-NLS-1$ //$NON-NLS-2$
+                    return false;
+                }
+                String viewName = matTableName.substring(RelationalPlanner.MAT_PREFIX.length());
+                CacheHint hint = getGlobalTempTableMetadataId(this.metadata.getGroupID(viewName)).getCacheHint();
+                long updateTime = ois.readLong();
+                if (hint != null && hint.getTtl() != null && System.currentTimeMillis() - updateTime - hint.getTtl() > 0) {
+                    LogManager.logDetail(LogConstants.CTX_MATVIEWS, "ignoring expired snapshot", file, "for", matTableName); //$NON-NLS-1$ //$NON-NLS-2$
+                    return false;
+                }
+                loadTable(matTableName, ois);
+            } finally {
+                ois.close();
+            }
+            MatTableInfo info = matTables.get(matTableName);
+            synchronized (info) {
+                info.loadingAddress = null;
+            }
+            LogManager.logInfo(LogConstants.CTX_MATVIEWS, QueryPlugin.Util.gs(QueryPlugin.Event.TEIID31310, matTableName, file));
+            return true;
+        } catch (Exception e) {
+            LogManager.logWarning(LogConstants.CTX_MATVIEWS, e, QueryPlugin.Util.gs(QueryPlugin.Event.TEIID31311, matTableName, file));
+            file.delete();
+            return false;
+        }
     }
 
     private void swapTempTable(String tempTableName, TempTable tempTable) {
-        this.tableStore.getTempTables().put(tempTableName, tempTable);
+        TempTable old = this.tableStore.getTempTables().put(tempTableName, tempTable);
+        if (old != null && old != tempTable) {
+            //the replaced table is not removed as there may still be readers
+            old.releaseHashIndexes();
+        }
     }
 
     @Override
@@ -452,6 +716,27 @@ public class GlobalTableStoreImpl implements GlobalTableStore, ReplicatedObject<
         return null;
     }
 
+    @Override
+    public long updateMatViewRows(String matTableName,
+            List<? extends List<?>> tuples) throws TeiidComponentException {
+        TempTable tempTable = tableStore.getTempTable(matTableName);
+        if (tempTable != null) {
+            TempMetadataID id = tableStore.getMetadataStore().getTempGroupID(matTableName);
+            synchronized (id) {
+                boolean clone = tempTable.getActive().get() != 0;
+                if (clone) {
+                    tempTable = tempTable.clone();
+                }
+                long result = tempTable.updateTuples(tuples);
+                if (clone) {
+                    swapTempTable(matTableName, tempTable);
+                }
+                return result;
+            }
+        }
+        return -1;
+    }
+
     public TempTableStore getTempTableStore() {
         return this.tableStore;
     }
@@ -514,6 +799,37 @@ public class GlobalTableStoreImpl implements GlobalTableStore, ReplicatedObject<
         return pkColumns;
     }
 
+    /**
+     * Add the hash indexes for the loaded table.  Code tables are always hash indexed by key,
+     * mat views by the indexes marked with {@link MaterializationMetadataRepository#MATVIEW_HASH_INDEX}
+     */
+    public static void addHashIndexes(QueryMetadataInterface metadata, String tableName, TempTable table)
+            throws TeiidComponentException, TeiidProcessingException {
+        if (tableName.startsWith(TempTableDataManager.CODE_PREFIX)) {
+            table.addHashIndex(table.getColumns().subList(0, table.getPkLength()));
+            return;
+        }
+        List<TempMetadataID> indexes = table.getMetadataId().getIndexes();
+        if (indexes == null) {
+            return;
+        }
+        for (TempMetadataID index : indexes) {
+            if (!Boolean.parseBoolean(metadata.getExtensionProperty(index.getOriginalMetadataID(), MaterializationMetadataRepository.MATVIEW_HASH_INDEX, false))) {
+                continue;
+            }
+            List<ElementSymbol> indexColumns = new ArrayList<ElementSymbol>(index.getElements().size());
+            for (TempMetadataID col : index.getElements()) {
+                for (ElementSymbol es : table.getColumns()) {
+                    if (es.getMetadataID() == col) {
+                        indexColumns.add(es);
+                        break;
+                    }
+                }
+            }
+            table.addHashIndex(indexColumns);
+        }
+    }
+
     //begin replication methods
 
     @Override
@@ -631,6 +947,7 @@ public class GlobalTableStoreImpl implements GlobalTableStore, ReplicatedObject<
         }
         TempTable tempTable = this.createMatTable(stateId, group);
         tempTable.readFrom(ois);
+        addHashIndexes(this.metadata, stateId, tempTable);
         MatTableInfo info = this.getMatTableInfo(stateId);
         synchronized (info) {
             swapTempTable(stateId, tempTable);
@@ -0,0 +1,208 @@
+/*
+ * Copyright Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags and
+ * the COPYRIGHT.txt file distributed with this work.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.teiid.query.tempdata;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.teiid.common.buffer.BufferManager;
+import org.teiid.common.buffer.BufferManager.BufferReserveMode;
+import org.teiid.common.buffer.TupleSource;
+import org.teiid.query.processor.CollectionTupleSource;
+import org.teiid.query.processor.relational.RelationalNode;
+import org.teiid.query.sql.lang.Criteria;
+import org.teiid.query.sql.symbol.ElementSymbol;
+import org.teiid.query.sql.symbol.Expression;
+import org.teiid.query.util.CommandContext;
+
+/**
+ * A hash index over the full rows of a {@link TempTable}, which
+ * allows for equality and IN lookups without traversing the tree.
+ * <br>
+ * The entries are replaced rather than modified, so that readers
+ * do not need to lock.
+ * <br>
+ * The buffer reservation for the rows is held until the last table
+ * sharing the index releases it.
+ */
+class HashIndex implements SearchableTable {
+
+    private List<ElementSymbol> columns;
+    private int[] keyIndexes;
+    private Map<Expression, Integer> columnMap;
+    private ConcurrentHashMap<List<?>, List<List<?>>> rows;
+    private BufferManager bm;
+    private int reserved;
+    private AtomicInteger references = new AtomicInteger(1);
+
+    HashIndex(List<ElementSymbol> columns, Map<Expression, Integer> columnMap, BufferManager bm, int reserved) {
+        this.columns = columns;
+        this.columnMap = columnMap;
+        this.keyIndexes = RelationalNode.getProjectionIndexes(columnMap, columns);
+        this.rows = new ConcurrentHashMap<List<?>, List<List<?>>>();
+        this.bm = bm;
+        this.reserved = reserved;
+    }
+
+    /**
+     * Reserve buffers for the life of an index rather than for the current command
+     */
+    static int reserveBuffers(BufferManager bm, int count, BufferReserveMode mode) {
+        int result = bm.reserveBuffers(count, mode);
+        CommandContext context = CommandContext.getThreadLocalContext();
+        if (context != null) {
+            context.addAndGetReservedBuffers(-result);
+        }
+        return result;
+    }
+
+    /**
+     * Create an unshared copy that holds its own reservation
+     */
+    HashIndex copy() {
+        HashIndex result = new HashIndex(columns, columnMap, bm, reserveBuffers(bm, reserved, BufferReserveMode.FORCE));
+        result.rows.putAll(this.rows);
+        return result;
+    }
+
+    /**
+     * Add a reference from another table
+     */
+    HashIndex share() {
+        references.incrementAndGet();
+        return this;
+    }
+
+    boolean isShared() {
+        return references.get() > 1;
+    }
+
+    /**
+     * Remove a reference.  The reservation is released with the last reference.
+     */
+    void release() {
+        if (references.decrementAndGet() == 0) {
+            bm.releaseOrphanedBuffers(reserved);
+            reserved = 0;
+        }
+    }
+
+    List<ElementSymbol> getColumns() {
+        return columns;
+    }
+
+    void add(List<?> tuple) {
+        List<?> key = RelationalNode.projectTuple(keyIndexes, tuple);
+        List<List<?>> existing = rows.get(key);
+        if (existing == null) {
+            rows.put(key, Collections.<List<?>>singletonList(tuple));
+            return;
+        }
+        List<List<?>> values = new ArrayList<List<?>>(existing.size() + 1);
+        values.addAll(existing);
+        values.add(tuple);
+        rows.put(key, values);
+    }
+
+    void remove(List<?> tuple) {
+        List<?> key = RelationalNode.projectTuple(keyIndexes, tuple);
+        List<List<?>> existing = rows.get(key);
+        if (existing == null) {
+            return;
+        }
+        if (existing.size() == 1) {
+            if (existing.get(0).equals(tuple)) {
+                rows.remove(key);
+            }
+            return;
+        }
+        List<List<?>> values = new ArrayList<List<?>>(existing);
+        values.remove(tuple);
+        rows.put(key, values);
+    }
+
+    /**
+     * Get the key values required by the condition
+     * @return the keys or null if the index cannot be used
+     */
+    List<List<Object>> getKeys(Criteria condition) {
+        BaseIndexInfo<HashIndex> info = new BaseIndexInfo<HashIndex>(this, Collections.<Expression>emptyList(), condition, null, true);
+        if (info.getValueSet().isEmpty()) {
+            return null;
+        }
+        for (List<Object> key : info.getValueSet()) {
+            if (key.size() != columns.size()) {
+                return null;
+            }
+        }
+        return info.getValueSet();
+    }
+
+    /**
+     * Get the full rows matching the keys
+     */
+    TupleSource lookup(List<List<Object>> keys) {
+        if (keys.size() == 1) {
+            List<List<?>> values = rows.get(keys.get(0));
+            if (values == null) {
+                values = Collections.emptyList();
+            }
+            return new CollectionTupleSource(values.iterator());
+        }
+        List<List<?>> result = new ArrayList<List<?>>();
+        for (List<Object> key : keys) {
+            List<List<?>> values = rows.get(key);
+            if (values != null) {
+                result.addAll(values);
+            }
+        }
+        return new CollectionTupleSource(result.iterator());
+    }
+
+    @Override
+    public Map<Expression, Integer> getColumnMap() {
+        return columnMap;
+    }
+
+    @Override
+    public int getPkLength() {
+        return columns.size();
+    }
+
+    @Override
+    public Object matchesPkColumn(int pkIndex, Expression ex) {
+        return columns.get(pkIndex).equals(ex);
+    }
+
+    @Override
+    public boolean supportsOrdering(int pkIndex, Expression ex) {
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return "hash index " + columns + " " + Arrays.toString(keyIndexes); //$NON-NLS-1$ //$NON-NLS-2$
+    }
+
+}
@@ -211,9 +211,9 @@ public class TempTable implements Cloneable, SearchableTable {
         private final boolean project;
         private final int[] indexes;
         private int reserved;
-        private TupleBrowser browser;
+        private TupleSource browser;
 
-        private QueryTupleSource(TupleBrowser browser, Map map,
+        private QueryTupleSource(TupleSource browser, Map map,
                 List<? extends Expression> projectedCols, Criteria condition) {
             this.browser = browser;
             this.indexes = RelationalNode.getProjectionIndexes(map, projectedCols);
@@ -293,6 +293,16 @@ public class TempTable implements Cloneable, SearchableTable {
             lock.writeLock().lock();
             boolean success = false;
             try {
+                if (snapshotRequested) {
+                    //readers were recently blocked by a write, allow them to proceed against the prior state
+                    snapshotRequested = false;
+                    readSnapshot = createReadSnapshot();
+                }
+                if (hashIndexes != null) {
+                    //hash indexes are only maintained for row level updates
+                    LogManager.logDetail(LogConstants.CTX_DQP, "Dropping the hash indexes on", tid.getID()); //$NON-NLS-1$
+                    releaseHashIndexes();
+                }
                 while (currentTuple != null || (currentTuple = ts.nextTuple()) != null) {
                     if (crit == null || eval.evaluate(crit, currentTuple)) {
                         tuplePassed(currentTuple);
@@ -326,6 +336,7 @@ public class TempTable implements Cloneable, SearchableTable {
                     }
                 } finally {
                     bm.releaseBuffers(reserved);
+                    readSnapshot = null;
                     lock.writeLock().unlock();
                     close();
                 }
@@ -368,8 +379,21 @@ public class TempTable implements Cloneable, SearchableTable {
     private String sessionID;
     private TempMetadataID tid;
     private ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    /**
+     * Held for read while copying from a snapshot and for write when the
+     * storage shared with the snapshots may be removed.
+     */
+    private ReentrantReadWriteLock removeLock = new ReentrantReadWriteLock();
+    private volatile TempTable readSnapshot;
+    private volatile boolean snapshotRequested;
+    private boolean isReadSnapshot;
+    private boolean snapshotReads;
     private boolean updatable = true;
     private LinkedHashMap<List<ElementSymbol>, TempTable> indexTables;
+    /**
+     * Copy on write, so that readers may use the list without locking
+     */
+    private volatile List<HashIndex> hashIndexes;
 
     private int keyBatchSize;
     private int leafBatchSize;
@@ -442,19 +466,33 @@ public class TempTable implements Cloneable, SearchableTable {
     public TempTable clone() {
         lock.readLock().lock();
         try {
-            TempTable clone = (TempTable) super.clone();
-            clone.lock = new ReentrantReadWriteLock();
-            if (clone.indexTables != null) {
-                clone.indexTables = new LinkedHashMap<List<ElementSymbol>, TempTable>(clone.indexTables);
-                for (Map.Entry<List<ElementSymbol>, TempTable> entry : clone.indexTables.entrySet()) {
-                    TempTable indexClone = entry.getValue().clone();
-                    indexClone.lock = clone.lock;
-                    entry.setValue(indexClone);
+            //page cloning updates the tracking state of this tree, so only one clone at a time
+            synchronized (this) {
+                TempTable clone = (TempTable) super.clone();
+                clone.lock = new ReentrantReadWriteLock();
+                clone.removeLock = new ReentrantReadWriteLock();
+                clone.readSnapshot = null;
+                clone.snapshotRequested = false;
+                clone.isReadSnapshot = false;
+                if (clone.hashIndexes != null) {
+                    //copied on the next modification
+                    for (HashIndex index : clone.hashIndexes) {
+                        index.share();
+                    }
+                }
+                if (clone.indexTables != null) {
+                    clone.indexTables = new LinkedHashMap<List<ElementSymbol>, TempTable>(clone.indexTables);
+                    for (Map.Entry<List<ElementSymbol>, TempTable> entry : clone.indexTables.entrySet()) {
+                        TempTable indexClone = entry.getValue().clone();
+                        indexClone.lock = clone.lock;
+                        indexClone.removeLock = clone.removeLock;
+                        entry.setValue(indexClone);
+                    }
                 }
+                clone.tree = tree.clone();
+                clone.activeReaders = new AtomicInteger();
+                return clone;
             }
-            clone.tree = tree.clone();
-            clone.activeReaders = new AtomicInteger();
-            return clone;
         } catch (CloneNotSupportedException e) {
              throw new TeiidRuntimeException(e);
         } finally {
@@ -462,6 +500,20 @@ public class TempTable implements Cloneable, SearchableTable {
         }
     }
 
+    /**
+     * Create a read only copy of the table.  The copy shares the pages with this table,
+     * which will be copied on write.
+     * Should be called holding the lock.
+     */
+    private TempTable createReadSnapshot() {
+        TempTable result = clone();
+        result.isReadSnapshot = true;
+        result.allowImplicitIndexing = false;
+        //snapshots are short lived and discarded without being removed
+        result.releaseHashIndexes();
+        return result;
+    }
+
     public AtomicInteger getActive() {
         return activeReaders;
     }
@@ -478,6 +530,102 @@ public class TempTable implements Cloneable, SearchableTable {
         indexTable.getTree().compact();
     }
 
+    /**
+     * Add an on heap hash index for equality and in lookups against the given columns.
+     * The index will not be created if the columns are not hashable or if the buffer manager
+     * does not have room for the rows.
+     * @return true if the index exists
+     */
+    boolean addHashIndex(List<ElementSymbol> indexColumns) throws TeiidComponentException, TeiidProcessingException {
+        List<HashIndex> existing = hashIndexes;
+        if (existing != null) {
+            for (HashIndex index : existing) {
+                if (index.getColumns().equals(indexColumns)) {
+                    return true;
+                }
+            }
+        }
+        for (ElementSymbol es : indexColumns) {
+            if (!DataTypeManager.isHashable(es.getType())) {
+                LogManager.logDetail(LogConstants.CTX_DQP, "Not creating a hash index on", tid.getID(), indexColumns, "since the columns are not hashable"); //$NON-NLS-1$ //$NON-NLS-2$
+                return false;
+            }
+        }
+        //the rows will be held on heap, so reserve room for them for the life of the index
+        long estimate = Math.max(1, tree.getRowCount() / bm.getProcessorBatchSize(columns)) * leafBatchSize;
+        int toReserve = (int)Math.min(Integer.MAX_VALUE, estimate);
+        int reserved = HashIndex.reserveBuffers(bm, toReserve, BufferReserveMode.NO_WAIT);
+        HashIndex index = new HashIndex(indexColumns, columnMap, bm, reserved);
+        if (reserved < toReserve) {
+            index.release();
+            LogManager.logDetail(LogConstants.CTX_DQP, "Not creating a hash index on", tid.getID(), indexColumns, "since there are not enough buffers available"); //$NON-NLS-1$ //$NON-NLS-2$
+            return false;
+        }
+        TupleBrowser browser = new TupleBrowser(tree, null, null, OrderBy.ASC, true);
+        List<?> next = null;
+        boolean success = false;
+        try {
+            while ((next = browser.nextTuple()) != null) {
+                index.add(next);
+            }
+            success = true;
+        } finally {
+            browser.closeSource();
+            if (!success) {
+                index.release();
+            }
+        }
+        synchronized (this) {
+            existing = hashIndexes;
+            List<HashIndex> updated = new ArrayList<HashIndex>(existing == null ? 1 : existing.size() + 1);
+            if (existing != null) {
+                updated.addAll(existing);
+            }
+            updated.add(index);
+            hashIndexes = updated;
+        }
+        return true;
+    }
+
+    /**
+     * Get the hash indexes, copying any that are shared with a clone
+     */
+    private synchronized List<HashIndex> getHashIndexesForUpdate() {
+        List<HashIndex> current = hashIndexes;
+        if (current == null) {
+            return Collections.emptyList();
+        }
+        List<HashIndex> copy = new ArrayList<HashIndex>(current.size());
+        boolean shared = false;
+        for (HashIndex index : current) {
+            if (index.isShared()) {
+                shared = true;
+                copy.add(index.copy());
+                index.release();
+            } else {
+                copy.add(index);
+            }
+        }
+        if (!shared) {
+            return current;
+        }
+        hashIndexes = copy;
+        return copy;
+    }
+
+    /**
+     * Drop the hash indexes and release their reservations
+     */
+    synchronized void releaseHashIndexes() {
+        List<HashIndex> current = hashIndexes;
+        hashIndexes = null;
+        if (current != null) {
+            for (HashIndex index : current) {
+                index.release();
+            }
+        }
+    }
+
     private TempTable createIndexTable(List<ElementSymbol> indexColumns,
             boolean unique) {
         List<ElementSymbol> allColumns = new ArrayList<ElementSymbol>(indexColumns);
@@ -489,6 +637,7 @@ public class TempTable implements Cloneable, SearchableTable {
         TempTable indexTable = new TempTable(new TempMetadataID("idx", Collections.EMPTY_LIST), this.bm, allColumns, allColumns.size(), this.sessionID); //$NON-NLS-1$
         indexTable.setPreferMemory(this.tree.isPreferMemory());
         indexTable.lock = this.lock;
+        indexTable.removeLock = this.removeLock;
         if (unique) {
             indexTable.uniqueColIndex = indexColumns.size();
         }
@@ -505,6 +654,26 @@ public class TempTable implements Cloneable, SearchableTable {
     }
 
     public TupleSource createTupleSource(final List<? extends Expression> projectedCols, final Criteria condition, OrderBy orderBy) throws TeiidComponentException, TeiidProcessingException {
+        if (snapshotReads && updatable && !isReadSnapshot) {
+            //read from the snapshot of an active write so that we don't block on the writer
+            //the results are fully copied prior to returning, so that the shared pages cannot be removed while in use
+            removeLock.readLock().lock();
+            try {
+                TempTable snapshot = readSnapshot;
+                if (snapshot != null) {
+                    snapshotRequested = true;
+                    return snapshot.createTupleSource(projectedCols, condition, orderBy);
+                }
+            } finally {
+                removeLock.readLock().unlock();
+            }
+            if (lock.readLock().tryLock()) {
+                lock.readLock().unlock();
+            } else {
+                //blocked by a writer, so have the next write retain the prior state for readers
+                snapshotRequested = true;
+            }
+        }
         //special handling for count(*)
         boolean agg = false;
         for (Expression singleElementSymbol : projectedCols) {
@@ -520,6 +689,16 @@ public class TempTable implements Cloneable, SearchableTable {
             }
             orderBy = null;
         }
+        List<HashIndex> indexes = hashIndexes;
+        if (indexes != null && condition != null) {
+            for (HashIndex index : indexes) {
+                List<List<Object>> keys = index.getKeys(condition);
+                if (keys != null) {
+                    LogManager.logDetail(LogConstants.CTX_DQP, "Using", index, "for query", projectedCols, condition); //$NON-NLS-1$ //$NON-NLS-2$
+                    return createTupleSource(projectedCols, condition, orderBy, index.lookup(keys), false, agg);
+                }
+            }
+        }
         IndexInfo primary = new IndexInfo(this, projectedCols, condition, orderBy, true);
         IndexInfo ii = primary;
         if ((indexTables != null || (!this.updatable && allowImplicitIndexing && condition != null && this.getRowCount() > 2*this.getTree().getPageSize(true))) && (condition != null || orderBy != null) && ii.valueSet.size() != 1) {
@@ -624,13 +803,20 @@ public class TempTable implements Cloneable, SearchableTable {
             final Criteria condition, OrderBy orderBy, IndexInfo ii, boolean agg)
             throws TeiidComponentException, TeiidProcessingException {
         TupleBrowser browser = ii.createTupleBrowser(bm.getOptions().getDefaultNullOrder(), true);
-        TupleSource ts = new QueryTupleSource(browser, columnMap, agg?getColumns():projectedCols, condition);
+        return createTupleSource(projectedCols, condition, orderBy, browser, ii.ordering != null, agg);
+    }
+
+    private TupleSource createTupleSource(
+            final List<? extends Expression> projectedCols,
+            final Criteria condition, OrderBy orderBy, TupleSource rows, boolean ordered, boolean agg)
+            throws TeiidComponentException, TeiidProcessingException {
+        TupleSource ts = new QueryTupleSource(rows, columnMap, agg?getColumns():projectedCols, condition);
 
         boolean usingQueryTupleSource = false;
         boolean success = false;
         TupleBuffer tb = null;
         try {
-            if (ii.ordering == null && orderBy != null) {
+            if (!ordered && orderBy != null) {
                 SortUtility sort = new SortUtility(ts, orderBy.getOrderByItems(), Mode.SORT, bm, sessionID, projectedCols);
                 sort.setNonBlocking(true);
                 tb = sort.sort();
@@ -716,13 +902,29 @@ public class TempTable implements Cloneable, SearchableTable {
     }
 
     public long truncate(boolean force) {
-        this.tid.getTableData().dataModified(tree.getRowCount());
-        return tree.truncate(force);
+        if (force) {
+            removeLock.writeLock().lock();
+        }
+        lock.writeLock().lock();
+        try {
+            this.tid.getTableData().dataModified(tree.getRowCount());
+            readSnapshot = null;
+            releaseHashIndexes();
+            return tree.truncate(force);
+        } finally {
+            lock.writeLock().unlock();
+            if (force) {
+                removeLock.writeLock().unlock();
+            }
+        }
     }
 
     public void remove() {
+        removeLock.writeLock().lock();
         lock.writeLock().lock();
         try {
+            readSnapshot = null;
+            releaseHashIndexes();
             tid.getTableData().removed();
             tree.remove();
             if (this.indexTables != null) {
@@ -732,6 +934,21 @@ public class TempTable implements Cloneable, SearchableTable {
             }
         } finally {
             lock.writeLock().unlock();
+            removeLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Clear the copy on write state of the pages.  Any snapshot is discarded
+     * as the pages may then be modified in place.
+     */
+    void clearClonedFlags() {
+        removeLock.writeLock().lock();
+        try {
+            readSnapshot = null;
+            tree.clearClonedFlags();
+        } finally {
+            removeLock.writeLock().unlock();
         }
     }
 
@@ -760,6 +977,24 @@ public class TempTable implements Cloneable, SearchableTable {
         return columns.get(pkIndex).equals(ex);
     }
 
+    /**
+     * @return true if the primary key or a secondary index leads with the column,
+     * so that ordering by the column does not require a sort
+     */
+    public boolean hasIndexOn(ElementSymbol column) {
+        if (Boolean.TRUE.equals(matchesPkColumn(0, column))) {
+            return true;
+        }
+        if (indexTables != null) {
+            for (TempTable indexTable : indexTables.values()) {
+                if (Boolean.TRUE.equals(indexTable.matchesPkColumn(0, column))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
     @Override
     public boolean supportsOrdering(int pkIndex, Expression ex) {
         //all indexes are currently ordered
@@ -971,25 +1206,71 @@ public class TempTable implements Cloneable, SearchableTable {
                 }
                 if (indexTables != null) {
                     for (TempTable index : this.indexTables.values()) {
-                        tuple = RelationalNode.projectTuple(RelationalNode.getProjectionIndexes(index.getColumnMap(), index.columns), result);
-                        index.tree.remove(tuple);
+                        index.tree.remove(projectIndexTuple(index, result));
+                    }
+                }
+                if (hashIndexes != null) {
+                    for (HashIndex index : getHashIndexesForUpdate()) {
+                        index.remove(result);
                     }
                 }
                 tid.getTableData().dataModified(1);
                 return result;
             }
-            List<?> result = tree.insert(tuple, InsertMode.UPDATE, -1);
-            if (indexTables != null) {
-                for (TempTable index : this.indexTables.values()) {
-                    tuple = RelationalNode.projectTuple(RelationalNode.getProjectionIndexes(index.getColumnMap(), index.columns), tuple);
-                    index.tree.insert(tuple, InsertMode.UPDATE, -1);
-                }
-            }
+            List<?> result = upsertTuple(tuple);
             tid.getTableData().dataModified(1);
             return result;
         } finally {
+            readSnapshot = null;
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Insert or replace each of the tuples by primary key
+     * @return the number of tuples that replaced an existing row
+     */
+    long updateTuples(List<? extends List<?>> tuples) throws TeiidComponentException {
+        long updated = 0;
+        try {
+            lock.writeLock().lock();
+            for (List<?> tuple : tuples) {
+                if (upsertTuple(tuple) != null) {
+                    updated++;
+                }
+            }
+            tid.getTableData().dataModified(tuples.size());
+        } finally {
+            readSnapshot = null;
             lock.writeLock().unlock();
         }
+        return updated;
+    }
+
+    private List<?> upsertTuple(List<?> tuple) throws TeiidComponentException {
+        List<?> result = tree.insert(tuple, InsertMode.UPDATE, -1);
+        if (indexTables != null) {
+            for (TempTable index : this.indexTables.values()) {
+                if (result != null) {
+                    //the indexed values may have changed
+                    index.tree.remove(projectIndexTuple(index, result));
+                }
+                index.tree.insert(projectIndexTuple(index, tuple), InsertMode.UPDATE, -1);
+            }
+        }
+        if (hashIndexes != null) {
+            for (HashIndex index : getHashIndexesForUpdate()) {
+                if (result != null) {
+                    index.remove(result);
+                }
+                index.add(tuple);
+            }
+        }
+        return result;
+    }
+
+    private List<?> projectIndexTuple(TempTable index, List<?> tuple) {
+        return RelationalNode.projectTuple(RelationalNode.getProjectionIndexes(this.columnMap, index.columns), tuple);
     }
 
     private void updateTuple(List<?> tuple) throws TeiidComponentException {
@@ -1002,6 +1283,14 @@ public class TempTable implements Cloneable, SearchableTable {
         this.tree.setPreferMemory(preferMemory);
     }
 
+    /**
+     * Allow reads of an updatable table to use a copy on write snapshot when
+     * blocked by a write.  Should only be used for tables shared across sessions.
+     */
+    void setSnapshotReads(boolean snapshotReads) {
+        this.snapshotReads = snapshotReads;
+    }
+
     void setUpdatable(boolean updatable) {
         this.updatable = updatable;
         if (this.indexTables != null) {
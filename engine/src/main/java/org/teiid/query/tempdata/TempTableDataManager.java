@@ -18,6 +18,7 @@
 
 package org.teiid.query.tempdata;
 
+import java.math.BigInteger;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -62,11 +63,13 @@ import org.teiid.logging.LogManager;
 import org.teiid.metadata.FunctionMethod.Determinism;
 import org.teiid.query.QueryPlugin;
 import org.teiid.query.eval.Evaluator;
+import org.teiid.query.metadata.MaterializationMetadataRepository;
 import org.teiid.query.metadata.QueryMetadataInterface;
 import org.teiid.query.metadata.TempMetadataAdapter;
 import org.teiid.query.metadata.TempMetadataID;
 import org.teiid.query.optimizer.relational.RelationalPlanner;
 import org.teiid.query.parser.ParseInfo;
+import org.teiid.query.parser.QueryParser;
 import org.teiid.query.processor.BatchCollector;
 import org.teiid.query.processor.CollectionTupleSource;
 import org.teiid.query.processor.ProcessorDataManager;
@@ -92,6 +95,8 @@ import org.teiid.translator.CacheDirective.Scope;
 public class TempTableDataManager implements ProcessorDataManager {
 
     private static final int MIN_ASYNCH_SIZE = 1<<15;
+    private static final int DELTA_BATCH_SIZE = 1<<10;
+    private static final int DEFAULT_PARTITION_COUNT = 4;
 
     public interface RequestExecutor {
         void execute(String command, List<?> parameters);
@@ -357,6 +362,13 @@ public class TempTableDataManager implements ProcessorDataManager {
             if (!needsLoading) {
                 return CollectionTupleSource.createUpdateCountTupleSource(-1);
             }
+            String incrementalColumn = metadata.getExtensionProperty(groupID, MaterializationMetadataRepository.MATVIEW_INCREMENTAL_COLUMN, false);
+            if (incrementalColumn != null && !invalidate && globalStore.getMatTableInfo(matTableName).isValid()) {
+                TupleSource result = loadGlobalTableDelta(context, groupID, matViewName, matTableName, globalStore, incrementalColumn);
+                if (result != null) {
+                    return result;
+                }
+            }
             GroupSymbol matTable = new GroupSymbol(matTableName);
             matTable.setMetadataID(matTableId);
             return loadGlobalTable(context, matTable, matTableName, globalStore);
@@ -511,6 +523,143 @@ public class TempTableDataManager implements ProcessorDataManager {
         };
     }
 
+    /**
+     * Apply only the rows whose incremental column value is at or after the
+     * current maximum value in the loaded table.
+     * @return null if a full load is needed instead
+     */
+    private TupleSource loadGlobalTableDelta(final CommandContext context,
+            final Object groupID, final String matViewName, final String matTableName,
+            final GlobalTableStore globalStore, String incrementalColumn) throws TeiidComponentException, TeiidProcessingException {
+        final QueryMetadataInterface metadata = context.getMetadata();
+        TempTable table = globalStore.getTempTable(matTableName);
+        if (table == null || table.getPkLength() == 0 || table.getColumns().size() != metadata.getElementIDsInGroupID(groupID).size()) {
+            return null;
+        }
+        Object columnId = null;
+        try {
+            columnId = metadata.getElementID(matViewName + ElementSymbol.SEPARATOR + incrementalColumn);
+        } catch (QueryMetadataException e) {
+            throw new QueryProcessingException(QueryPlugin.Event.TEIID31306, e, QueryPlugin.Util.gs(QueryPlugin.Event.TEIID31306, matViewName, incrementalColumn));
+        }
+        if (DataTypeManager.isNonComparable(metadata.getElementRuntimeTypeName(columnId))) {
+            throw new QueryProcessingException(QueryPlugin.Event.TEIID31306, QueryPlugin.Util.gs(QueryPlugin.Event.TEIID31306, matViewName, incrementalColumn));
+        }
+        final String columnName = metadata.getFullName(columnId);
+        ElementSymbol column = table.getColumns().get(metadata.getPosition(columnId) - 1);
+        final Object maxValue = getMaxValue(table, column);
+        if (maxValue == null) {
+            return null;
+        }
+        final String queryString = Reserved.SELECT + " * " + Reserved.FROM + ' ' + matViewName + ' ' + Reserved.WHERE + ' ' + //$NON-NLS-1$
+                columnName + " >= ? " + Reserved.OPTION + ' ' + Reserved.NOCACHE; //$NON-NLS-1$
+
+        return new ProxyTupleSource() {
+            private QueryProcessor qp;
+            private TupleSource ts;
+            private List<List<?>> batch = new ArrayList<List<?>>();
+            private long count;
+            private boolean success;
+            private boolean closed;
+
+            @Override
+            protected TupleSource createTupleSource()
+                    throws TeiidComponentException,
+                    TeiidProcessingException {
+                try {
+                    if (qp == null) {
+                        LogManager.logInfo(LogConstants.CTX_MATVIEWS, QueryPlugin.Util.gs(QueryPlugin.Event.TEIID31307, matTableName, columnName, maxValue));
+                        qp = context.getQueryProcessorFactory().createQueryProcessor(queryString, matViewName.toUpperCase(), context, maxValue);
+                        ts = new BatchCollector.BatchProducerTupleSource(qp);
+                    }
+                    while (true) {
+                        List<?> tuple = ts.nextTuple();
+                        if (tuple != null) {
+                            batch.add(new ArrayList<Object>(tuple)); //ensure the list is serializable
+                            if (batch.size() < DELTA_BATCH_SIZE) {
+                                continue;
+                            }
+                        }
+                        applyBatch();
+                        if (tuple == null) {
+                            break;
+                        }
+                    }
+                    globalStore.deltaLoaded(matTableName);
+                    success = true;
+                    LogManager.logInfo(LogConstants.CTX_MATVIEWS, QueryPlugin.Util.gs(QueryPlugin.Event.TEIID31308, matTableName, count));
+                    return CollectionTupleSource.createUpdateCountTupleSource((int)Math.min(Integer.MAX_VALUE, count));
+                } catch (BlockedException e) {
+                    throw e;
+                } catch (Exception e) {
+                    if (executor == null || !executor.isShutdown()) {
+                        LogManager.logError(LogConstants.CTX_MATVIEWS, e, QueryPlugin.Util.gs(QueryPlugin.Event.TEIID30015, matTableName));
+                    }
+                    closeSource();
+                    rethrow(e);
+                    throw new AssertionError();
+                }
+            }
+
+            private void applyBatch() throws TeiidComponentException {
+                if (batch.isEmpty()) {
+                    return;
+                }
+                globalStore.updateMatViewRows(matTableName, batch);
+                if (eventDistributor != null) {
+                    for (List<?> tuple : batch) {
+                        eventDistributor.updateMatViewRow(context.getVdbName(), context.getVdbVersion(), metadata.getName(metadata.getModelID(groupID)), metadata.getName(groupID), tuple, false);
+                    }
+                }
+                count += batch.size();
+                batch = new ArrayList<List<?>>();
+            }
+
+            @Override
+            public void closeSource() {
+                if (closed) {
+                    return;
+                }
+                closed = true;
+                if (!success) {
+                    globalStore.failedLoad(matTableName);
+                }
+                if (qp != null) {
+                    qp.closeProcessing();
+                }
+                super.closeSource();
+            }
+        };
+    }
+
+    private static Object getMaxValue(TempTable table, ElementSymbol column) throws TeiidComponentException, TeiidProcessingException {
+        //with an index on the column the maximum is the first non-null value in descending order,
+        //otherwise the whole table must be scanned
+        boolean indexed = table.hasIndexOn(column);
+        OrderBy orderBy = null;
+        if (indexed) {
+            orderBy = new OrderBy();
+            orderBy.addVariable(column, OrderBy.DESC);
+        }
+        TupleSource ts = table.createTupleSource(Arrays.asList(column), null, orderBy);
+        Object max = null;
+        try {
+            List<?> tuple = null;
+            while ((tuple = ts.nextTuple()) != null) {
+                Object value = tuple.get(0);
+                if (value != null && (max == null || Constant.COMPARATOR.compare(value, max) > 0)) {
+                    max = value;
+                    if (indexed) {
+                        break;
+                    }
+                }
+            }
+        } finally {
+            ts.closeSource();
+        }
+        return max;
+    }
+
     private Object validateMatView(QueryMetadataInterface metadata,    String viewName) throws TeiidComponentException,
             TeiidProcessingException {
         try {
@@ -716,10 +865,26 @@ public class TempTableDataManager implements ProcessorDataManager {
         final List<ElementSymbol> allColumns = ResolverUtil.resolveElementsInGroup(group, metadata);
         final TempTable table = globalStore.createMatTable(tableName, group);
         table.setUpdatable(false);
+        Object partitionColumnId = null;
+        int partitions = 1;
+        if (tableName.startsWith(RelationalPlanner.MAT_PREFIX)) {
+            String viewName = tableName.substring(RelationalPlanner.MAT_PREFIX.length());
+            Object viewId = metadata.getGroupID(viewName);
+            String partitionColumn = metadata.getExtensionProperty(viewId, MaterializationMetadataRepository.MATVIEW_LOAD_PARTITION_COLUMN, false);
+            if (partitionColumn != null) {
+                partitionColumnId = getPartitionColumn(metadata, viewName, partitionColumn);
+                String count = metadata.getExtensionProperty(viewId, MaterializationMetadataRepository.MATVIEW_LOAD_PARTITIONS, false);
+                partitions = count == null ? DEFAULT_PARTITION_COUNT : Integer.parseInt(count);
+            }
+        }
+        final Object partitionColumn = partitionColumnId;
+        final int partitionCount = partitions;
         return new ProxyTupleSource() {
             TupleSource insertTupleSource;
             boolean success;
             QueryProcessor qp;
+            List<QueryProcessor> partitionProcessors;
+            TupleSource boundsTupleSource;
             boolean closed;
             boolean errored;
 
@@ -731,13 +896,47 @@ public class TempTableDataManager implements ProcessorDataManager {
                     if (insertTupleSource == null) {
                         String fullName = metadata.getFullName(group.getMetadataID());
                         String transformation = metadata.getVirtualPlan(group.getMetadataID()).getQuery();
-                        qp = context.getQueryProcessorFactory().createQueryProcessor(transformation, fullName, context);
-                        insertTupleSource = new BatchCollector.BatchProducerTupleSource(qp);
+                        if (partitionCount > 1 && partitionColumn != null) {
+                            String columnName = metadata.getFullName(partitionColumn);
+                            String viewName = metadata.getFullName(metadata.getGroupIDForElementID(partitionColumn));
+                            if (boundsTupleSource == null) {
+                                String boundsQuery = Reserved.SELECT + ' ' + SQLConstants.NonReserved.MIN + '(' + columnName + "), " + SQLConstants.NonReserved.MAX + '(' + columnName + ") " //$NON-NLS-1$ //$NON-NLS-2$
+                                        + Reserved.FROM + ' ' + viewName + ' ' + Reserved.OPTION + ' ' + Reserved.NOCACHE;
+                                qp = context.getQueryProcessorFactory().createQueryProcessor(boundsQuery, fullName, context);
+                                boundsTupleSource = new BatchCollector.BatchProducerTupleSource(qp);
+                            }
+                            List<?> bounds = boundsTupleSource.nextTuple();
+                            qp.closeProcessing();
+                            qp = null;
+                            partitionProcessors = createPartitionProcessors(context, fullName, transformation, viewName, columnName,
+                                    DataTypeManager.getDataTypeClass(metadata.getElementRuntimeTypeName(partitionColumn)), bounds, partitionCount);
+                        }
+                        if (partitionProcessors == null || partitionProcessors.size() < 2) {
+                            qp = context.getQueryProcessorFactory().createQueryProcessor(transformation, fullName, context);
+                            insertTupleSource = new BatchCollector.BatchProducerTupleSource(qp);
+                        } else {
+                            LogManager.logInfo(LogConstants.CTX_MATVIEWS, QueryPlugin.Util.gs(QueryPlugin.Event.TEIID31313, tableName, partitionProcessors.size(), metadata.getFullName(partitionColumn)));
+                            List<TupleSource> sources = new ArrayList<TupleSource>(partitionProcessors.size());
+                            for (QueryProcessor partitionProcessor : partitionProcessors) {
+                                sources.add(new BatchCollector.BatchProducerTupleSource(partitionProcessor));
+                            }
+                            insertTupleSource = new PartitionedTupleSource(sources);
+                        }
                     }
                     table.insert(insertTupleSource, allColumns, false, false, null);
                     table.getTree().compact();
                     rowCount = table.getRowCount();
-                    Determinism determinism = qp.getContext().getDeterminismLevel();
+                    Determinism determinism = null;
+                    if (qp != null) {
+                        determinism = qp.getContext().getDeterminismLevel();
+                    } else {
+                        for (QueryProcessor partitionProcessor : partitionProcessors) {
+                            Determinism partitionDeterminism = partitionProcessor.getContext().getDeterminismLevel();
+                            if (determinism == null || partitionDeterminism.compareTo(determinism) < 0) {
+                                determinism = partitionDeterminism;
+                            }
+                        }
+                    }
                     context.setDeterminismLevel(determinism);
                     //TODO: could pre-process indexes to remove overlap
                     for (Object index : metadata.getIndexesInGroup(group.getMetadataID())) {
@@ -748,6 +947,7 @@ public class TempTableDataManager implements ProcessorDataManager {
                         List<ElementSymbol> columns = GlobalTableStoreImpl.resolveIndex(metadata, allColumns, key);
                         table.addIndex(columns, true);
                     }
+                    GlobalTableStoreImpl.addHashIndexes(metadata, tableName, table);
                     CacheHint hint = table.getCacheHint();
                     if (hint != null && table.getPkLength() > 0) {
                         table.setUpdatable(hint.isUpdatable(false));
@@ -789,11 +989,141 @@ public class TempTableDataManager implements ProcessorDataManager {
                 if (qp != null) {
                     qp.closeProcessing();
                 }
+                if (partitionProcessors != null) {
+                    for (QueryProcessor partitionProcessor : partitionProcessors) {
+                        partitionProcessor.closeProcessing();
+                    }
+                }
                 super.closeSource();
             }
         };
     }
 
+    private static Object getPartitionColumn(QueryMetadataInterface metadata, String viewName, String partitionColumn)
+            throws TeiidComponentException, QueryProcessingException {
+        Object columnId = null;
+        try {
+            columnId = metadata.getElementID(viewName + ElementSymbol.SEPARATOR + partitionColumn);
+        } catch (QueryMetadataException e) {
+            throw new QueryProcessingException(QueryPlugin.Event.TEIID31312, e, QueryPlugin.Util.gs(QueryPlugin.Event.TEIID31312, viewName, partitionColumn));
+        }
+        Class<?> type = DataTypeManager.getDataTypeClass(metadata.getElementRuntimeTypeName(columnId));
+        if (type != DataTypeManager.DefaultDataClasses.INTEGER && type != DataTypeManager.DefaultDataClasses.LONG
+                && type != DataTypeManager.DefaultDataClasses.SHORT && type != DataTypeManager.DefaultDataClasses.BYTE
+                && type != DataTypeManager.DefaultDataClasses.BIG_INTEGER) {
+            throw new QueryProcessingException(QueryPlugin.Event.TEIID31312, QueryPlugin.Util.gs(QueryPlugin.Event.TEIID31312, viewName, partitionColumn));
+        }
+        return columnId;
+    }
+
+    /**
+     * Split the load query into ranges of the partition column of roughly equal width.
+     * The first range also includes null values.
+     * @return the processors or null if the bounds are not known
+     */
+    private static List<QueryProcessor> createPartitionProcessors(CommandContext context, String fullName, String transformation,
+            String viewName, String columnName, Class<?> type, List<?> bounds, int partitionCount) throws TeiidComponentException, TeiidProcessingException {
+        if (bounds == null || bounds.get(0) == null || bounds.get(1) == null) {
+            return null;
+        }
+        BigInteger min = new BigInteger(bounds.get(0).toString());
+        BigInteger max = new BigInteger(bounds.get(1).toString());
+        BigInteger step = max.subtract(min).divide(BigInteger.valueOf(partitionCount)).add(BigInteger.ONE);
+        List<Object> splits = new ArrayList<Object>(partitionCount - 1);
+        BigInteger split = min.add(step);
+        while (splits.size() < partitionCount - 1 && split.compareTo(max) <= 0) {
+            splits.add(DataTypeManager.transformValue(split, type));
+            split = split.add(step);
+        }
+        if (splits.isEmpty()) {
+            return null;
+        }
+        Command command = QueryParser.getQueryParser().parseCommand(transformation);
+        if (!(command instanceof Query) || ((Query)command).getFrom() == null || ((Query)command).getFrom().getGroups().size() != 1
+                || !((Query)command).getFrom().getGroups().get(0).getName().equalsIgnoreCase(viewName)) {
+            //the view definition, rather than the query against the view used for function based indexes
+            command = QueryParser.getQueryParser().parseCommand(Reserved.SELECT + " * " + Reserved.FROM + ' ' + viewName + ' ' + Reserved.OPTION + ' ' + Reserved.NOCACHE); //$NON-NLS-1$
+        }
+        Query query = (Query)command;
+        ElementSymbol column = new ElementSymbol(columnName);
+        List<QueryProcessor> result = new ArrayList<QueryProcessor>(splits.size() + 1);
+        try {
+            for (int i = 0; i <= splits.size(); i++) {
+                Criteria crit = null;
+                Object[] params = null;
+                if (i == 0) {
+                    crit = new CompoundCriteria(CompoundCriteria.OR, new CompareCriteria(column, CompareCriteria.LT, new Reference(0)), new IsNullCriteria(column));
+                    params = new Object[] {splits.get(0)};
+                } else if (i == splits.size()) {
+                    crit = new CompareCriteria(column, CompareCriteria.GE, new Reference(0));
+                    params = new Object[] {splits.get(i - 1)};
+                } else {
+                    crit = new CompoundCriteria(CompoundCriteria.AND, new CompareCriteria(column, CompareCriteria.GE, new Reference(0)), new CompareCriteria(column, CompareCriteria.LT, new Reference(1)));
+                    params = new Object[] {splits.get(i - 1), splits.get(i)};
+                }
+                Query partition = (Query)query.clone();
+                partition.setCriteria(Criteria.combineCriteria(query.getCriteria(), crit));
+                result.add(context.getQueryProcessorFactory().createQueryProcessor(partition.toString(), fullName, context, params));
+            }
+        } catch (TeiidProcessingException e) {
+            for (QueryProcessor qp : result) {
+                qp.closeProcessing();
+            }
+            throw e;
+        } catch (TeiidComponentException e) {
+            for (QueryProcessor qp : result) {
+                qp.closeProcessing();
+            }
+            throw e;
+        }
+        return result;
+    }
+
+    /**
+     * Reads from the first source that is not blocked, so that the partition
+     * queries are executing concurrently against their sources.
+     */
+    static class PartitionedTupleSource implements TupleSource {
+        private List<TupleSource> sources;
+        private int current;
+
+        PartitionedTupleSource(List<TupleSource> sources) {
+            this.sources = new ArrayList<TupleSource>(sources);
+        }
+
+        @Override
+        public List<?> nextTuple() throws TeiidComponentException,
+                TeiidProcessingException {
+            int blocked = 0;
+            while (!sources.isEmpty()) {
+                if (current >= sources.size()) {
+                    current = 0;
+                }
+                try {
+                    List<?> tuple = sources.get(current).nextTuple();
+                    if (tuple != null) {
+                        return tuple;
+                    }
+                    sources.remove(current).closeSource();
+                } catch (BlockedException e) {
+                    if (++blocked >= sources.size()) {
+                        throw e;
+                    }
+                    current++;
+                }
+            }
+            return null;
+        }
+
+        @Override
+        public void closeSource() {
+            for (TupleSource ts : sources) {
+                ts.closeSource();
+            }
+            sources.clear();
+        }
+    }
+
     public Object lookupCodeValue(CommandContext context, String codeTableName,
             String returnElementName, String keyElementName, Object keyValue)
             throws BlockedException, TeiidComponentException,
@@ -314,7 +314,7 @@ public class TempTableStore {
                 current.retainAll(tables.values());
                 for (TempTable table : current) {
                     table.getActive().set(0);
-                    table.getTree().clearClonedFlags();
+                    table.clearClonedFlags();
                 }
             }
             for (TransactionCallback callback : callbacks) {
@@ -355,6 +355,7 @@ public class TempTableStore {
 
     private HashMap<String, TableProcessor> processors;
     private boolean localScoped;
+    private boolean snapshotReads;
 
     public TempTableStore(String sessionID, TransactionMode transactionMode) {
         this(sessionID, transactionMode, true);
@@ -435,6 +436,7 @@ public class TempTableStore {
         }
         final TempTable tempTable = new TempTable(id, buffer, columns, create.getPrimaryKey().size(), sessionID);
         tempTable.getTree().setSaveTemporaryLobs(!localScoped);
+        tempTable.setSnapshotReads(snapshotReads);
         if (add) {
             tempTables.put(tempTableName, tempTable);
         }
@@ -506,6 +508,14 @@ public class TempTableStore {
         }
     }
 
+    /**
+     * Set if readers of the updatable tables in this store may use a snapshot
+     * rather than waiting on a write.  Intended for tables shared across sessions.
+     */
+    public void setSnapshotReads(boolean snapshotReads) {
+        this.snapshotReads = snapshotReads;
+    }
+
     public void setUpdatable(String name, boolean updatable) {
         TempTable table = tempTables.get(name);
         if (table != null) {
@@ -1219,6 +1219,13 @@ public class CommandContext implements Cloneable, org.teiid.CommandContext {
         return new Timestamp(this.globalState.timestamp);
     }
 
+    /**
+     * @return the time in milliseconds that processing of the user command started
+     */
+    public long getCommandStartTime() {
+        return this.globalState.timestamp;
+    }
+
     public void setCurrentTimestamp(long currentTimeMillis) {
         this.currentTimestamp = currentTimeMillis;
     }
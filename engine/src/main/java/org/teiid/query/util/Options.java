@@ -39,6 +39,15 @@ public class Options {
     public static final String MAX_SESSION_BUFFER_SIZE_ESTIMATE = "org.teiid.maxSessionBufferSizeEstimate"; //$NON-NLS-1$
     public static final String TRACING_WITH_ACTIVE_SPAN_ONLY = "org.teiid.tracingWithActiveSpanOnly"; //$NON-NLS-1$
     public static final String ENFORCE_SINGLE_MAX_BUFFER_SIZE_ESTIMATE = "org.teiid.enforceSingleMaxBufferSizeEstimate"; //$NON-NLS-1$
+    public static final String HASH_JOIN = "org.teiid.hashJoin"; //$NON-NLS-1$
+    public static final String HASH_AGGREGATION = "org.teiid.hashAggregation"; //$NON-NLS-1$
+    public static final String PARALLEL_SORT = "org.teiid.parallelSort"; //$NON-NLS-1$
+    public static final String COLUMNAR_BATCHES = "org.teiid.columnarBatches"; //$NON-NLS-1$
+    public static final String COMPILE_EXPRESSIONS = "org.teiid.compileExpressions"; //$NON-NLS-1$
+    public static final String VECTORIZED_PREDICATES = "org.teiid.vectorizedPredicates"; //$NON-NLS-1$
+    public static final String COMPRESS_RESULTS = "org.teiid.compressResults"; //$NON-NLS-1$
+    public static final String DEPENDENT_JOIN_BLOOM_FILTER_THRESHOLD = "org.teiid.dependentJoinBloomFilterThreshold"; //$NON-NLS-1$
+    public static final String TEXT_TABLE_PARALLELISM = "org.teiid.textTableParallelism"; //$NON-NLS-1$
 
     private Properties properties;
     private boolean subqueryUnnestDefault = false;
@@ -54,6 +63,15 @@ public class Options {
     private boolean tracingWithActiveSpanOnly = true;
     private boolean enforceSingleMaxBufferSizeEstimate = false;
     private boolean relativeXPath = true;
+    private boolean hashJoin;
+    private boolean hashAggregation;
+    private boolean parallelSort;
+    private boolean columnarBatches;
+    private boolean compileExpressions;
+    private boolean vectorizedPredicates;
+    private boolean compressResults;
+    private int dependentJoinBloomFilterThreshold = -1;
+    private int textTableParallelism = 1;
 
     public Properties getProperties() {
         return properties;
@@ -238,4 +256,132 @@ public class Options {
         return this;
     }
 
+    public boolean isHashJoin() {
+        return hashJoin;
+    }
+
+    public void setHashJoin(boolean hashJoin) {
+        this.hashJoin = hashJoin;
+    }
+
+    public Options hashJoin(boolean b) {
+        this.hashJoin = b;
+        return this;
+    }
+
+    public boolean isHashAggregation() {
+        return hashAggregation;
+    }
+
+    public void setHashAggregation(boolean hashAggregation) {
+        this.hashAggregation = hashAggregation;
+    }
+
+    public Options hashAggregation(boolean b) {
+        this.hashAggregation = b;
+        return this;
+    }
+
+    public boolean isParallelSort() {
+        return parallelSort;
+    }
+
+    public void setParallelSort(boolean parallelSort) {
+        this.parallelSort = parallelSort;
+    }
+
+    public Options parallelSort(boolean b) {
+        this.parallelSort = b;
+        return this;
+    }
+
+    public boolean isColumnarBatches() {
+        return columnarBatches;
+    }
+
+    public void setColumnarBatches(boolean columnarBatches) {
+        this.columnarBatches = columnarBatches;
+    }
+
+    public Options columnarBatches(boolean b) {
+        this.columnarBatches = b;
+        return this;
+    }
+
+    public boolean isCompileExpressions() {
+        return compileExpressions;
+    }
+
+    public void setCompileExpressions(boolean compileExpressions) {
+        this.compileExpressions = compileExpressions;
+    }
+
+    public Options compileExpressions(boolean b) {
+        this.compileExpressions = b;
+        return this;
+    }
+
+    public boolean isVectorizedPredicates() {
+        return vectorizedPredicates;
+    }
+
+    public void setVectorizedPredicates(boolean vectorizedPredicates) {
+        this.vectorizedPredicates = vectorizedPredicates;
+    }
+
+    public Options vectorizedPredicates(boolean b) {
+        this.vectorizedPredicates = b;
+        return this;
+    }
+
+    public boolean isCompressResults() {
+        return compressResults;
+    }
+
+    public void setCompressResults(boolean compressResults) {
+        this.compressResults = compressResults;
+    }
+
+    public Options compressResults(boolean b) {
+        this.compressResults = b;
+        return this;
+    }
+
+    /**
+     * @return the number of source queries above which a dependent join will filter with a bloom filter
+     * rather than in predicates, or -1 if bloom filters should not be used
+     */
+    public int getDependentJoinBloomFilterThreshold() {
+        return dependentJoinBloomFilterThreshold;
+    }
+
+    public void setDependentJoinBloomFilterThreshold(
+            int dependentJoinBloomFilterThreshold) {
+        this.dependentJoinBloomFilterThreshold = dependentJoinBloomFilterThreshold;
+    }
+
+    public Options dependentJoinBloomFilterThreshold(int i) {
+        this.dependentJoinBloomFilterThreshold = i;
+        return this;
+    }
+
+    /**
+     * @return the number of byte ranges of a local, newline delimited file that a
+     * text table may parse concurrently, or 1 if the file should be read serially.
+     * Only FIXED WIDTH or NO QUOTE text tables are split, since quoted or escaped
+     * values may span lines.
+     */
+    public int getTextTableParallelism() {
+        return textTableParallelism;
+    }
+
+    public void setTextTableParallelism(int textTableParallelism) {
+        this.textTableParallelism = textTableParallelism;
+    }
+
+    public Options textTableParallelism(int i) {
+        this.textTableParallelism = i;
+        return this;
+    }
+
 }
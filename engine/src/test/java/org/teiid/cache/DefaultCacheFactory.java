@@ -19,6 +19,7 @@ package org.teiid.cache;
 
 import java.io.Serializable;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
 
 import org.teiid.cache.CacheConfiguration.Policy;
@@ -59,6 +60,7 @@ public class DefaultCacheFactory implements CacheFactory, Serializable {
     private static class MockCache<K, V> extends LRUCache<K, V> implements Cache<K, V> {
 
         private String name;
+        private long evictions;
 
         public MockCache(String cacheName, int maxSize) {
             super(maxSize<0?Integer.MAX_VALUE:maxSize);
@@ -84,5 +86,19 @@ public class DefaultCacheFactory implements CacheFactory, Serializable {
         public boolean isTransactional() {
             return false;
         }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+            boolean remove = super.removeEldestEntry(eldest);
+            if (remove) {
+                evictions++;
+            }
+            return remove;
+        }
+
+        @Override
+        public long getEvictionCount() {
+            return evictions;
+        }
     }
 }
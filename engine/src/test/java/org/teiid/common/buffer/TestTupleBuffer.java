@@ -156,4 +156,44 @@ public class TestTupleBuffer {
         assertNotNull(tb.getLobReference(c.getReferenceStreamId()));
     }
 
+    @Test public void testColumnar() throws Exception {
+        ElementSymbol x = new ElementSymbol("x"); //$NON-NLS-1$
+        x.setType(DataTypeManager.DefaultDataClasses.INTEGER);
+        ElementSymbol y = new ElementSymbol("y"); //$NON-NLS-1$
+        y.setType(DataTypeManager.DefaultDataClasses.STRING);
+        ElementSymbol z = new ElementSymbol("z"); //$NON-NLS-1$
+        z.setType(DataTypeManager.DefaultDataClasses.DOUBLE);
+        List<ElementSymbol> schema = Arrays.asList(x, y, z);
+        BufferManager bm = BufferManagerFactory.getStandaloneBufferManager();
+        TupleBuffer tb = bm.createTupleBuffer(schema, "x", TupleSourceType.PROCESSOR); //$NON-NLS-1$
+        tb.setColumnar(true);
+        assertTrue(tb.isColumnar());
+        tb.setBatchSize(2);
+        tb.addTuple(Arrays.asList(1, "a", 1.5)); //$NON-NLS-1$
+        tb.addTuple(Arrays.asList(null, null, null));
+        tb.addTuple(Arrays.asList(3, "c", null)); //$NON-NLS-1$
+        tb.close();
+
+        TupleBatch batch = tb.getBatch(1);
+        ColumnarBatch columnar = batch.getColumnarBatch();
+        assertNotNull(columnar);
+        assertEquals(1, columnar.getInt(0, 0));
+        assertTrue(columnar.isNull(1, 0));
+        assertTrue(columnar.isNull(1, 1));
+        assertEquals(1.5, columnar.getDouble(0, 2), 0);
+        assertEquals(Arrays.asList(1, "a", 1.5), batch.getTuple(1)); //$NON-NLS-1$
+        assertEquals(Arrays.asList(null, null, null), batch.getTuple(2));
+
+        TupleBufferTupleSource ts = tb.createIndexedTupleSource();
+        ts.nextTuple();
+        ts.nextTuple();
+        assertEquals(Arrays.asList(3, "c", null), ts.nextTuple()); //$NON-NLS-1$
+        assertNull(ts.nextTuple());
+
+        //no primitive columns
+        tb = bm.createTupleBuffer(Arrays.asList(y), "x", TupleSourceType.PROCESSOR); //$NON-NLS-1$
+        tb.setColumnar(true);
+        assertFalse(tb.isColumnar());
+    }
+
 }
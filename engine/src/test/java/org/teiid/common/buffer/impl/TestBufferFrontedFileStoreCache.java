@@ -34,6 +34,8 @@ import org.teiid.common.buffer.FileStore;
 import org.teiid.common.buffer.Serializer;
 import org.teiid.common.buffer.StorageManager;
 import org.teiid.core.TeiidComponentException;
+import org.teiid.core.TeiidRuntimeException;
+import org.teiid.core.util.UnitTestUtil;
 
 public class TestBufferFrontedFileStoreCache {
 
@@ -214,6 +216,29 @@ public class TestBufferFrontedFileStoreCache {
         assertEquals(Integer.valueOf(5001), ce.getObject());
     }
 
+    @Test public void testMemoryMappedStorage() throws Exception {
+        BufferFrontedFileStoreCache fsc = new BufferFrontedFileStoreCache();
+        fsc.cleanerRunning.set(true); //prevent async affects
+        fsc.setMemoryBufferSpace(1<<15);
+        fsc.setMaxStorageObjectSize(1<<15);
+        fsc.setDirect(false);
+        fsc.setStorageManager(new SplittableStorageManager(TestMemoryMappedStorageManager.getStorageManager(null)));
+        fsc.initialize();
+        cache = fsc;
+
+        Serializer<Integer> s = new SimpleSerializer();
+        WeakReference<? extends Serializer<?>> ref = new WeakReference<Serializer<?>>(s);
+        cache.createCacheGroup(s.getId());
+        for (int i = 0; i < 3; i++) {
+            add(cache, s, ref, i);
+        }
+        for (int i = 0; i < 3; i++) {
+            CacheEntry ce = get(cache, Long.valueOf(i), s);
+            assertEquals(Integer.valueOf(5000 + i), ce.getObject());
+        }
+        assertTrue(cache.getStorageReads() > 0);
+    }
+
     @Test public void testEvictionFails() throws Exception {
         cache = createLayeredCache(1<<15, 1<<15, false);
         BufferManagerImpl bmi = Mockito.mock(BufferManagerImpl.class);
@@ -239,11 +264,16 @@ public class TestBufferFrontedFileStoreCache {
     }
 
     private static BufferFrontedFileStoreCache createLayeredCache(int bufferSpace, int objectSize, boolean memStorage) throws TeiidComponentException {
-        BufferFrontedFileStoreCache fsc = new BufferFrontedFileStoreCache();
+        return createLayeredCache(bufferSpace, objectSize, memStorage, new BufferFrontedFileStoreCache());
+    }
+
+    private static BufferFrontedFileStoreCache createLayeredCache(int bufferSpace, int objectSize, boolean memStorage, BufferFrontedFileStoreCache fsc) throws TeiidComponentException {
         fsc.cleanerRunning.set(true); //prevent async affects
         fsc.setMemoryBufferSpace(bufferSpace);
         fsc.setMaxStorageObjectSize(objectSize);
-        fsc.setDirect(false);
+        if (fsc.getMemoryMappedDirectory() == null) {
+            fsc.setDirect(false);
+        }
         if (memStorage) {
             SplittableStorageManager ssm = new SplittableStorageManager(new MemoryStorageManager());
             ssm.setMaxFileSizeDirect(MemoryStorageManager.MAX_FILE_SIZE);
@@ -445,6 +475,58 @@ public class TestBufferFrontedFileStoreCache {
         assertEquals(655360, cache.getDiskUsage());
     }
 
+    @Test public void testLargeBlockSize() throws Exception {
+        BufferFrontedFileStoreCache fsc = new BufferFrontedFileStoreCache();
+        fsc.setBlockSize(1 << 16);
+        cache = createLayeredCache(1 << 26, 1 << 26, true, fsc);
+        assertEquals(1 << 16, cache.getBlockSize());
+        assertEquals(1022, cache.getMaxMemoryBlocks());
+
+        Serializer<Integer> s = new SimpleSerializer();
+        WeakReference<? extends Serializer<?>> ref = new WeakReference<Serializer<?>>(s);
+        cache.createCacheGroup(s.getId());
+        //exceeds the direct and indirect blocks
+        CacheEntry ce = new CacheEntry(2L);
+        ce.setSerializer(ref);
+        Integer cacheObject = Integer.valueOf(5000000);
+        ce.setObject(cacheObject);
+        cache.addToCacheGroup(s.getId(), ce.getId());
+        cache.add(ce, s);
+
+        ce = get(cache, 2L, s);
+        assertEquals(cacheObject, ce.getObject());
+        assertEquals(1, cache.getMemoryBufferReads());
+
+        cache.removeCacheGroup(1L);
+
+        assertEquals(0, cache.getDataBlocksInUse());
+        assertEquals(0, cache.getInodesInUse());
+    }
+
+    @Test(expected=TeiidRuntimeException.class) public void testInvalidBlockSize() {
+        new BufferFrontedFileStoreCache().setBlockSize(3000);
+    }
+
+    @Test public void testMemoryMapped() throws Exception {
+        BufferFrontedFileStoreCache fsc = new BufferFrontedFileStoreCache();
+        fsc.setMemoryMappedDirectory(UnitTestUtil.getTestScratchFile("mapped")); //$NON-NLS-1$
+        fsc.getMemoryMappedDirectory().mkdirs();
+        cache = createLayeredCache(1 << 20, 1 << 20, true, fsc);
+
+        Serializer<Integer> s = new SimpleSerializer();
+        WeakReference<? extends Serializer<?>> ref = new WeakReference<Serializer<?>>(s);
+        cache.createCacheGroup(s.getId());
+        for (int i = 0; i < 3; i++) {
+            add(cache, s, ref, i);
+        }
+        for (int i = 0; i < 3; i++) {
+            CacheEntry ce = get(cache, Long.valueOf(i), s);
+            assertEquals(Integer.valueOf(5000 + i), ce.getObject());
+        }
+        assertEquals(3, cache.getMemoryBufferReads());
+        assertEquals(0, cache.getStorageReads());
+    }
+
     @Test public void testLargeMax() throws TeiidComponentException {
         createLayeredCache(1 << 20, 1 << 30, false);
     }
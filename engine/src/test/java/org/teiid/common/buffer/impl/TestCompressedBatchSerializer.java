@@ -0,0 +1,117 @@
+/*
+ * Copyright Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags and
+ * the COPYRIGHT.txt file distributed with this work.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.teiid.common.buffer.impl;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+import org.teiid.client.BatchSerializer;
+import org.teiid.core.types.DataTypeManager;
+import org.teiid.core.util.AccessibleByteArrayOutputStream;
+
+@SuppressWarnings("nls")
+public class TestCompressedBatchSerializer {
+
+    private static final String[] TYPES = new String[] {DataTypeManager.DefaultDataTypes.STRING,
+        DataTypeManager.DefaultDataTypes.LONG, DataTypeManager.DefaultDataTypes.INTEGER,
+        DataTypeManager.DefaultDataTypes.BIG_DECIMAL, DataTypeManager.DefaultDataTypes.STRING};
+
+    private static int helpTestRoundTrip(String[] types, List<List<?>> batch) throws Exception {
+        AccessibleByteArrayOutputStream baos = new AccessibleByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream(baos);
+        CompressedBatchSerializer.writeBatch(out, types, batch);
+        out.close();
+        ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(baos.getBuffer(), 0, baos.getCount()));
+        assertEquals(batch, CompressedBatchSerializer.readBatch(in, types));
+        return baos.getCount();
+    }
+
+    private static int getPlainSize(String[] types, List<List<?>> batch) throws IOException {
+        AccessibleByteArrayOutputStream baos = new AccessibleByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream(baos);
+        BatchSerializer.writeBatch(out, types, batch);
+        out.close();
+        return baos.getCount();
+    }
+
+    private static List<List<?>> getBatch(int rows) {
+        List<List<?>> batch = new ArrayList<List<?>>();
+        for (int i = 0; i < rows; i++) {
+            batch.add(Arrays.asList("status " + (i%3), (long)i*1000, i%7, BigDecimal.valueOf(i, 2), i%5==0?null:"value " + i));
+        }
+        return batch;
+    }
+
+    @Test public void testRoundTrip() throws Exception {
+        List<List<?>> batch = getBatch(512);
+        int size = helpTestRoundTrip(TYPES, batch);
+        assertTrue(size < getPlainSize(TYPES, batch)/2);
+    }
+
+    @Test public void testEncodings() throws Exception {
+        List<List<?>> batch = getBatch(512);
+        AccessibleByteArrayOutputStream baos = new AccessibleByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream(baos);
+        CompressedBatchSerializer.encode(out, TYPES, batch);
+        out.close();
+        ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(baos.getBuffer(), 0, baos.getCount()));
+        assertEquals(512, in.readInt());
+        byte[] encodings = new byte[TYPES.length];
+        in.readFully(encodings);
+        assertArrayEquals(new byte[] {CompressedBatchSerializer.DICTIONARY, CompressedBatchSerializer.DELTA,
+                CompressedBatchSerializer.PLAIN, CompressedBatchSerializer.PLAIN, CompressedBatchSerializer.PLAIN}, encodings);
+    }
+
+    @Test public void testEmptyAndSmall() throws Exception {
+        helpTestRoundTrip(TYPES, new ArrayList<List<?>>());
+        helpTestRoundTrip(TYPES, getBatch(1));
+        helpTestRoundTrip(TYPES, getBatch(2));
+    }
+
+    @Test public void testWideDictionaryAndLargeDeltas() throws Exception {
+        List<List<?>> batch = new ArrayList<List<?>>();
+        for (int i = 0; i < 2000; i++) {
+            batch.add(Arrays.asList(String.valueOf(i/2), i < 1000 ? Long.MIN_VALUE : Long.MAX_VALUE, Integer.MIN_VALUE + i));
+        }
+        helpTestRoundTrip(new String[] {DataTypeManager.DefaultDataTypes.STRING, DataTypeManager.DefaultDataTypes.LONG,
+                DataTypeManager.DefaultDataTypes.INTEGER}, batch);
+    }
+
+    @Test public void testIncompressible() throws Exception {
+        Random r = new Random(1);
+        List<List<?>> batch = new ArrayList<List<?>>();
+        for (int i = 0; i < 100; i++) {
+            byte[] bytes = new byte[100];
+            r.nextBytes(bytes);
+            batch.add(Arrays.asList(new String(bytes, "ISO-8859-1"), r.nextLong()));
+        }
+        helpTestRoundTrip(new String[] {DataTypeManager.DefaultDataTypes.STRING, DataTypeManager.DefaultDataTypes.LONG}, batch);
+    }
+
+}
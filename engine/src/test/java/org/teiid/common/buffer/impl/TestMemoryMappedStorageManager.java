@@ -0,0 +1,166 @@
+/*
+ * Copyright Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags and
+ * the COPYRIGHT.txt file distributed with this work.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.teiid.common.buffer.impl;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+
+import org.junit.Test;
+import org.teiid.common.buffer.ExtensibleBufferedInputStream;
+import org.teiid.common.buffer.FileStore;
+import org.teiid.core.TeiidComponentException;
+import org.teiid.core.util.UnitTestUtil;
+
+@SuppressWarnings("nls")
+public class TestMemoryMappedStorageManager {
+
+    public static MemoryMappedStorageManager getStorageManager(String dir) throws TeiidComponentException {
+        MemoryMappedStorageManager sm = new MemoryMappedStorageManager();
+        sm.setStorageDirectory(UnitTestUtil.getTestScratchPath() + (dir != null ? File.separator + dir : "")); //$NON-NLS-1$
+        sm.initialize();
+        return sm;
+    }
+
+    @Test public void testInitialRead() throws Exception {
+        FileStore store = getStorageManager(null).createFileStore("0");
+        assertEquals(-1, store.read(0, new byte[1], 0, 1));
+        assertNull(store.createInputStream(0, -1).getBuffer());
+    }
+
+    @Test public void testWrite() throws Exception {
+        MemoryMappedStorageManager sm = getStorageManager(null);
+        FileStore store = sm.createFileStore("0");
+        TestFileStorageManager.writeBytes(store);
+        assertEquals(2048, sm.getUsedBufferSpace());
+        byte[] expected = TestFileStorageManager.writeBytes(store, 4096);
+        assertEquals(6144, sm.getUsedBufferSpace());
+
+        byte[] bytesRead = new byte[2048];
+        store.readFully(4096, bytesRead, 0, bytesRead.length);
+        assertArrayEquals(expected, bytesRead);
+
+        store.remove();
+        assertEquals(0, sm.getUsedBufferSpace());
+    }
+
+    @Test public void testInputStreamView() throws Exception {
+        MemoryMappedStorageManager sm = getStorageManager(null);
+        FileStore store = sm.createFileStore("0");
+        long start = MemoryMappedStorageManager.REGION_SIZE - 2048;
+        byte[] expected = TestFileStorageManager.writeBytes(store, start);
+
+        ExtensibleBufferedInputStream is = store.createInputStream(start + 1024, 2048);
+        ByteBuffer bb = is.getBuffer();
+        assertTrue(bb.isDirect());
+        assertEquals(1024, bb.remaining());
+        for (int i = 0; i < 1024; i++) {
+            assertEquals(expected[1024 + i], bb.get());
+        }
+        assertEquals(-1, is.read());
+
+        //the region held by the view is not unmapped or truncated until released
+        is = store.createInputStream(start, -1);
+        bb = is.getBuffer();
+        store.setLength(512);
+        assertEquals(512, store.getLength());
+        assertEquals(MemoryMappedStorageManager.REGION_SIZE, sm.getUsedBufferSpace());
+        assertEquals(expected[0], bb.get());
+        ExtensibleBufferedInputStream truncated = store.createInputStream(0, -1);
+        assertEquals(512, truncated.getBuffer().remaining());
+        truncated.close();
+
+        is.close();
+        assertEquals(512, store.getLength());
+        assertEquals(512, sm.getUsedBufferSpace());
+        store.remove();
+        assertEquals(0, sm.getUsedBufferSpace());
+    }
+
+    @Test public void testPartialRegion() throws Exception {
+        MemoryMappedStorageManager sm = getStorageManager(null);
+        FileStore store = sm.createFileStore("0");
+        byte[] expected = TestFileStorageManager.writeBytes(store, 0);
+
+        //the end of the file is read through the channel
+        ByteBuffer bb = store.createInputStream(1024, 1024).getBuffer();
+        assertFalse(bb.isDirect());
+        assertEquals(1024, bb.remaining());
+        assertEquals(expected[1024], bb.get());
+        store.remove();
+    }
+
+    @Test public void testRegionBoundary() throws Exception {
+        MemoryMappedStorageManager sm = getStorageManager(null);
+        FileStore store = sm.createFileStore("0");
+        long start = MemoryMappedStorageManager.REGION_SIZE - 1024;
+        byte[] expected = TestFileStorageManager.writeBytes(store, start);
+
+        ExtensibleBufferedInputStream is = store.createInputStream(start, -1);
+        assertEquals(1024, is.getBuffer().remaining());
+        byte[] bytesRead = new byte[2048];
+        int n = 0;
+        int read = 0;
+        while ((read = is.read(bytesRead, n, bytesRead.length - n)) != -1) {
+            n += read;
+        }
+        assertArrayEquals(expected, bytesRead);
+        store.remove();
+    }
+
+    @Test public void testSplittable() throws Exception {
+        SplittableStorageManager ssm = new SplittableStorageManager(getStorageManager(null));
+        ssm.setMaxFileSizeDirect(2048);
+        FileStore store = ssm.createFileStore("0");
+        TestFileStorageManager.writeBytes(store);
+        byte[] expected = TestFileStorageManager.writeBytes(store, store.getLength());
+
+        ExtensibleBufferedInputStream is = store.createInputStream(2048 + 1024, -1);
+        ByteBuffer bb = is.getBuffer();
+        assertEquals(1024, bb.remaining());
+        assertEquals(expected[1024], bb.get());
+        bb.position(bb.limit());
+        assertNull(is.getBuffer());
+        store.remove();
+    }
+
+    @Test public void testSplittableStreamClose() throws Exception {
+        MemoryMappedStorageManager sm = getStorageManager(null);
+        SplittableStorageManager ssm = new SplittableStorageManager(sm);
+        ssm.setMaxFileSizeDirect(2 * MemoryMappedStorageManager.REGION_SIZE);
+        FileStore store = ssm.createFileStore("0");
+        long start = MemoryMappedStorageManager.REGION_SIZE - 2048;
+        byte[] expected = TestFileStorageManager.writeBytes(store, start);
+
+        //a partially read stream holds the region until closed
+        ExtensibleBufferedInputStream is = store.createInputStream(start, -1);
+        ByteBuffer bb = is.getBuffer();
+        assertTrue(bb.isDirect());
+        assertEquals(expected[0], bb.get());
+        store.setLength(512);
+        assertEquals(MemoryMappedStorageManager.REGION_SIZE, sm.getUsedBufferSpace());
+
+        is.close();
+        assertEquals(512, sm.getUsedBufferSpace());
+        store.remove();
+        assertEquals(0, sm.getUsedBufferSpace());
+    }
+
+}
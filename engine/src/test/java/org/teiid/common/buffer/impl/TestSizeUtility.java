@@ -31,6 +31,7 @@ import java.util.Arrays;
 import java.util.List;
 
 import org.junit.Test;
+import org.teiid.common.buffer.ColumnarBatch;
 import org.teiid.core.types.BinaryType;
 import org.teiid.core.types.DataTypeManager;
 
@@ -181,6 +182,9 @@ public class TestSizeUtility {
 
         long actualSize = new SizeUtility(types).getBatchSize(false, Arrays.asList(expected));
         assertEquals("Got unexpected size: ", 2667, actualSize); //$NON-NLS-1$
+
+        long columnarSize = new SizeUtility(types).getBatchSize(false, new ColumnarBatch(types, Arrays.asList(expected)));
+        assertEquals("Got unexpected size: ", 1800, columnarSize); //$NON-NLS-1$
     }
 
 }
\ No newline at end of file
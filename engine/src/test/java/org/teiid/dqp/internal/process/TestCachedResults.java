@@ -73,6 +73,8 @@ public class TestCachedResults {
         plan.setContext(cc);
         results.setResults(tb, plan);
         results.setCommand(new Query());
+        assertTrue(results.getSizeEstimate() > 0);
+        assertTrue(results.getCost() >= 0);
         //Cache cache = new DefaultCache("dummy"); //$NON-NLS-1$
         long ts = results.getAccessInfo().getCreationTime();
         // simulate the jboss-cache remote transport, where the batches are remotely looked up
@@ -94,6 +96,7 @@ public class TestCachedResults {
         bm2.distributeTupleBuffer(results.getId(), distributedTb);
 
         assertTrue(cachedResults.restore(bm2));
+        assertEquals(results.getSizeEstimate(), cachedResults.getSizeEstimate());
 
         // since restored, simulate a async cache flush
         //cache.clear();
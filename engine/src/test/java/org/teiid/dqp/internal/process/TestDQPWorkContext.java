@@ -156,5 +156,7 @@ public class TestDQPWorkContext {
     @Test public void testVersion() {
         assertEquals(4, DQPWorkContext.Version.getVersion("11.0").getClientSerializationVersion());
         assertEquals(5, DQPWorkContext.Version.getVersion("11.2").getClientSerializationVersion());
+        assertEquals(5, DQPWorkContext.Version.getVersion("16.03.00").getClientSerializationVersion());
+        assertEquals(6, DQPWorkContext.Version.getVersion("17.00.00-SNAPSHOT").getClientSerializationVersion());
     }
 }
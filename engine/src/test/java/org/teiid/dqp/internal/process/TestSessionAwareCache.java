@@ -25,6 +25,8 @@ import org.junit.Test;
 import org.mockito.Mockito;
 import org.teiid.adminapi.impl.SessionMetadata;
 import org.teiid.cache.Cachable;
+import org.teiid.cache.CacheConfiguration;
+import org.teiid.cache.CacheConfiguration.Policy;
 import org.teiid.cache.DefaultCacheFactory;
 import org.teiid.common.buffer.BufferManager;
 import org.teiid.dqp.internal.process.SessionAwareCache.CacheID;
@@ -218,6 +220,23 @@ public class TestSessionAwareCache {
         assertEquals(0, cache.getTotalCacheEntries());
     }
 
+    @Test public void testEvictionCount() {
+
+        SessionAwareCache<Cachable> cache = new SessionAwareCache<Cachable>("resultset", new DefaultCacheFactory(new CacheConfiguration(Policy.LRU, 60, 2, "x")), SessionAwareCache.Type.RESULTSET, 0);
+
+        DQPWorkContext context = buildWorkContext();
+        Cachable result = Mockito.mock(Cachable.class);
+        Mockito.stub(result.prepare((BufferManager)anyObject())).toReturn(true);
+
+        for (int i = 0; i < 3; i++) {
+            cache.put(new CacheID(context, new ParseInfo(), "SELECT " + i), Determinism.SESSION_DETERMINISTIC, result, null);
+            cache.put(new CacheID(context, new ParseInfo(), "SELECT " + i), Determinism.VDB_DETERMINISTIC, result, null);
+        }
+
+        assertEquals(4, cache.getTotalCacheEntries());
+        assertEquals(2, cache.getEvictionCount());
+    }
+
     public static DQPWorkContext buildWorkContext() {
         DQPWorkContext workContext = new DQPWorkContext();
         SessionMetadata session = new SessionMetadata();
@@ -5016,6 +5016,11 @@ public class TestParser {
             textColumn.setWidth(null);
         }
         helpTest(sql, "SELECT * FROM TEXTTABLE(file COLUMNS x string, y date DELIMITER ',' ESCAPE '\"' HEADER SKIP 10) AS x", query);
+
+        sql = "SELECT * from texttable(file columns x string, y date delimiter ',' no quote header skip 10) as x"; //$NON-NLS-1$
+        tt.setQuote((char)0);
+        tt.setEscape(false);
+        helpTest(sql, "SELECT * FROM TEXTTABLE(file COLUMNS x string, y date DELIMITER ',' NO QUOTE HEADER SKIP 10) AS x", query);
     }
 
     @Test public void testTextTableColumns() throws Exception {
@@ -389,6 +389,31 @@ public class TestAggregateProcessing {
         helpProcess(plan, dataManager, expected);
     }
 
+    @Test public void testHashAggregation() throws Exception {
+        String sql = "select e1, sum(e2) s from pm1.g1 group by e1 order by s, e1"; //$NON-NLS-1$
+
+        List[] expected = new List[] {
+                Arrays.asList(null, 1L),
+                Arrays.asList("c", 1L),
+                Arrays.asList("b", 2L),
+                Arrays.asList("a", 3L),
+        };
+
+        FakeDataManager dataManager = new FakeDataManager();
+        sampleData1(dataManager);
+
+        CommandContext cc = createCommandContext();
+        cc.setOptions(new Options().hashAggregation(true));
+        ProcessorPlan plan = helpGetPlan(helpParse(sql), RealMetadataFactory.example1Cached(), new DefaultCapabilitiesFinder(), cc);
+        assertTrue(plan.getDescriptionProperties().toString().contains("Hash Aggregation")); //$NON-NLS-1$
+
+        helpProcess(plan, cc, dataManager, expected);
+
+        //the grouping order is used by the parent sort
+        plan = helpGetPlan(helpParse("select e1, sum(e2) s from pm1.g1 group by e1 order by e1"), RealMetadataFactory.example1Cached(), new DefaultCapabilitiesFinder(), cc); //$NON-NLS-1$
+        assertFalse(plan.getDescriptionProperties().toString().contains("Hash Aggregation")); //$NON-NLS-1$
+    }
+
     @Test public void testStatsFunctions() {
         String sql = "select stddev_pop(e2), var_samp(e2) from pm1.g1"; //$NON-NLS-1$
 
@@ -1091,6 +1091,30 @@ public class TestDependentJoins {
         TestProcessor.helpProcess(plan, context, dataManager, expected);
     }
 
+    @Test public void testBloomFilter() throws Exception {
+        String sql = "SELECT pm1.g1.e1 FROM pm1.g1 WHERE e1 IN /*+ DJ */ (select e1 from pm2.g1 where e2 < 2) order by pm1.g1.e1"; //$NON-NLS-1$
+
+        List[] expected = new List[] {
+            Arrays.asList("a"), //$NON-NLS-1$
+            Arrays.asList("b"), //$NON-NLS-1$
+        };
+
+        HardcodedDataManager dataManager = new HardcodedDataManager();
+        BasicSourceCapabilities bsc = TestOptimizer.getTypicalCapabilities();
+        bsc.setSourceProperty(Capability.MAX_IN_CRITERIA_SIZE, 1);
+
+        dataManager.addData("SELECT DISTINCT g_0.e1 FROM pm2.g1 AS g_0 WHERE g_0.e2 < 2", Arrays.asList("a"), Arrays.asList("b"), Arrays.asList("c"), Arrays.asList("d"), Arrays.asList("e"));
+        //a single query rather than one per value
+        dataManager.addData("SELECT g_0.e1 AS c_0 FROM pm1.g1 AS g_0 ORDER BY c_0", Arrays.asList((String)null), Arrays.asList("a"), Arrays.asList("b"), Arrays.asList("f"));
+        ProcessorPlan plan = TestProcessor.helpGetPlan(sql, RealMetadataFactory.example1Cached(), new DefaultCapabilitiesFinder(bsc));
+        TestOptimizer.checkDependentJoinCount(plan, 1);
+
+        CommandContext context = createCommandContext();
+        context.getOptions().dependentJoinBloomFilterThreshold(1);
+        TestProcessor.helpProcess(plan, context, dataManager, expected);
+        assertEquals(2, dataManager.getCommandHistory().size());
+    }
+
     @Test public void testDjHintFullPushdown() throws Exception {
         // Create query
         String sql = "SELECT pm1.g1.e1 FROM pm1.g1 WHERE e1 IN /*+ DJ */ (select e1 from pm2.g1 where e2 < 2) order by pm1.g1.e1"; //$NON-NLS-1$
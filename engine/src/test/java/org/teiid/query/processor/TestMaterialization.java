@@ -22,6 +22,7 @@ import static org.junit.Assert.*;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.File;
 import java.util.Arrays;
 import java.util.List;
 
@@ -31,17 +32,27 @@ import org.teiid.cache.DefaultCacheFactory;
 import org.teiid.common.buffer.BufferManager;
 import org.teiid.common.buffer.BufferManagerFactory;
 import org.teiid.core.TeiidProcessingException;
+import org.teiid.core.util.ExecutorUtils;
+import org.teiid.core.util.FileUtils;
+import org.teiid.core.util.ObjectConverterUtil;
+import org.teiid.core.util.UnitTestUtil;
 import org.teiid.dqp.internal.process.CachedResults;
 import org.teiid.dqp.internal.process.QueryProcessorFactoryImpl;
 import org.teiid.dqp.internal.process.SessionAwareCache;
+import org.teiid.metadata.Table;
+import org.teiid.query.metadata.CompositeMetadataStore;
+import org.teiid.query.metadata.SystemMetadata;
 import org.teiid.query.metadata.TempMetadataAdapter;
 import org.teiid.query.metadata.TempMetadataID;
 import org.teiid.query.metadata.TransformationMetadata;
 import org.teiid.query.optimizer.capabilities.CapabilitiesFinder;
 import org.teiid.query.optimizer.capabilities.DefaultCapabilitiesFinder;
 import org.teiid.query.optimizer.relational.RelationalPlanner;
+import org.teiid.query.parser.TestDDLParser;
 import org.teiid.query.tempdata.GlobalTableStoreImpl;
+import org.teiid.query.tempdata.GlobalTableStoreImpl.MatState;
 import org.teiid.query.tempdata.GlobalTableStoreImpl.MatTableInfo;
+import org.teiid.query.tempdata.TempTable;
 import org.teiid.query.tempdata.TempTableDataManager;
 import org.teiid.query.tempdata.TempTableStore;
 import org.teiid.query.tempdata.TempTableStore.TransactionMode;
@@ -180,4 +191,125 @@ public class TestMaterialization {
         assertEquals("SELECT MatView.VGroup2a.*, ucase(x) FROM MatView.VGroup2a option nocache MatView.VGroup2a", id.getQueryNode().getQuery());
     }
 
+    @Test public void testIncrementalRefresh() throws Exception {
+        helpTestIncrementalRefresh("create view v (id integer primary key, val string, ts long) options (materialized true, "
+                + "\"teiid_rel:MATVIEW_INCREMENTAL_COLUMN\" 'ts') as select id, val, ts from src;");
+    }
+
+    /**
+     * The maximum incremental value is read from the index rather than with a scan
+     */
+    @Test public void testIncrementalRefreshIndexed() throws Exception {
+        helpTestIncrementalRefresh("create view v (id integer primary key, val string, ts long, INDEX(ts)) options (materialized true, "
+                + "\"teiid_rel:MATVIEW_INCREMENTAL_COLUMN\" 'ts') as select id, val, ts from src;");
+        TempTable table = globalStore.getTempTable(RelationalPlanner.MAT_PREFIX + "Y.V");
+        assertTrue(table.hasIndexOn(table.getColumns().get(2)));
+        assertFalse(table.hasIndexOn(table.getColumns().get(1)));
+    }
+
+    private void helpTestIncrementalRefresh(String viewDdl) throws Exception {
+        CompositeMetadataStore store = new CompositeMetadataStore(Arrays.asList(SystemMetadata.getInstance().getSystemStore()));
+        store.merge(TestDDLParser.helpParse("create foreign table src (id integer primary key, val string, ts long);", "x").asMetadataStore());
+        store.merge(TestDDLParser.helpParse(viewDdl, "y").asMetadataStore());
+        TransformationMetadata actualMetadata = RealMetadataFactory.createTransformationMetadata(store, "vdb");
+        globalStore = new GlobalTableStoreImpl(BufferManagerFactory.getStandaloneBufferManager(), actualMetadata.getVdbMetaData(), actualMetadata);
+        metadata = new TempMetadataAdapter(actualMetadata, tempStore.getMetadataStore());
+        hdm.addData("SELECT x.src.id, x.src.val, x.src.ts FROM x.src", Arrays.asList(1, "a", 1L), Arrays.asList(2, "b", 2L));
+        execute("SELECT * from v order by id", Arrays.asList(1, "a", 1L), Arrays.asList(2, "b", 2L));
+
+        //the criteria is not pushed with the default capabilities
+        hdm.addData("SELECT x.src.ts, x.src.id, x.src.val FROM x.src", Arrays.asList(1L, 1, "a"), Arrays.asList(3L, 2, "c"), Arrays.asList(3L, 3, "d"));
+        execute("call sysadmin.refreshMatView('y.v', false)", Arrays.asList(2));
+        execute("SELECT * from v order by id", Arrays.asList(1, "a", 1L), Arrays.asList(2, "c", 3L), Arrays.asList(3, "d", 3L));
+        assertEquals(2, hdm.getCommandHistory().size());
+        assertEquals(MatState.LOADED, globalStore.getMatTableInfo(RelationalPlanner.MAT_PREFIX + "Y.V").getState());
+
+        //invalidating performs a full load
+        execute("call sysadmin.refreshMatView('y.v', true)", Arrays.asList(2));
+        assertEquals(3, hdm.getCommandHistory().size());
+    }
+
+    @Test public void testPartitionedLoad() throws Exception {
+        CompositeMetadataStore store = new CompositeMetadataStore(Arrays.asList(SystemMetadata.getInstance().getSystemStore()));
+        store.merge(TestDDLParser.helpParse("create foreign table src (id integer primary key, val string);", "x").asMetadataStore());
+        store.merge(TestDDLParser.helpParse("create view v (id integer primary key, val string) options (materialized true, "
+                + "\"teiid_rel:MATVIEW_LOAD_PARTITION_COLUMN\" 'id', \"teiid_rel:MATVIEW_LOAD_PARTITIONS\" '3') as select id, val from src;", "y").asMetadataStore());
+        TransformationMetadata actualMetadata = RealMetadataFactory.createTransformationMetadata(store, "vdb");
+        globalStore = new GlobalTableStoreImpl(BufferManagerFactory.getStandaloneBufferManager(), actualMetadata.getVdbMetaData(), actualMetadata);
+        metadata = new TempMetadataAdapter(actualMetadata, tempStore.getMetadataStore());
+        //neither the aggregates nor the criteria are pushed with the default capabilities
+        hdm.addData("SELECT x.src.id FROM x.src", Arrays.asList(1), Arrays.asList(5), Arrays.asList(9), Arrays.asList((Integer)null));
+        hdm.addData("SELECT x.src.id, x.src.val FROM x.src", Arrays.asList(1, "a"), Arrays.asList(5, "b"), Arrays.asList(9, "c"), Arrays.asList(null, "d"));
+        execute("SELECT * from v order by id", Arrays.asList(null, "d"), Arrays.asList(1, "a"), Arrays.asList(5, "b"), Arrays.asList(9, "c"));
+        //the bounds query and a query for each partition
+        assertEquals(4, hdm.getCommandHistory().size());
+    }
+
+    @Test(expected=TeiidProcessingException.class) public void testPartitionedLoadInvalidColumn() throws Exception {
+        CompositeMetadataStore store = new CompositeMetadataStore(Arrays.asList(SystemMetadata.getInstance().getSystemStore()));
+        store.merge(TestDDLParser.helpParse("create foreign table src (id integer primary key, val string);", "x").asMetadataStore());
+        store.merge(TestDDLParser.helpParse("create view v (id integer primary key, val string) options (materialized true, "
+                + "\"teiid_rel:MATVIEW_LOAD_PARTITION_COLUMN\" 'val') as select id, val from src;", "y").asMetadataStore());
+        TransformationMetadata actualMetadata = RealMetadataFactory.createTransformationMetadata(store, "vdb");
+        globalStore = new GlobalTableStoreImpl(BufferManagerFactory.getStandaloneBufferManager(), actualMetadata.getVdbMetaData(), actualMetadata);
+        metadata = new TempMetadataAdapter(actualMetadata, tempStore.getMetadataStore());
+        execute("SELECT * from v");
+    }
+
+    @Test public void testHashIndex() throws Exception {
+        CompositeMetadataStore store = new CompositeMetadataStore(Arrays.asList(SystemMetadata.getInstance().getSystemStore()));
+        store.merge(TestDDLParser.helpParse("create foreign table src (id integer primary key, val string);", "x").asMetadataStore());
+        store.merge(TestDDLParser.helpParse("create view v (id integer primary key, val string, INDEX(val) OPTIONS (\"teiid_rel:MATVIEW_HASH_INDEX\" 'true')) "
+                + "options (materialized true) as select id, val from src;", "y").asMetadataStore());
+        TransformationMetadata actualMetadata = RealMetadataFactory.createTransformationMetadata(store, "vdb");
+        globalStore = new GlobalTableStoreImpl(BufferManagerFactory.getStandaloneBufferManager(), actualMetadata.getVdbMetaData(), actualMetadata);
+        metadata = new TempMetadataAdapter(actualMetadata, tempStore.getMetadataStore());
+        hdm.addData("SELECT x.src.id, x.src.val FROM x.src", Arrays.asList(1, "a"), Arrays.asList(5, "b"), Arrays.asList(9, "a"), Arrays.asList(null, "d"));
+        execute("SELECT id from v where val = 'a' order by id", Arrays.asList(1), Arrays.asList(9));
+        execute("SELECT id from v where val in ('b', 'd', 'e') order by id", Arrays.asList((Integer)null), Arrays.asList(5));
+        execute("SELECT id from v where val = 'a' and id > 1", Arrays.asList(9));
+        assertEquals(1, hdm.getCommandHistory().size());
+    }
+
+    @Test public void testSnapshot() throws Exception {
+        File dir = UnitTestUtil.getTestScratchFile("snapshots");
+        FileUtils.removeDirectoryAndChildren(dir);
+        globalStore.setSnapshotDirectory(dir);
+        globalStore.setSnapshotExecutor(ExecutorUtils.getDirectExecutor());
+        execute("SELECT * from vgroup3 where x = 'one'", Arrays.asList("one", "zne"));
+        assertEquals(1, hdm.getCommandHistory().size());
+
+        //a new store should use the snapshot rather than the source
+        TransformationMetadata actualMetadata = RealMetadataFactory.exampleMaterializedView();
+        globalStore = new GlobalTableStoreImpl(BufferManagerFactory.getStandaloneBufferManager(), actualMetadata.getVdbMetaData(), actualMetadata);
+        globalStore.setSnapshotDirectory(dir);
+        globalStore.setSnapshotExecutor(ExecutorUtils.getDirectExecutor());
+        metadata = new TempMetadataAdapter(actualMetadata, tempStore.getMetadataStore());
+        execute("SELECT * from vgroup3 where x is null", Arrays.asList(null, null));
+        assertEquals(1, hdm.getCommandHistory().size());
+        assertEquals(MatState.LOADED, globalStore.getMatTableInfo(RelationalPlanner.MAT_PREFIX + "MATVIEW.VGROUP3").getState());
+
+        //an unreadable snapshot is removed and the table loaded from the source
+        File[] files = dir.listFiles()[0].listFiles();
+        assertEquals(1, files.length);
+        ObjectConverterUtil.write(new byte[] {1, 2, 3}, files[0].getPath());
+        globalStore = new GlobalTableStoreImpl(BufferManagerFactory.getStandaloneBufferManager(), actualMetadata.getVdbMetaData(), actualMetadata);
+        globalStore.setSnapshotDirectory(dir);
+        globalStore.setSnapshotExecutor(ExecutorUtils.getDirectExecutor());
+        execute("SELECT * from vgroup3 where x = 'one'", Arrays.asList("one", "zne"));
+        assertEquals(2, hdm.getCommandHistory().size());
+
+        //a changed definition does not use the snapshot
+        actualMetadata = RealMetadataFactory.exampleMaterializedView();
+        Table vgroup3 = (Table)actualMetadata.getGroupID("MatView.VGroup3");
+        vgroup3.setSelectTransformation("SELECT x, 'y' || substring(x, 2) as y FROM matsrc");
+        globalStore = new GlobalTableStoreImpl(BufferManagerFactory.getStandaloneBufferManager(), actualMetadata.getVdbMetaData(), actualMetadata);
+        globalStore.setSnapshotDirectory(dir);
+        globalStore.setSnapshotExecutor(ExecutorUtils.getDirectExecutor());
+        metadata = new TempMetadataAdapter(actualMetadata, tempStore.getMetadataStore());
+        execute("SELECT * from vgroup3 where x = 'one'", Arrays.asList("one", "yne"));
+        assertEquals(3, hdm.getCommandHistory().size());
+        FileUtils.removeDirectoryAndChildren(dir);
+    }
+
 }
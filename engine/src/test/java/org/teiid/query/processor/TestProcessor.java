@@ -93,6 +93,7 @@ import org.teiid.query.tempdata.TempTableStore.TransactionMode;
 import org.teiid.query.unittest.RealMetadataFactory;
 import org.teiid.query.unittest.TimestampUtil;
 import org.teiid.query.util.CommandContext;
+import org.teiid.query.util.Options;
 import org.teiid.query.validator.Validator;
 import org.teiid.query.validator.ValidatorReport;
 import org.teiid.translator.SourceSystemFunctions;
@@ -8151,5 +8152,22 @@ public class TestProcessor {
         helpProcess(plan, createCommandContext(), dataManager, null);
    }
 
+    @Test public void testCompiledExpressions() throws Exception {
+        String sql = "SELECT concat(e1, 'x'), e2 + 1, case when e3 then e4 end FROM pm1.g1 WHERE e2 > 0 OR e4 IS NULL"; //$NON-NLS-1$
+
+        List[] expected = new List[] {
+            Arrays.asList(new Object[] { "bx", new Integer(2), null }), //$NON-NLS-1$
+            Arrays.asList(new Object[] { "cx", new Integer(3), null }), //$NON-NLS-1$
+        };
+
+        FakeDataManager dataManager = new FakeDataManager();
+        sampleData2a(dataManager);
+
+        CommandContext cc = createCommandContext();
+        cc.setOptions(new Options().compileExpressions(true));
+        ProcessorPlan plan = helpGetPlan(helpParse(sql), RealMetadataFactory.example1Cached(), new DefaultCapabilitiesFinder(), cc);
+        helpProcess(plan, cc, dataManager, expected);
+    }
+
     private static final boolean DEBUG = false;
 }
@@ -21,6 +21,7 @@ package org.teiid.query.processor;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
@@ -28,6 +29,7 @@ import java.sql.Connection;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
 
 import javax.transaction.RollbackException;
 import javax.transaction.Status;
@@ -44,6 +46,7 @@ import org.teiid.api.exception.query.QueryResolverException;
 import org.teiid.cache.DefaultCacheFactory;
 import org.teiid.common.buffer.BufferManager;
 import org.teiid.common.buffer.BufferManagerFactory;
+import org.teiid.common.buffer.TupleSource;
 import org.teiid.common.buffer.impl.BufferManagerImpl;
 import org.teiid.core.TeiidComponentException;
 import org.teiid.core.TeiidProcessingException;
@@ -56,9 +59,14 @@ import org.teiid.query.metadata.TempMetadataID;
 import org.teiid.query.metadata.TransformationMetadata;
 import org.teiid.query.optimizer.TestOptimizer;
 import org.teiid.query.optimizer.TestOptimizer.ComparisonMode;
+import org.teiid.query.resolver.QueryResolver;
+import org.teiid.query.sql.lang.Insert;
 import org.teiid.query.tempdata.GlobalTableStoreImpl;
 import org.teiid.query.tempdata.TempTableDataManager;
+import org.teiid.query.tempdata.TempTableStore;
+import org.teiid.query.tempdata.TempTableStore.TransactionMode;
 import org.teiid.query.unittest.RealMetadataFactory;
+import org.teiid.query.util.CommandContext;
 
 @SuppressWarnings({"nls", "unchecked"})
 public class TestTempTables extends TempTableTestHarness {
@@ -174,6 +182,96 @@ public class TestTempTables extends TempTableTestHarness {
         synch.afterCompletion(Status.STATUS_COMMITTED);
     }
 
+    @Test public void testSnapshotReadDuringWrite() throws Exception {
+        tempStore = new TempTableStore("1", TransactionMode.ISOLATE_WRITES); //$NON-NLS-1$
+        tempStore.setSnapshotReads(true);
+        metadata = new TempMetadataAdapter(RealMetadataFactory.example1Cached(), tempStore.getMetadataStore());
+        metadata.setSession(true);
+        execute("create local temporary table x (e1 string, e2 integer, primary key (e2))", new List[] {Arrays.asList(0)}); //$NON-NLS-1$
+        execute("insert into x (e2, e1) values (1, 'one')", new List[] {Arrays.asList(1)}); //$NON-NLS-1$
+
+        final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+
+        //the first reader is blocked by the write and sees the result
+        final Thread blocked = reader(2, failure);
+        insertDuringWrite(2, new Runnable() {
+            @Override
+            public void run() {
+                blocked.start();
+                long end = System.currentTimeMillis() + 5000;
+                while (blocked.getState() != Thread.State.WAITING && System.currentTimeMillis() < end) {
+                    Thread.yield();
+                }
+            }
+        });
+        blocked.join(5000);
+        assertFalse(blocked.isAlive());
+
+        //since a reader was blocked, the next write retains the prior state for readers
+        final Thread concurrent = reader(2, failure);
+        insertDuringWrite(3, new Runnable() {
+            @Override
+            public void run() {
+                concurrent.start();
+                try {
+                    concurrent.join(5000);
+                } catch (InterruptedException e) {
+                    failure.compareAndSet(null, e);
+                }
+                if (concurrent.isAlive()) {
+                    failure.compareAndSet(null, new AssertionError("the reader was blocked by the write"));
+                }
+            }
+        });
+        assertNull(failure.get());
+        execute("select count(e1) from x", new List[] {Arrays.asList(3)}); //$NON-NLS-1$
+    }
+
+    private Thread reader(final int expected, final AtomicReference<Throwable> failure) {
+        return new Thread() {
+            @Override
+            public void run() {
+                try {
+                    execute("select count(e1) from x where e2 > 0", new List[] {Arrays.asList(expected)}); //$NON-NLS-1$
+                } catch (Throwable e) {
+                    failure.compareAndSet(null, e);
+                }
+            }
+        };
+    }
+
+    /**
+     * Insert a single row, running the given action while the write is in progress
+     */
+    private void insertDuringWrite(final int e2, final Runnable during) throws Exception {
+        Insert insert = (Insert)TestProcessor.helpParse("insert into x (e2, e1) values (" + e2 + ", 'a')"); //$NON-NLS-1$ //$NON-NLS-2$
+        QueryResolver.resolveCommand(insert, metadata);
+        insert.setTupleSource(new TupleSource() {
+            private boolean done;
+
+            @Override
+            public List<?> nextTuple() {
+                if (done) {
+                    return null;
+                }
+                done = true;
+                during.run();
+                return Arrays.asList(e2, "a"); //$NON-NLS-1$
+            }
+
+            @Override
+            public void closeSource() {
+
+            }
+        });
+        CommandContext cc = TestProcessor.createCommandContext();
+        cc.setMetadata(metadata);
+        cc.setTempTableStore(tempStore);
+        TupleSource ts = dataManager.registerRequest(cc, insert, TempMetadataAdapter.TEMP_MODEL.getID(), new RegisterRequestParameter());
+        assertEquals(Arrays.asList(1), ts.nextTuple());
+        ts.closeSource();
+    }
+
     private void setupTransaction(int isolation) throws RollbackException, SystemException {
         txn = Mockito.mock(Transaction.class);
         Mockito.doAnswer(new Answer<Void>() {
@@ -22,6 +22,10 @@ import static org.junit.Assert.*;
 import static org.teiid.query.optimizer.TestOptimizer.*;
 import static org.teiid.query.processor.TestProcessor.*;
 
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -688,4 +692,60 @@ public class TestTextTable {
         process(sql, expected);
     }
 
+    @Test public void testParallelPartitions() throws Exception {
+        File f = UnitTestUtil.getTestScratchFile("parallel.csv");
+        try {
+            try (Writer w = new OutputStreamWriter(new FileOutputStream(f), "UTF-8")) {
+                w.write("x,y\r\n");
+                for (int i = 1; i <= 20000; i++) {
+                    w.write(i + ",\u00e9" + i + (i%2==0?"\r\n":"\n"));
+                }
+            }
+            helpProcessFile(f, "select count(*), count(distinct y), sum(case when x = rn then 0 else 1 end) from texttable(? COLUMNS x integer, y string, rn for ordinality NO QUOTE HEADER) as t",
+                    Arrays.asList(20000, 20000, 0L));
+        } finally {
+            f.delete();
+        }
+    }
+
+    /**
+     * Quoted values may contain new lines, so the file must not be split
+     */
+    @Test public void testParallelQuotedNotPartitioned() throws Exception {
+        File f = UnitTestUtil.getTestScratchFile("parallel-quoted.csv");
+        try {
+            try (Writer w = new OutputStreamWriter(new FileOutputStream(f), "UTF-8")) {
+                for (int i = 1; i <= 20000; i++) {
+                    w.write(i + ",\"a\n" + i + "\"\n");
+                }
+            }
+            helpProcessFile(f, "select count(*), sum(case when y = 'a' || chr(10) || x then 0 else 1 end) from texttable(? COLUMNS x integer, y string) as t",
+                    Arrays.asList(20000, 0L));
+        } finally {
+            f.delete();
+        }
+    }
+
+    private void helpProcessFile(File f, String sql, List<?> expected) throws Exception {
+        Command command = helpParse(sql);
+        CommandContext context = createCommandContext();
+        context.getOptions().textTableParallelism(4);
+        context.setMetadata(RealMetadataFactory.example1Cached());
+        setParameterValues(Arrays.asList(new ClobType(new ClobImpl(new InputStreamFactory.FileInputStreamFactory(f), -1))), command, context);
+        ProcessorPlan plan = helpGetPlan(command, RealMetadataFactory.example1Cached(), new DefaultCapabilitiesFinder(), context);
+
+        helpProcess(plan, context, new HardcodedDataManager(), new List<?>[] {expected});
+    }
+
+    @Test public void testProjectedFieldValues() throws Exception {
+        String sql = "select x.* from texttable('a,b,c,d\n\"x\ny\",+5,-12345678901,\"q\"\"z\"\n,  7 ,,w' COLUMNS b integer, c long, d string HEADER) x";
+
+        List<?>[] expected = new List<?>[] {
+                Arrays.asList(5, -12345678901L, "q\"z"),
+                Arrays.asList(7, null, "w"),
+        };
+
+        process(sql, expected);
+    }
+
 }
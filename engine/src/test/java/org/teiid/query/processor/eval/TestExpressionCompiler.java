@@ -0,0 +1,151 @@
+/*
+ * Copyright Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags and
+ * the COPYRIGHT.txt file distributed with this work.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.teiid.query.processor.eval;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+import org.teiid.api.exception.query.ExpressionEvaluationException;
+import org.teiid.api.exception.query.FunctionExecutionException;
+import org.teiid.core.types.DataTypeManager;
+import org.teiid.query.eval.Evaluator;
+import org.teiid.query.eval.ExpressionCompiler;
+import org.teiid.query.function.FunctionDescriptor;
+import org.teiid.query.parser.QueryParser;
+import org.teiid.query.resolver.TestFunctionResolving;
+import org.teiid.query.resolver.util.ResolverVisitor;
+import org.teiid.query.sql.lang.Criteria;
+import org.teiid.query.sql.symbol.ElementSymbol;
+import org.teiid.query.sql.symbol.Expression;
+import org.teiid.query.sql.symbol.GroupSymbol;
+import org.teiid.query.unittest.RealMetadataFactory;
+import org.teiid.query.util.CommandContext;
+
+@SuppressWarnings("nls")
+public class TestExpressionCompiler {
+
+    private static final List<?>[] TUPLES = new List<?>[] {
+        Arrays.asList("a", 0),
+        Arrays.asList("b", 1),
+        Arrays.asList("c", 2),
+        Arrays.asList(null, 3),
+        Arrays.asList("a", null),
+        Arrays.asList(null, null),
+    };
+
+    private Map<Expression, Integer> getElements() {
+        Map<Expression, Integer> elements = new HashMap<Expression, Integer>();
+        GroupSymbol group = new GroupSymbol("pm1.g1");
+        elements.put(new ElementSymbol("e1", group), 0);
+        elements.put(new ElementSymbol("e2", group), 1);
+        return elements;
+    }
+
+    private void helpTestCriteria(String sql) throws Exception {
+        Criteria crit = QueryParser.getQueryParser().parseCriteria(sql);
+        ResolverVisitor.resolveLanguageObject(crit, RealMetadataFactory.example1Cached());
+        Map<Expression, Integer> elements = getElements();
+        Evaluator eval = new Evaluator(elements, null, new CommandContext());
+        ExpressionCompiler.CompiledCriteria compiled = new ExpressionCompiler(elements, eval).compile(crit);
+        for (List<?> tuple : TUPLES) {
+            assertEquals(tuple.toString(), eval.evaluateTVL(crit, tuple), compiled.evaluateTVL(tuple));
+        }
+    }
+
+    private void helpTestExpression(String sql) throws Exception {
+        Expression expr = TestFunctionResolving.getExpression(sql);
+        Map<Expression, Integer> elements = getElements();
+        Evaluator eval = new Evaluator(elements, null, new CommandContext());
+        ExpressionCompiler.CompiledExpression compiled = new ExpressionCompiler(elements, eval).compile(expr);
+        for (List<?> tuple : TUPLES) {
+            assertEquals(tuple.toString(), eval.evaluate(expr, tuple), compiled.evaluate(tuple));
+        }
+    }
+
+    @Test public void testCompareCriteria() throws Exception {
+        helpTestCriteria("pm1.g1.e2 + 1 > 2");
+        helpTestCriteria("pm1.g1.e1 = 'a'");
+        helpTestCriteria("pm1.g1.e2 <> pm1.g1.e2 * 2");
+    }
+
+    @Test public void testCompoundCriteria() throws Exception {
+        helpTestCriteria("pm1.g1.e2 >= 1 and (pm1.g1.e1 is null or not(pm1.g1.e1 = 'c'))");
+        helpTestCriteria("pm1.g1.e2 < 1 or pm1.g1.e1 is not null");
+        helpTestCriteria("not(pm1.g1.e2 < 1 and pm1.g1.e1 = 'a')");
+    }
+
+    @Test public void testInterpretedCriteria() throws Exception {
+        helpTestCriteria("pm1.g1.e1 in ('a', 'b') and pm1.g1.e1 like 'a%'");
+    }
+
+    @Test public void testFunctions() throws Exception {
+        helpTestExpression("concat(upper(pm1.g1.e1), pm1.g1.e2)");
+        helpTestExpression("pm1.g1.e2 * 2 + 1");
+        helpTestExpression("ifnull(pm1.g1.e1, 'x')");
+        helpTestExpression("user()");
+    }
+
+    @Test public void testCase() throws Exception {
+        helpTestExpression("case when pm1.g1.e2 > 1 then concat(pm1.g1.e1, 'x') when pm1.g1.e1 in ('a', 'b') then 'y' else lower(pm1.g1.e1) end");
+        helpTestExpression("case pm1.g1.e2 when 1 then 'x' end");
+    }
+
+    @Test public void testError() throws Exception {
+        Expression expr = TestFunctionResolving.getExpression("1 / pm1.g1.e2");
+        Map<Expression, Integer> elements = getElements();
+        Evaluator eval = new Evaluator(elements, null, new CommandContext());
+        List<?> tuple = Arrays.asList("a", 0);
+        String expected = null;
+        try {
+            eval.evaluate(expr, tuple);
+            fail();
+        } catch (ExpressionEvaluationException e) {
+            expected = e.getMessage();
+        }
+        try {
+            new ExpressionCompiler(elements, eval).compile(expr).evaluate(tuple);
+            fail();
+        } catch (ExpressionEvaluationException e) {
+            assertEquals(expected, e.getMessage());
+        }
+    }
+
+    @Test public void testInvokeExceptions() throws Exception {
+        FunctionDescriptor desc = RealMetadataFactory.SFM.getSystemFunctionLibrary().findFunction("mod",
+                new Class[] {DataTypeManager.DefaultDataClasses.INTEGER, DataTypeManager.DefaultDataClasses.INTEGER});
+        try {
+            desc.invokeFunction(new Object[] {1, 0}, null, null);
+            fail();
+        } catch (FunctionExecutionException e) {
+            assertTrue(e.getCause() instanceof ArithmeticException);
+        }
+        //not thrown by the target, so reported as reflection would
+        try {
+            desc.invokeFunction(new Object[] {"a", 0}, null, null);
+            fail();
+        } catch (IllegalArgumentException e) {
+        }
+    }
+
+}
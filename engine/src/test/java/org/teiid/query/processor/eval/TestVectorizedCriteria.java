@@ -0,0 +1,118 @@
+/*
+ * Copyright Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags and
+ * the COPYRIGHT.txt file distributed with this work.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.teiid.query.processor.eval;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+import org.teiid.common.buffer.ColumnarBatch;
+import org.teiid.common.buffer.TupleBatch;
+import org.teiid.core.types.DataTypeManager;
+import org.teiid.query.eval.Evaluator;
+import org.teiid.query.eval.VectorizedCriteria;
+import org.teiid.query.parser.QueryParser;
+import org.teiid.query.resolver.util.ResolverVisitor;
+import org.teiid.query.rewriter.QueryRewriter;
+import org.teiid.query.sql.lang.Criteria;
+import org.teiid.query.sql.symbol.ElementSymbol;
+import org.teiid.query.sql.symbol.Expression;
+import org.teiid.query.sql.symbol.GroupSymbol;
+import org.teiid.query.unittest.RealMetadataFactory;
+import org.teiid.query.util.CommandContext;
+
+@SuppressWarnings("nls")
+public class TestVectorizedCriteria {
+
+    private static final List<?>[] TUPLES = new List<?>[] {
+        Arrays.asList("a", 0, 1.0),
+        Arrays.asList("b", 1, -0.0),
+        Arrays.asList("c", 2, Double.NaN),
+        Arrays.asList(null, 3, 0.0),
+        Arrays.asList("a", null, null),
+        Arrays.asList(null, null, 5.5),
+    };
+
+    private static final Class<?>[] TYPES = new Class<?>[] {DataTypeManager.DefaultDataClasses.STRING,
+        DataTypeManager.DefaultDataClasses.INTEGER, DataTypeManager.DefaultDataClasses.DOUBLE};
+
+    private Map<Expression, Integer> getElements() {
+        Map<Expression, Integer> elements = new HashMap<Expression, Integer>();
+        GroupSymbol group = new GroupSymbol("pm1.g1");
+        elements.put(new ElementSymbol("e1", group), 0);
+        elements.put(new ElementSymbol("e2", group), 1);
+        elements.put(new ElementSymbol("e4", group), 2);
+        return elements;
+    }
+
+    private Criteria getCriteria(String sql) throws Exception {
+        Criteria crit = QueryParser.getQueryParser().parseCriteria(sql);
+        ResolverVisitor.resolveLanguageObject(crit, RealMetadataFactory.example1Cached());
+        return QueryRewriter.rewriteCriteria(crit, null, RealMetadataFactory.example1Cached());
+    }
+
+    private void helpTest(String sql) throws Exception {
+        Criteria crit = getCriteria(sql);
+        Map<Expression, Integer> elements = getElements();
+        VectorizedCriteria vc = VectorizedCriteria.create(crit, elements);
+        assertNotNull(vc);
+        Evaluator eval = new Evaluator(elements, null, new CommandContext());
+        boolean[] expected = new boolean[TUPLES.length];
+        for (int i = 0; i < TUPLES.length; i++) {
+            expected[i] = eval.evaluate(crit, TUPLES[i]);
+        }
+        assertArrayEquals(expected, vc.evaluate(new TupleBatch(1, TUPLES)));
+        assertArrayEquals(expected, vc.evaluate(new TupleBatch(1, new ColumnarBatch(TYPES, Arrays.asList(TUPLES)))));
+    }
+
+    @Test public void testCompare() throws Exception {
+        helpTest("pm1.g1.e2 > 1");
+        helpTest("pm1.g1.e2 <> 1");
+        helpTest("1 <= pm1.g1.e2");
+        helpTest("pm1.g1.e1 < 'b'");
+        helpTest("pm1.g1.e4 = 0");
+        helpTest("pm1.g1.e4 >= 1");
+    }
+
+    @Test public void testIn() throws Exception {
+        helpTest("pm1.g1.e2 in (1, 3, 5)");
+        helpTest("pm1.g1.e2 not in (1, 3, 5)");
+        helpTest("pm1.g1.e1 in ('a', 'c')");
+    }
+
+    @Test public void testIsNull() throws Exception {
+        helpTest("pm1.g1.e2 is null");
+        helpTest("pm1.g1.e1 is not null");
+    }
+
+    @Test public void testCompound() throws Exception {
+        helpTest("pm1.g1.e2 between 1 and 2 or pm1.g1.e1 is null");
+        helpTest("pm1.g1.e2 >= 1 and (pm1.g1.e1 = 'b' or pm1.g1.e4 < 1)");
+    }
+
+    @Test public void testNotSupported() throws Exception {
+        assertNull(VectorizedCriteria.create(getCriteria("pm1.g1.e2 * pm1.g1.e2 > 2"), getElements()));
+        assertNull(VectorizedCriteria.create(getCriteria("pm1.g1.e1 like 'a%' and pm1.g1.e2 = 1"), getElements()));
+    }
+
+}
@@ -23,6 +23,7 @@ import static org.junit.Assert.*;
 import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -504,4 +505,75 @@ public class TestGroupingNode {
         assertTrue(pn.toString().contains("agg0=count(*)"));
     }
 
+    @Test public void testHashAggregation() throws Exception {
+        helpTestHashAggregation(BufferManagerFactory.getStandaloneBufferManager());
+    }
+
+    @Test public void testHashAggregationSpill() throws Exception {
+        //a single row batch with no reservable memory forces the input to be partitioned
+        BufferManagerImpl mgr = BufferManagerFactory.getTestBufferManager(0, 1);
+        mgr.setTargetBytesPerRow(1);
+        helpTestHashAggregation(mgr);
+    }
+
+    private void helpTestHashAggregation(BufferManager mgr) throws Exception {
+        GroupingNode node = new GroupingNode(1);
+        List outputElements = new ArrayList();
+        ElementSymbol col1 = new ElementSymbol("col1"); //$NON-NLS-1$
+        col1.setType(Integer.class);
+        ElementSymbol col2 = new ElementSymbol("col2"); //$NON-NLS-1$
+        col2.setType(Integer.class);
+        outputElements.add(col1);
+        outputElements.add(new AggregateSymbol("COUNT", false, col2)); //$NON-NLS-1$
+        outputElements.add(new AggregateSymbol("SUM", false, col2)); //$NON-NLS-1$
+        outputElements.add(new AggregateSymbol("MAX", false, col2)); //$NON-NLS-1$
+        node.setElements(outputElements);
+        node.setOrderBy(new OrderBy(Arrays.asList(col1)).getOrderByItems());
+        node.setHashAggregation(true);
+        assertTrue(node.getDescriptionProperties().toString().contains("Hash Aggregation"));
+
+        CommandContext context = new CommandContext("pid", "test", null, null, 1);               //$NON-NLS-1$ //$NON-NLS-2$
+
+        List[] expected = new List[] {
+            Arrays.asList(null, 1, 3L, 3),
+            Arrays.asList(0, 1, 4L, 4),
+            Arrays.asList(1, 1, 2L, 2),
+            Arrays.asList(2, 4, 5L, 2),
+            Arrays.asList(3, 1, 0L, 0),
+            Arrays.asList(4, 2, 5L, 3),
+            Arrays.asList(5, 1, 3L, 3),
+            Arrays.asList(6, 2, 7L, 4),
+        };
+
+        FakeTupleSource dataSource = createTupleSource1();
+        RelationalNode dataNode = new FakeRelationalNode(0, dataSource, mgr.getProcessorBatchSize());
+        dataNode.setElements(dataSource.getSchema());
+        node.addChild(dataNode);
+        node.initialize(context, mgr, null);
+        node.open();
+
+        List<String> actual = new ArrayList<String>();
+        while(true) {
+            try {
+                TupleBatch batch = node.nextBatch();
+                for (List<?> tuple : batch.getTuples()) {
+                    actual.add(tuple.toString());
+                }
+                if(batch.getTerminationFlag()) {
+                    break;
+                }
+            } catch (BlockedException e) {
+                //ignore
+            }
+        }
+        node.close();
+        List<String> expectedStrings = new ArrayList<String>();
+        for (List list : expected) {
+            expectedStrings.add(list.toString());
+        }
+        Collections.sort(actual);
+        Collections.sort(expectedStrings);
+        assertEquals(expectedStrings, actual);
+    }
+
 }
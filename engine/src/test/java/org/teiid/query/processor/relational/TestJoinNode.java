@@ -39,6 +39,8 @@ import org.teiid.core.TeiidComponentException;
 import org.teiid.core.TeiidProcessingException;
 import org.teiid.core.types.DataTypeManager;
 import org.teiid.query.function.FunctionDescriptor;
+import org.teiid.query.optimizer.capabilities.DefaultCapabilitiesFinder;
+import org.teiid.query.parser.QueryParser;
 import org.teiid.query.processor.FakeDataManager;
 import org.teiid.query.processor.HardcodedDataManager;
 import org.teiid.query.processor.ProcessorPlan;
@@ -62,6 +64,7 @@ public class TestJoinNode {
     private static final int FUNCTION_CRITERIA = 2;
 
     private int criteriaType = EQUAL_CRITERIA;
+    private boolean unordered;
 
     protected JoinType joinType;
 
@@ -213,7 +216,11 @@ public class TestJoinNode {
 
             case EQUAL_CRITERIA :
                 join.setJoinExpressions(Arrays.asList(es1), Arrays.asList(es2));
-                joinStrategy = new MergeJoinStrategy(SortOption.SORT, SortOption.SORT, false);
+                if (unordered) {
+                    joinStrategy = new HashJoinStrategy();
+                } else {
+                    joinStrategy = new MergeJoinStrategy(SortOption.SORT, SortOption.SORT, false);
+                }
                 join.setJoinStrategy(joinStrategy);
                 break;
 
@@ -246,6 +253,26 @@ public class TestJoinNode {
         }
     }
 
+    public void helpTestHashJoin() throws TeiidComponentException, TeiidProcessingException {
+        unordered = true;
+        for (int processingBytes : new int[] {1, 100000}) {
+            for (int batchSize : new int[] {1, 10, 100}) {
+                helpCreateJoin();
+                helpTestJoinDirect(expected, batchSize, processingBytes);
+                if (joinType == JoinType.JOIN_INNER) {
+                    List[] temp = leftTuples;
+                    leftTuples = rightTuples;
+                    rightTuples = temp;
+                    helpCreateJoin();
+                    helpTestJoinDirect(expectedReversed, batchSize, processingBytes);
+                    temp = leftTuples;
+                    leftTuples = rightTuples;
+                    rightTuples = temp;
+                }
+            }
+        }
+    }
+
     public void helpTestJoinDirect(List[] expectedResults, int batchSize, int processingBytes) throws TeiidComponentException, TeiidProcessingException {
         BufferManagerImpl mgr = BufferManagerFactory.getTestBufferManager(processingBytes, batchSize);
         mgr.setTargetBytesPerRow(100);
@@ -270,11 +297,16 @@ public class TestJoinNode {
         join.open();
 
         int currentRow = 1;
+        List<List> actual = new ArrayList<List>();
         while(true) {
             try {
                 TupleBatch batch = join.nextBatch();
                 for(;currentRow <= batch.getEndRow(); currentRow++) {
                     List tuple = batch.getTuple(currentRow);
+                    if (unordered) {
+                        actual.add(tuple);
+                        continue;
+                    }
                     assertEquals("Rows don't match at " + currentRow, expectedResults[currentRow-1], tuple); //$NON-NLS-1$
                 }
                 if(batch.getTerminationFlag()) {
@@ -285,6 +317,19 @@ public class TestJoinNode {
             }
         }
         assertEquals(expectedResults.length, currentRow - 1);
+        if (unordered) {
+            List<String> expectedStrings = new ArrayList<String>();
+            for (List tuple : expectedResults) {
+                expectedStrings.add(tuple.toString());
+            }
+            List<String> actualStrings = new ArrayList<String>();
+            for (List tuple : actual) {
+                actualStrings.add(tuple.toString());
+            }
+            Collections.sort(expectedStrings);
+            Collections.sort(actualStrings);
+            assertEquals(expectedStrings, actualStrings);
+        }
         join.close();
     }
 
@@ -1231,4 +1276,97 @@ public class TestJoinNode {
         TestProcessor.helpProcess(plan, context, hdm, results);
     }
 
+    @Test public void testHashJoinInner() throws Exception {
+        joinType = JoinType.JOIN_INNER;
+        expected = new List[] {
+            Arrays.asList(new Object[] { new Integer(1), new Integer(1) }),
+            Arrays.asList(new Object[] { new Integer(2), new Integer(2) }),
+            Arrays.asList(new Object[] { new Integer(2), new Integer(2) }),
+            Arrays.asList(new Object[] { new Integer(4), new Integer(4) }),
+            Arrays.asList(new Object[] { new Integer(4), new Integer(4) }),
+            Arrays.asList(new Object[] { new Integer(4), new Integer(4) }),
+            Arrays.asList(new Object[] { new Integer(4), new Integer(4) })
+        };
+        expectedReversed = expected;
+        helpTestHashJoin();
+    }
+
+    @Test public void testHashJoinLeftOuter() throws Exception {
+        joinType = JoinType.JOIN_LEFT_OUTER;
+        expected = new List[] {
+            Arrays.asList(new Object[] { new Integer(1), new Integer(1) }),
+            Arrays.asList(new Object[] { new Integer(2), new Integer(2) }),
+            Arrays.asList(new Object[] { new Integer(2), new Integer(2) }),
+            Arrays.asList(new Object[] { new Integer(3), null }),
+            Arrays.asList(new Object[] { new Integer(4), new Integer(4) }),
+            Arrays.asList(new Object[] { new Integer(4), new Integer(4) }),
+            Arrays.asList(new Object[] { new Integer(4), new Integer(4) }),
+            Arrays.asList(new Object[] { new Integer(4), new Integer(4) }),
+            Arrays.asList(new Object[] { new Integer(5), null }),
+            Arrays.asList(new Object[] { new Integer(10), null }),
+            Arrays.asList(new Object[] { new Integer(11), null }),
+            Arrays.asList(new Object[] { new Integer(11), null })
+        };
+        helpTestHashJoin();
+        leftTuples = createTuples4();
+        rightTuples = createTuples3();
+        expected = new List[] {
+            Arrays.asList(new Object[] { new Integer(1), new Integer(1) }),
+            Arrays.asList(new Object[] { new Integer(4), null }),
+            Arrays.asList(new Object[] { new Integer(2), new Integer(2) }),
+            Arrays.asList(new Object[] { new Integer(2), new Integer(2) }),
+            Arrays.asList(new Object[] { new Integer(4), null }),
+            Arrays.asList(new Object[] { null, null }),
+            Arrays.asList(new Object[] { new Integer(7), null }),
+            Arrays.asList(new Object[] { new Integer(9), new Integer(9) }),
+            Arrays.asList(new Object[] { new Integer(9), new Integer(9) }),
+            Arrays.asList(new Object[] { new Integer(9), new Integer(9) }),
+            Arrays.asList(new Object[] { new Integer(5), new Integer(5) }),
+            Arrays.asList(new Object[] { new Integer(6), null }),
+            Arrays.asList(new Object[] { new Integer(10), new Integer(10) }),
+            Arrays.asList(new Object[] { new Integer(10), new Integer(10) }),
+            Arrays.asList(new Object[] { null, null }),
+            Arrays.asList(new Object[] { null, null })
+        };
+        helpTestHashJoin();
+    }
+
+    @Test public void testHashJoinNoRows() throws Exception {
+        joinType = JoinType.JOIN_INNER;
+        leftTuples = createTuples1();
+        rightTuples = new List[0];
+        expected = new List[0];
+        expectedReversed = expected;
+        helpTestHashJoin();
+    }
+
+    @Test public void testHashJoinPlanning() throws Exception {
+        String sql = "select a.e1, b.e2 from pm1.g1 as a, pm2.g2 as b where a.e1 = b.e1"; //$NON-NLS-1$
+
+        CommandContext context = TestProcessor.createCommandContext();
+        context.getOptions().hashJoin(true);
+        ProcessorPlan plan = TestProcessor.helpGetPlan(QueryParser.getQueryParser().parseCommand(sql), RealMetadataFactory.example1Cached(), new DefaultCapabilitiesFinder(), context);
+        assertTrue(plan.toString().contains("HASH JOIN"));
+        HardcodedDataManager hdm = new HardcodedDataManager();
+        List<?>[] rows = new List<?>[50];
+        for (int i = 0; i < rows.length; i++) {
+            rows[i] = Arrays.asList(String.valueOf(i));
+        }
+        hdm.addData("SELECT pm1.g1.e1 FROM pm1.g1", rows);
+        rows = new List<?>[200];
+        for (int i = 0; i < rows.length; i++) {
+            rows[i] = Arrays.asList(String.valueOf(i), i);
+        }
+        hdm.addData("SELECT pm2.g2.e1, pm2.g2.e2 FROM pm2.g2", rows);
+
+        rows = new List<?>[50];
+        for (int i = 0; i < rows.length; i++) {
+            rows[i] = Arrays.asList(String.valueOf(i), i);
+        }
+        TestProcessor.helpProcess(plan, context, hdm, rows);
+
+        plan = TestProcessor.helpGetPlan(sql, RealMetadataFactory.example1Cached());
+        assertFalse(plan.toString().contains("HASH JOIN"));
+    }
+
 }
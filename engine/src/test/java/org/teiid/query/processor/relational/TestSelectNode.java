@@ -31,6 +31,7 @@ import org.teiid.api.exception.query.ExpressionEvaluationException;
 import org.teiid.common.buffer.BlockedException;
 import org.teiid.common.buffer.BufferManager;
 import org.teiid.common.buffer.BufferManagerFactory;
+import org.teiid.common.buffer.ColumnarBatch;
 import org.teiid.common.buffer.TupleBatch;
 import org.teiid.core.TeiidComponentException;
 import org.teiid.core.TeiidProcessingException;
@@ -42,13 +43,16 @@ import org.teiid.query.processor.FakeDataManager;
 import org.teiid.query.processor.ProcessorDataManager;
 import org.teiid.query.processor.QueryProcessor;
 import org.teiid.query.sql.lang.CompareCriteria;
+import org.teiid.query.sql.lang.CompoundCriteria;
 import org.teiid.query.sql.lang.Criteria;
+import org.teiid.query.sql.lang.IsNullCriteria;
 import org.teiid.query.sql.symbol.Constant;
 import org.teiid.query.sql.symbol.ElementSymbol;
 import org.teiid.query.sql.symbol.Expression;
 import org.teiid.query.sql.symbol.Function;
 import org.teiid.query.unittest.RealMetadataFactory;
 import org.teiid.query.util.CommandContext;
+import org.teiid.query.util.Options;
 
 @SuppressWarnings("unchecked")
 public class TestSelectNode {
@@ -59,16 +63,17 @@ public class TestSelectNode {
 
     public void helpTestSelect(List elements, Criteria criteria, List childElements, ProcessorDataManager dataMgr, List[] expected, RelationalNode child) throws TeiidComponentException, TeiidProcessingException {
         SelectNode selectNode = new SelectNode(1);
-        helpTestSelect(elements, criteria, childElements, dataMgr, expected, child, selectNode);
+        helpTestSelect(elements, criteria, childElements, dataMgr, expected, child, selectNode, new Options());
     }
 
     private void helpTestSelect(List elements, Criteria criteria, List childElements,
             ProcessorDataManager dataMgr, List[] expected,
             RelationalNode child,
-            SelectNode selectNode) throws TeiidComponentException,
+            SelectNode selectNode, Options options) throws TeiidComponentException,
             TeiidProcessingException {
         BufferManager mgr = BufferManagerFactory.getStandaloneBufferManager();
         CommandContext context = new CommandContext("pid", "test", null, null, 1);               //$NON-NLS-1$ //$NON-NLS-2$
+        context.setOptions(options);
 
         child.setElements(childElements);
         child.initialize(context, mgr, dataMgr);
@@ -169,7 +174,7 @@ public class TestSelectNode {
                 };
             }
 
-        });
+        }, new Options());
     }
 
     @Test public void testNoRows() throws TeiidComponentException, TeiidProcessingException {
@@ -229,6 +234,112 @@ public class TestSelectNode {
 
     }
 
+    @Test public void testVectorizedSelect() throws TeiidComponentException, TeiidProcessingException {
+        ElementSymbol es1 = new ElementSymbol("e1"); //$NON-NLS-1$
+        es1.setType(DataTypeManager.DefaultDataClasses.INTEGER);
+
+        ElementSymbol es2 = new ElementSymbol("e2"); //$NON-NLS-1$
+        es2.setType(DataTypeManager.DefaultDataClasses.STRING);
+
+        List elements = new ArrayList();
+        elements.add(es2);
+
+        CompoundCriteria crit = new CompoundCriteria(CompoundCriteria.OR,
+                new CompareCriteria(es1, CompareCriteria.LT, new Constant(new Integer(2))),
+                new IsNullCriteria(es2));
+
+        List[] data = new List[20];
+        List[] expected = new List[6];
+        for(int i=0, j=0; i<20; i++) {
+            Integer value = new Integer((i*51) % 11);
+            String str = i%7==0?null:String.valueOf(i);
+            data[i] = Arrays.asList(value, str);
+            if (value < 2 || str == null) {
+                expected[j++] = Arrays.asList(str);
+            }
+        }
+
+        List childElements = new ArrayList();
+        childElements.add(es1);
+        childElements.add(es2);
+
+        helpTestSelect(elements, crit, childElements, null, expected, new FakeRelationalNode(3, data), new SelectNode(1), new Options().vectorizedPredicates(true));
+    }
+
+    @Test public void testVectorizedColumnarSelect() throws TeiidComponentException, TeiidProcessingException {
+        ElementSymbol es1 = new ElementSymbol("e1"); //$NON-NLS-1$
+        es1.setType(DataTypeManager.DefaultDataClasses.INTEGER);
+
+        ElementSymbol es2 = new ElementSymbol("e2"); //$NON-NLS-1$
+        es2.setType(DataTypeManager.DefaultDataClasses.DOUBLE);
+
+        List elements = new ArrayList();
+        elements.add(es2);
+        elements.add(es1);
+
+        CompareCriteria crit = new CompareCriteria(es1, CompareCriteria.GE, new Constant(new Integer(2)));
+
+        final List<List<?>> data = new ArrayList<List<?>>();
+        List<List<?>> expected = new ArrayList<List<?>>();
+        for (int i = 0; i < 10; i++) {
+            Integer value = i%4==3?null:i%5;
+            Double d = i%3==0?null:Double.valueOf(i);
+            data.add(Arrays.asList(value, d));
+            if (value != null && value >= 2) {
+                expected.add(Arrays.asList(d, value));
+            }
+        }
+        final Class<?>[] types = new Class<?>[] {DataTypeManager.DefaultDataClasses.INTEGER, DataTypeManager.DefaultDataClasses.DOUBLE};
+
+        RelationalNode child = new RelationalNode(2) {
+            int i = 0;
+
+            @Override
+            public Object clone() {
+                return null;
+            }
+
+            @Override
+            protected TupleBatch nextBatchDirect() throws BlockedException,
+                    TeiidComponentException, TeiidProcessingException {
+                TupleBatch batch = new TupleBatch(i*5 + 1, new ColumnarBatch(types, data.subList(i*5, i*5 + 5)));
+                batch.setTerminationFlag(++i == 2);
+                return batch;
+            }
+
+        };
+
+        BufferManager mgr = BufferManagerFactory.getStandaloneBufferManager();
+        CommandContext context = new CommandContext("pid", "test", null, null, 1);               //$NON-NLS-1$ //$NON-NLS-2$
+        context.setOptions(new Options().vectorizedPredicates(true));
+        List childElements = Arrays.asList(es1, es2);
+        child.setElements(childElements);
+        child.initialize(context, mgr, null);
+        SelectNode selectNode = new SelectNode(1);
+        selectNode.setCriteria(crit);
+        selectNode.setElements(elements);
+        selectNode.addChild(child);
+        selectNode.initialize(context, mgr, null);
+        selectNode.open();
+
+        List<List<?>> results = new ArrayList<List<?>>();
+        long nextRow = 1;
+        while (true) {
+            TupleBatch batch = selectNode.nextBatch();
+            //the output remains columnar
+            assertNotNull(batch.getColumnarBatch());
+            assertEquals(nextRow, batch.getBeginRow());
+            nextRow = batch.getEndRow() + 1;
+            for (List<?> tuple : batch.getTuples()) {
+                results.add(new ArrayList<Object>(tuple));
+            }
+            if (batch.getTerminationFlag()) {
+                break;
+            }
+        }
+        assertEquals(expected, results);
+    }
+
     @Test public void testSelectWithLookup() throws TeiidComponentException, TeiidProcessingException {
         ElementSymbol es1 = new ElementSymbol("e1"); //$NON-NLS-1$
         es1.setType(DataTypeManager.DefaultDataClasses.INTEGER);
@@ -25,6 +25,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Random;
 import java.util.TreeSet;
 
 import org.junit.Test;
@@ -377,4 +378,35 @@ public class TestSortNode {
         assertNull(ts.nextTuple());
     }
 
+    @Test public void testParallelSort() throws Exception {
+        ElementSymbol es1 = new ElementSymbol("e1"); //$NON-NLS-1$
+        es1.setType(DataTypeManager.DefaultDataClasses.INTEGER);
+        ElementSymbol es2 = new ElementSymbol("e2"); //$NON-NLS-1$
+        es2.setType(DataTypeManager.DefaultDataClasses.INTEGER);
+        BufferManagerImpl bm = BufferManagerFactory.createBufferManager();
+        bm.getOptions().parallelSort(true);
+        TupleBuffer tsid = bm.createTupleBuffer(Arrays.asList(es1, es2), "test", TupleSourceType.PROCESSOR); //$NON-NLS-1$
+        Random r = new Random(1);
+        for (int i = 0; i < 10000; i++) {
+            tsid.addTuple(Arrays.asList(r.nextInt(100), i));
+        }
+        tsid.close();
+        SortUtility su = new SortUtility(tsid.createIndexedTupleSource(), Arrays.asList(es1), Arrays.asList(Boolean.TRUE), Mode.SORT, bm, "test", tsid.getSchema()); //$NON-NLS-1$
+        su.setMinParallelSegmentRows(100);
+        su.setParallelism(4);
+        TupleBuffer out = su.sort();
+        assertEquals(10000, out.getRowCount());
+        TupleSource ts = out.createIndexedTupleSource();
+        TreeSet<Integer> seen = new TreeSet<Integer>();
+        List<?> previous = ts.nextTuple();
+        seen.add((Integer)previous.get(1));
+        List<?> tuple = null;
+        while ((tuple = ts.nextTuple()) != null) {
+            assertTrue((Integer)previous.get(0) <= (Integer)tuple.get(0));
+            seen.add((Integer)tuple.get(1));
+            previous = tuple;
+        }
+        assertEquals(10000, seen.size());
+    }
+
 }
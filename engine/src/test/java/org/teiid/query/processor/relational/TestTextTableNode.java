@@ -0,0 +1,117 @@
+/*
+ * Copyright Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags and
+ * the COPYRIGHT.txt file distributed with this work.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.teiid.query.processor.relational;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+import org.teiid.common.buffer.TupleBatch;
+import org.teiid.core.types.ClobImpl;
+import org.teiid.core.types.ClobType;
+import org.teiid.core.types.InputStreamFactory;
+import org.teiid.core.util.UnitTestUtil;
+import org.teiid.query.optimizer.capabilities.DefaultCapabilitiesFinder;
+import org.teiid.query.parser.QueryParser;
+import org.teiid.query.processor.HardcodedDataManager;
+import org.teiid.query.processor.TestProcessor;
+import org.teiid.query.sql.lang.Command;
+import org.teiid.query.unittest.RealMetadataFactory;
+import org.teiid.query.util.CommandContext;
+
+@SuppressWarnings("nls")
+public class TestTextTableNode {
+
+    private static TextTableNode findTextTableNode(RelationalNode node) {
+        if (node instanceof TextTableNode) {
+            return (TextTableNode)node;
+        }
+        for (RelationalNode child : node.getChildren()) {
+            if (child != null) {
+                TextTableNode result = findTextTableNode(child);
+                if (result != null) {
+                    return result;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * The partitions after the one being returned should be parsed before the consumer reaches them
+     */
+    @Test public void testPartitionsParsedAhead() throws Exception {
+        File f = UnitTestUtil.getTestScratchFile("partitions.csv");
+        int rows = 30000;
+        try {
+            try (Writer w = new OutputStreamWriter(new FileOutputStream(f), "UTF-8")) {
+                for (int i = 1; i <= rows; i++) {
+                    w.write(i + ",value" + i + "\n");
+                }
+            }
+            Command command = QueryParser.getQueryParser().parseCommand("select x, rn from texttable(? COLUMNS x integer, y string, rn for ordinality NO QUOTE) as t");
+            CommandContext context = TestProcessor.createCommandContext();
+            context.getOptions().textTableParallelism(4);
+            TestProcessor.setParameterValues(Arrays.asList(new ClobType(new ClobImpl(new InputStreamFactory.FileInputStreamFactory(f), -1))), command, context);
+            RelationalPlan plan = (RelationalPlan)TestProcessor.helpGetPlan(command, RealMetadataFactory.example1Cached(), new DefaultCapabilitiesFinder(), context);
+            plan.initialize(context, new HardcodedDataManager(), context.getBufferManager());
+            plan.open();
+            TextTableNode node = findTextTableNode(plan.getRootNode());
+            try {
+                TupleBatch batch = plan.nextBatch();
+                assertFalse(batch.getTerminationFlag());
+
+                long[] counts = node.getPartitionRowCounts();
+                assertNotNull(counts);
+                assertTrue(counts.length > 1);
+                long total = 0;
+                for (long count : counts) {
+                    assertTrue(count > 0);
+                    total += count;
+                }
+                assertTrue(batch.getEndRow() < counts[0]);
+                assertEquals(rows, total);
+
+                int expected = 1;
+                while (true) {
+                    for (List<?> tuple : batch.getTuples()) {
+                        assertEquals(Arrays.asList(expected, expected), tuple);
+                        expected++;
+                    }
+                    if (batch.getTerminationFlag()) {
+                        break;
+                    }
+                    batch = plan.nextBatch();
+                }
+                assertEquals(rows + 1, expected);
+            } finally {
+                plan.close();
+            }
+        } finally {
+            f.delete();
+        }
+    }
+
+}
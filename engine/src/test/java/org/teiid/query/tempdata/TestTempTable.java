@@ -0,0 +1,99 @@
+/*
+ * Copyright Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags and
+ * the COPYRIGHT.txt file distributed with this work.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.teiid.query.tempdata;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+import org.teiid.common.buffer.BufferManagerFactory;
+import org.teiid.common.buffer.TupleSource;
+import org.teiid.common.buffer.impl.BufferManagerImpl;
+import org.teiid.core.TeiidComponentException;
+import org.teiid.core.TeiidProcessingException;
+import org.teiid.core.types.DataTypeManager;
+import org.teiid.query.metadata.TempMetadataID;
+import org.teiid.query.processor.CollectionTupleSource;
+import org.teiid.query.sql.lang.CompareCriteria;
+import org.teiid.query.sql.lang.Criteria;
+import org.teiid.query.sql.lang.SetCriteria;
+import org.teiid.query.sql.symbol.Constant;
+import org.teiid.query.sql.symbol.ElementSymbol;
+
+@SuppressWarnings("nls")
+public class TestTempTable {
+
+    private static int count(TempTable table, Criteria condition) throws TeiidComponentException, TeiidProcessingException {
+        TupleSource ts = table.createTupleSource(table.getColumns(), condition, null);
+        int count = 0;
+        while (ts.nextTuple() != null) {
+            count++;
+        }
+        ts.closeSource();
+        return count;
+    }
+
+    @Test public void testHashIndex() throws Exception {
+        ElementSymbol e1 = new ElementSymbol("x.e1");
+        e1.setType(DataTypeManager.DefaultDataClasses.INTEGER);
+        ElementSymbol e2 = new ElementSymbol("x.e2");
+        e2.setType(DataTypeManager.DefaultDataClasses.STRING);
+        List<ElementSymbol> columns = new ArrayList<ElementSymbol>(Arrays.asList(e1, e2));
+        BufferManagerImpl bm = BufferManagerFactory.createBufferManager();
+        TempTable table = new TempTable(new TempMetadataID("x", Collections.<TempMetadataID>emptyList()), bm, columns, 1, "1");
+        List<List<?>> rows = new ArrayList<List<?>>();
+        for (int i = 0; i < 100; i++) {
+            rows.add(Arrays.asList(i, String.valueOf(i % 10)));
+        }
+        table.insert(new CollectionTupleSource(rows.iterator()), columns, false, false, null);
+        table.setUpdatable(false);
+        long available = bm.getReserveBatchBytes();
+        assertTrue(table.addHashIndex(Arrays.asList(e2)));
+        //the reservation is held for the life of the index
+        long reserved = available - bm.getReserveBatchBytes();
+        assertTrue(reserved > 0);
+
+        CompareCriteria eq = new CompareCriteria(e2, CompareCriteria.EQ, new Constant("1"));
+        assertEquals(10, count(table, eq));
+        SetCriteria in = new SetCriteria(e2, Arrays.asList(new Constant("1"), new Constant("2"), new Constant("a")));
+        assertEquals(20, count(table, in));
+
+        //row level updates maintain the index, including for clones
+        TempTable clone = table.clone();
+        table.updateTuple(Arrays.asList(1, "a"), false);
+        table.updateTuple(Arrays.asList(11, null), true);
+        assertEquals(8, count(table, eq));
+        assertEquals(1, count(table, new CompareCriteria(e2, CompareCriteria.EQ, new Constant("a"))));
+        assertEquals(19, count(table, in));
+        assertEquals(10, count(clone, eq));
+        assertEquals(20, count(clone, in));
+
+        //the modified table holds a copy of the shared index
+        assertEquals(2 * reserved, available - bm.getReserveBatchBytes());
+        clone.releaseHashIndexes();
+        assertEquals(reserved, available - bm.getReserveBatchBytes());
+        table.truncate(false);
+        assertEquals(available, bm.getReserveBatchBytes());
+    }
+
+}
@@ -44,6 +44,30 @@ public interface Client {
             boolean calculateTotalSize, Integer skip, Integer top, String nextOption, int pageSize,
             QueryResponse response) throws SQLException;
 
+    /**
+     * Execute the query and fetch the first row, so that execution errors are raised
+     * before any rows are added to a response.
+     * <br>
+     * The default implementation defers to {@link #executeSQL(Query, List, boolean, Integer, Integer, String, int, QueryResponse)}
+     * on the first call to {@link QueryResults#addRows(QueryResponse, int)}, which adds all of the rows.
+     */
+    default QueryResults executeQuery(final Query query, final List<SQLParameter> parameters,
+            final boolean calculateTotalSize, final Integer skip, final Integer top, final String nextOption, final int pageSize)
+            throws SQLException {
+        return new QueryResults() {
+            private boolean executed;
+
+            @Override
+            public boolean addRows(QueryResponse response, int maxRows) throws SQLException {
+                if (!executed) {
+                    executed = true;
+                    executeSQL(query, parameters, calculateTotalSize, skip, top, nextOption, pageSize, response);
+                }
+                return false;
+            }
+        };
+    }
+
     CountResponse executeCount(Query query, List<SQLParameter> parameters) throws SQLException;
 
     UpdateResponse executeUpdate(Command command, List<SQLParameter> parameters) throws SQLException;
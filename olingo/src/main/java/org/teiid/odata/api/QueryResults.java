@@ -0,0 +1,35 @@
+/*
+ * Copyright Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags and
+ * the COPYRIGHT.txt file distributed with this work.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.teiid.odata.api;
+
+import java.sql.SQLException;
+
+/**
+ * The results of an executed query whose rows are added to a {@link QueryResponse}
+ * incrementally.
+ */
+public interface QueryResults {
+
+    /**
+     * Add up to maxRows rows to the response.  Once all of the rows have been added
+     * the count and next token are set on the response.
+     * @return true if there may be more rows to add
+     */
+    boolean addRows(QueryResponse response, int maxRows) throws SQLException;
+
+}
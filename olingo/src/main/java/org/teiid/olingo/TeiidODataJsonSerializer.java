@@ -18,6 +18,7 @@
 package org.teiid.olingo;
 
 import java.io.IOException;
+import java.io.OutputStream;
 import java.net.URI;
 import java.util.List;
 
@@ -25,14 +26,19 @@ import org.apache.commons.codec.DecoderException;
 import org.apache.olingo.commons.api.Constants;
 import org.apache.olingo.commons.api.data.ComplexValue;
 import org.apache.olingo.commons.api.data.ContextURL;
+import org.apache.olingo.commons.api.data.Entity;
+import org.apache.olingo.commons.api.data.EntityCollection;
 import org.apache.olingo.commons.api.data.Property;
 import org.apache.olingo.commons.api.edm.EdmComplexType;
 import org.apache.olingo.commons.api.edm.EdmEntityType;
 import org.apache.olingo.commons.api.edm.EdmProperty;
 import org.apache.olingo.commons.api.format.ContentType;
 import org.apache.olingo.server.api.ServiceMetadata;
+import org.apache.olingo.server.api.serializer.EntityCollectionSerializerOptions;
 import org.apache.olingo.server.api.serializer.SerializerException;
 import org.apache.olingo.server.api.serializer.SerializerResult;
+import org.apache.olingo.server.api.uri.queryoption.ExpandOption;
+import org.apache.olingo.server.api.uri.queryoption.SelectOption;
 import org.apache.olingo.server.core.serializer.SerializerResultImpl;
 import org.apache.olingo.server.core.serializer.json.ODataJsonSerializer;
 import org.apache.olingo.server.core.serializer.utils.CircleStreamBuffer;
@@ -144,4 +150,85 @@ public class TeiidODataJsonSerializer extends ODataJsonSerializer {
         }
         return SerializerResultImpl.with().content(buffer.getInputStream()).build();
     }
+
+    /**
+     * Start writing an entity collection directly to the given stream.  Entities are serialized
+     * as they are written so that the collection is never held in memory as an {@link EntityCollection}.
+     * The options are applied as they are for entityCollection, with the exception of
+     * the count, which is not known ahead of the values.
+     */
+    public EntityCollectionWriter entityCollectionWriter(final ServiceMetadata metadata,
+            final EdmEntityType entityType, final EntityCollectionSerializerOptions options,
+            final OutputStream out) throws SerializerException {
+        return new EntityCollectionWriter(metadata, entityType, options, out);
+    }
+
+    public class EntityCollectionWriter {
+        private final JsonGenerator json;
+        private final ServiceMetadata metadata;
+        private final EdmEntityType entityType;
+        private final ExpandOption expand;
+        private final SelectOption select;
+        private final boolean onlyReferences;
+        private final String name;
+
+        EntityCollectionWriter(final ServiceMetadata metadata,
+                final EdmEntityType entityType, final EntityCollectionSerializerOptions options,
+                final OutputStream out) throws SerializerException {
+            this.metadata = metadata;
+            this.entityType = entityType;
+            this.expand = options.getExpand();
+            this.select = options.getSelect();
+            this.onlyReferences = options.getWriteOnlyReferences();
+            ContextURL contextURL = options.getContextURL();
+            if (isODataMetadataNone) {
+                contextURL = null;
+            } else if (contextURL == null) {
+                throw new SerializerException("ContextURL null!", SerializerException.MessageKeys.NO_CONTEXT_URL); //$NON-NLS-1$
+            }
+            this.name = contextURL == null ? null : contextURL.getEntitySetOrSingletonOrType();
+            try {
+                this.json = new JsonFactory().createGenerator(out);
+                //the container owns the response stream
+                this.json.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                json.writeStartObject();
+
+                if (contextURL != null) {
+                    json.writeStringField(Constants.JSON_CONTEXT, ContextURLBuilder.create(contextURL).toASCIIString());
+                }
+                if (!isODataMetadataNone && metadata != null
+                        && metadata.getServiceMetadataETagSupport() != null
+                        && metadata.getServiceMetadataETagSupport().getMetadataETag() != null) {
+                    json.writeStringField(Constants.JSON_METADATA_ETAG,
+                            metadata.getServiceMetadataETagSupport().getMetadataETag());
+                }
+                json.writeFieldName(Constants.VALUE);
+                json.writeStartArray();
+            } catch (final IOException e) {
+                throw new SerializerException("An I/O exception occurred.", e, SerializerException.MessageKeys.IO_EXCEPTION);
+            }
+        }
+
+        public void writeEntity(Entity entity) throws SerializerException {
+            try {
+                TeiidODataJsonSerializer.this.writeEntity(metadata, entityType, entity, null, expand, null, select, onlyReferences, null, name, json);
+            } catch (final IOException | DecoderException e) {
+                throw new SerializerException("An I/O exception occurred.", e, SerializerException.MessageKeys.IO_EXCEPTION);
+            }
+        }
+
+        public void close(final URI nextLink) throws SerializerException {
+            try {
+                json.writeEndArray();
+
+                if (nextLink != null) {
+                    json.writeStringField(Constants.JSON_NEXT_LINK, nextLink.toASCIIString());
+                }
+
+                json.close();
+            } catch (final IOException e) {
+                throw new SerializerException("An I/O exception occurred.", e, SerializerException.MessageKeys.IO_EXCEPTION);
+            }
+        }
+    }
 }
@@ -96,13 +96,21 @@ public class EntityCollectionResponse extends EntityCollection implements QueryR
 
     @Override
     public void addRow(ResultSet rs) throws SQLException {
-        Entity entity = createEntity(rs, this.documentNode, this.baseURL, this);
+        getEntities().add(createExpandedEntity(rs, this.documentNode, this.baseURL, this));
+    }
 
-        processExpands(asRow(rs), entity, this.documentNode);
-        getEntities().add(entity);
+    /**
+     * Create the entity for the current row along with its inline expanded entities
+     */
+    static Entity createExpandedEntity(ResultSet rs, DocumentNode node, String baseURL, EntityCollectionResponse response)
+            throws SQLException {
+        Row row = asRow(rs);
+        Entity entity = createEntity(row, node, baseURL, response);
+        processExpands(row, entity, node, baseURL, response);
+        return entity;
     }
 
-    private void processExpands(Row vals, Entity entity, DocumentNode node)
+    private static void processExpands(Row vals, Entity entity, DocumentNode node, String baseURL, EntityCollectionResponse response)
             throws SQLException {
         if (node.getExpands() == null || node.getExpands().isEmpty()) {
             return;
@@ -114,7 +122,7 @@ public class EntityCollectionResponse extends EntityCollection implements QueryR
             }
             for (Object o : expandedVals) {
                 Object[] expandedVal = (Object[])o;
-                Entity expandEntity = createEntity(expandedVal, expandNode, this.baseURL, this);
+                Entity expandEntity = createEntity(expandedVal, expandNode, baseURL, response);
 
                 Link link = entity.getNavigationLink(expandNode.getNavigationName());
                 if (expandNode.isCollection()) {
@@ -133,7 +141,7 @@ public class EntityCollectionResponse extends EntityCollection implements QueryR
                     link.setInlineEntity(expandEntity);
                 }
 
-                processExpands(asRow(expandedVal), expandEntity, expandNode);
+                processExpands(asRow(expandedVal), expandEntity, expandNode, baseURL, response);
             }
         }
     }
@@ -57,6 +57,7 @@ import org.teiid.odata.api.CountResponse;
 import org.teiid.odata.api.OperationResponse;
 import org.teiid.odata.api.ProcedureReturnType;
 import org.teiid.odata.api.QueryResponse;
+import org.teiid.odata.api.QueryResults;
 import org.teiid.odata.api.SQLParameter;
 import org.teiid.odata.api.UpdateResponse;
 import org.teiid.odbc.ODBCServerRemoteImpl;
@@ -222,6 +223,13 @@ public class LocalClient implements Client {
     public void executeSQL(Query query, List<SQLParameter> parameters,
             boolean calculateTotalSize, Integer skipOption, Integer topOption,
             String nextOption, int pageSize, final QueryResponse response)  throws SQLException {
+        executeQuery(query, parameters, calculateTotalSize, skipOption, topOption, nextOption, pageSize).addRows(response, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public QueryResults executeQuery(Query query, List<SQLParameter> parameters,
+            boolean calculateTotalSize, Integer skipOption, Integer topOption,
+            String nextOption, int pageSize)  throws SQLException {
         boolean cache = pageSize > 0;
 
         boolean getCount = false;
@@ -376,46 +384,96 @@ public class LocalClient implements Client {
             size = Integer.MAX_VALUE;
         }
 
-        //build the results
-        int i = 0;
-        int nextCount = count;
-        while(rs.next()) {
-            count++;
-            i++;
-            entityCount++;
-            if (i > size) {
-                break;
-            }
-            nextCount++;
-            response.addRow(rs);
-        }
+        ResultsImpl results = new ResultsImpl();
+        results.rs = rs;
+        results.cache = cache;
+        results.getCount = getCount;
+        results.sessionId = sessionId;
+        results.savedEntityCount = savedEntityCount;
+        results.count = count;
+        results.nextCount = count;
+        results.entityCount = entityCount;
+        results.expectedEnd = expectedEnd;
+        results.pageSize = pageSize;
+        results.size = size;
+        results.top = top;
+        //fetch the first row so that execution errors are raised here
+        results.hasNext = rs.next();
+        return results;
+    }
 
-        //set the count
-        if (getCount) {
-            while (rs.next()) {
+    /**
+     * The page of results positioned at the next row to add
+     */
+    private class ResultsImpl implements QueryResults {
+        private ResultSet rs;
+        private boolean cache;
+        private boolean getCount;
+        private String sessionId;
+        private Integer savedEntityCount;
+        private int count;
+        private int nextCount;
+        private int entityCount;
+        private int expectedEnd;
+        private int pageSize;
+        private int size;
+        private int top;
+        private int i;
+        private boolean hasNext;
+        private boolean done;
+
+        @Override
+        public boolean addRows(QueryResponse response, int maxRows) throws SQLException {
+            if (done) {
+                return false;
+            }
+            //build the results
+            int added = 0;
+            while (hasNext) {
+                if (added == maxRows) {
+                    return true;
+                }
                 count++;
+                i++;
                 entityCount++;
+                if (i > size) {
+                    break;
+                }
+                nextCount++;
+                response.addRow(rs);
+                added++;
+                hasNext = rs.next();
             }
-        }
-        if (savedEntityCount != null) {
-            response.setCount(savedEntityCount);
-        } else {
-            response.setCount(entityCount);
-        }
+            done = true;
 
-        //set the skipToken if needed
-        if (cache && response.size() == pageSize) {
-            long end = nextCount;
+            //set the count
             if (getCount) {
-                if (end < Math.min(top, count)) {
-                    response.setNextToken(nextToken(cache, sessionId, end, entityCount));
+                while (rs.next()) {
+                    count++;
+                    entityCount++;
+                }
+            }
+            if (savedEntityCount != null) {
+                response.setCount(savedEntityCount);
+            } else {
+                response.setCount(entityCount);
+            }
+
+            //set the skipToken if needed
+            if (cache && response.size() == pageSize) {
+                long end = nextCount;
+                if (getCount) {
+                    if (end < Math.min(top, count)) {
+                        response.setNextToken(nextToken(cache, sessionId, end, entityCount));
+                    }
+                } else if (i > size || count == expectedEnd){
+                    response.setNextToken(nextToken(cache, sessionId, end, null));
+                    loadingFinished = new CompletableFuture<>();
+                    loading.put(loadingKey, loadingFinished);
+                    toCache = rs;
                 }
-            } else if (i > size || count == expectedEnd){
-                response.setNextToken(nextToken(cache, sessionId, end, null));
-                this.loadingFinished = new CompletableFuture<>();
-                this.loading.put(loadingKey, loadingFinished);
-                this.toCache = rs;
             }
+            return false;
         }
     }
 
@@ -0,0 +1,105 @@
+/*
+ * Copyright Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags and
+ * the COPYRIGHT.txt file distributed with this work.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.teiid.olingo.service;
+
+import java.net.URI;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.olingo.commons.api.data.Entity;
+import org.apache.olingo.server.api.serializer.SerializerException;
+import org.teiid.odata.api.QueryResponse;
+import org.teiid.olingo.TeiidODataJsonSerializer.EntityCollectionWriter;
+
+/**
+ * An entity set response that serializes each row, including its expands, as it is read
+ * rather than building an {@link EntityCollectionResponse} for the whole page.
+ * <br>
+ * Rows added before the writer is set are held until {@link #setWriter(EntityCollectionWriter)}
+ * so that the first rows can be converted before the response is committed.
+ */
+public class StreamingEntityCollectionResponse implements QueryResponse {
+
+    private final String baseURL;
+    private final DocumentNode documentNode;
+    private EntityCollectionWriter writer;
+    private List<Entity> pending = new ArrayList<Entity>();
+    private String nextToken;
+    private long size;
+
+    public StreamingEntityCollectionResponse(String baseURL, DocumentNode resource) {
+        this.baseURL = baseURL;
+        this.documentNode = resource;
+    }
+
+    /**
+     * Set the writer and write any rows that have already been added
+     */
+    public void setWriter(EntityCollectionWriter writer) throws SerializerException {
+        this.writer = writer;
+        for (Entity entity : this.pending) {
+            writer.writeEntity(entity);
+        }
+        this.pending = null;
+    }
+
+    @Override
+    public void addRow(ResultSet rs) throws SQLException {
+        Entity entity = EntityCollectionResponse.createExpandedEntity(rs, this.documentNode, this.baseURL, null);
+        this.size++;
+        if (entity == null) {
+            return;
+        }
+        if (this.writer == null) {
+            this.pending.add(entity);
+            return;
+        }
+        try {
+            this.writer.writeEntity(entity);
+        } catch (SerializerException e) {
+            throw new SQLException(e);
+        }
+    }
+
+    public void close(URI next) throws SerializerException {
+        this.writer.close(next);
+    }
+
+    @Override
+    public long size() {
+        return this.size;
+    }
+
+    @Override
+    public void setCount(long count) {
+        //the count is not streamed
+    }
+
+    @Override
+    public void setNextToken(String token) {
+        this.nextToken = token;
+    }
+
+    @Override
+    public String getNextToken() {
+        return this.nextToken;
+    }
+
+}
@@ -19,8 +19,11 @@ package org.teiid.olingo.service;
 
 import java.io.ByteArrayInputStream;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
 import java.nio.charset.Charset;
 import java.sql.Blob;
 import java.sql.Clob;
@@ -43,15 +46,18 @@ import org.apache.olingo.commons.api.edm.EdmParameter;
 import org.apache.olingo.commons.api.edm.EdmPrimitiveTypeException;
 import org.apache.olingo.commons.api.edm.EdmProperty;
 import org.apache.olingo.commons.api.format.ContentType;
+import org.apache.olingo.commons.api.http.HttpHeader;
 import org.apache.olingo.commons.api.http.HttpMethod;
 import org.apache.olingo.commons.api.http.HttpStatusCode;
 import org.apache.olingo.server.api.OData;
 import org.apache.olingo.server.api.ODataApplicationException;
+import org.apache.olingo.server.api.ODataContent;
 import org.apache.olingo.server.api.ODataLibraryException;
 import org.apache.olingo.server.api.ODataRequest;
 import org.apache.olingo.server.api.ODataResponse;
 import org.apache.olingo.server.api.ODataServerError;
 import org.apache.olingo.server.api.ServiceMetadata;
+import org.apache.olingo.server.api.serializer.EntityCollectionSerializerOptions;
 import org.apache.olingo.server.api.serializer.SerializerException;
 import org.apache.olingo.server.api.uri.UriInfo;
 import org.apache.olingo.server.api.uri.UriInfoResource;
@@ -82,9 +88,11 @@ import org.teiid.odata.api.BaseResponse;
 import org.teiid.odata.api.Client;
 import org.teiid.odata.api.ComplexResponse;
 import org.teiid.odata.api.QueryResponse;
+import org.teiid.odata.api.QueryResults;
 import org.teiid.odata.api.UpdateResponse;
 import org.teiid.olingo.EdmComplexResponse;
 import org.teiid.olingo.ODataPlugin;
+import org.teiid.olingo.TeiidODataJsonSerializer;
 import org.teiid.olingo.service.ProcedureSQLBuilder.ActionParameterValueProvider;
 import org.teiid.olingo.service.ProcedureSQLBuilder.FunctionParameterValueProvider;
 import org.teiid.olingo.service.ProcedureSQLBuilder.ProcedureReturn;
@@ -165,6 +173,10 @@ public class TeiidServiceHandler implements ServiceHandler {
         final BaseResponse queryResponse;
         try {
             Query query = visitor.selectQuery();
+            if (response instanceof EntitySetResponse && isStreamable(request, visitor)) {
+                streamResults(request, visitor, query, (EntitySetResponse)response);
+                return;
+            }
             queryResponse = executeQuery(request, request.isCountRequest(), visitor, query);
         } catch (ODataApplicationException|ODataLibraryException e) {
             throw e;
@@ -268,19 +280,92 @@ public class TeiidServiceHandler implements ServiceHandler {
         }
         EntityCollectionResponse result = (EntityCollectionResponse)queryResponse;
         if (result.getNextToken() != null) {
-            try {
-                String nextUri = request.getODataRequest().getRawBaseUri()
-                        +request.getODataRequest().getRawODataPath()
-                        + "?"
-                        +buildNextToken(request.getODataRequest().getRawQueryPath(), result.getNextToken());
-                result.setNext(new URI(nextUri));
-            } catch (URISyntaxException e) {
-                throw new ODataApplicationException(e.getMessage(), 500, Locale.getDefault(), e);
-            }
+            result.setNext(buildNextUri(request, result.getNextToken()));
         }
         response.writeReadEntitySet((EdmEntityType)visitor.getContext().getEdmStructuredType(), result);
     }
 
+    /**
+     * Entity set reads that do not need the count ahead of the values can be
+     * serialized row by row as json rather than as an {@link EntityCollection}
+     */
+    private boolean isStreamable(final DataRequest request,
+            final ODataSQLBuilder visitor) throws ODataLibraryException {
+        DocumentNode context = visitor.getContext();
+        if (request.isCountRequest() || visitor.includeTotalSize()
+                || context instanceof CrossJoinNode
+                || context instanceof ComplexDocumentNode
+                || context instanceof ApplyDocumentNode
+                || !(context.getEdmStructuredType() instanceof EdmEntityType)) {
+            return false;
+        }
+        return request.getResponseContentType().isCompatible(ContentType.APPLICATION_JSON);
+    }
+
+    private void streamResults(final DataRequest request,
+            final ODataSQLBuilder visitor, Query query, EntitySetResponse response)
+            throws ODataLibraryException, ODataApplicationException, SQLException {
+        ContentType contentType = request.getResponseContentType();
+        final TeiidODataJsonSerializer serializer = new TeiidODataJsonSerializer(contentType);
+        final EntityCollectionSerializerOptions options = request.getSerializerOptions(
+                EntityCollectionSerializerOptions.class, request.getContextURL(this.odata), false);
+        final EdmEntityType entityType = (EdmEntityType) visitor.getContext().getEdmStructuredType();
+
+        //execute and convert the first row prior to committing to a successful response
+        //so that errors are reported with the appropriate status
+        final QueryResults results = getClient().executeQuery(query, visitor.getParameters(),
+                false, visitor.getSkip(), visitor.getTop(),
+                visitor.getNextToken(), getPageSize(request));
+        final StreamingEntityCollectionResponse result = new StreamingEntityCollectionResponse(
+                request.getODataRequest().getRawBaseUri(), visitor.getContext());
+        final boolean more = results.addRows(result, 1);
+
+        if (request.getPreference(ODATA_MAXPAGESIZE) != null) {
+            response.writeHeader(PREFERENCE_APPLIED,
+                    ODATA_MAXPAGESIZE+"="+ request.getPreference(ODATA_MAXPAGESIZE)); //$NON-NLS-1$
+        }
+        ODataResponse odataResponse = response.getODataResponse();
+        //the remaining rows are written directly to the response stream
+        odataResponse.setODataContent(new ODataContent() {
+            @Override
+            public void write(WritableByteChannel channel) {
+                write(Channels.newOutputStream(channel));
+            }
+
+            @Override
+            public void write(OutputStream stream) {
+                try {
+                    result.setWriter(serializer.entityCollectionWriter(serviceMetadata, entityType, options, stream));
+                    if (more) {
+                        results.addRows(result, Integer.MAX_VALUE);
+                    }
+                    URI next = null;
+                    if (result.getNextToken() != null) {
+                        next = buildNextUri(request, result.getNextToken());
+                    }
+                    result.close(next);
+                } catch (SQLException | ODataLibraryException | ODataApplicationException e) {
+                    throw new TeiidRuntimeException(e);
+                }
+            }
+        });
+        odataResponse.setStatusCode(HttpStatusCode.OK.getStatusCode());
+        odataResponse.setHeader(HttpHeader.CONTENT_TYPE, contentType.toContentTypeString());
+    }
+
+    private URI buildNextUri(final ServiceRequest request, String nextToken)
+            throws ODataApplicationException {
+        try {
+            String nextUri = request.getODataRequest().getRawBaseUri()
+                    +request.getODataRequest().getRawODataPath()
+                    + "?"
+                    +buildNextToken(request.getODataRequest().getRawQueryPath(), nextToken);
+            return new URI(nextUri);
+        } catch (URISyntaxException e) {
+            throw new ODataApplicationException(e.getMessage(), 500, Locale.getDefault(), e);
+        }
+    }
+
     String buildNextToken(final String queryPath, String nextToken) {
         StringBuilder sb = new StringBuilder();
         if (queryPath != null) {
@@ -313,15 +398,7 @@ public class TeiidServiceHandler implements ServiceHandler {
         }
         URI next = null;
         if (result.getNextToken() != null) {
-            try {
-                String nextUri = request.getODataRequest().getRawBaseUri()
-                        +request.getODataRequest().getRawODataPath()
-                        + "?"
-                        +buildNextToken(request.getODataRequest().getRawQueryPath(), result.getNextToken());
-                next = new URI(nextUri);
-            } catch (URISyntaxException e) {
-                throw new ODataApplicationException(e.getMessage(), 500, Locale.getDefault(), e);
-            }
+            next = buildNextUri(request, result.getNextToken());
         }
         response.writeComplexType(result, next);
     }
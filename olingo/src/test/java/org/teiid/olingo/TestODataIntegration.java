@@ -389,6 +389,41 @@ public class TestODataIntegration {
                 response.getContentAsString());
     }
 
+    @Test
+    public void testStreamedEntitySet() throws Exception {
+        ModelMetaData mmd = new ModelMetaData();
+        mmd.setName("vw");
+        mmd.addSourceMetadata("ddl", "create view x (a string primary key, b integer) "
+                + "as select 'a', 123 "
+                + "union all select 'b', 456 "
+                + "union all select 'c', 789;");
+        mmd.setModelType(Model.Type.VIRTUAL);
+        teiid.deployVDB("northwind", mmd);
+
+        //requesting the count materializes the collection, otherwise it is streamed
+        for (String query : new String[] {"", "?$select=b", "?$filter="+Encoder.encode("b gt 200")}) {
+            for (String accept : new String[] {"application/json",
+                    "application/json;odata.metadata=full", "application/json;odata.metadata=none"}) {
+                String url = baseURL + "/northwind/vw/x" + query;
+                ContentResponse response = http.newRequest(url)
+                        .header("Accept", accept)
+                        .method("GET")
+                        .send();
+                assertEquals(200, response.getStatus());
+                String streamed = response.getContentAsString();
+
+                response = http.newRequest(url + (query.isEmpty()?"?":"&") + "$count=true")
+                        .header("Accept", accept)
+                        .method("GET")
+                        .send();
+                assertEquals(200, response.getStatus());
+                String materialized = response.getContentAsString().replaceFirst("\"@odata.count\":\\d+,", "");
+
+                assertEquals(url + " " + accept, materialized, streamed);
+            }
+        }
+    }
+
     @Test
     public void testEntitySetWithKey() throws Exception {
         ContentResponse response = http.GET(baseURL + "/loopy/vm1/G1(0)/");
@@ -131,6 +131,12 @@ public class CompositeGlobalTableStore implements GlobalTableStore {
         return getStoreForTable(matTableName).updateMatViewRow(matTableName, tuple, delete);
     }
 
+    @Override
+    public long updateMatViewRows(String matTableName,
+            List<? extends List<?>> tuples) throws TeiidComponentException {
+        return getStoreForTable(matTableName).updateMatViewRows(matTableName, tuples);
+    }
+
     @Override
     public TempTable createMatTable(String matTableName, GroupSymbol group)
             throws TeiidComponentException, QueryMetadataException,
@@ -154,6 +160,11 @@ public class CompositeGlobalTableStore implements GlobalTableStore {
         getStoreForTable(matTableName).loaded(matTableName, table);
     }
 
+    @Override
+    public void deltaLoaded(String matTableName) {
+        getStoreForTable(matTableName).deltaLoaded(matTableName);
+    }
+
     GlobalTableStore getStoreForTable(String matTableName) {
         String name = matTableName.substring(RelationalPlanner.MAT_PREFIX.length(), matTableName.length());
         name = name.substring(0, name.indexOf('.'));
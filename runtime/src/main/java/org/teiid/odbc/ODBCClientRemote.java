@@ -94,6 +94,15 @@ public interface ODBCClientRemote {
 
     void sendSslResponse();
 
+    //    CopyOutResponse (B)
+    //    CopyData (B)
+    //    CopyDone (B)
+    //    CommandComplete (B)
+    void sendCopyOut(ResultSetImpl rs, List<PgColInfo> cols, ResultsFuture<Integer> result, boolean binary);
+
+    //    CopyInResponse (B)
+    void sendCopyInResponse(int columnCount, boolean binary);
+
     // unimplemented backend messages
 
     //    AuthenticationKerberosV5 (B)
@@ -103,11 +112,6 @@ public interface ODBCClientRemote {
 
     //    CloseComplete (B)
 
-    //    CopyData (F & B)
-    //    CopyDone (F & B)
-    //    CopyInResponse (B)
-    //    CopyOutResponse (B)
-
     //    NoticeResponse (B)
     //    NotificationResponse (B)
 
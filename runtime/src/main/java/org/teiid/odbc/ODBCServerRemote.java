@@ -61,10 +61,11 @@ public interface ODBCServerRemote {
 
     void cancel(int pid, int key);
 
-    //  unimplemented frontend messages
-    //    CopyData (F & B)
-    //    CopyDone (F & B)
-    //    CopyFail (F)
+    void copyData(byte[] data, Charset encoding);
+
+    void copyDone();
+
+    void copyFail(String msg);
 }
 
 
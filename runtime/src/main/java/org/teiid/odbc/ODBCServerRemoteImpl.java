@@ -17,7 +17,9 @@
  */
 package org.teiid.odbc;
 
+import static org.teiid.odbc.PGUtil.PG_TYPE_BOOL;
 import static org.teiid.odbc.PGUtil.PG_TYPE_BPCHAR;
+import static org.teiid.odbc.PGUtil.PG_TYPE_BYTEA;
 import static org.teiid.odbc.PGUtil.PG_TYPE_NUMERIC;
 import static org.teiid.odbc.PGUtil.PG_TYPE_VARCHAR;
 import static org.teiid.odbc.PGUtil.convertType;
@@ -25,6 +27,7 @@ import static org.teiid.odbc.PGUtil.convertType;
 import java.io.IOException;
 import java.net.InetSocketAddress;
 import java.net.SocketAddress;
+import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
 import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
@@ -81,6 +84,7 @@ import org.teiid.transport.LogonImpl;
 import org.teiid.transport.ODBCClientInstance;
 import org.teiid.transport.PgBackendProtocol;
 import org.teiid.transport.PgFrontendProtocol.NullTerminatedStringDataInputStream;
+import org.teiid.transport.pg.PGbytea;
 import org.teiid.transport.pg.TimestampUtils;
 
 /**
@@ -88,6 +92,7 @@ import org.teiid.transport.pg.TimestampUtils;
 public class ODBCServerRemoteImpl implements ODBCServerRemote {
 
     private static final boolean HONOR_DECLARE_FETCH_TXN = PropertiesUtils.getHierarchicalProperty("org.teiid.honorDeclareFetchTxn", false, Boolean.class); //$NON-NLS-1$
+    private static final int COPY_BATCH_SIZE = PropertiesUtils.getHierarchicalProperty("org.teiid.odbc.copyBatchSize", 2048, Integer.class); //$NON-NLS-1$
 
     public static final String CONNECTION_PROPERTY_PREFIX = "connection."; //$NON-NLS-1$
     private static final String UNNAMED = ""; //$NON-NLS-1$
@@ -208,6 +213,10 @@ public class ODBCServerRemoteImpl implements ODBCServerRemote {
     private static Pattern savepointPattern = Pattern.compile("SAVEPOINT\\s+(\\w+\\d?_*)", Pattern.DOTALL|Pattern.CASE_INSENSITIVE); //$NON-NLS-1$
     private static Pattern rollbackPattern = Pattern.compile("ROLLBACK(\\s+to)?\\s+(\\w+\\d+_*)", Pattern.DOTALL|Pattern.CASE_INSENSITIVE); //$NON-NLS-1$
 
+    private static Pattern copyOutPattern = Pattern.compile("COPY\\s+(?:\\((.+)\\)|(\\S+?)(?:\\s*\\(([^)]*)\\))?)\\s+TO\\s+STDOUT(.*)", Pattern.DOTALL|Pattern.CASE_INSENSITIVE); //$NON-NLS-1$
+    private static Pattern copyInPattern = Pattern.compile("COPY\\s+(\\S+?)(?:\\s*\\(([^)]*)\\))?\\s+FROM\\s+STDIN(.*)", Pattern.DOTALL|Pattern.CASE_INSENSITIVE); //$NON-NLS-1$
+    private static Pattern copyFormatPattern = Pattern.compile("(?:\\s+WITH)?(?:\\s+(BINARY)|\\s+(CSV)(\\s+HEADER)?|\\s*\\(\\s*FORMAT\\s+'?(TEXT|BINARY|CSV)'?(\\s*,\\s*HEADER(?:\\s+'?(?:TRUE|ON)'?)?)?\\s*\\))?\\s*", Pattern.DOTALL|Pattern.CASE_INSENSITIVE); //$NON-NLS-1$
+
     private static Pattern txnPattern = Pattern.compile("(BEGIN(?:\\s+READ\\s+ONLY)?|COMMIT|ROLLBACK)(\\s+(WORK|TRANSACTION))?", Pattern.DOTALL|Pattern.CASE_INSENSITIVE); //$NON-NLS-1$
 
     private TeiidDriver driver;
@@ -233,6 +242,7 @@ public class ODBCServerRemoteImpl implements ODBCServerRemote {
     //of cancellation with 63 random bits - the high bit needs to be 0 as pid must be positive
     private long secretKey = (long)(Math.random()*Long.MAX_VALUE);
     private volatile String executingStatement;
+    private volatile StatementCopyIn copyIn;
 
     public ODBCServerRemoteImpl(ODBCClientInstance client, TeiidDriver driver, LogonImpl logon) {
         this.driver = driver;
@@ -560,15 +570,7 @@ public class ODBCServerRemoteImpl implements ODBCServerRemote {
         final StatementImpl stmt = connection.createStatement();
         executionFuture = stmt.submitExecute(modfiedSQL, null);
         this.executingStatement = stmt.getRequestIdentifier();
-        completion.addCompletionListener(new ResultsFuture.CompletionListener<Integer>() {
-            public void onCompletion(ResultsFuture<Integer> future) {
-                try {
-                    stmt.close();
-                } catch (SQLException e) {
-                    LogManager.logDetail(LogConstants.CTX_ODBC, e, "Error closing statement"); //$NON-NLS-1$
-                }
-            }
-        });
+        closeOnCompletion(stmt, completion);
         executionFuture.addCompletionListener(new ResultsFuture.CompletionListener<Boolean>() {
             @Override
             public void onCompletion(ResultsFuture<Boolean> future) {
@@ -596,6 +598,323 @@ public class ODBCServerRemoteImpl implements ODBCServerRemote {
         });
     }
 
+    private void closeOnCompletion(final StatementImpl stmt,
+            final ResultsFuture<Integer> completion) {
+        completion.addCompletionListener(new ResultsFuture.CompletionListener<Integer>() {
+            public void onCompletion(ResultsFuture<Integer> future) {
+                try {
+                    stmt.close();
+                } catch (SQLException e) {
+                    LogManager.logDetail(LogConstants.CTX_ODBC, e, "Error closing statement"); //$NON-NLS-1$
+                }
+            }
+        });
+    }
+
+    /**
+     * Stream the results of the query or table as CopyData messages
+     */
+    private void copyOut(String query, String table, String columns, String options, final ResultsFuture<Integer> completion) throws SQLException {
+        CopyFormat format = getCopyFormat(options);
+        if (format == CopyFormat.CSV) {
+            throw new TeiidSQLException(RuntimePlugin.Util.gs(RuntimePlugin.Event.TEIID40171, options.trim()));
+        }
+        final boolean binary = format == CopyFormat.BINARY;
+        if (query == null) {
+            query = "SELECT " + (columns == null ? "*" : columns) + " FROM " + table; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+        }
+        final StatementImpl stmt = connection.createStatement();
+        executionFuture = stmt.submitExecute(fixSQL(query), null);
+        this.executingStatement = stmt.getRequestIdentifier();
+        closeOnCompletion(stmt, completion);
+        executionFuture.addCompletionListener(new ResultsFuture.CompletionListener<Boolean>() {
+            @Override
+            public void onCompletion(ResultsFuture<Boolean> future) {
+                executionFuture = null;
+                try {
+                    if (!future.get()) {
+                        throw new TeiidSQLException(RuntimePlugin.Util.gs(RuntimePlugin.Event.TEIID40175));
+                    }
+                    List<PgColInfo> cols = getPgColInfo(stmt.getResultSet().getMetaData());
+                    client.sendCopyOut(stmt.getResultSet(), cols, completion, binary);
+                } catch (Throwable e) {
+                    if (!completion.isDone()) {
+                        completion.getResultsReceiver().exceptionOccurred(e);
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * Start a COPY FROM STDIN.  The completion is not finished until the
+     * client sends CopyDone or CopyFail.
+     * <br>
+     * Under autocommit the whole copy is performed in a local transaction, which is rolled
+     * back if the copy fails.
+     */
+    private void copyIn(String table, String columns, String options, final ResultsFuture<Integer> completion) throws SQLException {
+        CopyFormat format = getCopyFormat(options);
+        List<PgColInfo> cols = null;
+        PreparedStatementImpl select = this.connection.prepareStatement("SELECT " + (columns == null ? "*" : columns) + " FROM " + table); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+        try {
+            cols = getPgColInfo(select.getMetaData());
+        } finally {
+            select.close();
+        }
+        if (format == CopyFormat.BINARY) {
+            for (PgColInfo info : cols) {
+                if (!CopyIn.isBinarySupported(info.type)) {
+                    throw new TeiidSQLException(RuntimePlugin.Util.gs(RuntimePlugin.Event.TEIID40176, info.name, info.type));
+                }
+            }
+        }
+        StringBuilder insert = new StringBuilder("INSERT INTO ").append(table).append(" ("); //$NON-NLS-1$ //$NON-NLS-2$
+        if (columns != null) {
+            insert.append(columns);
+        } else {
+            for (int i = 0; i < cols.size(); i++) {
+                if (i > 0) {
+                    insert.append(", "); //$NON-NLS-1$
+                }
+                insert.append('"').append(StringUtil.replaceAll(cols.get(i).name, "\"", "\"\"")).append('"'); //$NON-NLS-1$ //$NON-NLS-2$
+            }
+        }
+        insert.append(") VALUES ("); //$NON-NLS-1$
+        for (int i = 0; i < cols.size(); i++) {
+            if (i > 0) {
+                insert.append(", "); //$NON-NLS-1$
+            }
+            insert.append('?');
+        }
+        insert.append(')');
+        PreparedStatementImpl stmt = this.connection.prepareStatement(insert.toString());
+        closeOnCompletion(stmt, completion);
+        boolean localTxn = this.connection.getAutoCommit();
+        if (localTxn) {
+            this.connection.setAutoCommit(false);
+        }
+        this.copyIn = new StatementCopyIn(stmt, cols, format, hasCopyHeader(options), completion, localTxn);
+        this.client.sendCopyInResponse(cols.size(), format == CopyFormat.BINARY);
+    }
+
+    static CopyFormat getCopyFormat(String options) throws SQLException {
+        Matcher m = copyFormatPattern.matcher(options);
+        if (!m.matches()) {
+            throw new TeiidSQLException(RuntimePlugin.Util.gs(RuntimePlugin.Event.TEIID40171, options.trim()));
+        }
+        if (m.group(1) != null) {
+            return CopyFormat.BINARY;
+        }
+        if (m.group(2) != null) {
+            return CopyFormat.CSV;
+        }
+        if (m.group(4) != null) {
+            return CopyFormat.valueOf(m.group(4).toUpperCase());
+        }
+        return CopyFormat.TEXT;
+    }
+
+    static boolean hasCopyHeader(String options) {
+        Matcher m = copyFormatPattern.matcher(options);
+        return m.matches() && (m.group(3) != null || m.group(5) != null);
+    }
+
+    @Override
+    public synchronized void copyData(byte[] data, Charset encoding) {
+        CopyIn copy = this.copyIn;
+        if (copy == null) {
+            errorOccurred("no COPY FROM STDIN is in progress"); //$NON-NLS-1$
+            return;
+        }
+        if (copy.error != null) {
+            //ignore the rest of the data
+            return;
+        }
+        try {
+            copy.add(data, encoding);
+        } catch (SQLException | IOException e) {
+            copy.error = e;
+        }
+    }
+
+    @Override
+    public synchronized void copyDone() {
+        StatementCopyIn copy = this.copyIn;
+        if (copy == null) {
+            errorOccurred("no COPY FROM STDIN is in progress"); //$NON-NLS-1$
+            return;
+        }
+        this.copyIn = null;
+        if (copy.error == null) {
+            try {
+                copy.finishing = true;
+                copy.finish();
+                if (copy.batched > 0) {
+                    copy.executeBatch(true);
+                    return;
+                }
+            } catch (SQLException | IOException e) {
+                copy.error = e;
+            }
+        }
+        completeCopyIn(copy, copy.error);
+    }
+
+    @Override
+    public synchronized void copyFail(String msg) {
+        StatementCopyIn copy = this.copyIn;
+        if (copy == null) {
+            errorOccurred("no COPY FROM STDIN is in progress"); //$NON-NLS-1$
+            return;
+        }
+        this.copyIn = null;
+        completeCopyIn(copy, new TeiidSQLException(RuntimePlugin.Util.gs(RuntimePlugin.Event.TEIID40173, msg)));
+    }
+
+    /**
+     * @return true if a COPY FROM STDIN is ready to process more messages
+     */
+    public boolean isCopyingIn() {
+        CopyIn copy = this.copyIn;
+        return copy != null && !copy.isBlocked();
+    }
+
+    /**
+     * Called when a COPY FROM STDIN that was waiting on the execution of a batch
+     * may process more messages
+     */
+    protected void copyInReady() {
+
+    }
+
+    /**
+     * End the local transaction, if any, then report the result of the copy
+     */
+    private void completeCopyIn(final StatementCopyIn copy, final Throwable error) {
+        ResultsFuture<?> txn = ResultsFuture.NULL_FUTURE;
+        if (copy.localTxn) {
+            try {
+                txn = this.connection.submitSetAutoCommitTrue(error == null);
+            } catch (SQLException e) {
+                if (error == null) {
+                    copy.completion.getResultsReceiver().exceptionOccurred(e);
+                    return;
+                }
+            }
+        }
+        txn.addCompletionListener(new ResultsFuture.CompletionListener() {
+            @Override
+            public void onCompletion(ResultsFuture future) {
+                Throwable t = error;
+                if (t == null) {
+                    try {
+                        future.get();
+                    } catch (Throwable e) {
+                        t = e;
+                    }
+                }
+                if (t != null) {
+                    copy.completion.getResultsReceiver().exceptionOccurred(t);
+                    return;
+                }
+                client.sendCommandComplete("COPY", copy.rows); //$NON-NLS-1$
+                copy.completion.getResultsReceiver().receiveResults(copy.rows);
+            }
+        });
+    }
+
+    /**
+     * Loads the rows of a COPY FROM STDIN with batched executions of the insert.  The batches
+     * are executed by the engine, and the parsing of further data waits until each batch completes.
+     */
+    private class StatementCopyIn extends CopyIn {
+        final PreparedStatementImpl stmt;
+        final ResultsFuture<Integer> completion;
+        final boolean localTxn;
+        int rows;
+        int batched;
+        boolean finishing;
+        private volatile boolean executing;
+
+        StatementCopyIn(PreparedStatementImpl stmt, List<PgColInfo> cols, CopyFormat format, boolean header,
+                ResultsFuture<Integer> completion, boolean localTxn) {
+            super(cols, format, header);
+            this.stmt = stmt;
+            this.completion = completion;
+            this.localTxn = localTxn;
+        }
+
+        @Override
+        protected void addRow(Object[] values) throws SQLException {
+            for (int i = 0; i < values.length; i++) {
+                stmt.setObject(i + 1, values[i]);
+            }
+            stmt.addBatch();
+            rows++;
+            if (++batched >= COPY_BATCH_SIZE && !finishing) {
+                executeBatch(false);
+            }
+        }
+
+        @Override
+        boolean isBlocked() {
+            return executing;
+        }
+
+        /**
+         * Submit the batch rather than executing it on the calling thread
+         * @param last true if this is the final batch of the copy
+         */
+        void executeBatch(final boolean last) throws SQLException {
+            batched = 0;
+            executing = true;
+            ResultsFuture<Boolean> result = null;
+            try {
+                result = stmt.submitExecuteBatch();
+            } finally {
+                if (result == null) {
+                    executing = false;
+                }
+            }
+            result.addCompletionListener(new ResultsFuture.CompletionListener<Boolean>() {
+                @Override
+                public void onCompletion(ResultsFuture<Boolean> future) {
+                    synchronized (ODBCServerRemoteImpl.this) {
+                        executing = false;
+                        try {
+                            future.get();
+                        } catch (Throwable e) {
+                            if (error == null) {
+                                error = e;
+                            }
+                        }
+                        if (last) {
+                            completeCopyIn(StatementCopyIn.this, error);
+                            return;
+                        }
+                        if (isParsing()) {
+                            //completed on the parsing thread, which will continue
+                            return;
+                        }
+                        if (error == null) {
+                            try {
+                                resume();
+                            } catch (SQLException | IOException e) {
+                                error = e;
+                            }
+                        }
+                        if (isBlocked()) {
+                            return;
+                        }
+                    }
+                    //process the queued messages outside of the lock
+                    copyInReady();
+                }
+            });
+        }
+    }
+
     private void sendUpdateCount(final String sql,
             final StatementImpl stmt) throws SQLException {
         String keyword = SqlUtil.getKeyword(sql);
@@ -659,7 +978,7 @@ public class ODBCServerRemoteImpl implements ODBCServerRemote {
         }
     }
 
-    private long readLong(byte[] bytes, int length) {
+    private static long readLong(byte[] bytes, int length) {
         long val = 0;
         for (int k = 0; k < length; k++) {
             val += ((long)(bytes[k] & 255) << ((length - k - 1)*8));
@@ -667,6 +986,38 @@ public class ODBCServerRemoteImpl implements ODBCServerRemote {
         return val;
     }
 
+    /**
+     * Convert a binary format value to the expected java value
+     */
+    static Object convertBinary(byte[] bytes, int oid, Charset encoding) {
+        switch (oid) {
+        case PGUtil.PG_TYPE_BYTEA:
+            return bytes;
+        case PGUtil.PG_TYPE_BOOL:
+            return bytes[0] != 0;
+        case PGUtil.PG_TYPE_INT2:
+            return (short)readLong(bytes, 2);
+        case PGUtil.PG_TYPE_INT4:
+            return (int)readLong(bytes, 4);
+        case PGUtil.PG_TYPE_INT8:
+            return readLong(bytes, 8);
+        case PGUtil.PG_TYPE_FLOAT4:
+            return Float.intBitsToFloat((int)readLong(bytes, 4));
+        case PGUtil.PG_TYPE_FLOAT8:
+            return Double.longBitsToDouble(readLong(bytes, 8));
+        case PGUtil.PG_TYPE_TIME:
+            //micro to millis
+            return TimestampUtils.convertToTime(readLong(bytes, 8)/1000, TimestampWithTimezone.getCalendar().getTimeZone());
+        case PGUtil.PG_TYPE_DATE:
+            return TimestampUtils.toDate(TimestampWithTimezone.getCalendar().getTimeZone(), (int)readLong(bytes, 4));
+        case PGUtil.PG_TYPE_TIMESTAMP_NO_TMZONE:
+            return TimestampUtils.toTimestamp(readLong(bytes, 8), TimestampWithTimezone.getCalendar().getTimeZone());
+        default:
+            //start with the string conversion
+            return new String(bytes, encoding);
+        }
+    }
+
     @Override
     public void bindParameters(String bindName, String prepareName, Object[] params, int resultCodeCount, short[] resultColumnFormat, Charset encoding) {
         // An unnamed portal is destroyed at the end of the transaction, or as soon as
@@ -704,41 +1055,9 @@ public class ODBCServerRemoteImpl implements ODBCServerRemote {
                 Object param = params[i];
                 if (param instanceof byte[] && prepared.paramType.length > i) {
                     int oid = prepared.paramType[i];
-                    switch (oid) {
-                    case PGUtil.PG_TYPE_UNSPECIFIED:
-                        //TODO: should infer type from the parameter metadata from the parse message
-                        break;
-                    case PGUtil.PG_TYPE_BYTEA:
-                        break;
-                    case PGUtil.PG_TYPE_INT2:
-                        param = (short)readLong((byte[])param, 2);
-                        break;
-                    case PGUtil.PG_TYPE_INT4:
-                        param = (int)readLong((byte[])param, 4);
-                        break;
-                    case PGUtil.PG_TYPE_INT8:
-                        param = readLong((byte[])param, 8);
-                        break;
-                    case PGUtil.PG_TYPE_FLOAT4:
-                        param = Float.intBitsToFloat((int)readLong((byte[])param, 4));
-                        break;
-                    case PGUtil.PG_TYPE_FLOAT8:
-                        param = Double.longBitsToDouble(readLong((byte[])param, 8));
-                        break;
-                    case PGUtil.PG_TYPE_TIME:
-                        //micro to millis
-                        param = TimestampUtils.convertToTime(readLong((byte[])param, 8)/1000, TimestampWithTimezone.getCalendar().getTimeZone());
-                        break;
-                    case PGUtil.PG_TYPE_DATE:
-                        param = TimestampUtils.toDate(TimestampWithTimezone.getCalendar().getTimeZone(), (int)readLong((byte[])param, 4));
-                        break;
-                    case PGUtil.PG_TYPE_TIMESTAMP_NO_TMZONE:
-                        param = TimestampUtils.toTimestamp(readLong((byte[])param, 8), TimestampWithTimezone.getCalendar().getTimeZone());
-                        break;
-                    default:
-                        //start with the string conversion
-                        param = new String((byte[])param, encoding);
-                        break;
+                    //TODO: should infer type from the parameter metadata from the parse message
+                    if (oid != PGUtil.PG_TYPE_UNSPECIFIED) {
+                        param = convertBinary((byte[])param, oid, encoding);
                     }
                 }
                 stmt.setObject(i+1, param);
@@ -1101,6 +1420,10 @@ public class ODBCServerRemoteImpl implements ODBCServerRemote {
 
     @Override
     public void sync() {
+        if (this.copyIn != null) {
+            //sync is ignored during COPY FROM STDIN
+            return;
+        }
         ready();
     }
 
@@ -1361,6 +1684,12 @@ public class ODBCServerRemoteImpl implements ODBCServerRemote {
                             cursorClose(normalizeName(m.group(1)));
                             results.getResultsReceiver().receiveResults(1);
                         }
+                        else if ((m = copyOutPattern.matcher(sql)).matches()) {
+                            copyOut(m.group(1), m.group(2), m.group(3), m.group(4), results);
+                        }
+                        else if ((m = copyInPattern.matcher(sql)).matches()) {
+                            copyIn(m.group(1), m.group(2), m.group(3), results);
+                        }
                         else if ((m = deallocatePattern.matcher(sql)).matches()) {
                             String plan_name = m.group(1);
                             plan_name = normalizeName(plan_name);
@@ -1526,4 +1855,393 @@ public class ODBCServerRemoteImpl implements ODBCServerRemote {
         }
     }
 
+    enum CopyFormat {
+        TEXT,
+        CSV,
+        BINARY
+    }
+
+    /**
+     * Parses the rows of COPY FROM STDIN data.  Rows may span CopyData messages, so
+     * any trailing partial row is retained until more data is received.
+     * <br>
+     * While {@link #isBlocked()} the parsing is suspended with the remaining data retained
+     * until {@link #resume()} is called.
+     */
+    static class CopyIn {
+
+        private static final byte[] COPY_SIGNATURE = new byte[] {'P', 'G', 'C', 'O', 'P', 'Y', '\n', (byte)0xff, '\r', '\n', 0};
+        private static final int HEADER_LENGTH = COPY_SIGNATURE.length + 8;
+
+        final List<PgColInfo> cols;
+        final CopyFormat format;
+        Throwable error;
+        private boolean skipHeader;
+        private int lines;
+        private boolean headerRead;
+        private boolean done;
+        private boolean parsing;
+        private Charset encoding;
+        private ByteBuffer pending = ByteBuffer.allocate(1 << 13);
+
+        CopyIn(List<PgColInfo> cols, CopyFormat format, boolean header) {
+            this.cols = cols;
+            this.format = format;
+            this.skipHeader = header;
+            this.pending.flip();
+        }
+
+        /**
+         * Binary values are only accepted for the types that have a binary conversion
+         * or are read as strings
+         */
+        static boolean isBinarySupported(int oid) {
+            switch (oid) {
+            case PGUtil.PG_TYPE_BYTEA:
+            case PGUtil.PG_TYPE_BOOL:
+            case PGUtil.PG_TYPE_INT2:
+            case PGUtil.PG_TYPE_INT4:
+            case PGUtil.PG_TYPE_INT8:
+            case PGUtil.PG_TYPE_FLOAT4:
+            case PGUtil.PG_TYPE_FLOAT8:
+            case PGUtil.PG_TYPE_TIME:
+            case PGUtil.PG_TYPE_DATE:
+            case PGUtil.PG_TYPE_TIMESTAMP_NO_TMZONE:
+            case PGUtil.PG_TYPE_BPCHAR:
+            case PGUtil.PG_TYPE_VARCHAR:
+            case PGUtil.PG_TYPE_TEXT:
+            case PGUtil.PG_TYPE_XML:
+            case PGUtil.PG_TYPE_JSON:
+                return true;
+            default:
+                return false;
+            }
+        }
+
+        /**
+         * Add the CopyData bytes and parse the available rows.
+         */
+        void add(byte[] data, Charset charset) throws SQLException, IOException {
+            if (done) {
+                return;
+            }
+            this.encoding = charset;
+            pending.compact();
+            if (pending.remaining() < data.length) {
+                ByteBuffer newPending = ByteBuffer.allocate(Math.max(pending.capacity() << 1, pending.position() + data.length));
+                pending.flip();
+                newPending.put(pending);
+                pending = newPending;
+            }
+            pending.put(data);
+            pending.flip();
+            parse();
+        }
+
+        /**
+         * Continue parsing the retained data after being blocked
+         */
+        void resume() throws SQLException, IOException {
+            if (!done && encoding != null) {
+                parse();
+            }
+        }
+
+        /**
+         * Parse the last line, which may not have a line terminator
+         */
+        void finish() throws SQLException, IOException {
+            if (done || format == CopyFormat.BINARY || !pending.hasRemaining()) {
+                return;
+            }
+            byte[] data = new byte[] {'\n'};
+            add(data, encoding);
+        }
+
+        private void parse() throws SQLException, IOException {
+            parsing = true;
+            try {
+                if (format == CopyFormat.BINARY) {
+                    readBinaryRows();
+                } else {
+                    readTextRows();
+                }
+            } finally {
+                parsing = false;
+            }
+        }
+
+        boolean isParsing() {
+            return parsing;
+        }
+
+        /**
+         * @return true if the parsing should wait for a prior row action
+         */
+        boolean isBlocked() {
+            return false;
+        }
+
+        /**
+         * Process a parsed row
+         */
+        protected void addRow(Object[] values) throws SQLException {
+
+        }
+
+        private void readTextRows() throws SQLException {
+            byte[] bytes = pending.array();
+            while (!done && !isBlocked()) {
+                int start = pending.position();
+                int end = start;
+                boolean quoted = false;
+                while (end < pending.limit() && (quoted || bytes[end] != '\n')) {
+                    if (format == CopyFormat.CSV && bytes[end] == '"') {
+                        quoted = !quoted;
+                    }
+                    end++;
+                }
+                if (end == pending.limit()) {
+                    return;
+                }
+                pending.position(end + 1);
+                int length = end - start;
+                if (length > 0 && bytes[end - 1] == '\r') {
+                    length--;
+                }
+                lines++;
+                String line = new String(bytes, start, length, encoding);
+                if (line.equals("\\.")) { //$NON-NLS-1$
+                    //end of data marker
+                    done = true;
+                    return;
+                }
+                if (skipHeader) {
+                    skipHeader = false;
+                    continue;
+                }
+                Object[] values = format == CopyFormat.CSV ? parseCsvRow(line) : parseTextRow(line);
+                for (int i = 0; i < values.length; i++) {
+                    values[i] = convertText((String)values[i], cols.get(i).type, encoding);
+                }
+                addRow(values);
+            }
+        }
+
+        private Object[] parseTextRow(String line) throws SQLException {
+            Object[] values = new Object[cols.size()];
+            int column = 0;
+            int start = 0;
+            while (true) {
+                int end = line.indexOf('\t', start);
+                if (end == -1) {
+                    end = line.length();
+                }
+                if (column == values.length) {
+                    throw new TeiidSQLException(RuntimePlugin.Util.gs(RuntimePlugin.Event.TEIID40172, lines, values.length));
+                }
+                values[column++] = unescapeText(line.substring(start, end));
+                if (end == line.length()) {
+                    break;
+                }
+                start = end + 1;
+            }
+            if (column != values.length) {
+                throw new TeiidSQLException(RuntimePlugin.Util.gs(RuntimePlugin.Event.TEIID40172, lines, values.length));
+            }
+            return values;
+        }
+
+        /**
+         * Parse a CSV row.  An unquoted empty value is null, a quoted empty value is the empty string,
+         * and a doubled quote within a quoted value is a literal quote.
+         */
+        private Object[] parseCsvRow(String line) throws SQLException {
+            Object[] values = new Object[cols.size()];
+            int column = 0;
+            StringBuilder value = new StringBuilder();
+            boolean quoted = false;
+            boolean wasQuoted = false;
+            for (int i = 0; i <= line.length(); i++) {
+                char c = i < line.length() ? line.charAt(i) : ',';
+                if (quoted) {
+                    if (c != '"') {
+                        value.append(c);
+                    } else if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                        value.append(c);
+                        i++;
+                    } else {
+                        quoted = false;
+                    }
+                } else if (c == '"') {
+                    quoted = true;
+                    wasQuoted = true;
+                } else if (c == ',') {
+                    if (column == values.length) {
+                        throw new TeiidSQLException(RuntimePlugin.Util.gs(RuntimePlugin.Event.TEIID40172, lines, values.length));
+                    }
+                    values[column++] = (value.length() == 0 && !wasQuoted) ? null : value.toString();
+                    value.setLength(0);
+                    wasQuoted = false;
+                } else {
+                    value.append(c);
+                }
+            }
+            if (column != values.length) {
+                throw new TeiidSQLException(RuntimePlugin.Util.gs(RuntimePlugin.Event.TEIID40172, lines, values.length));
+            }
+            return values;
+        }
+
+        private void readBinaryRows() throws SQLException {
+            if (!headerRead) {
+                int start = pending.position();
+                if (pending.remaining() < HEADER_LENGTH) {
+                    return;
+                }
+                for (int i = 0; i < COPY_SIGNATURE.length; i++) {
+                    if (pending.get(start + i) != COPY_SIGNATURE[i]) {
+                        throw new TeiidSQLException(RuntimePlugin.Util.gs(RuntimePlugin.Event.TEIID40174, "invalid signature")); //$NON-NLS-1$
+                    }
+                }
+                int extensionLength = pending.getInt(start + COPY_SIGNATURE.length + 4);
+                if (pending.remaining() < HEADER_LENGTH + extensionLength) {
+                    return;
+                }
+                pending.position(start + HEADER_LENGTH + extensionLength);
+                headerRead = true;
+            }
+            while (!done && !isBlocked() && pending.remaining() >= 2) {
+                int start = pending.position();
+                short fields = pending.getShort(start);
+                if (fields == -1) {
+                    //file trailer
+                    done = true;
+                    pending.position(pending.limit());
+                    return;
+                }
+                if (fields != cols.size()) {
+                    throw new TeiidSQLException(RuntimePlugin.Util.gs(RuntimePlugin.Event.TEIID40172, lines + 1, cols.size()));
+                }
+                //check that the whole tuple is available
+                int position = start + 2;
+                for (int i = 0; i < fields; i++) {
+                    if (pending.limit() - position < 4) {
+                        return;
+                    }
+                    int length = pending.getInt(position);
+                    position += 4;
+                    if (length > 0) {
+                        if (pending.limit() - position < length) {
+                            return;
+                        }
+                        position += length;
+                    }
+                }
+                pending.position(start + 2);
+                lines++;
+                Object[] values = new Object[fields];
+                for (int i = 0; i < fields; i++) {
+                    int length = pending.getInt();
+                    if (length < 0) {
+                        continue;
+                    }
+                    byte[] bytes = new byte[length];
+                    pending.get(bytes);
+                    values[i] = convertBinary(bytes, cols.get(i).type, encoding);
+                }
+                addRow(values);
+            }
+        }
+
+        /**
+         * Convert the text COPY values that don't have the same text form in Teiid
+         */
+        static Object convertText(String value, int oid, Charset encoding) throws SQLException {
+            if (value == null) {
+                return null;
+            }
+            switch (oid) {
+            case PG_TYPE_BOOL:
+                String val = value.trim().toLowerCase();
+                if (val.equals("t") || val.equals("true") || val.equals("y") || val.equals("yes") || val.equals("on") || val.equals("1")) { //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$ //$NON-NLS-6$
+                    return Boolean.TRUE;
+                }
+                if (val.equals("f") || val.equals("false") || val.equals("n") || val.equals("no") || val.equals("off") || val.equals("0")) { //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$ //$NON-NLS-6$
+                    return Boolean.FALSE;
+                }
+                return value;
+            case PG_TYPE_BYTEA:
+                return PGbytea.toBytes(value.getBytes(encoding));
+            default:
+                return value;
+            }
+        }
+
+        /**
+         * Remove the text COPY escapes.  \N alone represents null.
+         */
+        static String unescapeText(String value) {
+            if (value.indexOf('\\') == -1) {
+                return value;
+            }
+            if (value.equals("\\N")) { //$NON-NLS-1$
+                return null;
+            }
+            StringBuilder result = new StringBuilder(value.length());
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c != '\\' || i + 1 == value.length()) {
+                    result.append(c);
+                    continue;
+                }
+                c = value.charAt(++i);
+                switch (c) {
+                case 'b':
+                    result.append('\b');
+                    break;
+                case 'f':
+                    result.append('\f');
+                    break;
+                case 'n':
+                    result.append('\n');
+                    break;
+                case 'r':
+                    result.append('\r');
+                    break;
+                case 't':
+                    result.append('\t');
+                    break;
+                case 'v':
+                    result.append((char)11);
+                    break;
+                case 'x':
+                    int hexEnd = i + 1;
+                    while (hexEnd < value.length() && hexEnd < i + 3 && Character.digit(value.charAt(hexEnd), 16) != -1) {
+                        hexEnd++;
+                    }
+                    if (hexEnd == i + 1) {
+                        result.append(c);
+                    } else {
+                        result.append((char)Integer.parseInt(value.substring(i + 1, hexEnd), 16));
+                        i = hexEnd - 1;
+                    }
+                    break;
+                default:
+                    if (c >= '0' && c <= '7') {
+                        int octalEnd = i + 1;
+                        while (octalEnd < value.length() && octalEnd < i + 3 && value.charAt(octalEnd) >= '0' && value.charAt(octalEnd) <= '7') {
+                            octalEnd++;
+                        }
+                        result.append((char)Integer.parseInt(value.substring(i, octalEnd), 8));
+                        i = octalEnd - 1;
+                    } else {
+                        result.append(c);
+                    }
+                }
+            }
+            return result.toString();
+        }
+    }
+
 }
@@ -1150,5 +1150,10 @@ public class EmbeddedServer extends AbstractVDBDeployer implements EventDistribu
         public V remove(K key) {
             return cache.remove(key);
         }
+
+        @Override
+        public long getEvictionCount() {
+            return -1;
+        }
     }
 }
@@ -43,6 +43,21 @@ class Cache implements CacheBean {
         return cache.getRequestCount();
     }
 
+    @Override
+    public long getHitCount() {
+        return cache.getCacheHitCount();
+    }
+
+    @Override
+    public long getMissCount() {
+        return cache.getRequestCount() - cache.getCacheHitCount();
+    }
+
+    @Override
+    public long getEvictionCount() {
+        return cache.getEvictionCount();
+    }
+
     @Override
     public void clear() {
         cache.clearAll();
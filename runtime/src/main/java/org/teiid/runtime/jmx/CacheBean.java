@@ -29,6 +29,15 @@ public interface CacheBean {
 
     long getRequestCount();
 
+    long getHitCount();
+
+    long getMissCount();
+
+    /**
+     * @return the number of entries evicted, or -1 if not tracked by the cache implementation
+     */
+    long getEvictionCount();
+
     public void clear();
 
 }
@@ -29,6 +29,7 @@ import org.teiid.common.buffer.impl.BufferFrontedFileStoreCache;
 import org.teiid.common.buffer.impl.BufferManagerImpl;
 import org.teiid.common.buffer.impl.EncryptedStorageManager;
 import org.teiid.common.buffer.impl.FileStorageManager;
+import org.teiid.common.buffer.impl.MemoryMappedStorageManager;
 import org.teiid.common.buffer.impl.MemoryStorageManager;
 import org.teiid.common.buffer.impl.SplittableStorageManager;
 import org.teiid.core.TeiidComponentException;
@@ -56,6 +57,7 @@ public class BufferServiceImpl implements BufferService, Serializable {
     //general batch properties
     private int processorBatchSize = BufferManager.DEFAULT_PROCESSOR_BATCH_SIZE;
     private boolean inlineLobs = true;
+    private boolean compressSpilledBatches;
 
     // storage layers - only used if useDisk is true
     private boolean useDisk = true;
@@ -70,10 +72,13 @@ public class BufferServiceImpl implements BufferService, Serializable {
     //fixed memory properties
     private long fixedMemoryBufferSpaceMb = -1;
     private boolean fixedMemoryBufferOffHeap;
+    private boolean fixedMemoryBufferMapped;
+    private int fixedMemoryBufferBlockSizeKb = BufferFrontedFileStoreCache.DEFAULT_BLOCK_SIZE>>10;
 
     //disk properties
     private File bufferDir;
     private boolean encryptFiles = false;
+    private boolean memoryMappedStorage;
     private int maxOpenFiles = FileStorageManager.DEFAULT_MAX_OPEN_FILES;
     private long maxFileSize = SplittableStorageManager.DEFAULT_MAX_FILESIZE; // 2GB
     private long maxDiskBufferSpace = FileStorageManager.DEFAULT_MAX_BUFFERSPACE>>20;
@@ -97,6 +102,7 @@ public class BufferServiceImpl implements BufferService, Serializable {
             this.bufferMgr.setMaxReserveKB(this.maxReservedHeapKb);
             this.bufferMgr.setMaxProcessingKB(this.maxProcessingKb);
             this.bufferMgr.setInlineLobs(inlineLobs);
+            this.bufferMgr.setCompressSpilledBatches(compressSpilledBatches);
             this.bufferMgr.setSessionService(sessionService);
             this.bufferMgr.initialize();
 
@@ -110,10 +116,13 @@ public class BufferServiceImpl implements BufferService, Serializable {
                 // wise FileStorageManager is smart enough to clean up after itself
                 cleanDirectory(bufferDir);
                 // Get the properties for FileStorageManager and create.
-                fsm = new FileStorageManager();
+                if (memoryMappedStorage) {
+                    fsm = new MemoryMappedStorageManager();
+                } else {
+                    fsm = new FileStorageManager();
+                }
                 fsm.setStorageDirectory(bufferDir.getCanonicalPath());
                 fsm.setMaxOpenFiles(maxOpenFiles);
-                fsm.setMaxBufferSpace(maxDiskBufferSpace*MB);
                 SplittableStorageManager ssm = new SplittableStorageManager(fsm);
                 ssm.setMaxFileSize(maxFileSize);
                 StorageManager sm = ssm;
@@ -124,6 +133,14 @@ public class BufferServiceImpl implements BufferService, Serializable {
                 fsc.setBufferManager(this.bufferMgr);
                 fsc.setMaxStorageObjectSize(maxStorageObjectSize);
                 fsc.setDirect(fixedMemoryBufferOffHeap);
+                boolean mapped = fixedMemoryBufferMapped;
+                if (mapped && encryptFiles) {
+                    //the mapped files would hold the batches unencrypted
+                    LogManager.logWarning(LogConstants.CTX_DQP, RuntimePlugin.Util.gs(RuntimePlugin.Event.TEIID40177));
+                    mapped = false;
+                }
+                fsc.setBlockSize(fixedMemoryBufferBlockSizeKb<<10);
+                boolean offHeap = fixedMemoryBufferOffHeap || fixedMemoryBufferMapped;
                 if (fixedMemoryBufferSpaceMb < 0) {
                     //use approximately 40% of what's set aside for the reserved accounting for conversion from kb to bytes
                     long autoMaxBufferSpace = 4*(((long)this.bufferMgr.getMaxReserveKB())<<10)/10;
@@ -137,11 +154,26 @@ public class BufferServiceImpl implements BufferService, Serializable {
                     //scale from MB to bytes
                     fsc.setMemoryBufferSpace(fixedMemoryBufferSpaceMb << 20);
                 }
+                long diskSpace = maxDiskBufferSpace*MB;
+                if (mapped) {
+                    //the mapped files are in the buffer directory, so they count against the disk limit
+                    if (fsc.getMemoryBufferSpace() >= diskSpace) {
+                        LogManager.logWarning(LogConstants.CTX_DQP, RuntimePlugin.Util.gs(RuntimePlugin.Event.TEIID40178, fsc.getMemoryBufferSpace()>>20, maxDiskBufferSpace));
+                        mapped = false;
+                    } else {
+                        fsc.setMemoryMappedDirectory(bufferDir);
+                        diskSpace -= fsc.getMemoryBufferSpace();
+                    }
+                }
+                if (fixedMemoryBufferMapped && !mapped) {
+                    fsc.setDirect(true);
+                }
+                fsm.setMaxBufferSpace(diskSpace);
                 //estimate inode/batch overhead
-                long batchAndInodeOverheadKB = fsc.getMemoryBufferSpace()>>(fixedMemoryBufferOffHeap?19:17);
+                long batchAndInodeOverheadKB = fsc.getMemoryBufferSpace()>>(offHeap?19:17);
                 this.bufferMgr.setMaxReserveKB((int)Math.max(0, this.bufferMgr.getMaxReserveKB() - batchAndInodeOverheadKB));
                 if (this.maxReservedHeapKb < 0) {
-                    if (fixedMemoryBufferOffHeap) {
+                    if (offHeap) {
                         //the default is too large if off heap
                         this.bufferMgr.setMaxReserveKB(8*this.bufferMgr.getMaxReserveKB()/10);
                     } else {
@@ -218,6 +250,14 @@ public class BufferServiceImpl implements BufferService, Serializable {
         return inlineLobs;
     }
 
+    public void setCompressSpilledBatches(boolean compressSpilledBatches) {
+        this.compressSpilledBatches = compressSpilledBatches;
+    }
+
+    public boolean isCompressSpilledBatches() {
+        return compressSpilledBatches;
+    }
+
     public int getProcessorBatchSize() {
         return this.processorBatchSize;
     }
@@ -234,6 +274,17 @@ public class BufferServiceImpl implements BufferService, Serializable {
         this.maxOpenFiles = maxOpenFiles;
     }
 
+    /**
+     * Access the disk storage files through memory mapping
+     */
+    public void setMemoryMappedStorage(boolean memoryMappedStorage) {
+        this.memoryMappedStorage = memoryMappedStorage;
+    }
+
+    public boolean isMemoryMappedStorage() {
+        return memoryMappedStorage;
+    }
+
     public int getMaxProcessingKb() {
         return maxProcessingKb;
     }
@@ -267,6 +318,19 @@ public class BufferServiceImpl implements BufferService, Serializable {
         this.fixedMemoryBufferOffHeap = memoryBufferOffHeap;
     }
 
+    /**
+     * Hold the fixed memory buffer in memory mapped files in the buffer directory.
+     * The mapped files count against the max disk buffer space.  Direct buffers are used instead
+     * if the files are encrypted or if the max disk buffer space is too small.
+     */
+    public void setFixedMemoryBufferMapped(boolean fixedMemoryBufferMapped) {
+        this.fixedMemoryBufferMapped = fixedMemoryBufferMapped;
+    }
+
+    public void setFixedMemoryBufferBlockSizeKb(int fixedMemoryBufferBlockSizeKb) {
+        this.fixedMemoryBufferBlockSizeKb = fixedMemoryBufferBlockSizeKb;
+    }
+
     public void setFixedMemoryBufferSpaceMb(int memoryBufferSpace) {
         this.fixedMemoryBufferSpaceMb = memoryBufferSpace;
     }
@@ -347,6 +411,26 @@ public class BufferServiceImpl implements BufferService, Serializable {
         return fixedMemoryBufferOffHeap;
     }
 
+    public boolean isFixedMemoryBufferMapped() {
+        return fixedMemoryBufferMapped;
+    }
+
+    public int getFixedMemoryBufferBlockSizeKb() {
+        return fixedMemoryBufferBlockSizeKb;
+    }
+
+    public double getHeapHitRatio() {
+        return bufferMgr.getHeapHitRatio();
+    }
+
+    public double getMemoryBufferHitRatio() {
+        return bufferMgr.getMemoryBufferHitRatio();
+    }
+
+    public double getStorageHitRatio() {
+        return bufferMgr.getStorageHitRatio();
+    }
+
     public boolean isEncryptFiles() {
         return encryptFiles;
     }
@@ -46,8 +46,10 @@ public class ODBCClientInstance implements ChannelListener{
     private ODBCServerRemoteImpl server;
     private ReflectionHelper serverProxy = new ReflectionHelper(ODBCServerRemote.class);
     private ConcurrentLinkedQueue<PGRequest> messageQueue = new ConcurrentLinkedQueue<PGRequest>();
+    private final ObjectChannel channel;
 
     public ODBCClientInstance(final ObjectChannel channel, TeiidDriver driver, LogonImpl logonService) {
+        this.channel = channel;
         this.client = (ODBCClientRemote)Proxy.newProxyInstance(this.getClass().getClassLoader(), new Class[] {ODBCClientRemote.class}, new InvocationHandler() {
             @Override
             public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
@@ -72,10 +74,40 @@ public class ODBCClientInstance implements ChannelListener{
                         processMessage(request.struct);
                     }
                 }
+                if (messageQueue.isEmpty()) {
+                    setAutoRead(true);
+                }
+            }
+
+            @Override
+            protected synchronized void copyInReady() {
+                while (server.isCopyingIn()) {
+                    PGRequest request = messageQueue.poll();
+                    if (request == null) {
+                        break;
+                    }
+                    processMessage(request.struct);
+                }
+                if (messageQueue.isEmpty()) {
+                    setAutoRead(true);
+                }
             }
         };
     }
 
+    /**
+     * Stop reading while messages are queued, so that a client sending faster than
+     * statements or copy batches execute, such as with a large COPY FROM STDIN, is
+     * held back by the socket rather than by an unbounded queue.
+     * Messages already read from the socket may still be delivered after reading is stopped.
+     * Should be called holding the server lock.
+     */
+    private void setAutoRead(boolean autoRead) {
+        if (channel instanceof SSLAwareChannelHandler.ObjectChannelImpl) {
+            ((SSLAwareChannelHandler.ObjectChannelImpl)channel).setAutoRead(autoRead);
+        }
+    }
+
     public ODBCClientRemote getClient() {
         return client;
     }
@@ -102,9 +134,10 @@ public class ODBCClientInstance implements ChannelListener{
         if (msg instanceof PGRequest) {
             PGRequest request = (PGRequest)msg;
             synchronized (server) {
-                if (server.isExecuting()) {
-                    //queue until done
+                if (server.isExecuting() && (!server.isCopyingIn() || !messageQueue.isEmpty())) {
+                    //queue until done, or until the copy is ready for more data
                     messageQueue.add(request);
+                    setAutoRead(false);
                     return;
                 }
                 if (server.isErrorOccurred() && !request.struct.methodName.equals("sync")) { //$NON-NLS-1$
@@ -20,6 +20,7 @@ package org.teiid.transport;
 
 import static org.teiid.odbc.PGUtil.*;
 
+import java.io.FilterWriter;
 import java.io.IOException;
 import java.io.OutputStreamWriter;
 import java.io.Reader;
@@ -27,6 +28,8 @@ import java.io.StreamCorruptedException;
 import java.io.Writer;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.math.BigDecimal;
+import java.math.BigInteger;
 import java.nio.ByteOrder;
 import java.nio.charset.Charset;
 import java.security.GeneralSecurityException;
@@ -37,6 +40,7 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Time;
 import java.sql.Timestamp;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Properties;
 
@@ -112,6 +116,7 @@ public class PgBackendProtocol extends ChannelOutboundHandlerAdapter implements
         private int rowsSent = 0;
         private int rowsInBuffer = 0;
         String sql;
+        Boolean copyBinary;
 
         private ResultsWorkItem(List<PgColInfo> cols, ResultSetImpl rs, ResultsFuture<Integer> result, int rows2Send, short[] resultColumnFormat) {
             this.cols = cols;
@@ -164,7 +169,11 @@ public class PgBackendProtocol extends ChannelOutboundHandlerAdapter implements
             boolean processNext = true;
             try {
                 if (future.get()) {
-                    sendDataRow(rs, cols, resultColumnFormat);
+                    if (copyBinary != null) {
+                        sendCopyData(rs, cols, copyBinary);
+                    } else {
+                        sendDataRow(rs, cols, resultColumnFormat);
+                    }
                     rowsSent++;
                     rowsInBuffer++;
                     boolean done = rowsSent == rows2Send;
@@ -178,6 +187,9 @@ public class PgBackendProtocol extends ChannelOutboundHandlerAdapter implements
                     }
                 } else {
                     sendContents();
+                    if (copyBinary != null) {
+                        sendCopyDone(copyBinary);
+                    }
                     if (sql != null) {
                         sendCommandComplete(sql, rowsSent);
                     }
@@ -202,10 +214,14 @@ public class PgBackendProtocol extends ChannelOutboundHandlerAdapter implements
     }
 
     public static final String DEFAULT_ENCODING = "UTF8";
+    private static final byte[] COPY_SIGNATURE = new byte[] {'P', 'G', 'C', 'O', 'P', 'Y', '\n', (byte)0xff, '\r', '\n', 0};
+    private static final BigInteger NBASE = BigInteger.valueOf(10000);
+    private static final short NUMERIC_POS = 0x0000;
+    private static final short NUMERIC_NEG = 0x4000;
     public static final String CLIENT_ENCODING = "client_encoding";
 
     private ByteBuf dataOut;
-    private OutputStreamWriter writer;
+    private Writer writer;
 
     private Properties props;
     private Charset encoding = Charset.forName("UTF-8");
@@ -414,6 +430,148 @@ public class PgBackendProtocol extends ChannelOutboundHandlerAdapter implements
         }
     }
 
+    @Override
+    public void sendCopyOut(ResultSetImpl rs, List<PgColInfo> cols,
+            ResultsFuture<Integer> result, boolean binary) {
+        if (nextFuture != null) {
+            sendErrorResponse(new IllegalStateException("Pending results have not been sent")); //$NON-NLS-1$
+        }
+        if (binary) {
+            for (int i = 0; i < cols.size(); i++) {
+                PgColInfo info = cols.get(i);
+                if (!isBinary(info.type)) {
+                    result.getResultsReceiver().exceptionOccurred(new TeiidSQLException(RuntimePlugin.Util.gs(RuntimePlugin.Event.TEIID40176, info.name, info.type)));
+                    return;
+                }
+            }
+        }
+        sendCopyResponse('H', cols.size(), binary);
+        ResultsWorkItem r = new ResultsWorkItem(cols, rs, result, -1, null);
+        r.sql = "COPY";
+        r.copyBinary = binary;
+        if (binary) {
+            startMessage('d', -1);
+            int lengthIndex = this.dataOut.writerIndex() - 4;
+            write(COPY_SIGNATURE);
+            //flags
+            writeInt(0);
+            //header extension length
+            writeInt(0);
+            this.dataOut.setInt(lengthIndex, this.dataOut.writerIndex() - lengthIndex);
+        }
+        r.run();
+    }
+
+    @Override
+    public void sendCopyInResponse(int columnCount, boolean binary) {
+        sendCopyResponse('G', columnCount, binary);
+    }
+
+    private void sendCopyResponse(char type, int columnCount, boolean binary) {
+        startMessage(type);
+        write(binary?1:0);
+        writeShort(columnCount);
+        for (int i = 0; i < columnCount; i++) {
+            writeShort(binary?1:0);
+        }
+        sendMessage();
+    }
+
+    /**
+     * Send the row as a single CopyData message in either the text or binary format
+     */
+    private void sendCopyData(ResultSet rs, List<PgColInfo> cols, boolean binary) throws SQLException, IOException {
+        startMessage('d', -1);
+        int lengthIndex = this.dataOut.writerIndex() - 4;
+        if (binary) {
+            writeShort(cols.size());
+            for (int i = 0; i < cols.size(); i++) {
+                int dataBytesIndex = this.dataOut.writerIndex();
+                writeInt(-1);
+                getBinaryContent(rs, cols.get(i), i+1);
+                writer.flush();
+                if (!rs.wasNull()) {
+                    int bytes = this.dataOut.writerIndex() - dataBytesIndex - 4;
+                    this.dataOut.setInt(dataBytesIndex, bytes);
+                }
+            }
+        } else {
+            Writer base = this.writer;
+            this.writer = new CopyTextWriter(base);
+            try {
+                for (int i = 0; i < cols.size(); i++) {
+                    if (i > 0) {
+                        base.write('\t');
+                    }
+                    getContent(rs, cols.get(i), i+1);
+                    if (rs.wasNull()) {
+                        base.write("\\N"); //$NON-NLS-1$
+                    }
+                }
+                base.write('\n');
+                base.flush();
+            } finally {
+                this.writer = base;
+            }
+        }
+        this.dataOut.setInt(lengthIndex, this.dataOut.writerIndex() - lengthIndex);
+    }
+
+    private void sendCopyDone(boolean binary) {
+        if (binary) {
+            //file trailer
+            startMessage('d');
+            writeShort(-1);
+            sendMessage();
+        }
+        startMessage('c');
+        sendMessage();
+    }
+
+    /**
+     * Escapes the text COPY delimiter, row terminator and escape characters
+     */
+    private static final class CopyTextWriter extends FilterWriter {
+
+        private CopyTextWriter(Writer out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int c) throws IOException {
+            switch (c) {
+            case '\\':
+                out.write("\\\\"); //$NON-NLS-1$
+                break;
+            case '\t':
+                out.write("\\t"); //$NON-NLS-1$
+                break;
+            case '\n':
+                out.write("\\n"); //$NON-NLS-1$
+                break;
+            case '\r':
+                out.write("\\r"); //$NON-NLS-1$
+                break;
+            default:
+                out.write(c);
+            }
+        }
+
+        @Override
+        public void write(char[] cbuf, int off, int len) throws IOException {
+            for (int i = off; i < off + len; i++) {
+                write(cbuf[i]);
+            }
+        }
+
+        @Override
+        public void write(String str, int off, int len) throws IOException {
+            for (int i = off; i < off + len; i++) {
+                write(str.charAt(i));
+            }
+        }
+    }
+
     @Override
     public void statementClosed() {
         startMessage('3');
@@ -509,6 +667,12 @@ public class PgBackendProtocol extends ChannelOutboundHandlerAdapter implements
 
     private void getBinaryContent(ResultSet rs, PgColInfo col, int column) throws SQLException, TeiidSQLException, IOException {
         switch (col.type) {
+        case PG_TYPE_BOOL:
+            boolean bval = rs.getBoolean(column);
+            if (!rs.wasNull()) {
+                dataOut.writeByte(bval?1:0);
+            }
+            break;
         case PG_TYPE_INT2:
             short sval = rs.getShort(column);
             if (!rs.wasNull()) {
@@ -539,6 +703,12 @@ public class PgBackendProtocol extends ChannelOutboundHandlerAdapter implements
                 dataOut.writeLong(Double.doubleToLongBits(dval));
             }
             break;
+        case PG_TYPE_NUMERIC:
+            BigDecimal bd = rs.getBigDecimal(column);
+            if (bd != null) {
+                writeNumeric(bd);
+            }
+            break;
         case PG_TYPE_BYTEA:
             Blob blob = rs.getBlob(column);
             if (blob != null) {
@@ -553,38 +723,211 @@ public class PgBackendProtocol extends ChannelOutboundHandlerAdapter implements
         case PG_TYPE_DATE:
             Date d = rs.getDate(column);
             if (d != null) {
-                long millis = d.getTime();
-                millis += TimestampWithTimezone.getCalendar().getTimeZone().getOffset(millis);
-                long secs = TimestampUtils.toPgSecs(millis / 1000);
-                dataOut.writeInt((int) (secs / 86400));
+                writeDate(d);
             }
             break;
         case PG_TYPE_TIME:
             Time time = rs.getTime(column);
             if (time != null) {
-                long millis = time.getTime();
-                millis += TimestampWithTimezone.getCalendar().getTimeZone().getOffset(millis);
-                millis *= 1000;
-                dataOut.writeLong(millis);
+                writeTime(time);
             }
             break;
         case PG_TYPE_TIMESTAMP_NO_TMZONE:
             Timestamp t = rs.getTimestamp(column);
             if (t != null) {
-                long millis = t.getTime();
-                millis += TimestampWithTimezone.getCalendar().getTimeZone().getOffset(millis);
-                long secs = TimestampUtils.toPgSecs(millis / 1000);
-                //convert from secs / millis to micro
-                long pgMicros = secs * 1000000 + (millis % 1000)*1000;
-                pgMicros += t.getNanos()/1000;
-                dataOut.writeLong(pgMicros);
+                writeTimestamp(t);
             }
             break;
+        case PG_TYPE_BPCHAR:
+        case PG_TYPE_VARCHAR:
+        case PG_TYPE_TEXT:
+        case PG_TYPE_XML:
+        case PG_TYPE_JSON:
+            //the binary form is the same as the text form
+            getContent(rs, col, column);
+            break;
+        case PG_TYPE_BOOLARRAY:
+        case PG_TYPE_INT2ARRAY:
+        case PG_TYPE_INT4ARRAY:
+        case PG_TYPE_INT8ARRAY:
+        case PG_TYPE_OIDARRAY:
+        case PG_TYPE_FLOAT4ARRAY:
+        case PG_TYPE_FLOAT8ARRAY:
+        case PG_TYPE_NUMERICARRAY:
+        case PG_TYPE_DATEARRAY:
+        case PG_TYPE_TIMEARRAY:
+        case PG_TYPE_TIMESTAMP_NO_TMZONEARRAY:
+        case PG_TYPE_TEXTARRAY:
+            Array array = rs.getArray(column);
+            if (array != null) {
+                writeArray(array.getArray(), getArrayElementType(col.type));
+            }
+            break;
+        default:
+            throw new AssertionError();
+        }
+    }
+
+    /**
+     * Write the one dimensional array binary form - the dimensions,
+     * the null flag, the element type, the length and lower bound, then each element
+     * with a length prefix.
+     */
+    private void writeArray(Object array, int elementType) throws IOException {
+        int length = java.lang.reflect.Array.getLength(array);
+        int arrayIndex = this.dataOut.writerIndex();
+        writeInt(length == 0?0:1);
+        //has null flag - updated below
+        writeInt(0);
+        writeInt(elementType);
+        if (length == 0) {
+            return;
+        }
+        writeInt(length);
+        //lower bound
+        writeInt(1);
+        boolean hasNull = false;
+        for (int i = 0; i < length; i++) {
+            Object o = java.lang.reflect.Array.get(array, i);
+            int dataBytesIndex = this.dataOut.writerIndex();
+            writeInt(-1);
+            if (o == null) {
+                hasNull = true;
+                continue;
+            }
+            switch (elementType) {
+            case PG_TYPE_BOOL:
+                dataOut.writeByte(((Boolean)o)?1:0);
+                break;
+            case PG_TYPE_INT2:
+                dataOut.writeShort(((Number)o).shortValue());
+                break;
+            case PG_TYPE_INT4:
+            case PG_TYPE_OID:
+                dataOut.writeInt(((Number)o).intValue());
+                break;
+            case PG_TYPE_INT8:
+                dataOut.writeLong(((Number)o).longValue());
+                break;
+            case PG_TYPE_FLOAT4:
+                dataOut.writeInt(Float.floatToIntBits(((Number)o).floatValue()));
+                break;
+            case PG_TYPE_FLOAT8:
+                dataOut.writeLong(Double.doubleToLongBits(((Number)o).doubleValue()));
+                break;
+            case PG_TYPE_NUMERIC:
+                writeNumeric(o instanceof BigDecimal?(BigDecimal)o:new BigDecimal(o.toString()));
+                break;
+            case PG_TYPE_DATE:
+                writeDate((Date)o);
+                break;
+            case PG_TYPE_TIME:
+                writeTime((Time)o);
+                break;
+            case PG_TYPE_TIMESTAMP_NO_TMZONE:
+                writeTimestamp((Timestamp)o);
+                break;
+            default:
+                writer.write(o.toString());
+                writer.flush();
+                break;
+            }
+            this.dataOut.setInt(dataBytesIndex, this.dataOut.writerIndex() - dataBytesIndex - 4);
+        }
+        if (hasNull) {
+            this.dataOut.setInt(arrayIndex + 4, 1);
+        }
+    }
+
+    static int getArrayElementType(int arrayType) {
+        switch (arrayType) {
+        case PG_TYPE_BOOLARRAY:
+            return PG_TYPE_BOOL;
+        case PG_TYPE_INT2ARRAY:
+            return PG_TYPE_INT2;
+        case PG_TYPE_INT4ARRAY:
+            return PG_TYPE_INT4;
+        case PG_TYPE_INT8ARRAY:
+            return PG_TYPE_INT8;
+        case PG_TYPE_OIDARRAY:
+            return PG_TYPE_OID;
+        case PG_TYPE_FLOAT4ARRAY:
+            return PG_TYPE_FLOAT4;
+        case PG_TYPE_FLOAT8ARRAY:
+            return PG_TYPE_FLOAT8;
+        case PG_TYPE_NUMERICARRAY:
+            return PG_TYPE_NUMERIC;
+        case PG_TYPE_DATEARRAY:
+            return PG_TYPE_DATE;
+        case PG_TYPE_TIMEARRAY:
+            return PG_TYPE_TIME;
+        case PG_TYPE_TIMESTAMP_NO_TMZONEARRAY:
+            return PG_TYPE_TIMESTAMP_NO_TMZONE;
+        case PG_TYPE_TEXTARRAY:
+            return PG_TYPE_TEXT;
         default:
             throw new AssertionError();
         }
     }
 
+    private void writeDate(Date d) {
+        long millis = d.getTime();
+        millis += TimestampWithTimezone.getCalendar().getTimeZone().getOffset(millis);
+        long secs = TimestampUtils.toPgSecs(millis / 1000);
+        dataOut.writeInt((int) (secs / 86400));
+    }
+
+    private void writeTime(Time time) {
+        long millis = time.getTime();
+        millis += TimestampWithTimezone.getCalendar().getTimeZone().getOffset(millis);
+        millis *= 1000;
+        dataOut.writeLong(millis);
+    }
+
+    private void writeTimestamp(Timestamp t) {
+        long millis = t.getTime();
+        millis += TimestampWithTimezone.getCalendar().getTimeZone().getOffset(millis);
+        long secs = TimestampUtils.toPgSecs(millis / 1000);
+        //convert from secs / millis to micro
+        long pgMicros = secs * 1000000 + (millis % 1000)*1000;
+        pgMicros += t.getNanos()/1000;
+        dataOut.writeLong(pgMicros);
+    }
+
+    /**
+     * Write the numeric binary form - the count of base 10000 digits, the weight
+     * of the first digit, the sign, the display scale, then the digits.
+     */
+    private void writeNumeric(BigDecimal value) {
+        short[] digits = new short[8];
+        int scale = Math.max(0, value.scale());
+        //align the scale to a digit boundary
+        BigInteger unscaled = value.setScale(scale + (4 - scale % 4) % 4).unscaledValue().abs();
+        int fractionDigits = (scale + 3) / 4;
+        int count = 0;
+        while (unscaled.signum() != 0) {
+            BigInteger[] divRem = unscaled.divideAndRemainder(NBASE);
+            if (count == digits.length) {
+                digits = Arrays.copyOf(digits, count << 1);
+            }
+            digits[count++] = divRem[1].shortValue();
+            unscaled = divRem[0];
+        }
+        int weight = count - fractionDigits - 1;
+        //trailing zeros are not needed
+        int start = 0;
+        while (start < count && digits[start] == 0) {
+            start++;
+        }
+        writeShort(count - start);
+        writeShort(count == 0?0:weight);
+        writeShort(value.signum() < 0?NUMERIC_NEG:NUMERIC_POS);
+        writeShort(scale);
+        for (int i = count - 1; i >= start; i--) {
+            writeShort(digits[i]);
+        }
+    }
+
     private void getContent(ResultSet rs, PgColInfo col, int column) throws SQLException, TeiidSQLException, IOException {
         switch (col.type) {
             case PG_TYPE_BOOL:
@@ -780,17 +1123,40 @@ public class PgBackendProtocol extends ChannelOutboundHandlerAdapter implements
         sendMessage();
     }
 
+    /**
+     * Types that may be sent in the binary format.  The text types use their text
+     * representation as the binary form.
+     */
     boolean isBinary(int oid) {
         switch (oid) {
+        case PG_TYPE_BOOL:
         case PG_TYPE_INT2:
         case PG_TYPE_INT4:
         case PG_TYPE_INT8:
         case PG_TYPE_FLOAT4:
         case PG_TYPE_FLOAT8:
+        case PG_TYPE_NUMERIC:
         case PG_TYPE_BYTEA:
         case PG_TYPE_DATE:
         case PG_TYPE_TIME:
         case PG_TYPE_TIMESTAMP_NO_TMZONE:
+        case PG_TYPE_BPCHAR:
+        case PG_TYPE_VARCHAR:
+        case PG_TYPE_TEXT:
+        case PG_TYPE_XML:
+        case PG_TYPE_JSON:
+        case PG_TYPE_BOOLARRAY:
+        case PG_TYPE_INT2ARRAY:
+        case PG_TYPE_INT4ARRAY:
+        case PG_TYPE_INT8ARRAY:
+        case PG_TYPE_OIDARRAY:
+        case PG_TYPE_FLOAT4ARRAY:
+        case PG_TYPE_FLOAT8ARRAY:
+        case PG_TYPE_NUMERICARRAY:
+        case PG_TYPE_DATEARRAY:
+        case PG_TYPE_TIMEARRAY:
+        case PG_TYPE_TIMESTAMP_NO_TMZONEARRAY:
+        case PG_TYPE_TEXTARRAY:
             return true;
         }
         return false;
@@ -68,6 +68,14 @@ public class SSLAwareChannelHandler extends ChannelDuplexHandler {
             return channel.isOpen();
         }
 
+        /**
+         * Stop or resume reading from the socket, so that a listener
+         * can apply backpressure when it is queuing messages
+         */
+        public void setAutoRead(boolean autoRead) {
+            channel.config().setAutoRead(autoRead);
+        }
+
         public SocketAddress getRemoteAddress() {
             return channel.remoteAddress();
         }
@@ -184,4 +184,37 @@ public class TestLocalBufferService {
         BufferFrontedFileStoreCache cache = (BufferFrontedFileStoreCache)impl.getCache();
         assertEquals(1073741824, cache.getMemoryBufferSpace());
     }
+
+    @Test public void testMappedFixedMemoryBuffer() throws Exception {
+        BufferServiceImpl svc = new BufferServiceImpl();
+        svc.setDiskDirectory(UnitTestUtil.getTestScratchPath()+"/teiid/1");
+        svc.setFixedMemoryBufferMapped(true);
+        svc.setFixedMemoryBufferSpaceMb(16);
+        svc.start();
+        BufferFrontedFileStoreCache cache = (BufferFrontedFileStoreCache)svc.getBufferManager().getCache();
+        assertEquals(svc.getBufferDirectory(), cache.getMemoryMappedDirectory());
+        svc.stop();
+
+        //the mapped files would not be encrypted
+        svc = new BufferServiceImpl();
+        svc.setDiskDirectory(UnitTestUtil.getTestScratchPath()+"/teiid/1");
+        svc.setFixedMemoryBufferMapped(true);
+        svc.setFixedMemoryBufferSpaceMb(16);
+        svc.setEncryptFiles(true);
+        svc.start();
+        cache = (BufferFrontedFileStoreCache)svc.getBufferManager().getCache();
+        assertNull(cache.getMemoryMappedDirectory());
+        svc.stop();
+
+        //the mapped files must fit within the disk limit
+        svc = new BufferServiceImpl();
+        svc.setDiskDirectory(UnitTestUtil.getTestScratchPath()+"/teiid/1");
+        svc.setFixedMemoryBufferMapped(true);
+        svc.setFixedMemoryBufferSpaceMb(16);
+        svc.setMaxDiskBufferSpaceMb(8);
+        svc.start();
+        cache = (BufferFrontedFileStoreCache)svc.getBufferManager().getCache();
+        assertNull(cache.getMemoryMappedDirectory());
+        svc.stop();
+    }
 }
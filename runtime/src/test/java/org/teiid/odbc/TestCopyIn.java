@@ -0,0 +1,173 @@
+/*
+ * Copyright Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags and
+ * the COPYRIGHT.txt file distributed with this work.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.teiid.odbc;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.nio.charset.Charset;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+import org.teiid.odbc.ODBCServerRemoteImpl.CopyFormat;
+import org.teiid.odbc.ODBCServerRemoteImpl.CopyIn;
+import org.teiid.odbc.PGUtil.PgColInfo;
+
+@SuppressWarnings("nls")
+public class TestCopyIn {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private static class CollectingCopyIn extends CopyIn {
+        List<List<Object>> rows = new ArrayList<List<Object>>();
+        boolean blocked;
+
+        CollectingCopyIn(CopyFormat format, boolean header, int... types) {
+            super(getCols(types), format, header);
+        }
+
+        @Override
+        protected void addRow(Object[] values) throws SQLException {
+            rows.add(Arrays.asList(values));
+        }
+
+        @Override
+        boolean isBlocked() {
+            return blocked;
+        }
+    }
+
+    private static List<PgColInfo> getCols(int... types) {
+        List<PgColInfo> cols = new ArrayList<PgColInfo>();
+        for (int i = 0; i < types.length; i++) {
+            PgColInfo info = new PgColInfo();
+            info.name = "c" + i;
+            info.type = types[i];
+            cols.add(info);
+        }
+        return cols;
+    }
+
+    @Test public void testText() throws Exception {
+        CollectingCopyIn copy = new CollectingCopyIn(CopyFormat.TEXT, false, PGUtil.PG_TYPE_VARCHAR, PGUtil.PG_TYPE_BOOL);
+        //rows split across messages
+        copy.add("a\\nb\tt\n\\N\t".getBytes(UTF_8), UTF_8);
+        assertEquals(1, copy.rows.size());
+        copy.add("f\r\nc\\\\d\t\\N".getBytes(UTF_8), UTF_8);
+        assertEquals(2, copy.rows.size());
+        //the last line does not need a terminator
+        copy.finish();
+        assertEquals(Arrays.asList(Arrays.asList("a\nb", true), Arrays.asList(null, false), Arrays.asList("c\\d", null)), copy.rows);
+    }
+
+    @Test public void testTextEndMarker() throws Exception {
+        CollectingCopyIn copy = new CollectingCopyIn(CopyFormat.TEXT, false, PGUtil.PG_TYPE_VARCHAR);
+        copy.add("a\n\\.\nb\n".getBytes(UTF_8), UTF_8);
+        copy.finish();
+        assertEquals(Arrays.asList(Arrays.asList((Object)"a")), copy.rows);
+    }
+
+    @Test(expected=SQLException.class) public void testTextWrongColumnCount() throws Exception {
+        CollectingCopyIn copy = new CollectingCopyIn(CopyFormat.TEXT, false, PGUtil.PG_TYPE_VARCHAR, PGUtil.PG_TYPE_VARCHAR);
+        copy.add("a\tb\tc\n".getBytes(UTF_8), UTF_8);
+    }
+
+    @Test public void testUnescapeText() {
+        assertNull(CopyIn.unescapeText("\\N"));
+        assertEquals("a\tb", CopyIn.unescapeText("a\\tb"));
+        assertEquals("\b\f\r" + (char)11, CopyIn.unescapeText("\\b\\f\\r\\v"));
+        assertEquals("A!x", CopyIn.unescapeText("\\x41\\41\\x"));
+        assertEquals("\\N", CopyIn.unescapeText("\\\\N"));
+        assertEquals("a\\", CopyIn.unescapeText("a\\"));
+    }
+
+    @Test public void testCsv() throws Exception {
+        CollectingCopyIn copy = new CollectingCopyIn(CopyFormat.CSV, true, PGUtil.PG_TYPE_VARCHAR, PGUtil.PG_TYPE_VARCHAR);
+        copy.add("x,y\na,\"b,\"\"c\"\"\"\n,\"\"\n\"multi\n".getBytes(UTF_8), UTF_8);
+        assertEquals(2, copy.rows.size());
+        copy.add("line\",d\n".getBytes(UTF_8), UTF_8);
+        copy.finish();
+        assertEquals(Arrays.asList(Arrays.asList("a", "b,\"c\""), Arrays.asList(null, ""), Arrays.asList("multi\nline", "d")), copy.rows);
+    }
+
+    @Test public void testBinary() throws Exception {
+        CollectingCopyIn copy = new CollectingCopyIn(CopyFormat.BINARY, false, PGUtil.PG_TYPE_INT4, PGUtil.PG_TYPE_TEXT);
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(baos);
+        out.write(new byte[] {'P', 'G', 'C', 'O', 'P', 'Y', '\n', (byte)0xff, '\r', '\n', 0});
+        out.writeInt(0);
+        out.writeInt(0);
+        out.writeShort(2);
+        out.writeInt(4);
+        out.writeInt(5);
+        out.writeInt(3);
+        out.write("abc".getBytes(UTF_8));
+        out.writeShort(2);
+        out.writeInt(-1);
+        out.writeInt(0);
+        out.writeShort(-1);
+        byte[] bytes = baos.toByteArray();
+        //split the first tuple across messages
+        copy.add(Arrays.copyOf(bytes, 25), UTF_8);
+        assertEquals(0, copy.rows.size());
+        copy.add(Arrays.copyOfRange(bytes, 25, bytes.length), UTF_8);
+        copy.finish();
+        assertEquals(Arrays.asList(Arrays.asList(5, "abc"), Arrays.asList(null, "")), copy.rows);
+    }
+
+    @Test(expected=SQLException.class) public void testBinaryInvalidSignature() throws Exception {
+        CollectingCopyIn copy = new CollectingCopyIn(CopyFormat.BINARY, false, PGUtil.PG_TYPE_INT4);
+        copy.add(new byte[19], UTF_8);
+    }
+
+    @Test public void testBinarySupported() {
+        assertTrue(CopyIn.isBinarySupported(PGUtil.PG_TYPE_INT8));
+        assertTrue(CopyIn.isBinarySupported(PGUtil.PG_TYPE_VARCHAR));
+        assertFalse(CopyIn.isBinarySupported(PGUtil.PG_TYPE_NUMERIC));
+        assertFalse(CopyIn.isBinarySupported(PGUtil.PG_TYPE_INT4ARRAY));
+    }
+
+    @Test public void testBlocked() throws Exception {
+        CollectingCopyIn copy = new CollectingCopyIn(CopyFormat.TEXT, false, PGUtil.PG_TYPE_VARCHAR);
+        copy.blocked = true;
+        copy.add("a\nb\n".getBytes(UTF_8), UTF_8);
+        assertEquals(0, copy.rows.size());
+        copy.blocked = false;
+        copy.resume();
+        assertEquals(2, copy.rows.size());
+    }
+
+    @Test public void testFormat() throws Exception {
+        assertEquals(CopyFormat.TEXT, ODBCServerRemoteImpl.getCopyFormat(""));
+        assertEquals(CopyFormat.BINARY, ODBCServerRemoteImpl.getCopyFormat(" WITH BINARY"));
+        assertEquals(CopyFormat.CSV, ODBCServerRemoteImpl.getCopyFormat(" CSV HEADER"));
+        assertEquals(CopyFormat.CSV, ODBCServerRemoteImpl.getCopyFormat(" (FORMAT csv, HEADER true)"));
+        assertTrue(ODBCServerRemoteImpl.hasCopyHeader(" (FORMAT csv, HEADER true)"));
+        assertFalse(ODBCServerRemoteImpl.hasCopyHeader(" csv"));
+    }
+
+    @Test(expected=SQLException.class) public void testUnsupportedFormat() throws Exception {
+        ODBCServerRemoteImpl.getCopyFormat(" (FORMAT xml)");
+    }
+
+}
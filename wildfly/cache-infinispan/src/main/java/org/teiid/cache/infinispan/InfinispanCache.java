@@ -93,4 +93,9 @@ public class InfinispanCache<K, V> implements Cache<K, V> {
     public Set<K> keySet() {
         return this.cacheStore.with(this.classloader).keySet();
     }
+
+    @Override
+    public long getEvictionCount() {
+        return -1; //eviction is managed by the infinispan configuration and statistics
+    }
 }
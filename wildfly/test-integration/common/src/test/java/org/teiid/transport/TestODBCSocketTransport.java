@@ -18,6 +18,7 @@
 
 package org.teiid.transport;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
@@ -25,6 +26,12 @@ import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.math.BigDecimal;
 import java.net.InetSocketAddress;
 import java.nio.charset.Charset;
 import java.sql.Array;
@@ -48,6 +55,8 @@ import org.junit.BeforeClass;
 import org.junit.Test;
 import org.mockito.Mockito;
 import org.postgresql.Driver;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyManager;
 import org.postgresql.core.v3.ExtendedQueryExecutorImpl;
 import org.postgresql.util.PSQLException;
 import org.teiid.adminapi.Model.Type;
@@ -999,4 +1008,87 @@ public class TestODBCSocketTransport {
         TestMMDatabaseMetaData.compareResultSet(s.getResultSet());
     }
 
+    @Test public void testBinaryResults() throws Exception {
+        connect("parts", new AbstractMap.SimpleEntry<String, String>("binaryTransfer", "true"), new AbstractMap.SimpleEntry<String, String>("prepareThreshold", "-1"));
+        PreparedStatement s = conn.prepareStatement("SELECT cast(-1234.0056 as bigdecimal), cast(0 as bigdecimal), 10000000000, true, 'abc', (1, null, 3), ('a', 'b')");
+        ResultSet rs = s.executeQuery();
+        rs.next();
+        assertEquals(new BigDecimal("-1234.0056"), rs.getBigDecimal(1));
+        assertEquals(0, rs.getBigDecimal(2).signum());
+        assertEquals(10000000000l, rs.getLong(3));
+        assertTrue(rs.getBoolean(4));
+        assertEquals("abc", rs.getString(5));
+        assertArrayEquals(new Integer[] {1, null, 3}, (Object[])rs.getArray(6).getArray());
+        assertArrayEquals(new String[] {"a", "b"}, (Object[])rs.getArray(7).getArray());
+    }
+
+    @Test public void testCopy() throws Exception {
+        CopyManager copy = conn.unwrap(PGConnection.class).getCopyAPI();
+        StringWriter writer = new StringWriter();
+        assertEquals(1, copy.copyOut("COPY (select 'a\tb', null, 1) TO STDOUT", writer));
+        assertEquals("a\\tb\t\\N\t1\n", writer.toString());
+
+        Statement s = conn.createStatement();
+        assertFalse(s.execute("create local temporary table x (y string, z integer)"));
+        assertEquals(2, copy.copyIn("COPY x FROM STDIN", new StringReader("a\\nb\t1\n\\N\t2\n")));
+        ResultSet rs = s.executeQuery("select y, z from x order by z");
+        rs.next();
+        assertEquals("a\nb", rs.getString(1));
+        rs.next();
+        assertNull(rs.getString(1));
+        assertEquals(2, rs.getInt(2));
+    }
+
+    @Test public void testCopyCsv() throws Exception {
+        CopyManager copy = conn.unwrap(PGConnection.class).getCopyAPI();
+        Statement s = conn.createStatement();
+        assertFalse(s.execute("create local temporary table x (y string, z integer)"));
+        assertEquals(2, copy.copyIn("COPY x FROM STDIN WITH CSV HEADER", new StringReader("y,z\n\"a,\"\"b\"\"\",1\n,2\n")));
+        ResultSet rs = s.executeQuery("select y, z from x order by z");
+        rs.next();
+        assertEquals("a,\"b\"", rs.getString(1));
+        rs.next();
+        assertNull(rs.getString(1));
+        assertEquals(2, rs.getInt(2));
+    }
+
+    @Test public void testCopyFailRollback() throws Exception {
+        CopyManager copy = conn.unwrap(PGConnection.class).getCopyAPI();
+        Statement s = conn.createStatement();
+        assertFalse(s.execute("create local temporary table x (y string, z integer)"));
+        Reader reader = new Reader() {
+            boolean read;
+            @Override
+            public int read(char[] cbuf, int off, int len) throws IOException {
+                if (read) {
+                    throw new IOException("client failure");
+                }
+                read = true;
+                String rows = "a\t1\nb\t2\n";
+                rows.getChars(0, rows.length(), cbuf, off);
+                return rows.length();
+            }
+            @Override
+            public void close() throws IOException {
+            }
+        };
+        try {
+            copy.copyIn("COPY x FROM STDIN", reader);
+            fail();
+        } catch (IOException | SQLException e) {
+            //expected
+        }
+        assertTrue(conn.getAutoCommit());
+        ResultSet rs = s.executeQuery("select count(*) from x");
+        rs.next();
+        assertEquals(0, rs.getInt(1));
+    }
+
+    @Test(expected=SQLException.class) public void testCopyBinaryUnsupportedType() throws Exception {
+        CopyManager copy = conn.unwrap(PGConnection.class).getCopyAPI();
+        Statement s = conn.createStatement();
+        assertFalse(s.execute("create local temporary table x (y bigdecimal)"));
+        copy.copyIn("COPY x FROM STDIN WITH BINARY", new ByteArrayInputStream(new byte[0]));
+    }
+
 }